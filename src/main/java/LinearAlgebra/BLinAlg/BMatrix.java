@@ -1,7 +1,22 @@
 package LinearAlgebra.BLinAlg;
 
+import LinearAlgebra.Decompositions.Eigen;
+import LinearAlgebra.Decompositions.LU;
+import LinearAlgebra.Decompositions.QR;
+import LinearAlgebra.Decompositions.SVD;
+import LinearAlgebra.FloatPredicate;
+import LinearAlgebra.FloatUnaryOperator;
+import LinearAlgebra.Kernels.Gemm;
+import LinearAlgebra.Kernels.Operand;
+import LinearAlgebra.Kernels.Reductions;
+import LinearAlgebra.Kernels.Selection;
+import LinearAlgebra.Kernels.Vectors;
 import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixArena;
 import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import LinearAlgebra.MutableMatrix;
+import LinearAlgebra.Uniques;
 import Misc.Tuple;
 
 import java.util.*;
@@ -13,24 +28,25 @@ import java.util.function.Predicate;
  * elements.
  * COL_DELIMITER is the standard column delimiter used by the toString() method.
  * ROW_DELIMITER is the standard row delimiter used by the toString() method.
- * ZERO_TOLERANCE is the tolerance used when finding the inverse of square Matrices.
  * EQUALITY_TOLERANCE is the standard maximum allowed difference between two elements with the same index in two
  * different Matrices, which should still be considered equal.
- * matrixInverter is the instance of a MatrixInverter used to find the inverse of square Matrices.
  * bPseudoInverter is the instance of a BPseudoInverter used to find the pseudo inverse of rectangular Matrices.
  *
+ * Results share row arrays with the Matrix they were created from where possible (row, rowr, rtr, rows(...) and
+ * concv), except when that Matrix is a BMutableMatrix, whose rows can change. Since a BMatrix never holds more than
+ * its own rows, it is always compact.
+ *
  * See the documentation of the superclass Matrix.
  */
 public class BMatrix implements Matrix {
     private static final char COL_DELIMITER = ' ';
     private static final char ROW_DELIMITER = '\n';
-    private static final float ZERO_TOLERANCE = 1e-5f;
     private static final float EQUALITY_TOLERANCE = 1e-4f;
-    private static final MatrixInverter matrixInverter = new NUCESInverter(ZERO_TOLERANCE);
     private static final BPseudoInverter bPseudoInverter = new GenInv();
-    private final float[][] mat;
-    private final int m;
-    private final int n;
+    private static final MatrixFactory bMatrixFactory = new BMatrixFactory();
+    final float[][] mat;
+    final int m;
+    final int n;
 
     BMatrix(float[][] matrix) {
         this.mat = matrix;
@@ -61,14 +77,22 @@ public class BMatrix implements Matrix {
         return new BMatrix(res);
     }
 
+    public BMutableMatrix mcopy() {
+        return new BMutableMatrix(copyMatrix(mat));
+    }
+
+    public BMatrix compact() {
+        return this;
+    }
+
     public BMatrix conch(Matrix otherMatrix) {
-        BMatrix other = (BMatrix) otherMatrix;
+        BMatrix other = of(otherMatrix);
 
         if (!(m == other.m)) {
             throw new MatrixException("Mismatching number of rows, " + m + " and " + other.m);
         }
 
-        float[][] res = createfloatArray(m, n + other.cols());
+        float[][] res = new float[m][];
         for (int i = 0; i < m; i++) {
             res[i] = combineHorizontally(mat[i], other.mat[i]);
         }
@@ -76,15 +100,15 @@ public class BMatrix implements Matrix {
     }
 
     public BMatrix concv(Matrix otherMatrix) {
-        BMatrix other = (BMatrix) otherMatrix;
+        BMatrix other = of(otherMatrix);
 
         if (!(n == other.n)) {
             throw new MatrixException("Mismatching number of columns, " + n + " and " + other.n);
         }
 
-        float[][] res = createfloatArray(m + other.m, n);
-        System.arraycopy(mat, 0, res, 0, m);
-        System.arraycopy(other.mat, 0, res, m, other.rows());
+        float[][] res = new float[m + other.m][];
+        System.arraycopy(shareableRows(), 0, res, 0, m);
+        System.arraycopy(other.shareableRows(), 0, res, m, other.rows());
         return new BMatrix(res);
     }
 
@@ -92,8 +116,13 @@ public class BMatrix implements Matrix {
         return mat[row][col];
     }
 
+    public void copyRowInto(int row, float[] dest, int destPos) {
+        checkIndices(row, 0);
+        System.arraycopy(mat[row], 0, dest, destPos, n);
+    }
+
     public float toFloat() {
-        if (size().equals(new Tuple<>(1, 1))) {
+        if (m == 1 && n == 1) {
             return mat[0][0];
         } else {
             throw new MatrixException("Matrix is not 1x1");
@@ -102,7 +131,7 @@ public class BMatrix implements Matrix {
 
     public BMatrix row(int row) {
         checkIndices(row, 0);
-        return subm(row, row, 0, cols() - 1);
+        return rowr(row, row);
     }
 
     public BMatrix col(int col) {
@@ -112,11 +141,11 @@ public class BMatrix implements Matrix {
 
     public BMatrix rows(int... rowIndices) {
         int rowsToReturn = rowIndices.length;
-        float[][] res = createfloatArray(rowsToReturn, n);
+        float[][] res = new float[rowsToReturn][];
         int i = 0;
         for (int rowIndex : rowIndices) {
             checkIndices(rowIndex, 0);
-            res[i++] = mat[rowIndex];
+            res[i++] = this instanceof MutableMatrix ? mat[rowIndex].clone() : mat[rowIndex];
         }
         return new BMatrix(res);
     }
@@ -135,7 +164,12 @@ public class BMatrix implements Matrix {
     }
 
     public BMatrix rowr(int from, int to) {
-        return subm(from, to, 0, cols() - 1);
+        if (this instanceof MutableMatrix) {
+            return subm(from, to, 0, cols() - 1);
+        }
+        checkIndices(from, 0);
+        checkIndices(to, 0);
+        return new BMatrix(Arrays.copyOfRange(mat, from, to + 1));
     }
 
     public BMatrix colr(int from, int to) {
@@ -170,7 +204,7 @@ public class BMatrix implements Matrix {
 
         checkIndices(fromRow, fromCol);
         checkIndices(fromRow + otherMatrix.rows() - 1, fromCol + otherMatrix.cols() - 1);
-        BMatrix other = (BMatrix) otherMatrix;
+        BMatrix other = of(otherMatrix);
         int i = fromRow;
         for (float[] row : other.mat) {
             int j = fromCol;
@@ -184,23 +218,57 @@ public class BMatrix implements Matrix {
     }
 
     public Tuple<Matrix> minh() {
-        return findExtremasHorizontally(Comparator.comparingDouble(d -> d));
+        return extremasHorizontally(argminh());
     }
 
     public Tuple<Matrix> minv() {
-        return findExtremasVertically(Comparator.comparing(d -> d));
+        return extremasVertically(argminv());
     }
 
     public Tuple<Matrix> maxh() {
-        return findExtremasHorizontally(Comparator.comparing(d -> -d));
+        return extremasHorizontally(argmaxh());
     }
 
     public Tuple<Matrix> maxv() {
-        return findExtremasVertically(Comparator.comparing(d -> -d));
+        return extremasVertically(argmaxv());
+    }
+
+    public int[] argminh() {
+        int[] res = new int[m];
+        Selection.arg(mat, n, false, res);
+        return res;
+    }
+
+    public int[] argminv() {
+        int[] res = new int[n];
+        Selection.argCols(mat, n, false, res);
+        return res;
+    }
+
+    public int[] argmaxh() {
+        int[] res = new int[m];
+        Selection.arg(mat, n, true, res);
+        return res;
+    }
+
+    public int[] argmaxv() {
+        int[] res = new int[n];
+        Selection.argCols(mat, n, true, res);
+        return res;
+    }
+
+    public int[][] topkh(int k) {
+        checkTopK(k, n);
+        return Selection.topK(mat, n, k);
+    }
+
+    public int[][] topkv(int k) {
+        checkTopK(k, m);
+        return Selection.topKCols(mat, n, k);
     }
 
     public BMatrix add(Matrix otherMatrix) {
-        BMatrix other = (BMatrix) otherMatrix;
+        BMatrix other = of(otherMatrix);
 
         int otherRows = other.rows();
         int otherCols = other.cols();
@@ -218,7 +286,7 @@ public class BMatrix implements Matrix {
     }
 
     public BMatrix addc(Matrix otherMatrix) {
-        BMatrix other = (BMatrix) otherMatrix;
+        BMatrix other = of(otherMatrix);
         float[][] res = createfloatArray(m, n);
 
         for (int i = 0; i < m; i++) {
@@ -231,7 +299,7 @@ public class BMatrix implements Matrix {
     }
 
     public BMatrix addr(Matrix otherMatrix) {
-        BMatrix other = (BMatrix) otherMatrix;
+        BMatrix other = of(otherMatrix);
         float[][] res = createfloatArray(m, n);
 
         for (int i = 0; i < m; i++) {
@@ -262,26 +330,59 @@ public class BMatrix implements Matrix {
         return add(-scalar);
     }
 
-    public BMatrix mul(Matrix otherMatrix) {
-        BMatrix other = ((BMatrix) otherMatrix);
+    public BMatrix rsub(float scalar) {
+        return map(d -> scalar - d);
+    }
 
-        if (n == other.m) {
-            return multiplyMatrix(other);
-        } else if (other.m == 1 && other.n == 1) {
+    public BMatrix mul(Matrix other) {
+        if (n == other.rows()) {
+            return multiplyOperands(operand(), other.operand());
+        } else if (other.rows() == 1 && other.cols() == 1) {
             return mul(other.get(0, 0));
         } else if (m == 1 && n == 1) {
-            return other.mul(mat[0][0]);
+            return of(other).mul(mat[0][0]);
         } else {
             throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size());
         }
     }
 
+    public BMatrix tmul(Matrix other) {
+        if (m != other.rows()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " transposed and "
+                    + other.size());
+        }
+        return multiplyOperands(operand().tran(), other.operand());
+    }
+
+    public BMatrix mult(Matrix other) {
+        if (n != other.cols()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size()
+                    + " transposed");
+        }
+        return multiplyOperands(operand(), other.operand().tran());
+    }
+
+    public BMutableMatrix mul(Matrix other, MutableMatrix into) {
+        if (n != other.rows()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size());
+        }
+        return checkDestination(other, into).multiply(operand(), other.operand());
+    }
+
+    public BMutableMatrix tmul(Matrix other, MutableMatrix into) {
+        if (m != other.rows()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " transposed and "
+                    + other.size());
+        }
+        return checkDestination(other, into).multiply(operand().tran(), other.operand());
+    }
+
     public BMatrix mul(float scalar) {
         return map(d -> d * scalar);
     }
 
     public Matrix mulr(Matrix rowMatrix) {
-        BMatrix row = ((BMatrix) rowMatrix);
+        BMatrix row = of(rowMatrix);
         if (!(row.cols() == n && row.rows() == 1)) {
             throw new MatrixException("Argument is not row of right size " + row.size());
         }
@@ -295,7 +396,7 @@ public class BMatrix implements Matrix {
     }
 
     public BMatrix mulc(Matrix columnMatrix) {
-        BMatrix column = ((BMatrix) columnMatrix);
+        BMatrix column = of(columnMatrix);
         if (!(column.rows() == m && column.cols() == 1)) {
             throw new MatrixException("Argument is not column of right size " + column.size());
         }
@@ -309,16 +410,14 @@ public class BMatrix implements Matrix {
     }
 
     public BMatrix mulew(Matrix otherMatrix) {
-        BMatrix other = (BMatrix) otherMatrix;
+        BMatrix other = of(otherMatrix);
 
         if (m != other.rows() || n != other.cols()) {
             throw new MatrixException("Matrices are not of same size, " + size() + " and " + other.size());
         }
         float[][] res = createfloatArray(m, n);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                res[i][j] = mat[i][j] * other.mat[i][j];
-            }
+            Vectors.mul(mat[i], 0, other.mat[i], 0, res[i], 0, n);
         }
         return new BMatrix(res);
     }
@@ -340,52 +439,49 @@ public class BMatrix implements Matrix {
     }
 
     public BMatrix sumh() {
+        float[] sums = new float[m];
+        Reductions.sumRows(mat, n, sums);
         float[][] res = createfloatArray(m, 1);
         for (int i = 0; i < m; i++) {
-            float sum = 0;
-            for (int j = 0; j < n; j++) {
-                sum += mat[i][j];
-            }
-            res[i][0] = sum;
+            res[i][0] = sums[i];
         }
         return new BMatrix(res);
     }
 
     public BMatrix sumv() {
         float[][] res = createfloatArray(1, n);
-        for (int j = 0; j < n; j++) {
-            float sum = 0;
-            for (int i = 0; i < m; i++) {
-                sum += mat[i][j];
-            }
-            res[0][j] = sum;
-        }
+        Reductions.sumCols(mat, n, res[0]);
         return new BMatrix(res);
     }
 
     public Matrix sum() {
-        float sum = 0;
-        for (float[] row : mat) {
-            for (float element : row) {
-                sum += element;
-            }
-        }
-        return new BMatrix(sum);
+        return new BMatrix(Reductions.sum(mat, n));
     }
 
     public Matrix sumsqr() {
-        return map(d -> (float) Math.pow(d, 2)).sum();
+        return new BMatrix(Reductions.sumsqr(mat, n));
     }
 
     public BMatrix inv() {
-        float[][] copy = copyMatrix(mat);
-        return new BMatrix(matrixInverter.invert(copy));
+        return (BMatrix) lu().inverse();
     }
 
     public BMatrix pinv() {
         return bPseudoInverter.pseudoInvert(this);
     }
 
+    public LU lu() {
+        return LU.of(this, bMatrixFactory);
+    }
+
+    public QR qr() {
+        return QR.of(this, bMatrixFactory);
+    }
+
+    public Eigen eig() {
+        return Eigen.of(this, bMatrixFactory);
+    }
+
     public BMatrix tran() {
         float[][] res = createfloatArray(n, m);
         for (int i = 0; i < m; i++) {
@@ -428,28 +524,56 @@ public class BMatrix implements Matrix {
         return new BMatrix(res);
     }
 
-    public Matrix mask(Predicate<Float> pred) {
+    public BMatrix map(FloatUnaryOperator function) {
+        float[][] res = createfloatArray(m, n);
+        for (int i = 0; i < m; i++) {
+            float[] row = mat[i];
+            float[] resRow = res[i];
+            for (int j = 0; j < n; j++) {
+                resRow[j] = function.applyAsFloat(row[j]);
+            }
+        }
+        return new BMatrix(res);
+    }
+
+    public BMatrix mask(Predicate<Float> pred) {
         return map(d -> {
             if (pred.test(d)) return 1f;
             else return 0f;
         });
     }
 
+    public BMatrix mask(FloatPredicate pred) {
+        float[][] res = createfloatArray(m, n);
+        for (int i = 0; i < m; i++) {
+            float[] row = mat[i];
+            float[] resRow = res[i];
+            for (int j = 0; j < n; j++) {
+                resRow[j] = pred.test(row[j]) ? 1f : 0f;
+            }
+        }
+        return new BMatrix(res);
+    }
+
     public Matrix usemask(Matrix maskMatrix) {
-        BMatrix mask = (BMatrix) maskMatrix;
-        ArrayList<Float> values = new ArrayList<>();
-        for (int j = 0; j < n; j++) {
-            for (int i = 0; i < m; i++) {
+        BMatrix mask = of(maskMatrix);
+        int count = 0;
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
                 if (mask.mat[i][j] != 0) {
-                    values.add(mat[i][j]);
+                    count++;
                 }
             }
         }
 
-        float[][] res = createfloatArray(values.size(), 1);
-        int i = 0;
-        for (float element : values) {
-            res[i++][0] = element;
+        float[][] res = createfloatArray(count, 1);
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                if (mask.mat[i][j] != 0) {
+                    res[k++][0] = mat[i][j];
+                }
+            }
         }
         return new BMatrix(res);
     }
@@ -474,11 +598,7 @@ public class BMatrix implements Matrix {
         if (m < 2) {
             throw new MatrixException("Can not remove top row from matrix with less than two m");
         }
-        float[][] res = createfloatArray(m - 1, n);
-        for (int i = 1; i < m; i++) {
-            System.arraycopy(mat[i], 0, res[i - 1], 0, n);
-        }
-        return new BMatrix(res);
+        return rowr(1, m - 1);
     }
 
     public BMatrix rlc() {
@@ -493,17 +613,19 @@ public class BMatrix implements Matrix {
     }
 
     public Set<Float> unq() {
-        Set<Float> values = new HashSet<>();
+        return unqc().toSet();
+    }
+
+    public Uniques unqc() {
+        float[] elements = new float[m * n];
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                values.add(mat[i][j]);
-            }
+            System.arraycopy(mat[i], 0, elements, i * n, n);
         }
-        return values;
+        return Uniques.sort(elements);
     }
 
     public Tuple<Matrix> svd() {
-        throw new MatrixException("Feature not yet implemented (please do implement it)");
+        return SVD.of(this, bMatrixFactory).toTuple();
     }
 
     public String toString() {
@@ -531,12 +653,20 @@ public class BMatrix implements Matrix {
         return equals(other, EQUALITY_TOLERANCE);
     }
 
+    /**
+     * Returns a hash code consistent with equals. Matrices are equal when their elements are within a tolerance of
+     * each other, whatever their implementation, so the hash code only depends on the size.
+     */
+    public int hashCode() {
+        return 31 * m + n;
+    }
+
     public boolean equals(Object other, float tolerance) {
-        if (!(other instanceof BMatrix)) {
+        if (!(other instanceof Matrix)) {
             return false;
         } else {
-            BMatrix otherMatrix = (BMatrix) other;
-            if (!size().equals(otherMatrix.size())) {
+            BMatrix otherMatrix = of((Matrix) other);
+            if (m != otherMatrix.m || n != otherMatrix.n) {
                 return false;
             }
             for (int i = 0; i < m; i++) {
@@ -551,32 +681,24 @@ public class BMatrix implements Matrix {
     }
 
     public Matrix equalsEw(Matrix otherMatrix) {
-        BMatrix other = (BMatrix) otherMatrix;
+        BMatrix other = of(otherMatrix);
         float[][] res = createfloatArray(m, n);
 
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                if (Math.abs(mat[i][j] - other.mat[i][j]) < EQUALITY_TOLERANCE) {
-                    res[i][j] = 1f;
-                } else {
-                    res[i][j] = 0f;
-                }
-            }
+            Vectors.equal(mat[i], 0, other.mat[i], 0, res[i], 0, n, EQUALITY_TOLERANCE);
         }
 
         return new BMatrix(res);
     }
 
     private static float[][] createfloatArray(int rows, int cols) {
-        return new float[rows][cols];
+        return MatrixArena.floats(rows, cols);
     }
 
     private BMatrix addMatrix(BMatrix otherMatrix) {
         float[][] res = createfloatArray(m, n);
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                res[i][j] = mat[i][j] + otherMatrix.mat[i][j];
-            }
+            Vectors.add(mat[i], 0, otherMatrix.mat[i], 0, res[i], 0, n);
         }
         return new BMatrix(res);
     }
@@ -597,61 +719,86 @@ public class BMatrix implements Matrix {
         return res;
     }
 
-    private void checkIndices(int row, int col) {
+    void checkIndices(int row, int col) {
         if (row < 0 || row >= mat.length || col < 0 || col >= mat[0].length) {
             throw new MatrixException("Row or column index out of bounds. Tried to access (" + row + ", " + col
                     + ") in a (" + mat.length + ", " + mat[0].length + ") matrix");
         }
     }
 
-    private Tuple<Matrix> findExtremasVertically(Comparator<Float> comp) {
+    /**
+     * Collects the extremas of every column, given their row indices.
+     */
+    private Tuple<Matrix> extremasVertically(int[] rowIndices) {
         float[][] extremas = createfloatArray(1, n);
         float[][] indices = createfloatArray(1, n);
         for (int j = 0; j < n; j++) {
-            float extremum = mat[0][j];
-            int minIndex = 0;
-            for (int i = 1; i < m; i++) {
-                if (comp.compare(mat[i][j], extremum) < 0) {
-                    extremum = mat[i][j];
-                    minIndex = i;
-                }
-            }
-            extremas[0][j] = extremum;
-            indices[0][j] = (float) minIndex;
+            extremas[0][j] = mat[rowIndices[j]][j];
+            indices[0][j] = rowIndices[j];
         }
         return new Tuple<>(new BMatrix(extremas), new BMatrix(indices));
     }
 
-    private Tuple<Matrix> findExtremasHorizontally(Comparator<Float> comp) {
+    /**
+     * Collects the extremas of every row, given their column indices.
+     */
+    private Tuple<Matrix> extremasHorizontally(int[] colIndices) {
         float[][] extremas = createfloatArray(m, 1);
         float[][] indices = createfloatArray(m, 1);
         for (int i = 0; i < m; i++) {
-            float extremum = mat[i][0];
-            int minIndex = 0;
-            for (int j = 1; j < n; j++) {
-                if (comp.compare(mat[i][j], extremum) < 0) {
-                    extremum = mat[i][j];
-                    minIndex = j;
-                }
-            }
-            extremas[i][0] = extremum;
-            indices[i][0] = (float) minIndex;
+            extremas[i][0] = mat[i][colIndices[i]];
+            indices[i][0] = colIndices[i];
         }
         return new Tuple<>(new BMatrix(extremas), new BMatrix(indices));
     }
 
-    private BMatrix multiplyMatrix(BMatrix other) {
-        float[][] res = createfloatArray(m, other.cols());
-        for (int i = 0; i < m; i++) {
-            for (int j = 0; j < other.cols(); j++) {
-                float sum = 0;
-                for (int k = 0; k < n; k++) {
-                    sum += mat[i][k] * other.mat[k][j];
-                }
-                res[i][j] = sum;
-            }
+    private static void checkTopK(int k, int count) {
+        if (k < 0 || k > count) {
+            throw new MatrixException("Can not find the " + k + " largest of " + count + " values");
+        }
+    }
+
+    private static BMatrix multiplyOperands(Operand a, Operand b) {
+        float[][] res = createfloatArray(a.rows(), b.cols());
+        Gemm.multiply(a, b, res);
+        return new BMatrix(res);
+    }
+
+    /**
+     * Checks that a destination of a product is a BMutableMatrix which is not one of the factors, since the kernel
+     * reads the factors while writing the product.
+     */
+    private BMutableMatrix checkDestination(Matrix other, MutableMatrix intoMatrix) {
+        BMutableMatrix into = (BMutableMatrix) intoMatrix;
+        if (into.mat == mat || other instanceof BMatrix && into.mat == ((BMatrix) other).mat) {
+            throw new MatrixException("The destination of a product can not be one of its factors");
         }
+        return into;
+    }
+
+    /**
+     * Returns the rows of this Matrix, or copies of them if they can change.
+     */
+    private float[][] shareableRows() {
+        return this instanceof MutableMatrix ? copyMatrix(mat) : mat;
+    }
 
+    public Operand operand() {
+        return Operand.of(mat, n);
+    }
+
+    /**
+     * Returns the argument if it is a BMatrix, and a BMatrix holding a copy of its elements otherwise. The elements of
+     * other implementations are read a row at a time with copyRowInto, so any Matrix can be used as an argument.
+     */
+    static BMatrix of(Matrix matrix) {
+        if (matrix instanceof BMatrix) {
+            return (BMatrix) matrix;
+        }
+        float[][] res = createfloatArray(matrix.rows(), matrix.cols());
+        for (int i = 0; i < res.length; i++) {
+            matrix.copyRowInto(i, res[i], 0);
+        }
         return new BMatrix(res);
     }
 
@@ -1,5 +1,6 @@
 package LinearAlgebra.BLinAlg;
 
+import LinearAlgebra.MatrixArena;
 import LinearAlgebra.MatrixFactory;
 import LinearAlgebra.ReadWrite.BFNAParser;
 import LinearAlgebra.ReadWrite.FNAParser;
@@ -14,6 +15,7 @@ public class BMatrixFactory implements MatrixFactory {
     private static final char STD_COL_DELIMITER = ' ';
     private static final char STD_ROW_DELIMITER = ';';
     private final FNAParser BFNAParser;
+    private final MatrixArena.Pool pool = new MatrixArena.Pool();
 
     /**
      * Constructor, which takes the column and row delimiters as arguments.
@@ -61,6 +63,10 @@ public class BMatrixFactory implements MatrixFactory {
         return new BMatrix(res);
     }
 
+    public BMutableMatrix mutable(int rows, int cols) {
+        return new BMutableMatrix(new float[rows][cols]);
+    }
+
     public BMatrix identityMatrix(int size) {
         float[][] res = new float[size][size];
         for (float[] row : res) {
@@ -71,4 +77,12 @@ public class BMatrixFactory implements MatrixFactory {
         }
         return new BMatrix(res);
     }
+
+    /**
+     * Opens a MatrixArena recycling buffers between all arenas of this factory.
+     * @return the opened MatrixArena.
+     */
+    public MatrixArena arena() {
+        return pool.open();
+    }
 }
@@ -0,0 +1,136 @@
+package LinearAlgebra.BLinAlg;
+
+import LinearAlgebra.FloatUnaryOperator;
+import LinearAlgebra.Kernels.Gemm;
+import LinearAlgebra.Kernels.Operand;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MutableMatrix;
+
+/**
+ * Mutable version of BMatrix. The in-place operations work directly on the rows of the BMatrix, and every other
+ * operation is inherited, returning a new (immutable) BMatrix. Products are written directly into the rows.
+ *
+ * See the documentation of the superclass MutableMatrix.
+ */
+public class BMutableMatrix extends BMatrix implements MutableMatrix {
+    BMutableMatrix(float[][] matrix) {
+        super(matrix);
+    }
+
+    public BMutableMatrix set(int row, int col, float element) {
+        checkIndices(row, col);
+        mat[row][col] = element;
+        return this;
+    }
+
+    public BMutableMatrix set(Matrix otherMatrix) {
+        BMatrix other = checkSameSize(otherMatrix);
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(other.mat[i], 0, mat[i], 0, n);
+        }
+        return this;
+    }
+
+    public BMutableMatrix addi(Matrix otherMatrix) {
+        BMatrix other = of(otherMatrix);
+        if (other.m == 1 && other.n == 1) {
+            return addi(other.mat[0][0]);
+        }
+        return addi(otherMatrix, 1f);
+    }
+
+    public BMutableMatrix addi(Matrix otherMatrix, float factor) {
+        BMatrix other = checkSameSize(otherMatrix);
+        for (int i = 0; i < m; i++) {
+            float[] row = mat[i];
+            float[] otherRow = other.mat[i];
+            for (int j = 0; j < n; j++) {
+                row[j] += factor * otherRow[j];
+            }
+        }
+        return this;
+    }
+
+    public BMutableMatrix addi(float scalar) {
+        for (float[] row : mat) {
+            for (int j = 0; j < n; j++) {
+                row[j] += scalar;
+            }
+        }
+        return this;
+    }
+
+    public BMutableMatrix subi(Matrix otherMatrix) {
+        BMatrix other = of(otherMatrix);
+        if (other.m == 1 && other.n == 1) {
+            return addi(-other.mat[0][0]);
+        }
+        other = checkSameSize(otherMatrix);
+        for (int i = 0; i < m; i++) {
+            float[] row = mat[i];
+            float[] otherRow = other.mat[i];
+            for (int j = 0; j < n; j++) {
+                row[j] -= otherRow[j];
+            }
+        }
+        return this;
+    }
+
+    public BMutableMatrix subi(float scalar) {
+        return addi(-scalar);
+    }
+
+    public BMutableMatrix muli(float scalar) {
+        for (float[] row : mat) {
+            for (int j = 0; j < n; j++) {
+                row[j] *= scalar;
+            }
+        }
+        return this;
+    }
+
+    public BMutableMatrix mulewi(Matrix otherMatrix) {
+        BMatrix other = checkSameSize(otherMatrix);
+        for (int i = 0; i < m; i++) {
+            float[] row = mat[i];
+            float[] otherRow = other.mat[i];
+            for (int j = 0; j < n; j++) {
+                row[j] *= otherRow[j];
+            }
+        }
+        return this;
+    }
+
+    public BMutableMatrix mapi(FloatUnaryOperator function) {
+        for (float[] row : mat) {
+            for (int j = 0; j < n; j++) {
+                row[j] = function.applyAsFloat(row[j]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Overwrites this Matrix with the product of two Operands.
+     * @param a the m x k left Operand.
+     * @param b the k x n right Operand.
+     * @return this MutableMatrix.
+     */
+    BMutableMatrix multiply(Operand a, Operand b) {
+        if (a.rows() != m || b.cols() != n) {
+            throw new MatrixException("Destination of size " + size() + " can not hold the (" + a.rows() + ", "
+                    + b.cols() + ") product");
+        }
+        Gemm.multiply(a, b, mat);
+        return this;
+    }
+
+    private BMatrix checkSameSize(Matrix otherMatrix) {
+        BMatrix other = of(otherMatrix);
+        if (m != other.m || n != other.n) {
+            throw new MatrixException("Matrices are not of same size, " + size() + " and " + other.size());
+        }
+        return other;
+    }
+}
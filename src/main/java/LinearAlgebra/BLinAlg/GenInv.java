@@ -1,15 +1,22 @@
 package LinearAlgebra.BLinAlg;
 
+import LinearAlgebra.Decompositions.Cholesky;
+import LinearAlgebra.Decompositions.LU;
 import LinearAlgebra.Matrix;
-
-import java.util.Arrays;
+import LinearAlgebra.MatrixFactory;
 
 /**
  * A class able to find the pseudo inverse of a BMatrix. Uses the geninv algorithm found in the following paper:
  * Courrieu, Pierre. (2008). Fast Computation of Moore-Penrose Inverse Matrices. Neural Information Processing-Letters
  * and Reviews. 8.
+ *
+ * The full rank Cholesky factor L of A'A (or AA' for wide matrices) is computed in place by Cholesky, and instead of
+ * inverting L'L explicitly, its LU decomposition is used to solve for (L'L)^-2 L', which the pseudo inverse is then
+ * computed from. Since A'A is computed in single precision, columns whose pivot is not larger than n * eps times the
+ * largest diagonal element of A'A are considered linearly dependent, as in LAPACK's pstrf.
  */
 public class GenInv implements BPseudoInverter {
+    private static final MatrixFactory bMatrixFactory = new BMatrixFactory();
 
     /**
      * Finds the pseudo inverse of a rectangular BMatrix.
@@ -17,62 +24,37 @@ public class GenInv implements BPseudoInverter {
      * @return the pseudo inverse of the BMatrix given as argument.
      */
     public BMatrix pseudoInvert(BMatrix bMatrix) {
+        return (BMatrix) pseudoInvert(bMatrix, bMatrixFactory);
+    }
+
+    /**
+     * Finds the pseudo inverse of a rectangular Matrix of any implementation.
+     * @param matrix the Matrix to invert.
+     * @param mf the MatrixFactory creating Matrices of the same implementation as the argument.
+     * @return the pseudo inverse of the Matrix given as argument.
+     */
+    public Matrix pseudoInvert(Matrix matrix, MatrixFactory mf) {
         boolean transpose = false;
-        int m = bMatrix.rows();
-        int n = bMatrix.cols();
-        BMatrix A;
+        Matrix A;
 
-        if (m < n) {
+        if (matrix.rows() < matrix.cols()) {
             transpose = true;
-            A = bMatrix.mul(bMatrix.tran());
-            n = m;
+            A = matrix.mult(matrix);
         } else {
-            A = bMatrix.tran().mul(bMatrix);
+            A = matrix.tmul(matrix);
         }
 
         Matrix dA = A.diag();
-        float tol = dA.usemask(dA.mask(d -> d > 0)).minv().get(0).toFloat() * 1e-8f;
-
-        float[][] l = new float[A.rows()][A.cols()];
-        for (float[] row : l) {
-            Arrays.fill(row, 0f);
-        }
-        BMatrix L = new BMatrix(l);
-
-        int r = -1;
-        for (int k = 0; k < n; k++) {
-            r++;
-
-            if (r > 0) {
-                L = L.ins(k, r,
-                        A.subm(k, n - 1, k, k)
-                                .sub(
-                                        L.subm(k, n - 1, 0, r - 1)
-                                                .mul(L.subm(k, k, 0, r - 1)
-                                                        .tran())));
-            } else {
-                L = L.ins(k, r, A.subm(k, n - 1, k, k));
-            }
-            if (L.get(k, r) > tol) {
-                L = L.ins(k, r, (float) Math.sqrt(L.get(k, r)));
-                if (k != n - 1) {
-                    L = L.ins(k + 1, r,
-                            L.subm(k + 1, n - 1, r, r)
-                                    .div(L.get(k, r))
-                    );
-                }
-            } else {
-                r--;
-            }
-        }
+        float tol = dA.maxv().get(0).toFloat() * A.rows() * Math.ulp(1f);
 
-        L = L.colr(0, r);
-        Matrix M = L.tran().mul(L).inv();
+        Matrix L = Cholesky.of(A, tol, mf).l();
+        LU lu = L.tmul(L).lu();
+        Matrix K = lu.solve(lu.solve(L.tran()));
 
         if (transpose) {
-            return bMatrix.tran().mul(L).mul(M).mul(M).mul(L.tran());
+            return matrix.tmul(L).mul(K);
         } else {
-            return L.mul(M).mul(M).mul(L.tran()).mul(bMatrix.tran());
+            return L.mul(K).mult(matrix);
         }
     }
 }
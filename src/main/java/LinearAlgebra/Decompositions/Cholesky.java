@@ -0,0 +1,116 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.Kernels.Parallelism;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+
+/**
+ * Rank revealing Cholesky decomposition, A = LL^T, of a symmetric positive semidefinite n x n Matrix A, where L is an
+ * n x r lower trapezoidal Matrix and r is the rank of A. Columns whose pivot is not larger than a tolerance are
+ * linearly dependent on the previous ones, and are dropped from L instead of failing, the way geninv (see GenInv)
+ * needs it. With a tolerance of 0 and a positive definite Matrix, this is the ordinary Cholesky decomposition.
+ *
+ * The factorization is computed in doubles, in place in one n x n array holding L, and is blocked left-looking: a
+ * block of BLOCK columns of A is first updated with every column of L found so far, which is one matrix product whose
+ * rows are computed in parallel according to Parallelism, and the columns of the block are then factored one at a
+ * time. Only the lower triangle of A is read.
+ */
+public final class Cholesky {
+    private static final int BLOCK = 64;
+    private final MatrixFactory mf;
+    private final int n;
+    private final int rank;
+    private final double[] l;
+
+    private Cholesky(MatrixFactory mf, int n, int rank, double[] l) {
+        this.mf = mf;
+        this.n = n;
+        this.rank = rank;
+        this.l = l;
+    }
+
+    /**
+     * Computes the Cholesky decomposition of a symmetric positive semidefinite Matrix.
+     * @param matrix the Matrix to decompose, which is not changed.
+     * @param tolerance the largest pivot considered to be zero, which drops its column.
+     * @param mf the MatrixFactory creating the Matrices returned by the decomposition.
+     * @return the Cholesky decomposition of the Matrix.
+     */
+    public static Cholesky of(Matrix matrix, float tolerance, MatrixFactory mf) {
+        int n = matrix.rows();
+        if (n != matrix.cols()) {
+            throw new MatrixException("Matrix is not square and therefore has no Cholesky decomposition");
+        }
+        double[] a = Dense.of(matrix);
+        double[] l = new double[n * n];
+        int rank = 0;
+        for (int kb = 0; kb < n; kb += BLOCK) {
+            int nb = Math.min(BLOCK, n - kb);
+            double[] block = updateBlock(a, l, n, kb, nb, rank);
+            int blockRank = rank;
+            for (int c = 0; c < nb; c++) {
+                int k = kb + c;
+                for (int i = k; i < n; i++) {
+                    block[(i - kb) * nb + c] -= Dense.dot(l, i * n + blockRank, l, k * n + blockRank,
+                            rank - blockRank);
+                }
+                double pivot = block[c * nb + c];
+                if (pivot > tolerance) {
+                    double diagonal = Math.sqrt(pivot);
+                    l[k * n + rank] = diagonal;
+                    for (int i = k + 1; i < n; i++) {
+                        l[i * n + rank] = block[(i - kb) * nb + c] / diagonal;
+                    }
+                    rank++;
+                }
+            }
+        }
+        return new Cholesky(mf, n, rank, l);
+    }
+
+    /**
+     * Returns the rank found by the decomposition, which is the number of columns of L.
+     * @return the rank of the decomposed Matrix.
+     */
+    public int rank() {
+        return rank;
+    }
+
+    /**
+     * Returns the factor L.
+     * @return the n x r Matrix L, where r is the rank.
+     */
+    public Matrix l() {
+        if (rank == 0) {
+            throw new MatrixException("Matrix has rank 0, so L has no columns");
+        }
+        float[] res = new float[n * rank];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < rank; j++) {
+                res[i * rank + j] = (float) l[i * n + j];
+            }
+        }
+        return mf.m(res, n, rank);
+    }
+
+    /**
+     * Copies the columns kb to kb + nb (exclusive) of A, from row kb down, into an array of rows of nb elements, and
+     * subtracts the product of L and the rows of L of those columns.
+     */
+    private static double[] updateBlock(double[] a, double[] l, int n, int kb, int nb, int rank) {
+        int rows = n - kb;
+        double[] block = new double[rows * nb];
+        Parallelism.forEach(rows, 2L * rows * nb * rank, r -> {
+            int i = kb + r;
+            for (int c = 0; c < nb; c++) {
+                int k = kb + c;
+                if (k > i) {
+                    break;
+                }
+                block[r * nb + c] = a[i * n + k] - Dense.dot(l, i * n, l, k * n, rank);
+            }
+        });
+        return block;
+    }
+}
@@ -0,0 +1,81 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.Kernels.Parallelism;
+import LinearAlgebra.Matrix;
+
+/**
+ * Helpers for the decompositions, which work on flat row-major arrays of doubles.
+ */
+final class Dense {
+
+    private Dense() {
+    }
+
+    /**
+     * Copies the elements of a Matrix into a flat row-major array of doubles.
+     */
+    static double[] of(Matrix matrix) {
+        int rows = matrix.rows();
+        int cols = matrix.cols();
+        double[] res = new double[rows * cols];
+        float[] row = new float[cols];
+        for (int i = 0; i < rows; i++) {
+            matrix.copyRowInto(i, row, 0);
+            for (int j = 0; j < cols; j++) {
+                res[i * cols + j] = row[j];
+            }
+        }
+        return res;
+    }
+
+    static float[] toFloats(double[] data) {
+        float[] res = new float[data.length];
+        for (int i = 0; i < data.length; i++) {
+            res[i] = (float) data[i];
+        }
+        return res;
+    }
+
+    /**
+     * Computes y += alpha * x for ranges of two arrays.
+     */
+    static void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    static double dot(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += x[xOffset + i] * y[yOffset + i];
+        }
+        return sum;
+    }
+
+    static void swapRows(double[] data, int cols, int a, int b) {
+        for (int j = 0; j < cols; j++) {
+            double temp = data[a * cols + j];
+            data[a * cols + j] = data[b * cols + j];
+            data[b * cols + j] = temp;
+        }
+    }
+
+    /**
+     * Updates the trailing part of an n x n matrix after a panel of nb columns starting at kb has been factored:
+     * A22 -= L21 * U12, where L21 is below the panel and U12 to the right of it. The rows are updated in parallel.
+     */
+    static void update(double[] a, int n, int kb, int nb) {
+        int from = kb + nb;
+        int rows = n - from;
+        Parallelism.forEach(rows, 2L * rows * rows * nb, r -> {
+            int i = from + r;
+            for (int p = kb; p < from; p++) {
+                double factor = a[i * n + p];
+                if (factor != 0) {
+                    axpy(-factor, a, p * n + from, a, i * n + from, n - from);
+                }
+            }
+        });
+    }
+}
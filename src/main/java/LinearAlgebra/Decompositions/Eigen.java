@@ -0,0 +1,292 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.Kernels.Parallelism;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+
+import java.util.Arrays;
+
+/**
+ * Eigendecomposition, A = V D V^T, of a symmetric n x n Matrix: D is diagonal with the (real) eigenvalues in
+ * descending order, and V is orthogonal with the corresponding eigenvectors as columns. Only the lower triangle of A
+ * is read.
+ *
+ * The decomposition is computed in doubles in two steps, the way LAPACK's steqr path does it. A is first reduced to a
+ * tridiagonal Matrix T = Q^T A Q with Householder reflections, where the two-sided update of every reflection is
+ * computed in parallel according to Parallelism. The eigenvalues of T are then found with the implicit QL algorithm
+ * with Wilkinson shifts, and the eigenvectors by accumulating its rotations: the rotations of one QL sweep are recorded
+ * and applied afterwards, to blocks of BLOCK columns in parallel. Finally, the eigenvectors of T are transformed by Q,
+ * a block of reflectors at a time (see Householder).
+ */
+public final class Eigen {
+    private static final int BLOCK = 64;
+    private static final int MAX_ITERATIONS = 30;
+    private final MatrixFactory mf;
+    private final int n;
+    private final double[] values;
+    private final double[] vectors;
+
+    private Eigen(MatrixFactory mf, int n, double[] values, double[] vectors) {
+        this.mf = mf;
+        this.n = n;
+        this.values = values;
+        this.vectors = vectors;
+    }
+
+    /**
+     * Computes the eigendecomposition of a symmetric Matrix.
+     * @param matrix the symmetric Matrix to decompose, which is not changed. Only its lower triangle is read.
+     * @param mf the MatrixFactory creating the Matrices returned by the decomposition.
+     * @return the eigendecomposition of the Matrix.
+     */
+    public static Eigen of(Matrix matrix, MatrixFactory mf) {
+        int n = matrix.rows();
+        if (n != matrix.cols()) {
+            throw new MatrixException("Matrix is not square and therefore has no symmetric eigendecomposition");
+        }
+        double[] a = Dense.of(matrix);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                a[i * n + j] = a[j * n + i];
+            }
+        }
+        double[] d = new double[n];
+        double[] e = new double[n];
+        double[] tau = tridiagonalize(a, n, d, e);
+
+        double[] rotated = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            rotated[i * n + i] = 1;
+        }
+        diagonalize(d, e, rotated, n);
+
+        double[] z = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                z[j * n + i] = rotated[i * n + j];
+            }
+        }
+        if (n > 1) {
+            double[] reflectors = new double[(n - 1) * (n - 1)];
+            double[] rows = new double[(n - 1) * n];
+            for (int i = 1; i < n; i++) {
+                System.arraycopy(a, i * n, reflectors, (i - 1) * (n - 1), n - 1);
+            }
+            System.arraycopy(z, n, rows, 0, (n - 1) * n);
+            Householder.applyQ(reflectors, n - 1, n - 1, tau, rows, n);
+            System.arraycopy(rows, 0, z, n, (n - 1) * n);
+        }
+
+        Integer[] order = new Integer[n];
+        for (int j = 0; j < n; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(d[y], d[x]));
+        double[] values = new double[n];
+        double[] vectors = new double[n * n];
+        for (int p = 0; p < n; p++) {
+            int j = order[p];
+            values[p] = d[j];
+            for (int i = 0; i < n; i++) {
+                vectors[i * n + p] = z[i * n + j];
+            }
+        }
+        return new Eigen(mf, n, values, vectors);
+    }
+
+    /**
+     * Returns the eigenvalues.
+     * @return the n eigenvalues, in descending order.
+     */
+    public float[] eigenvalues() {
+        return Dense.toFloats(values);
+    }
+
+    /**
+     * Returns the eigenvalues as a diagonal Matrix.
+     * @return the n x n Matrix D.
+     */
+    public Matrix d() {
+        float[] res = new float[n * n];
+        for (int i = 0; i < n; i++) {
+            res[i * n + i] = (float) values[i];
+        }
+        return mf.m(res, n, n);
+    }
+
+    /**
+     * Returns the eigenvectors.
+     * @return the n x n orthogonal Matrix V, where column i is the eigenvector of eigenvalue i.
+     */
+    public Matrix v() {
+        return mf.m(Dense.toFloats(vectors), n, n);
+    }
+
+    /**
+     * Returns the eigenvectors of the k largest eigenvalues.
+     * @param k the number of eigenvectors, at most n.
+     * @return the n x k Matrix of the first k columns of V.
+     */
+    public Matrix v(int k) {
+        if (k < 0 || k > n) {
+            throw new MatrixException("Can not return " + k + " eigenvectors of a " + n + "x" + n + " Matrix");
+        }
+        float[] res = new float[n * k];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < k; j++) {
+                res[i * k + j] = (float) vectors[i * n + j];
+            }
+        }
+        return mf.m(res, n, k);
+    }
+
+    /**
+     * Reduces a symmetric n x n array to tridiagonal form in place, storing reflector k below the subdiagonal of
+     * column k the way Householder stores them, with its implicit 1 on the subdiagonal.
+     * @param d the array to write the diagonal into.
+     * @param e the array to write the subdiagonal into, where e[i] is the element between row i and i + 1.
+     * @return the n - 1 scalars tau of the reflectors, where the last one is 0.
+     */
+    private static double[] tridiagonalize(double[] a, int n, double[] d, double[] e) {
+        double[] tau = new double[Math.max(n - 1, 0)];
+        double[] p = new double[n];
+        double[] w = new double[n];
+        for (int k = 0; k < n - 2; k++) {
+            int from = k + 1;
+            int size = n - from;
+            double alpha = a[from * n + k];
+            double sumsqr = 0;
+            for (int i = from + 1; i < n; i++) {
+                sumsqr += a[i * n + k] * a[i * n + k];
+            }
+            if (sumsqr == 0) {
+                e[k] = alpha;
+                continue;
+            }
+            double beta = -Math.copySign(Math.sqrt(alpha * alpha + sumsqr), alpha);
+            double scale = 1 / (alpha - beta);
+            for (int i = from + 1; i < n; i++) {
+                a[i * n + k] *= scale;
+            }
+            a[from * n + k] = beta;
+            e[k] = beta;
+            double t = (beta - alpha) / beta;
+            tau[k] = t;
+
+            double[] v = new double[size];
+            v[0] = 1;
+            for (int i = 1; i < size; i++) {
+                v[i] = a[(from + i) * n + k];
+            }
+            Parallelism.forEach(size, 2L * size * size, r -> p[r] = t * Dense.dot(a, (from + r) * n + from, v, 0,
+                    size));
+            double factor = t / 2 * Dense.dot(p, 0, v, 0, size);
+            for (int i = 0; i < size; i++) {
+                w[i] = p[i] - factor * v[i];
+            }
+            Parallelism.forEach(size, 4L * size * size, r -> {
+                int row = (from + r) * n + from;
+                Dense.axpy(-v[r], w, 0, a, row, size);
+                Dense.axpy(-w[r], v, 0, a, row, size);
+            });
+        }
+        if (n > 1) {
+            e[n - 2] = a[(n - 1) * n + n - 2];
+        }
+        for (int i = 0; i < n; i++) {
+            d[i] = a[i * n + i];
+        }
+        return tau;
+    }
+
+    /**
+     * Finds the eigenvalues of a symmetric tridiagonal matrix with the implicit QL algorithm, overwriting d with them,
+     * and applies its rotations to the rows of an n x n array (JAMA's tql2, with the rotations of every sweep applied
+     * to blocks of columns in parallel).
+     */
+    private static void diagonalize(double[] d, double[] e, double[] rows, int n) {
+        double[] cosines = new double[n];
+        double[] sines = new double[n];
+        double f = 0;
+        double largest = 0;
+        double eps = Math.ulp(1.0);
+        for (int l = 0; l < n; l++) {
+            largest = Math.max(largest, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n - 1 && Math.abs(e[m]) > eps * largest) {
+                m++;
+            }
+            if (m > l) {
+                int iterations = 0;
+                do {
+                    if (++iterations > MAX_ITERATIONS) {
+                        throw new MatrixException("Eigenvalues did not converge");
+                    }
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2 * e[l]);
+                    double r = p < 0 ? -Math.hypot(p, 1) : Math.hypot(p, 1);
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) {
+                        d[i] -= h;
+                    }
+                    f += h;
+
+                    p = d[m];
+                    double c = 1;
+                    double c2 = c;
+                    double c3 = c;
+                    double el1 = e[l + 1];
+                    double s = 0;
+                    double s2 = 0;
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+                        cosines[i] = c;
+                        sines[i] = s;
+                    }
+                    rotate(rows, n, l, m, cosines, sines);
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while (Math.abs(e[l]) > eps * largest);
+            }
+            d[l] += f;
+            e[l] = 0;
+        }
+    }
+
+    /**
+     * Applies the rotations m - 1 down to l of a QL sweep to the rows of an n x n array, in blocks of BLOCK columns.
+     */
+    private static void rotate(double[] rows, int n, int l, int m, double[] cosines, double[] sines) {
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        Parallelism.forEach(blocks, 6L * (m - l) * n, b -> {
+            int from = b * BLOCK;
+            int to = Math.min(n, from + BLOCK);
+            for (int i = m - 1; i >= l; i--) {
+                double c = cosines[i];
+                double s = sines[i];
+                int x = i * n;
+                int y = (i + 1) * n;
+                for (int k = from; k < to; k++) {
+                    double h = rows[y + k];
+                    rows[y + k] = s * rows[x + k] + c * h;
+                    rows[x + k] = c * rows[x + k] - s * h;
+                }
+            }
+        });
+    }
+}
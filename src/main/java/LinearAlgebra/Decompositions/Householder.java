@@ -0,0 +1,227 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.Kernels.Parallelism;
+
+/**
+ * Householder reflections on flat row-major arrays of doubles, stored the way LAPACK's geqrf stores them: reflector j
+ * is H_j = I - tau_j v_j v_j^T, where v_j has a 1 at index j (which is not stored), zeroes above it, and the elements
+ * below it stored below the diagonal of column j. The elements come from floats, so their squares can be summed in
+ * doubles without overflowing.
+ *
+ * Reflectors are applied BLOCK at a time, in the compact WY form H_j ... H_j+BLOCK-1 = I - V T V^T, where V holds the
+ * reflectors as columns and T is a BLOCK x BLOCK upper triangular matrix (LAPACK's larft and larfb). A matrix is then
+ * read and written once per block of reflectors instead of once per reflector, and blocks of its columns are updated
+ * in parallel according to Parallelism.
+ */
+final class Householder {
+    private static final int BLOCK = 32;
+    private static final int COL_BLOCK = 64;
+
+    private Householder() {
+    }
+
+    /**
+     * Computes the QR decomposition of an m x n array in place, leaving R on and above the diagonal and the
+     * reflectors below it.
+     * @return the min(m, n) scalars tau.
+     */
+    static double[] factor(double[] a, int m, int n) {
+        int k = Math.min(m, n);
+        double[] tau = new double[k];
+        for (int jb = 0; jb < k; jb += BLOCK) {
+            int nb = Math.min(BLOCK, k - jb);
+            for (int j = jb; j < jb + nb; j++) {
+                tau[j] = reflector(a, m, n, j);
+                apply(a, m, n, j, tau[j], a, n, j * n + j + 1, jb + nb - j - 1);
+            }
+            if (jb + nb < n) {
+                double[] t = triangular(a, m, n, jb, nb, tau);
+                applyBlock(a, m, n, jb, nb, t, true, a, n, jb * n + jb + nb, n - jb - nb);
+            }
+        }
+        return tau;
+    }
+
+    /**
+     * Computes C = QC in place for an m x p array C, where Q = H_0 H_1 ... H_k-1 holds the reflectors of the m x n
+     * array a.
+     */
+    static void applyQ(double[] a, int m, int n, double[] tau, double[] c, int p) {
+        int k = tau.length;
+        for (int jb = (k - 1) / BLOCK * BLOCK; jb >= 0; jb -= BLOCK) {
+            int nb = Math.min(BLOCK, k - jb);
+            applyBlock(a, m, n, jb, nb, triangular(a, m, n, jb, nb, tau), false, c, p, jb * p, p);
+        }
+    }
+
+    /**
+     * Computes C = Q^T C in place for an m x p array C, where Q = H_0 H_1 ... H_k-1 holds the reflectors of the m x n
+     * array a.
+     */
+    static void applyQTransposed(double[] a, int m, int n, double[] tau, double[] c, int p) {
+        int k = tau.length;
+        for (int jb = 0; jb < k; jb += BLOCK) {
+            int nb = Math.min(BLOCK, k - jb);
+            applyBlock(a, m, n, jb, nb, triangular(a, m, n, jb, nb, tau), true, c, p, jb * p, p);
+        }
+    }
+
+    /**
+     * Creates the reflector zeroing the elements below the diagonal of column j, and stores it in the column.
+     * @return tau of the reflector.
+     */
+    private static double reflector(double[] a, int m, int n, int j) {
+        double alpha = a[j * n + j];
+        double sumsqr = 0;
+        for (int i = j + 1; i < m; i++) {
+            sumsqr += a[i * n + j] * a[i * n + j];
+        }
+        if (sumsqr == 0) {
+            return 0;
+        }
+        double beta = -Math.copySign(Math.sqrt(alpha * alpha + sumsqr), alpha);
+        double scale = 1 / (alpha - beta);
+        for (int i = j + 1; i < m; i++) {
+            a[i * n + j] *= scale;
+        }
+        a[j * n + j] = beta;
+        return (beta - alpha) / beta;
+    }
+
+    /**
+     * Applies reflector j of the m x n array a to the rows j to m (exclusive) of cols columns of C, starting at index
+     * cOffset in row j, as C = C - tau v (v^T C). Only used within a panel, which is narrow.
+     */
+    private static void apply(double[] a, int m, int n, int j, double tau, double[] c, int ldc, int cOffset,
+                              int cols) {
+        if (tau == 0 || cols == 0) {
+            return;
+        }
+        double[] w = new double[cols];
+        System.arraycopy(c, cOffset, w, 0, cols);
+        for (int i = j + 1; i < m; i++) {
+            Dense.axpy(a[i * n + j], c, cOffset + (i - j) * ldc, w, 0, cols);
+        }
+        Dense.axpy(-tau, w, 0, c, cOffset, cols);
+        for (int i = j + 1; i < m; i++) {
+            Dense.axpy(-tau * a[i * n + j], w, 0, c, cOffset + (i - j) * ldc, cols);
+        }
+    }
+
+    /**
+     * Computes the upper triangular nb x nb matrix T of the reflectors jb to jb + nb (exclusive), stored row-major.
+     */
+    private static double[] triangular(double[] a, int m, int n, int jb, int nb, double[] tau) {
+        double[] t = new double[nb * nb];
+        double[] dots = new double[nb];
+        for (int i = 0; i < nb; i++) {
+            int row = jb + i;
+            for (int p = 0; p < i; p++) {
+                double dot = a[row * n + jb + p];
+                for (int r = row + 1; r < m; r++) {
+                    dot += a[r * n + jb + p] * a[r * n + row];
+                }
+                dots[p] = dot;
+            }
+            for (int p = 0; p < i; p++) {
+                double sum = 0;
+                for (int q = p; q < i; q++) {
+                    sum += t[p * nb + q] * dots[q];
+                }
+                t[p * nb + i] = -tau[row] * sum;
+            }
+            t[i * nb + i] = tau[row];
+        }
+        return t;
+    }
+
+    /**
+     * Applies the block reflector I - V T V^T of the reflectors jb to jb + nb (exclusive), or its transpose, to the
+     * rows jb to m (exclusive) of cols columns of C, starting at index cOffset in row jb, as C = C - V (T (V^T C)).
+     * The first nb rows of V are triangular and handled one element at a time, while the rows below them are handled
+     * four at a time, so that every row of the nb x COL_BLOCK products is loaded and stored once per four rows of C.
+     */
+    private static void applyBlock(double[] a, int m, int n, int jb, int nb, double[] t, boolean transposed,
+                                   double[] c, int ldc, int cOffset, int cols) {
+        int blocks = (cols + COL_BLOCK - 1) / COL_BLOCK;
+        Parallelism.forEach(blocks, 4L * (m - jb) * nb * cols, b -> {
+            int from = cOffset + b * COL_BLOCK;
+            int length = Math.min(COL_BLOCK, cols - b * COL_BLOCK);
+            double[] w = new double[nb * length];
+            int triangle = Math.min(m, jb + nb);
+            for (int r = jb; r < triangle; r++) {
+                int index = from + (r - jb) * ldc;
+                System.arraycopy(c, index, w, (r - jb) * length, length);
+                for (int p = 0; p < r - jb; p++) {
+                    Dense.axpy(a[r * n + jb + p], c, index, w, p * length, length);
+                }
+            }
+            int r = triangle;
+            for (; r + 3 < m; r += 4) {
+                int index = from + (r - jb) * ldc;
+                for (int p = 0; p < nb; p++) {
+                    multiplyAdd(w, p * length, c, index, ldc, length, a[r * n + jb + p], a[(r + 1) * n + jb + p],
+                            a[(r + 2) * n + jb + p], a[(r + 3) * n + jb + p]);
+                }
+            }
+            for (; r < m; r++) {
+                for (int p = 0; p < nb; p++) {
+                    Dense.axpy(a[r * n + jb + p], c, from + (r - jb) * ldc, w, p * length, length);
+                }
+            }
+
+            double[] tw = new double[nb * length];
+            for (int i = 0; i < nb; i++) {
+                for (int p = transposed ? 0 : i; p < (transposed ? i + 1 : nb); p++) {
+                    Dense.axpy(transposed ? t[p * nb + i] : t[i * nb + p], w, p * length, tw, i * length, length);
+                }
+            }
+
+            for (r = jb; r < triangle; r++) {
+                int index = from + (r - jb) * ldc;
+                Dense.axpy(-1, tw, (r - jb) * length, c, index, length);
+                for (int p = 0; p < r - jb; p++) {
+                    Dense.axpy(-a[r * n + jb + p], tw, p * length, c, index, length);
+                }
+            }
+            for (r = triangle; r < m; r++) {
+                int index = from + (r - jb) * ldc;
+                int p = 0;
+                for (; p + 3 < nb; p += 4) {
+                    int row = r * n + jb + p;
+                    multiplySubtract(c, index, tw, p * length, length, length, a[row], a[row + 1], a[row + 2],
+                            a[row + 3]);
+                }
+                for (; p < nb; p++) {
+                    Dense.axpy(-a[r * n + jb + p], tw, p * length, c, index, length);
+                }
+            }
+        });
+    }
+
+    /**
+     * Computes y += e0 x0 + e1 x1 + e2 x2 + e3 x3, where xi starts at xOffset + i * stride.
+     */
+    private static void multiplyAdd(double[] y, int yOffset, double[] x, int xOffset, int stride, int length,
+                                    double e0, double e1, double e2, double e3) {
+        int x1 = xOffset + stride;
+        int x2 = x1 + stride;
+        int x3 = x2 + stride;
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] += e0 * x[xOffset + i] + e1 * x[x1 + i] + e2 * x[x2 + i] + e3 * x[x3 + i];
+        }
+    }
+
+    /**
+     * Computes y -= e0 x0 + e1 x1 + e2 x2 + e3 x3, where xi starts at xOffset + i * stride.
+     */
+    private static void multiplySubtract(double[] y, int yOffset, double[] x, int xOffset, int stride, int length,
+                                         double e0, double e1, double e2, double e3) {
+        int x1 = xOffset + stride;
+        int x2 = x1 + stride;
+        int x3 = x2 + stride;
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] -= e0 * x[xOffset + i] + e1 * x[x1 + i] + e2 * x[x2 + i] + e3 * x[x3 + i];
+        }
+    }
+}
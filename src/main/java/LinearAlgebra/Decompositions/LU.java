@@ -0,0 +1,361 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.Kernels.Parallelism;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+
+import java.util.Arrays;
+
+/**
+ * LU decomposition with partial pivoting, PA = LU, of a square Matrix: P is a permutation, L is lower triangular with
+ * ones on the diagonal and U is upper triangular. The decomposition is computed once, after which any number of
+ * systems AX = B can be solved with two triangular solves each, without ever forming the inverse.
+ *
+ * The factorization is computed in doubles, in place in a flat row-major array holding L below the diagonal and U on
+ * and above it. It is blocked the way LAPACK's getrf is: a panel of BLOCK columns is factored with row pivoting, the
+ * block row of U to the right of it is solved for, and the rest of the matrix is updated with one rank-BLOCK product,
+ * whose rows are updated in parallel according to Parallelism. Systems with many right hand sides are solved a block
+ * of columns at a time, in parallel as well.
+ *
+ * A Matrix is considered singular if a pivot is at most its size times the largest element of the Matrix times the
+ * machine epsilon of floats, as in GenInv: the elements are floats, so smaller pivots are rounding errors rather than
+ * information. Solving with a singular Matrix throws a MatrixException, while the determinant and the condition
+ * estimate are still available.
+ */
+public final class LU {
+    private static final int BLOCK = 64;
+    private static final int ESTIMATE_ITERATIONS = 5;
+    private final MatrixFactory mf;
+    private final int n;
+    private final double[] lu;
+    private final int[] permutation;
+    private final int sign;
+    private final double norm;
+    private final boolean singular;
+
+    private LU(MatrixFactory mf, int n, double[] lu, int[] permutation, int sign, double norm, boolean singular) {
+        this.mf = mf;
+        this.n = n;
+        this.lu = lu;
+        this.permutation = permutation;
+        this.sign = sign;
+        this.norm = norm;
+        this.singular = singular;
+    }
+
+    /**
+     * Computes the LU decomposition of a square Matrix.
+     * @param matrix the Matrix to decompose, which is not changed.
+     * @param mf the MatrixFactory creating the Matrices returned by the decomposition.
+     * @return the LU decomposition of the Matrix.
+     */
+    public static LU of(Matrix matrix, MatrixFactory mf) {
+        int n = matrix.rows();
+        if (n != matrix.cols()) {
+            throw new MatrixException("Matrix is not square and therefore has no LU decomposition");
+        }
+        double[] lu = Dense.of(matrix);
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++) {
+            permutation[i] = i;
+        }
+
+        double norm = 0;
+        double largest = 0;
+        for (int j = 0; j < n; j++) {
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += Math.abs(lu[i * n + j]);
+                largest = Math.max(largest, Math.abs(lu[i * n + j]));
+            }
+            norm = Math.max(norm, sum);
+        }
+
+        int sign = 1;
+        for (int kb = 0; kb < n; kb += BLOCK) {
+            int nb = Math.min(BLOCK, n - kb);
+            sign *= factorPanel(lu, n, kb, nb, permutation);
+            solveBlockRow(lu, n, kb, nb);
+            Dense.update(lu, n, kb, nb);
+        }
+
+        boolean singular = false;
+        double tolerance = n * Math.ulp(1f) * largest;
+        for (int i = 0; i < n; i++) {
+            if (Math.abs(lu[i * n + i]) <= tolerance) {
+                singular = true;
+            }
+        }
+        return new LU(mf, n, lu, permutation, sign, norm, singular);
+    }
+
+    /**
+     * Returns the number of rows (and columns) of the decomposed Matrix.
+     * @return the size of the decomposed Matrix.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Determines if the decomposed Matrix is singular (to working precision).
+     * @return whether the decomposed Matrix is singular.
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * Computes the determinant of the decomposed Matrix, as the product of the pivots.
+     * @return the determinant of the decomposed Matrix.
+     */
+    public float det() {
+        double det = sign;
+        for (int i = 0; i < n; i++) {
+            det *= lu[i * n + i];
+        }
+        return (float) det;
+    }
+
+    /**
+     * Estimates the condition number of the decomposed Matrix in the 1-norm, ||A|| ||A^-1||, where ||A^-1|| is
+     * estimated with Hager's method from a few solves with A and its transpose. The estimate is a lower bound, which
+     * is almost always within a factor of 3 of the exact value.
+     * @return the estimated condition number, or infinity if the Matrix is singular.
+     */
+    public float cond() {
+        if (singular) {
+            return Float.POSITIVE_INFINITY;
+        }
+        if (n == 0) {
+            return 0f;
+        }
+        double[] x = new double[n];
+        Arrays.fill(x, 1.0 / n);
+        double estimate = 0;
+        for (int iteration = 0; iteration < ESTIMATE_ITERATIONS; iteration++) {
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                y[i] = x[permutation[i]];
+            }
+            solve(y, 1);
+            double sum = 0;
+            for (double element : y) {
+                sum += Math.abs(element);
+            }
+            if (iteration > 0 && sum <= estimate) {
+                break;
+            }
+            estimate = sum;
+
+            double[] z = new double[n];
+            for (int i = 0; i < n; i++) {
+                z[i] = y[i] >= 0 ? 1 : -1;
+            }
+            solveTransposed(z);
+            int j = 0;
+            double dot = 0;
+            for (int i = 0; i < n; i++) {
+                if (Math.abs(z[i]) > Math.abs(z[j])) {
+                    j = i;
+                }
+                dot += z[i] * x[i];
+            }
+            if (iteration > 0 && Math.abs(z[j]) <= dot) {
+                break;
+            }
+            Arrays.fill(x, 0);
+            x[j] = 1;
+        }
+        return (float) (norm * estimate);
+    }
+
+    /**
+     * Returns the unit lower triangular factor L.
+     * @return the n x n Matrix L.
+     */
+    public Matrix l() {
+        float[] res = new float[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                res[i * n + j] = (float) lu[i * n + j];
+            }
+            res[i * n + i] = 1f;
+        }
+        return mf.m(res, n, n);
+    }
+
+    /**
+     * Returns the upper triangular factor U.
+     * @return the n x n Matrix U.
+     */
+    public Matrix u() {
+        float[] res = new float[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                res[i * n + j] = (float) lu[i * n + j];
+            }
+        }
+        return mf.m(res, n, n);
+    }
+
+    /**
+     * Returns the row permutation, where row i of PA is row permutation[i] of A.
+     * @return a copy of the row permutation.
+     */
+    public int[] permutation() {
+        return permutation.clone();
+    }
+
+    /**
+     * Solves AX = B for X.
+     * @param b the n x p Matrix B.
+     * @return the n x p Matrix X.
+     */
+    public Matrix solve(Matrix b) {
+        if (b.rows() != n) {
+            throw new MatrixException("Can not solve a system of " + n + " equations with " + b.rows()
+                    + " right hand side rows");
+        }
+        int p = b.cols();
+        double[] dense = Dense.of(b);
+        double[] x = new double[n * p];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(dense, permutation[i] * p, x, i * p, p);
+        }
+        checkNotSingular();
+        solve(x, p);
+        return mf.m(Dense.toFloats(x), n, p);
+    }
+
+    /**
+     * Computes the inverse of the decomposed Matrix, by solving AX = I.
+     * @return the n x n inverse.
+     */
+    public Matrix inverse() {
+        checkNotSingular();
+        double[] x = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            x[i * n + permutation[i]] = 1;
+        }
+        solve(x, n);
+        return mf.m(Dense.toFloats(x), n, n);
+    }
+
+    private void checkNotSingular() {
+        if (singular) {
+            throw new MatrixException("Matrix is singular and can therefore not be inverted");
+        }
+    }
+
+    /**
+     * Solves LUX = B in place for a permuted n x p right hand side B. The columns of B are independent, so blocks of
+     * BLOCK columns are solved in parallel.
+     */
+    private void solve(double[] x, int p) {
+        int blocks = (p + BLOCK - 1) / BLOCK;
+        Parallelism.forEach(blocks, 2L * n * n * p, b -> {
+            int from = b * BLOCK;
+            solve(x, p, from, Math.min(BLOCK, p - from));
+        });
+    }
+
+    private void solve(double[] x, int p, int from, int length) {
+        for (int i = 0; i < n; i++) {
+            for (int k = 0; k < i; k++) {
+                double factor = lu[i * n + k];
+                if (factor != 0) {
+                    Dense.axpy(-factor, x, k * p + from, x, i * p + from, length);
+                }
+            }
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            for (int k = i + 1; k < n; k++) {
+                double factor = lu[i * n + k];
+                if (factor != 0) {
+                    Dense.axpy(-factor, x, k * p + from, x, i * p + from, length);
+                }
+            }
+            double pivot = lu[i * n + i];
+            for (int j = from; j < from + length; j++) {
+                x[i * p + j] /= pivot;
+            }
+        }
+    }
+
+    /**
+     * Solves A^T y = c in place, as U^T z = c, L^T w = z and y = P^T w.
+     */
+    private void solveTransposed(double[] c) {
+        for (int i = 0; i < n; i++) {
+            double sum = c[i];
+            for (int k = 0; k < i; k++) {
+                sum -= lu[k * n + i] * c[k];
+            }
+            c[i] = sum / lu[i * n + i];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = c[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= lu[k * n + i] * c[k];
+            }
+            c[i] = sum;
+        }
+        double[] w = c.clone();
+        for (int i = 0; i < n; i++) {
+            c[permutation[i]] = w[i];
+        }
+    }
+
+    /**
+     * Factors the columns kb to kb + nb (exclusive) from row kb down, choosing the largest element of every column
+     * as its pivot. Whole rows are swapped, so the swaps also apply to L to the left and to the columns to the right.
+     * @return the sign of the permutation applied.
+     */
+    private static int factorPanel(double[] lu, int n, int kb, int nb, int[] permutation) {
+        int sign = 1;
+        for (int j = kb; j < kb + nb; j++) {
+            int pivot = j;
+            for (int i = j + 1; i < n; i++) {
+                if (Math.abs(lu[i * n + j]) > Math.abs(lu[pivot * n + j])) {
+                    pivot = i;
+                }
+            }
+            if (pivot != j) {
+                Dense.swapRows(lu, n, j, pivot);
+                int temp = permutation[j];
+                permutation[j] = permutation[pivot];
+                permutation[pivot] = temp;
+                sign = -sign;
+            }
+            double diagonal = lu[j * n + j];
+            if (diagonal == 0) {
+                continue;
+            }
+            for (int i = j + 1; i < n; i++) {
+                double factor = lu[i * n + j] / diagonal;
+                lu[i * n + j] = factor;
+                if (factor != 0) {
+                    Dense.axpy(-factor, lu, j * n + j + 1, lu, i * n + j + 1, kb + nb - j - 1);
+                }
+            }
+        }
+        return sign;
+    }
+
+    /**
+     * Computes the block row of U to the right of the panel, by solving L11 U12 = A12 in place.
+     */
+    private static void solveBlockRow(double[] lu, int n, int kb, int nb) {
+        int from = kb + nb;
+        for (int j = kb; j < kb + nb; j++) {
+            for (int i = j + 1; i < kb + nb; i++) {
+                double factor = lu[i * n + j];
+                if (factor != 0) {
+                    Dense.axpy(-factor, lu, j * n + from, lu, i * n + from, n - from);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.Kernels.Parallelism;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+
+/**
+ * QR decomposition, A = QR, of an m x n Matrix: with k = min(m, n), Q is m x k with orthonormal columns and R is k x n
+ * upper triangular. The decomposition is computed once, after which any number of least squares problems
+ * min ||AX - B|| can be solved as RX = Q^T B, which is more accurate than solving the normal equations A^T A X = A^T B,
+ * whose condition number is the square of the one of A.
+ *
+ * The factorization is computed in doubles, in place in a flat row-major array, with Householder reflections that
+ * are applied a block at a time (see Householder), the way LAPACK's geqrf does it. Q is never formed unless asked for,
+ * as applying the reflectors to B is cheaper. Least squares problems with many right hand sides are solved a block of
+ * columns at a time, in parallel according to Parallelism.
+ *
+ * A Matrix is considered to have full column rank if it has at least as many rows as columns, and no diagonal element
+ * of R is smaller than max(m, n) * eps times the largest one, where eps is the machine epsilon of floats. Solving with
+ * a Matrix which does not have full column rank throws a MatrixException, as the solution is not unique.
+ */
+public final class QR {
+    private static final int BLOCK = 64;
+    private final MatrixFactory mf;
+    private final int m;
+    private final int n;
+    private final int k;
+    private final double[] qr;
+    private final double[] tau;
+    private final boolean fullRank;
+
+    private QR(MatrixFactory mf, int m, int n, double[] qr, double[] tau, boolean fullRank) {
+        this.mf = mf;
+        this.m = m;
+        this.n = n;
+        this.k = tau.length;
+        this.qr = qr;
+        this.tau = tau;
+        this.fullRank = fullRank;
+    }
+
+    /**
+     * Computes the QR decomposition of a Matrix.
+     * @param matrix the Matrix to decompose, which is not changed.
+     * @param mf the MatrixFactory creating the Matrices returned by the decomposition.
+     * @return the QR decomposition of the Matrix.
+     */
+    public static QR of(Matrix matrix, MatrixFactory mf) {
+        int m = matrix.rows();
+        int n = matrix.cols();
+        double[] qr = Dense.of(matrix);
+        double[] tau = Householder.factor(qr, m, n);
+
+        boolean fullRank = m >= n;
+        double largest = 0;
+        for (int i = 0; i < tau.length; i++) {
+            largest = Math.max(largest, Math.abs(qr[i * n + i]));
+        }
+        double tolerance = Math.max(m, n) * Math.ulp(1f) * largest;
+        for (int i = 0; i < tau.length; i++) {
+            if (Math.abs(qr[i * n + i]) <= tolerance) {
+                fullRank = false;
+            }
+        }
+        return new QR(mf, m, n, qr, tau, fullRank);
+    }
+
+    /**
+     * Determines if the decomposed Matrix has full column rank (to working precision), in which case every least
+     * squares problem has a unique solution.
+     * @return whether the decomposed Matrix has full column rank.
+     */
+    public boolean isFullRank() {
+        return fullRank;
+    }
+
+    /**
+     * Returns the factor Q.
+     * @return the m x k Matrix Q, with orthonormal columns.
+     */
+    public Matrix q() {
+        double[] q = new double[m * k];
+        for (int i = 0; i < k; i++) {
+            q[i * k + i] = 1;
+        }
+        Householder.applyQ(qr, m, n, tau, q, k);
+        return mf.m(Dense.toFloats(q), m, k);
+    }
+
+    /**
+     * Returns the upper triangular factor R.
+     * @return the k x n Matrix R.
+     */
+    public Matrix r() {
+        float[] res = new float[k * n];
+        for (int i = 0; i < k; i++) {
+            for (int j = i; j < n; j++) {
+                res[i * n + j] = (float) qr[i * n + j];
+            }
+        }
+        return mf.m(res, k, n);
+    }
+
+    /**
+     * Solves the least squares problem min ||AX - B|| for X, where every column of X minimizes the 2-norm of the
+     * residual of the corresponding column of B. If A is square, this solves AX = B.
+     * @param b the m x p Matrix B.
+     * @return the n x p Matrix X.
+     */
+    public Matrix solve(Matrix b) {
+        if (b.rows() != m) {
+            throw new MatrixException("Can not solve a least squares problem with " + m + " rows with " + b.rows()
+                    + " right hand side rows");
+        }
+        if (!fullRank) {
+            throw new MatrixException("Matrix does not have full column rank, so the least squares solution is not "
+                    + "unique");
+        }
+        int p = b.cols();
+        double[] c = Dense.of(b);
+        Householder.applyQTransposed(qr, m, n, tau, c, p);
+        int blocks = (p + BLOCK - 1) / BLOCK;
+        Parallelism.forEach(blocks, (long) n * n * p, block -> {
+            int from = block * BLOCK;
+            solve(c, p, from, Math.min(BLOCK, p - from));
+        });
+        float[] res = new float[n * p];
+        for (int i = 0; i < n * p; i++) {
+            res[i] = (float) c[i];
+        }
+        return mf.m(res, n, p);
+    }
+
+    /**
+     * Solves RX = C in place for the columns from to from + length (exclusive) of the first n rows of C.
+     */
+    private void solve(double[] c, int p, int from, int length) {
+        for (int i = n - 1; i >= 0; i--) {
+            for (int j = i + 1; j < n; j++) {
+                double factor = qr[i * n + j];
+                if (factor != 0) {
+                    Dense.axpy(-factor, c, j * p + from, c, i * p + from, length);
+                }
+            }
+            double diagonal = qr[i * n + i];
+            for (int j = from; j < from + length; j++) {
+                c[i * p + j] /= diagonal;
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.Kernels.Parallelism;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixFactory;
+import Misc.Tuple;
+
+import java.util.Arrays;
+
+/**
+ * Thin singular value decomposition, A = U S V^T, of an m x n Matrix: with k = min(m, n), U is m x k with orthonormal
+ * columns, S is k x k diagonal with the singular values in descending order, and V is n x k with orthonormal columns.
+ *
+ * The decomposition is computed in doubles with one-sided Jacobi (Hestenes' method): pairs of columns are rotated
+ * until every pair is orthogonal, at which point the columns are the left singular vectors times the singular values,
+ * and the product of the rotations holds the right singular vectors. The Matrix is first reduced to its n x n
+ * triangular factor R with a Householder QR decomposition, and the rotations are applied to R^T, whose columns are the
+ * rows of R: this makes the Jacobi sweeps work on n x n elements only, and they converge in considerably fewer sweeps
+ * on R^T than on A (Drmac and Veselic). The rotations of R^T = V S U_R^T give V and U_R, and U = Q U_R. Wide matrices
+ * are decomposed through their transpose.
+ *
+ * The rows of R are stored contiguously, so every rotation streams through two contiguous arrays. Every sweep visits
+ * all pairs in the round-robin order of a tournament, where every round consists of k / 2 disjoint pairs, which are
+ * rotated in parallel according to Parallelism. The order of the rotations never depends on the number of threads, so
+ * neither does the result.
+ *
+ * The singular vectors belonging to singular values which are exactly 0 are set to 0.
+ */
+public final class SVD {
+    private static final double TOLERANCE = 1e-12;
+    private static final int MAX_SWEEPS = 60;
+    private final MatrixFactory mf;
+    private final int m;
+    private final int n;
+    private final int k;
+    private final double[] u;
+    private final double[] s;
+    private final double[] v;
+
+    private SVD(MatrixFactory mf, int m, int n, double[] u, double[] s, double[] v) {
+        this.mf = mf;
+        this.m = m;
+        this.n = n;
+        this.k = s.length;
+        this.u = u;
+        this.s = s;
+        this.v = v;
+    }
+
+    /**
+     * Computes the singular value decomposition of a Matrix.
+     * @param matrix the Matrix to decompose, which is not changed.
+     * @param mf the MatrixFactory creating the Matrices returned by the decomposition.
+     * @return the singular value decomposition of the Matrix.
+     */
+    public static SVD of(Matrix matrix, MatrixFactory mf) {
+        int rows = matrix.rows();
+        int cols = matrix.cols();
+        double[] a = Dense.of(matrix);
+        if (rows < cols) {
+            SVD transposed = decompose(transpose(a, rows, cols), cols, rows);
+            return new SVD(mf, rows, cols, transposed.v, transposed.s, transposed.u);
+        }
+        SVD res = decompose(a, rows, cols);
+        return new SVD(mf, rows, cols, res.u, res.s, res.v);
+    }
+
+    /**
+     * Returns the left singular vectors.
+     * @return the m x k Matrix U.
+     */
+    public Matrix u() {
+        return mf.m(Dense.toFloats(u), m, k);
+    }
+
+    /**
+     * Returns the singular values as a diagonal Matrix.
+     * @return the k x k Matrix S.
+     */
+    public Matrix s() {
+        float[] res = new float[k * k];
+        for (int i = 0; i < k; i++) {
+            res[i * k + i] = (float) s[i];
+        }
+        return mf.m(res, k, k);
+    }
+
+    /**
+     * Returns the right singular vectors.
+     * @return the n x k Matrix V.
+     */
+    public Matrix v() {
+        return mf.m(Dense.toFloats(v), n, k);
+    }
+
+    /**
+     * Returns the singular values.
+     * @return the k singular values, in descending order.
+     */
+    public float[] singularValues() {
+        return Dense.toFloats(s);
+    }
+
+    /**
+     * Returns U, S and V in a Tuple, as returned by Matrix.svd().
+     * @return a Tuple containing U, S and V.
+     */
+    public Tuple<Matrix> toTuple() {
+        return new Tuple<>(u(), s(), v());
+    }
+
+    /**
+     * Finds the numerical rank, the number of singular values larger than max(m, n) * eps times the largest one,
+     * where eps is the machine epsilon of floats.
+     * @return the numerical rank of the decomposed Matrix.
+     */
+    public int rank() {
+        double tolerance = tolerance();
+        int rank = 0;
+        while (rank < k && s[rank] > tolerance) {
+            rank++;
+        }
+        return rank;
+    }
+
+    /**
+     * Computes the condition number in the 2-norm, the largest singular value divided by the smallest.
+     * @return the condition number, or infinity if the smallest singular value is 0.
+     */
+    public float cond() {
+        return k == 0 ? 0f : (float) (s[0] / s[k - 1]);
+    }
+
+    /**
+     * Computes the Moore-Penrose pseudo inverse, V S^+ U^T, where S^+ inverts the singular values larger than the
+     * tolerance of rank() and sets the others to 0.
+     * @return the n x m pseudo inverse.
+     */
+    public Matrix pseudoInverse() {
+        int rank = rank();
+        float[] res = new float[n * m];
+        Parallelism.forEach(n, 2L * n * m * rank, i -> {
+            double[] row = new double[m];
+            for (int p = 0; p < rank; p++) {
+                double factor = v[i * k + p] / s[p];
+                for (int j = 0; j < m; j++) {
+                    row[j] += factor * u[j * k + p];
+                }
+            }
+            for (int j = 0; j < m; j++) {
+                res[i * m + j] = (float) row[j];
+            }
+        });
+        return mf.m(res, n, m);
+    }
+
+    private double tolerance() {
+        return k == 0 ? 0 : Math.max(m, n) * Math.ulp(1f) * s[0];
+    }
+
+    /**
+     * Decomposes an m x n array with m >= n.
+     */
+    private static SVD decompose(double[] a, int m, int n) {
+        double[] tau = Householder.factor(a, m, n);
+        double[] rows = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a, i * n + i, rows, i * n + i, n - i);
+        }
+
+        double[] uColumns = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            uColumns[i * n + i] = 1;
+        }
+        rotate(rows, uColumns, n);
+
+        double[] norms = new double[n];
+        for (int j = 0; j < n; j++) {
+            norms[j] = Math.sqrt(Dense.dot(rows, j * n, rows, j * n, n));
+        }
+        Integer[] order = new Integer[n];
+        for (int j = 0; j < n; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(norms[y], norms[x]));
+
+        double[] s = new double[n];
+        double[] u = new double[m * n];
+        double[] v = new double[n * n];
+        for (int p = 0; p < n; p++) {
+            int j = order[p];
+            s[p] = norms[j];
+            if (norms[j] > 0) {
+                for (int i = 0; i < n; i++) {
+                    u[i * n + p] = uColumns[j * n + i];
+                    v[i * n + p] = rows[j * n + i] / norms[j];
+                }
+            }
+        }
+        Householder.applyQ(a, m, n, tau, u, n);
+        return new SVD(null, m, n, u, s, v);
+    }
+
+    /**
+     * Rotates pairs of the n rows of an n x n array until they are orthogonal, applying the same rotations to the
+     * rows of another n x n array.
+     */
+    private static void rotate(double[] rows, double[] other, int n) {
+        int players = n + (n & 1);
+        int[] schedule = new int[players];
+        for (int i = 0; i < players; i++) {
+            schedule[i] = i;
+        }
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            boolean[] rotated = new boolean[players / 2];
+            boolean any = false;
+            for (int round = 0; round < players - 1; round++) {
+                int[] pairs = schedule.clone();
+                Parallelism.forEach(players / 2, 12L * players / 2 * n, p -> {
+                    int i = pairs[p];
+                    int j = pairs[players - 1 - p];
+                    if (i < n && j < n && rotate(rows, other, n, Math.min(i, j), Math.max(i, j))) {
+                        rotated[p] = true;
+                    }
+                });
+                int last = schedule[players - 1];
+                System.arraycopy(schedule, 1, schedule, 2, players - 2);
+                schedule[1] = last;
+            }
+            for (boolean pair : rotated) {
+                any |= pair;
+            }
+            if (!any) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rotates rows i and j so that they become orthogonal, unless they already are to working precision.
+     * @return whether the rows were rotated.
+     */
+    private static boolean rotate(double[] rows, double[] other, int n, int i, int j) {
+        int x = i * n;
+        int y = j * n;
+        double alpha = 0;
+        double beta = 0;
+        double gamma = 0;
+        for (int p = 0; p < n; p++) {
+            double a = rows[x + p];
+            double b = rows[y + p];
+            alpha += a * a;
+            beta += b * b;
+            gamma += a * b;
+        }
+        if (gamma == 0 || Math.abs(gamma) <= TOLERANCE * Math.sqrt(alpha * beta)) {
+            return false;
+        }
+        double zeta = (beta - alpha) / (2 * gamma);
+        double t = Math.copySign(1, zeta) / (Math.abs(zeta) + Math.sqrt(1 + zeta * zeta));
+        double c = 1 / Math.sqrt(1 + t * t);
+        double s = c * t;
+        rotate(rows, x, y, n, c, s);
+        rotate(other, x, y, n, c, s);
+        return true;
+    }
+
+    private static void rotate(double[] data, int x, int y, int length, double c, double s) {
+        for (int p = 0; p < length; p++) {
+            double a = data[x + p];
+            double b = data[y + p];
+            data[x + p] = c * a - s * b;
+            data[y + p] = s * a + c * b;
+        }
+    }
+
+    private static double[] transpose(double[] a, int rows, int cols) {
+        double[] res = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                res[j * rows + i] = a[i * cols + j];
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,901 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.BLinAlg.GenInv;
+import LinearAlgebra.Decompositions.Eigen;
+import LinearAlgebra.Decompositions.LU;
+import LinearAlgebra.Decompositions.QR;
+import LinearAlgebra.Decompositions.SVD;
+import LinearAlgebra.FloatPredicate;
+import LinearAlgebra.FloatUnaryOperator;
+import LinearAlgebra.Kernels.Gemm;
+import LinearAlgebra.Kernels.Operand;
+import LinearAlgebra.Kernels.Reductions;
+import LinearAlgebra.Kernels.Selection;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixArena;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import LinearAlgebra.MutableMatrix;
+import LinearAlgebra.Uniques;
+import Misc.Tuple;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Implementation of the Matrix interface (Flat Matrix). Uses one contiguous array of floats for internal storage of
+ * the elements. The element at (i, j) is located at index offset + i * rowStride + j * colStride. Results of
+ * computations are stored compactly in row-major order (offset 0, rowStride n and colStride 1), so every row is a
+ * contiguous slice of the array and creating a result only allocates one object.
+ * row, col, rowr, colr, subm, rtr, rlc and tran return views, which share the array of this FMatrix and only differ
+ * in offset and strides, so taking them does not copy any elements. The matrix multiplication kernel reads views
+ * directly, while element-wise operations copy non-contiguous views into contiguous storage first. Views of
+ * FMutableMatrices are copied, since their elements can change.
+ * COL_DELIMITER is the standard column delimiter used by the toString() method.
+ * ROW_DELIMITER is the standard row delimiter used by the toString() method.
+ * EQUALITY_TOLERANCE is the standard maximum allowed difference between two elements with the same index in two
+ * different Matrices, which should still be considered equal.
+ * genInv is the instance of GenInv used to find the pseudo inverse of rectangular Matrices.
+ *
+ * See the documentation of the superclass Matrix.
+ */
+public class FMatrix implements Matrix {
+    private static final char COL_DELIMITER = ' ';
+    private static final char ROW_DELIMITER = '\n';
+    private static final float EQUALITY_TOLERANCE = 1e-4f;
+    private static final GenInv genInv = new GenInv();
+    private static final MatrixFactory fMatrixFactory = new FMatrixFactory();
+    final float[] data;
+    final int offset;
+    final int m;
+    final int n;
+    final int rowStride;
+    final int colStride;
+
+    FMatrix(float[] data, int rows, int cols) {
+        if (data.length != rows * cols) {
+            throw new MatrixException("Array of length " + data.length + " can not hold a " + rows + "x" + cols
+                    + " matrix");
+        }
+        this.data = data;
+        this.offset = 0;
+        this.m = rows;
+        this.n = cols;
+        this.rowStride = cols;
+        this.colStride = 1;
+    }
+
+    FMatrix(float scalar) {
+        this(new float[]{scalar}, 1, 1);
+    }
+
+    private FMatrix(float[] data, int offset, int rows, int cols, int rowStride, int colStride) {
+        this.data = data;
+        this.offset = offset;
+        this.m = rows;
+        this.n = cols;
+        this.rowStride = rowStride;
+        this.colStride = colStride;
+    }
+
+    public int rows() {
+        return m;
+    }
+
+    public int cols() {
+        return n;
+    }
+
+    public Tuple<Integer> size() {
+        return new Tuple<>(m, n);
+    }
+
+    public FMatrix copy() {
+        return new FMatrix(elements(), m, n);
+    }
+
+    public FMutableMatrix mcopy() {
+        return new FMutableMatrix(elements(), m, n);
+    }
+
+    public FMatrix compact() {
+        if (offset == 0 && data.length == m * n && isContiguous()) {
+            return this;
+        }
+        return copy();
+    }
+
+    public FMatrix conch(Matrix otherMatrix) {
+        FMatrix other = evaluate(otherMatrix);
+
+        if (!(m == other.m)) {
+            throw new MatrixException("Mismatching number of rows, " + m + " and " + other.m);
+        }
+
+        int cols = n + other.n;
+        float[] res = createfloatArray(m * cols);
+        for (int i = 0; i < m; i++) {
+            copyRow(i, res, i * cols);
+            other.copyRow(i, res, i * cols + n);
+        }
+        return new FMatrix(res, m, cols);
+    }
+
+    public FMatrix concv(Matrix otherMatrix) {
+        FMatrix other = evaluate(otherMatrix);
+
+        if (!(n == other.n)) {
+            throw new MatrixException("Mismatching number of columns, " + n + " and " + other.n);
+        }
+
+        float[] res = createfloatArray((m + other.m) * n);
+        for (int i = 0; i < m; i++) {
+            copyRow(i, res, i * n);
+        }
+        for (int i = 0; i < other.m; i++) {
+            other.copyRow(i, res, (m + i) * n);
+        }
+        return new FMatrix(res, m + other.m, n);
+    }
+
+    public float get(int row, int col) {
+        return data[offset + row * rowStride + col * colStride];
+    }
+
+    public void copyRowInto(int row, float[] dest, int destPos) {
+        checkIndices(row, 0);
+        copyRow(row, dest, destPos);
+    }
+
+    public float toFloat() {
+        if (m == 1 && n == 1) {
+            return data[offset];
+        } else {
+            throw new MatrixException("Matrix is not 1x1");
+        }
+    }
+
+    public FMatrix row(int row) {
+        checkIndices(row, 0);
+        return rowr(row, row);
+    }
+
+    public FMatrix col(int col) {
+        checkIndices(0, col);
+        return colr(col, col);
+    }
+
+    public FMatrix rows(int... rowIndices) {
+        float[] res = createfloatArray(rowIndices.length * n);
+        int i = 0;
+        for (int rowIndex : rowIndices) {
+            checkIndices(rowIndex, 0);
+            copyRow(rowIndex, res, i++ * n);
+        }
+        return new FMatrix(res, rowIndices.length, n);
+    }
+
+    public FMatrix cols(int... colIndices) {
+        for (int colIndex : colIndices) {
+            checkIndices(0, colIndex);
+        }
+        int cols = colIndices.length;
+        float[] res = createfloatArray(m * cols);
+        for (int i = 0; i < m; i++) {
+            int j = 0;
+            for (int colIndex : colIndices) {
+                res[i * cols + j++] = get(i, colIndex);
+            }
+        }
+        return new FMatrix(res, m, cols);
+    }
+
+    public FMatrix rowr(int from, int to) {
+        return subm(from, to, 0, n - 1);
+    }
+
+    public FMatrix colr(int from, int to) {
+        return subm(0, m - 1, from, to);
+    }
+
+    public FMatrix subm(int fromRow, int toRow, int fromCol, int toCol) {
+        checkIndices(fromRow, fromCol);
+        checkIndices(toRow, toCol);
+
+        return view(offset + fromRow * rowStride + fromCol * colStride, toRow - fromRow + 1, toCol - fromCol + 1,
+                rowStride, colStride);
+    }
+
+    public FMatrix ins(int row, int col, float element) {
+        checkIndices(row, col);
+        FMatrix copy = copy();
+        copy.data[row * n + col] = element;
+        return copy;
+    }
+
+    public FMatrix ins(int fromRow, int fromCol, Matrix otherMatrix) {
+        checkIndices(fromRow, fromCol);
+        checkIndices(fromRow + otherMatrix.rows() - 1, fromCol + otherMatrix.cols() - 1);
+        FMatrix other = evaluate(otherMatrix);
+
+        FMatrix copy = copy();
+        for (int i = 0; i < other.m; i++) {
+            other.copyRow(i, copy.data, (fromRow + i) * n + fromCol);
+        }
+        return copy;
+    }
+
+    public Tuple<Matrix> minh() {
+        return findExtremasHorizontally(false);
+    }
+
+    public Tuple<Matrix> minv() {
+        return findExtremasVertically(false);
+    }
+
+    public Tuple<Matrix> maxh() {
+        return findExtremasHorizontally(true);
+    }
+
+    public Tuple<Matrix> maxv() {
+        return findExtremasVertically(true);
+    }
+
+    public int[] argminh() {
+        int[] res = new int[m];
+        Selection.arg(data, offset, rowStride, colStride, m, n, false, res);
+        return res;
+    }
+
+    public int[] argminv() {
+        int[] res = new int[n];
+        Selection.arg(data, offset, colStride, rowStride, n, m, false, res);
+        return res;
+    }
+
+    public int[] argmaxh() {
+        int[] res = new int[m];
+        Selection.arg(data, offset, rowStride, colStride, m, n, true, res);
+        return res;
+    }
+
+    public int[] argmaxv() {
+        int[] res = new int[n];
+        Selection.arg(data, offset, colStride, rowStride, n, m, true, res);
+        return res;
+    }
+
+    public int[][] topkh(int k) {
+        checkTopK(k, n);
+        return Selection.topK(data, offset, rowStride, colStride, m, n, k);
+    }
+
+    public int[][] topkv(int k) {
+        checkTopK(k, m);
+        return Selection.topK(data, offset, colStride, rowStride, n, m, k);
+    }
+
+    public FMatrix add(Matrix otherMatrix) {
+        FMatrix other = evaluate(otherMatrix);
+
+        if (other.m == 1 && other.n == 1) {
+            return add(other.toFloat());
+        } else if (m == 1 && n == 1) {
+            return other.add(toFloat());
+        } else if (other.m == m && other.n == n) {
+            FMatrix a = contiguous();
+            FMatrix b = other.contiguous();
+            float[] res = createfloatArray(m * n);
+            for (int i = 0; i < res.length; i++) {
+                res[i] = a.data[a.offset + i] + b.data[b.offset + i];
+            }
+            return new FMatrix(res, m, n);
+        } else {
+            throw new MatrixException("Incompatible sizes for addition/subtraction, "
+                    + size() + " and " + otherMatrix.size());
+        }
+    }
+
+    public FMatrix addr(Matrix rowMatrix) {
+        FMatrix row = checkRow(rowMatrix).contiguous();
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < m; i++) {
+            int offset = i * n;
+            for (int j = 0; j < n; j++) {
+                res[offset + j] = a.data[a.offset + offset + j] + row.data[row.offset + j];
+            }
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix addc(Matrix columnMatrix) {
+        FMatrix column = checkColumn(columnMatrix);
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < m; i++) {
+            int offset = i * n;
+            float element = column.get(i, 0);
+            for (int j = 0; j < n; j++) {
+                res[offset + j] = a.data[a.offset + offset + j] + element;
+            }
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix add(float scalar) {
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < res.length; i++) {
+            res[i] = a.data[a.offset + i] + scalar;
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix sub(Matrix otherMatrix) {
+        FMatrix other = evaluate(otherMatrix);
+
+        if (other.m == 1 && other.n == 1) {
+            return add(-other.toFloat());
+        } else if (m == 1 && n == 1) {
+            return other.mul(-1f).add(toFloat());
+        } else if (other.m == m && other.n == n) {
+            FMatrix a = contiguous();
+            FMatrix b = other.contiguous();
+            float[] res = createfloatArray(m * n);
+            for (int i = 0; i < res.length; i++) {
+                res[i] = a.data[a.offset + i] - b.data[b.offset + i];
+            }
+            return new FMatrix(res, m, n);
+        } else {
+            throw new MatrixException("Incompatible sizes for addition/subtraction, "
+                    + size() + " and " + otherMatrix.size());
+        }
+    }
+
+    public FMatrix subr(Matrix row) {
+        return addr(row.mul(-1f));
+    }
+
+    public FMatrix subc(Matrix column) {
+        return addc(column.mul(-1f));
+    }
+
+    public FMatrix sub(float scalar) {
+        return add(-scalar);
+    }
+
+    public FMatrix rsub(float scalar) {
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < res.length; i++) {
+            res[i] = scalar - a.data[a.offset + i];
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix mul(Matrix other) {
+        if (n == other.rows()) {
+            return multiplyOperands(operand(), other.operand());
+        } else if (other.rows() == 1 && other.cols() == 1) {
+            return mul(other.get(0, 0));
+        } else if (m == 1 && n == 1) {
+            return evaluate(other).mul(toFloat());
+        } else {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size());
+        }
+    }
+
+    public FMatrix tmul(Matrix other) {
+        if (m != other.rows()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " transposed and "
+                    + other.size());
+        }
+        return multiplyOperands(operand().tran(), other.operand());
+    }
+
+    public FMatrix mult(Matrix other) {
+        if (n != other.cols()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size()
+                    + " transposed");
+        }
+        return multiplyOperands(operand(), other.operand().tran());
+    }
+
+    public FMutableMatrix mul(Matrix other, MutableMatrix into) {
+        if (n != other.rows()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size());
+        }
+        return multiplyOperands(operand(), other.operand(), checkDestination(other, into));
+    }
+
+    public FMutableMatrix tmul(Matrix other, MutableMatrix into) {
+        if (m != other.rows()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " transposed and "
+                    + other.size());
+        }
+        return multiplyOperands(operand().tran(), other.operand(), checkDestination(other, into));
+    }
+
+    public FMatrix mul(float scalar) {
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < res.length; i++) {
+            res[i] = a.data[a.offset + i] * scalar;
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix mulr(Matrix rowMatrix) {
+        FMatrix row = checkRow(rowMatrix).contiguous();
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < m; i++) {
+            int offset = i * n;
+            for (int j = 0; j < n; j++) {
+                res[offset + j] = a.data[a.offset + offset + j] * row.data[row.offset + j];
+            }
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix mulc(Matrix columnMatrix) {
+        FMatrix column = checkColumn(columnMatrix);
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < m; i++) {
+            int offset = i * n;
+            float element = column.get(i, 0);
+            for (int j = 0; j < n; j++) {
+                res[offset + j] = a.data[a.offset + offset + j] * element;
+            }
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix mulew(Matrix otherMatrix) {
+        FMatrix b = checkSameSize(otherMatrix).contiguous();
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < res.length; i++) {
+            res[i] = a.data[a.offset + i] * b.data[b.offset + i];
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix div(float scalar) {
+        return mul(1 / scalar);
+    }
+
+    public FMatrix divr(Matrix row) {
+        return mulr(row.map(d -> 1 / d));
+    }
+
+    public FMatrix divc(Matrix column) {
+        return mulc(column.map(d -> 1 / d));
+    }
+
+    public FMatrix divew(Matrix otherMatrix) {
+        FMatrix b = checkSameSize(otherMatrix).contiguous();
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < res.length; i++) {
+            res[i] = a.data[a.offset + i] / b.data[b.offset + i];
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix sumh() {
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m);
+        Reductions.sumRows(a.data, a.offset, m, n, res);
+        return new FMatrix(res, m, 1);
+    }
+
+    public FMatrix sumv() {
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(n);
+        Reductions.sumCols(a.data, a.offset, m, n, res);
+        return new FMatrix(res, 1, n);
+    }
+
+    public FMatrix sum() {
+        FMatrix a = contiguous();
+        return new FMatrix(Reductions.sum(a.data, a.offset, m * n));
+    }
+
+    public FMatrix sumsqr() {
+        FMatrix a = contiguous();
+        return new FMatrix(Reductions.sumsqr(a.data, a.offset, m * n));
+    }
+
+    public FMatrix inv() {
+        return (FMatrix) lu().inverse();
+    }
+
+    public FMatrix pinv() {
+        return (FMatrix) genInv.pseudoInvert(this, fMatrixFactory);
+    }
+
+    public LU lu() {
+        return LU.of(this, fMatrixFactory);
+    }
+
+    public QR qr() {
+        return QR.of(this, fMatrixFactory);
+    }
+
+    public Eigen eig() {
+        return Eigen.of(this, fMatrixFactory);
+    }
+
+    public FMatrix tran() {
+        return view(offset, n, m, colStride, rowStride);
+    }
+
+    public FMatrix diag() {
+        int end = Math.min(m, n);
+        float[] res = createfloatArray(end);
+        for (int i = 0; i < end; i++) {
+            res[i] = get(i, i);
+        }
+        return new FMatrix(res, end, 1);
+    }
+
+    public FMatrix vec() {
+        float[] res = createfloatArray(m * n);
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                res[k++] = get(i, j);
+            }
+        }
+        return new FMatrix(res, m * n, 1);
+    }
+
+    public FMatrix map(Function<Float, Float> function) {
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < res.length; i++) {
+            res[i] = function.apply(a.data[a.offset + i]);
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix map(FloatUnaryOperator function) {
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < res.length; i++) {
+            res[i] = function.applyAsFloat(a.data[a.offset + i]);
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix mask(Predicate<Float> pred) {
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < res.length; i++) {
+            res[i] = pred.test(a.data[a.offset + i]) ? 1f : 0f;
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix mask(FloatPredicate pred) {
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < res.length; i++) {
+            res[i] = pred.test(a.data[a.offset + i]) ? 1f : 0f;
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    public FMatrix usemask(Matrix maskMatrix) {
+        FMatrix mask = checkSameSize(maskMatrix);
+        int count = 0;
+        for (int i = 0; i < m; i++) {
+            int index = mask.offset + i * mask.rowStride;
+            for (int j = 0; j < n; j++, index += mask.colStride) {
+                if (mask.data[index] != 0) {
+                    count++;
+                }
+            }
+        }
+
+        float[] res = createfloatArray(count);
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            int maskIndex = mask.offset + j * mask.colStride;
+            int index = offset + j * colStride;
+            for (int i = 0; i < m; i++, maskIndex += mask.rowStride, index += rowStride) {
+                if (mask.data[maskIndex] != 0) {
+                    res[k++] = data[index];
+                }
+            }
+        }
+        return new FMatrix(res, count, 1);
+    }
+
+    public FMatrix addr1() {
+        float[] res = createfloatArray((m + 1) * n);
+        Arrays.fill(res, 0, n, 1f);
+        for (int i = 0; i < m; i++) {
+            copyRow(i, res, (i + 1) * n);
+        }
+        return new FMatrix(res, m + 1, n);
+    }
+
+    public FMatrix addc1() {
+        int cols = n + 1;
+        float[] res = createfloatArray(m * cols);
+        for (int i = 0; i < m; i++) {
+            res[i * cols] = 1f;
+            copyRow(i, res, i * cols + 1);
+        }
+        return new FMatrix(res, m, cols);
+    }
+
+    public FMatrix rtr() {
+        if (m < 2) {
+            throw new MatrixException("Can not remove top row from matrix with less than two m");
+        }
+        return rowr(1, m - 1);
+    }
+
+    public FMatrix rlc() {
+        if (n < 2) {
+            throw new MatrixException("Can not remove left column from matrix with only one column");
+        }
+        return colr(1, n - 1);
+    }
+
+    public Set<Float> unq() {
+        return unqc().toSet();
+    }
+
+    public Uniques unqc() {
+        float[] elements = new float[m * n];
+        for (int i = 0; i < m; i++) {
+            copyRow(i, elements, i * n);
+        }
+        return Uniques.sort(elements);
+    }
+
+    public Tuple<Matrix> svd() {
+        return SVD.of(this, fMatrixFactory).toTuple();
+    }
+
+    public String toString() {
+        return toString(COL_DELIMITER, ROW_DELIMITER);
+    }
+
+    public String toString(char colDelimiter, char rowDelimiter) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                stringBuilder.append(get(i, j));
+                if (j != n - 1) {
+                    stringBuilder.append(colDelimiter);
+                }
+            }
+            if (i != m - 1) {
+                stringBuilder.append(rowDelimiter);
+            }
+        }
+
+        return stringBuilder.toString();
+    }
+
+    public boolean equals(Object other) {
+        return equals(other, EQUALITY_TOLERANCE);
+    }
+
+    /**
+     * Returns a hash code consistent with equals. Matrices are equal when their elements are within a tolerance of
+     * each other, whatever their implementation, so the hash code only depends on the size.
+     */
+    public int hashCode() {
+        return 31 * m + n;
+    }
+
+    public boolean equals(Object other, float tolerance) {
+        if (!(other instanceof Matrix)) {
+            return false;
+        } else {
+            FMatrix otherMatrix = evaluate((Matrix) other);
+            if (m != otherMatrix.m || n != otherMatrix.n) {
+                return false;
+            }
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (Math.abs(otherMatrix.get(i, j) - get(i, j)) > tolerance) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    public FMatrix equalsEw(Matrix otherMatrix) {
+        FMatrix b = checkSameSize(otherMatrix).contiguous();
+        FMatrix a = contiguous();
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < res.length; i++) {
+            res[i] = Math.abs(a.data[a.offset + i] - b.data[b.offset + i]) < EQUALITY_TOLERANCE ? 1f : 0f;
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    private static float[] createfloatArray(int length) {
+        return MatrixArena.floats(length);
+    }
+
+    void checkIndices(int row, int col) {
+        if (row < 0 || row >= m || col < 0 || col >= n) {
+            throw new MatrixException("Row or column index out of bounds. Tried to access (" + row + ", " + col
+                    + ") in a (" + m + ", " + n + ") matrix");
+        }
+    }
+
+    private FMatrix checkRow(Matrix rowMatrix) {
+        FMatrix row = evaluate(rowMatrix);
+        if (!(row.n == n && row.m == 1)) {
+            throw new MatrixException("Argument is not row of right size " + row.size());
+        }
+        return row;
+    }
+
+    private FMatrix checkColumn(Matrix columnMatrix) {
+        FMatrix column = evaluate(columnMatrix);
+        if (!(column.m == m && column.n == 1)) {
+            throw new MatrixException("Argument is not column of right size " + column.size());
+        }
+        return column;
+    }
+
+    FMatrix checkSameSize(Matrix otherMatrix) {
+        FMatrix other = evaluate(otherMatrix);
+        if (m != other.m || n != other.n) {
+            throw new MatrixException("Matrices are not of same size, " + size() + " and " + other.size());
+        }
+        return other;
+    }
+
+    /**
+     * Returns the FMatrix holding the elements of the argument Matrix, evaluating it first if it is a LazyMatrix,
+     * expanding it if it is a SparseMatrix, and copying its rows with copyRowInto if it is of another implementation.
+     */
+    static FMatrix evaluate(Matrix matrix) {
+        if (matrix instanceof FMatrix) {
+            return (FMatrix) matrix;
+        } else if (matrix instanceof LazyMatrix) {
+            return ((LazyMatrix) matrix).value();
+        } else if (matrix instanceof SparseMatrix) {
+            return ((SparseMatrix) matrix).dense();
+        }
+        int rows = matrix.rows();
+        int cols = matrix.cols();
+        float[] res = createfloatArray(rows * cols);
+        for (int i = 0; i < rows; i++) {
+            matrix.copyRowInto(i, res, i * cols);
+        }
+        return new FMatrix(res, rows, cols);
+    }
+
+    /**
+     * Creates a view of the array of this FMatrix, or a copy of the viewed elements if this FMatrix is mutable.
+     */
+    private FMatrix view(int offset, int rows, int cols, int rowStride, int colStride) {
+        FMatrix view = new FMatrix(data, offset, rows, cols, rowStride, colStride);
+        return this instanceof MutableMatrix ? view.copy() : view;
+    }
+
+    /**
+     * Determines whether the elements of this FMatrix are stored in row-major order without gaps, starting at offset,
+     * so that they can be read with a single index.
+     */
+    boolean isContiguous() {
+        return (m <= 1 || rowStride == n) && (n <= 1 || colStride == 1);
+    }
+
+    /**
+     * Returns this FMatrix if its elements are contiguous, and a compact copy otherwise.
+     */
+    FMatrix contiguous() {
+        return isContiguous() ? this : copy();
+    }
+
+    /**
+     * Copies the elements of this FMatrix into a new array, in row-major order.
+     */
+    private float[] elements() {
+        float[] res = createfloatArray(m * n);
+        for (int i = 0; i < m; i++) {
+            copyRow(i, res, i * n);
+        }
+        return res;
+    }
+
+    /**
+     * Copies a row of this FMatrix into an array, starting at the given index.
+     */
+    private void copyRow(int row, float[] dest, int destPos) {
+        int index = offset + row * rowStride;
+        if (colStride == 1) {
+            System.arraycopy(data, index, dest, destPos, n);
+        } else {
+            for (int j = 0; j < n; j++) {
+                dest[destPos + j] = data[index];
+                index += colStride;
+            }
+        }
+    }
+
+    private Tuple<Matrix> findExtremasVertically(boolean max) {
+        int[] rowIndices = max ? argmaxv() : argminv();
+        float[] extremas = createfloatArray(n);
+        float[] indices = createfloatArray(n);
+        for (int j = 0; j < n; j++) {
+            extremas[j] = get(rowIndices[j], j);
+            indices[j] = rowIndices[j];
+        }
+        return new Tuple<>(new FMatrix(extremas, 1, n), new FMatrix(indices, 1, n));
+    }
+
+    private Tuple<Matrix> findExtremasHorizontally(boolean max) {
+        int[] colIndices = max ? argmaxh() : argminh();
+        float[] extremas = createfloatArray(m);
+        float[] indices = createfloatArray(m);
+        for (int i = 0; i < m; i++) {
+            extremas[i] = get(i, colIndices[i]);
+            indices[i] = colIndices[i];
+        }
+        return new Tuple<>(new FMatrix(extremas, m, 1), new FMatrix(indices, m, 1));
+    }
+
+    private static void checkTopK(int k, int count) {
+        if (k < 0 || k > count) {
+            throw new MatrixException("Can not find the " + k + " largest of " + count + " values");
+        }
+    }
+
+    private static FMatrix multiplyOperands(Operand a, Operand b) {
+        int rows = a.rows();
+        int cols = b.cols();
+        float[] res = createfloatArray(rows * cols);
+        Gemm.multiply(a, b, res, 0, cols);
+        return new FMatrix(res, rows, cols);
+    }
+
+    private static FMutableMatrix multiplyOperands(Operand a, Operand b, FMutableMatrix into) {
+        int rows = a.rows();
+        int cols = b.cols();
+        if (into.m != rows || into.n != cols) {
+            throw new MatrixException("Destination of size " + into.size() + " can not hold the (" + rows + ", "
+                    + cols + ") product");
+        }
+        Gemm.multiply(a, b, into.data, 0, cols);
+        return into;
+    }
+
+    /**
+     * Checks that a destination of a product is an FMutableMatrix which is not one of the factors, since the kernel
+     * reads the factors while writing the product.
+     */
+    private FMutableMatrix checkDestination(Matrix other, MutableMatrix intoMatrix) {
+        FMutableMatrix into = (FMutableMatrix) intoMatrix;
+        if (into.data == data || other instanceof FMatrix && into.data == ((FMatrix) other).data) {
+            throw new MatrixException("The destination of a product can not be one of its factors");
+        }
+        return into;
+    }
+
+    /**
+     * Returns an Operand reading the elements of this FMatrix, for use with the kernels.
+     * @return an Operand reading the elements of this FMatrix.
+     */
+    public Operand operand() {
+        return Operand.of(data, offset, rowStride, colStride, m, n);
+    }
+}
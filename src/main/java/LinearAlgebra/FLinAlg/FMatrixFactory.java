@@ -0,0 +1,98 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.MatrixArena;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import LinearAlgebra.ReadWrite.BFNAParser;
+import LinearAlgebra.ReadWrite.FNAParser;
+
+import java.util.Arrays;
+
+/**
+ * A factory class for FMatrices. See the documentation of the MatrixFactory class.
+ */
+public class FMatrixFactory implements MatrixFactory {
+    private static final char STD_COL_DELIMITER = ' ';
+    private static final char STD_ROW_DELIMITER = ';';
+    private final FNAParser BFNAParser;
+    private final MatrixArena.Pool pool = new MatrixArena.Pool();
+
+    /**
+     * Constructor, which takes the column and row delimiters as arguments.
+     * @param colDelimiter the character between columns.
+     * @param rowDelimiter the character between rows.
+     */
+    public FMatrixFactory(char colDelimiter, char rowDelimiter) {
+        BFNAParser = new BFNAParser(colDelimiter, rowDelimiter);
+    }
+
+    /**
+     * Constructor which uses the standard column and row delimiters.
+     */
+    public FMatrixFactory() {
+        this(STD_COL_DELIMITER, STD_ROW_DELIMITER);
+    }
+
+    public FMatrix m(float[][] elements) {
+        int rows = elements.length;
+        int cols = elements[0].length;
+        float[] res = new float[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            if (elements[i].length != cols) {
+                throw new MatrixException("Mismatching columns. " + cols + " columns in first row, "
+                        + elements[i].length + " columns in " + i + ":th row");
+            }
+            System.arraycopy(elements[i], 0, res, i * cols, cols);
+        }
+        return new FMatrix(res, rows, cols);
+    }
+
+    /**
+     * Factory method for FMatrices, taking the elements in row-major order as argument. The array is not copied.
+     * @param elements the elements the FMatrix should contain, row after row.
+     * @param rows the number of rows in the wanted FMatrix.
+     * @param cols the number of columns in the wanted FMatrix.
+     * @return a rows x cols FMatrix backed by the array given as argument.
+     */
+    public FMatrix m(float[] elements, int rows, int cols) {
+        return new FMatrix(elements, rows, cols);
+    }
+
+    public FMatrix m(String elements) {
+        return m(BFNAParser.parse(elements));
+    }
+
+    public FMatrix s(float element) {
+        return new FMatrix(element);
+    }
+
+    public FMatrix ones(int rows, int cols) {
+        float[] res = new float[rows * cols];
+        Arrays.fill(res, 1f);
+        return new FMatrix(res, rows, cols);
+    }
+
+    public FMatrix zeroes(int rows, int cols) {
+        return new FMatrix(new float[rows * cols], rows, cols);
+    }
+
+    public FMutableMatrix mutable(int rows, int cols) {
+        return new FMutableMatrix(new float[rows * cols], rows, cols);
+    }
+
+    public FMatrix identityMatrix(int size) {
+        float[] res = new float[size * size];
+        for (int i = 0; i < size; i++) {
+            res[i * size + i] = 1f;
+        }
+        return new FMatrix(res, size, size);
+    }
+
+    /**
+     * Opens a MatrixArena recycling buffers between all arenas of this factory.
+     * @return the opened MatrixArena.
+     */
+    public MatrixArena arena() {
+        return pool.open();
+    }
+}
@@ -0,0 +1,93 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.FloatUnaryOperator;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MutableMatrix;
+
+/**
+ * Mutable version of FMatrix. The in-place operations work directly on the flat array of the FMatrix, and every other
+ * operation is inherited, returning a new (immutable) FMatrix. An FMutableMatrix is always stored compactly, and never
+ * shares its array with a view.
+ *
+ * See the documentation of the superclass MutableMatrix.
+ */
+public class FMutableMatrix extends FMatrix implements MutableMatrix {
+
+    FMutableMatrix(float[] data, int rows, int cols) {
+        super(data, rows, cols);
+    }
+
+    public FMutableMatrix set(int row, int col, float element) {
+        checkIndices(row, col);
+        data[row * n + col] = element;
+        return this;
+    }
+
+    public FMutableMatrix set(Matrix otherMatrix) {
+        FMatrix other = checkSameSize(otherMatrix).contiguous();
+        System.arraycopy(other.data, other.offset, data, 0, data.length);
+        return this;
+    }
+
+    public FMutableMatrix addi(Matrix otherMatrix) {
+        FMatrix other = evaluate(otherMatrix);
+        if (other.m == 1 && other.n == 1) {
+            return addi(other.toFloat());
+        }
+        return addi(otherMatrix, 1f);
+    }
+
+    public FMutableMatrix addi(Matrix otherMatrix, float factor) {
+        FMatrix other = checkSameSize(otherMatrix).contiguous();
+        for (int i = 0; i < data.length; i++) {
+            data[i] += factor * other.data[other.offset + i];
+        }
+        return this;
+    }
+
+    public FMutableMatrix addi(float scalar) {
+        for (int i = 0; i < data.length; i++) {
+            data[i] += scalar;
+        }
+        return this;
+    }
+
+    public FMutableMatrix subi(Matrix otherMatrix) {
+        FMatrix other = evaluate(otherMatrix);
+        if (other.m == 1 && other.n == 1) {
+            return addi(-other.toFloat());
+        }
+        other = checkSameSize(otherMatrix).contiguous();
+        for (int i = 0; i < data.length; i++) {
+            data[i] -= other.data[other.offset + i];
+        }
+        return this;
+    }
+
+    public FMutableMatrix subi(float scalar) {
+        return addi(-scalar);
+    }
+
+    public FMutableMatrix muli(float scalar) {
+        for (int i = 0; i < data.length; i++) {
+            data[i] *= scalar;
+        }
+        return this;
+    }
+
+    public FMutableMatrix mulewi(Matrix otherMatrix) {
+        FMatrix other = checkSameSize(otherMatrix).contiguous();
+        for (int i = 0; i < data.length; i++) {
+            data[i] *= other.data[other.offset + i];
+        }
+        return this;
+    }
+
+    public FMutableMatrix mapi(FloatUnaryOperator function) {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = function.applyAsFloat(data[i]);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,632 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.Decompositions.Eigen;
+import LinearAlgebra.Decompositions.LU;
+import LinearAlgebra.Decompositions.QR;
+import LinearAlgebra.Decompositions.SVD;
+import LinearAlgebra.FloatPredicate;
+import LinearAlgebra.FloatUnaryOperator;
+import LinearAlgebra.Kernels.Operand;
+import LinearAlgebra.Kernels.Reductions;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import LinearAlgebra.MutableMatrix;
+import LinearAlgebra.Uniques;
+import Misc.Tuple;
+
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Lazy implementation of the Matrix interface. Element-wise operations (addition, subtraction, multiplication and
+ * division, with scalars, rows, columns or Matrices of the same size, as well as map and mask) do not compute
+ * anything, but record the operation as a node in an expression graph. The whole graph is then evaluated in one
+ * fused pass when the elements are needed, a chunk of CHUNK elements at a time, so that no intermediate Matrix is
+ * ever created and every chunk of the operands is only read once while it is in cache. The reductions sum(),
+ * sumsqr(), sumh() and sumv() hand the chunks to the accumulators of Reductions, which hold at most a block or a row
+ * of the evaluated elements, and give exactly the same results as the reductions of the evaluated FMatrix.
+ *
+ * Every other operation (get, toFloat, matrix multiplication, inversion, slicing etc.) evaluates the graph into an
+ * FMatrix, which is cached, and is carried out by the FMatrix. The results are LazyMatrices again, so that the
+ * following element-wise operations are recorded as well. Since the element-wise operations are computed in the same
+ * order as by FMatrix, the results are exactly the same.
+ *
+ * A subexpression used by several expressions is computed once per expression, unless it has been evaluated. Once a
+ * LazyMatrix has been evaluated, its expression graph is replaced by the result.
+ *
+ * See the documentation of the superclass Matrix.
+ */
+public class LazyMatrix implements Matrix {
+    private static final int CHUNK = 1024;
+    private static final MatrixFactory lazyMatrixFactory = new LazyMatrixFactory();
+    private Node node;
+    private FMatrix value;
+
+    LazyMatrix(FMatrix value) {
+        this.node = new Leaf(value);
+        this.value = value;
+    }
+
+    private LazyMatrix(Node node) {
+        this.node = node;
+    }
+
+    public int rows() {
+        return node.rows;
+    }
+
+    public int cols() {
+        return node.cols;
+    }
+
+    public Tuple<Integer> size() {
+        return new Tuple<>(node.rows, node.cols);
+    }
+
+    public LazyMatrix copy() {
+        return new LazyMatrix(value().copy());
+    }
+
+    public FMutableMatrix mcopy() {
+        return value().mcopy();
+    }
+
+    public LazyMatrix compact() {
+        FMatrix compact = value().compact();
+        return compact == value ? this : new LazyMatrix(compact);
+    }
+
+    public LazyMatrix conch(Matrix other) {
+        return new LazyMatrix(value().conch(other));
+    }
+
+    public LazyMatrix concv(Matrix other) {
+        return new LazyMatrix(value().concv(other));
+    }
+
+    public float get(int row, int col) {
+        return value().get(row, col);
+    }
+
+    public void copyRowInto(int row, float[] dest, int destPos) {
+        value().copyRowInto(row, dest, destPos);
+    }
+
+    public Operand operand() {
+        return value().operand();
+    }
+
+    public float toFloat() {
+        return value().toFloat();
+    }
+
+    public LazyMatrix row(int row) {
+        return new LazyMatrix(value().row(row));
+    }
+
+    public LazyMatrix col(int col) {
+        return new LazyMatrix(value().col(col));
+    }
+
+    public LazyMatrix rows(int... rows) {
+        return new LazyMatrix(value().rows(rows));
+    }
+
+    public LazyMatrix cols(int... cols) {
+        return new LazyMatrix(value().cols(cols));
+    }
+
+    public LazyMatrix rowr(int from, int to) {
+        return new LazyMatrix(value().rowr(from, to));
+    }
+
+    public LazyMatrix colr(int from, int to) {
+        return new LazyMatrix(value().colr(from, to));
+    }
+
+    public LazyMatrix subm(int fromRow, int toRow, int fromCol, int toCol) {
+        return new LazyMatrix(value().subm(fromRow, toRow, fromCol, toCol));
+    }
+
+    public LazyMatrix ins(int row, int col, float element) {
+        return new LazyMatrix(value().ins(row, col, element));
+    }
+
+    public LazyMatrix ins(int fromRow, int fromCol, Matrix other) {
+        return new LazyMatrix(value().ins(fromRow, fromCol, other));
+    }
+
+    public Tuple<Matrix> minh() {
+        return lazy(value().minh());
+    }
+
+    public Tuple<Matrix> minv() {
+        return lazy(value().minv());
+    }
+
+    public Tuple<Matrix> maxh() {
+        return lazy(value().maxh());
+    }
+
+    public Tuple<Matrix> maxv() {
+        return lazy(value().maxv());
+    }
+
+    public int[] argminh() {
+        return value().argminh();
+    }
+
+    public int[] argminv() {
+        return value().argminv();
+    }
+
+    public int[] argmaxh() {
+        return value().argmaxh();
+    }
+
+    public int[] argmaxv() {
+        return value().argmaxv();
+    }
+
+    public int[][] topkh(int k) {
+        return value().topkh(k);
+    }
+
+    public int[][] topkv(int k) {
+        return value().topkv(k);
+    }
+
+    public LazyMatrix add(Matrix other) {
+        if (other.rows() == 1 && other.cols() == 1) {
+            return add(other.toFloat());
+        } else if (rows() == 1 && cols() == 1) {
+            return lazy(other).add(toFloat());
+        } else if (other.rows() == rows() && other.cols() == cols()) {
+            return new LazyMatrix(new Binary(node, node(other), (a, b) -> a + b));
+        } else {
+            throw new MatrixException("Incompatible sizes for addition/subtraction, " + size() + " and "
+                    + other.size());
+        }
+    }
+
+    public LazyMatrix addr(Matrix row) {
+        return new LazyMatrix(new Binary(node, broadcastRow(row), (a, b) -> a + b));
+    }
+
+    public LazyMatrix addc(Matrix column) {
+        return new LazyMatrix(new Binary(node, broadcastColumn(column), (a, b) -> a + b));
+    }
+
+    public LazyMatrix add(float scalar) {
+        return map(d -> d + scalar);
+    }
+
+    public LazyMatrix sub(Matrix other) {
+        if (other.rows() == 1 && other.cols() == 1) {
+            return add(-other.toFloat());
+        } else if (rows() == 1 && cols() == 1) {
+            float scalar = toFloat();
+            return lazy(other).map(d -> d * -1f + scalar);
+        } else if (other.rows() == rows() && other.cols() == cols()) {
+            return new LazyMatrix(new Binary(node, node(other), (a, b) -> a - b));
+        } else {
+            throw new MatrixException("Incompatible sizes for addition/subtraction, " + size() + " and "
+                    + other.size());
+        }
+    }
+
+    public LazyMatrix subr(Matrix row) {
+        return new LazyMatrix(new Binary(node, broadcastRow(row), (a, b) -> a - b));
+    }
+
+    public LazyMatrix subc(Matrix column) {
+        return new LazyMatrix(new Binary(node, broadcastColumn(column), (a, b) -> a - b));
+    }
+
+    public LazyMatrix sub(float scalar) {
+        return add(-scalar);
+    }
+
+    public LazyMatrix rsub(float scalar) {
+        return map(d -> scalar - d);
+    }
+
+    public LazyMatrix mul(Matrix other) {
+        if (cols() == other.rows()) {
+            return new LazyMatrix(value().mul(other));
+        } else if (other.rows() == 1 && other.cols() == 1) {
+            return mul(other.toFloat());
+        } else if (rows() == 1 && cols() == 1) {
+            return lazy(other).mul(toFloat());
+        } else {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size());
+        }
+    }
+
+    public LazyMatrix tmul(Matrix other) {
+        return new LazyMatrix(value().tmul(other));
+    }
+
+    public LazyMatrix mult(Matrix other) {
+        return new LazyMatrix(value().mult(other));
+    }
+
+    public FMutableMatrix mul(Matrix other, MutableMatrix into) {
+        return value().mul(other, into);
+    }
+
+    public FMutableMatrix tmul(Matrix other, MutableMatrix into) {
+        return value().tmul(other, into);
+    }
+
+    public LazyMatrix mul(float scalar) {
+        return map(d -> d * scalar);
+    }
+
+    public LazyMatrix mulr(Matrix row) {
+        return new LazyMatrix(new Binary(node, broadcastRow(row), (a, b) -> a * b));
+    }
+
+    public LazyMatrix mulc(Matrix column) {
+        return new LazyMatrix(new Binary(node, broadcastColumn(column), (a, b) -> a * b));
+    }
+
+    public LazyMatrix mulew(Matrix other) {
+        return new LazyMatrix(new Binary(node, sameSize(other), (a, b) -> a * b));
+    }
+
+    public LazyMatrix div(float scalar) {
+        return mul(1 / scalar);
+    }
+
+    public LazyMatrix divr(Matrix row) {
+        return mulr(row.map(d -> 1 / d));
+    }
+
+    public LazyMatrix divc(Matrix column) {
+        return mulc(column.map(d -> 1 / d));
+    }
+
+    public LazyMatrix divew(Matrix other) {
+        return new LazyMatrix(new Binary(node, sameSize(other), (a, b) -> a / b));
+    }
+
+    public LazyMatrix sumh() {
+        if (value != null) {
+            return new LazyMatrix(value.sumh());
+        }
+        return new LazyMatrix(new FMatrix(reduce(Reductions.Accumulator.sumRows(rows(), cols())), rows(), 1));
+    }
+
+    public LazyMatrix sumv() {
+        if (value != null) {
+            return new LazyMatrix(value.sumv());
+        }
+        return new LazyMatrix(new FMatrix(reduce(Reductions.Accumulator.sumCols(rows(), cols())), 1, cols()));
+    }
+
+    public LazyMatrix sum() {
+        if (value != null) {
+            return new LazyMatrix(value.sum());
+        }
+        return new LazyMatrix(new FMatrix(reduce(Reductions.Accumulator.sum(rows(), cols()))[0]));
+    }
+
+    public LazyMatrix sumsqr() {
+        if (value != null) {
+            return new LazyMatrix(value.sumsqr());
+        }
+        return new LazyMatrix(new FMatrix(reduce(Reductions.Accumulator.sumsqr(rows(), cols()))[0]));
+    }
+
+    /**
+     * Hands the chunks of the evaluated expression to an Accumulator, which gives exactly the same result as the same
+     * reduction of the evaluated Matrix.
+     */
+    private float[] reduce(Reductions.Accumulator accumulator) {
+        evaluate((from, chunk, length) -> accumulator.add(chunk, 0, length));
+        return accumulator.result();
+    }
+
+    public LazyMatrix inv() {
+        return new LazyMatrix(value().inv());
+    }
+
+    public LazyMatrix pinv() {
+        return new LazyMatrix(value().pinv());
+    }
+
+    public LU lu() {
+        return LU.of(value(), lazyMatrixFactory);
+    }
+
+    public QR qr() {
+        return QR.of(value(), lazyMatrixFactory);
+    }
+
+    public Eigen eig() {
+        return Eigen.of(value(), lazyMatrixFactory);
+    }
+
+    public LazyMatrix tran() {
+        return new LazyMatrix(value().tran());
+    }
+
+    public LazyMatrix diag() {
+        return new LazyMatrix(value().diag());
+    }
+
+    public LazyMatrix vec() {
+        return new LazyMatrix(value().vec());
+    }
+
+    public LazyMatrix map(Function<Float, Float> function) {
+        return map((float d) -> function.apply(d));
+    }
+
+    public LazyMatrix map(FloatUnaryOperator function) {
+        return new LazyMatrix(new Unary(node, function));
+    }
+
+    public LazyMatrix mask(Predicate<Float> pred) {
+        return map((float d) -> pred.test(d) ? 1f : 0f);
+    }
+
+    public LazyMatrix mask(FloatPredicate pred) {
+        return map((float d) -> pred.test(d) ? 1f : 0f);
+    }
+
+    public LazyMatrix usemask(Matrix mask) {
+        return new LazyMatrix(value().usemask(mask));
+    }
+
+    public LazyMatrix addr1() {
+        return new LazyMatrix(value().addr1());
+    }
+
+    public LazyMatrix addc1() {
+        return new LazyMatrix(value().addc1());
+    }
+
+    public LazyMatrix rtr() {
+        return new LazyMatrix(value().rtr());
+    }
+
+    public LazyMatrix rlc() {
+        return new LazyMatrix(value().rlc());
+    }
+
+    public Set<Float> unq() {
+        return value().unq();
+    }
+
+    public Uniques unqc() {
+        return value().unqc();
+    }
+
+    public Tuple<Matrix> svd() {
+        return SVD.of(value(), lazyMatrixFactory).toTuple();
+    }
+
+    public String toString() {
+        return value().toString();
+    }
+
+    public String toString(char colDelimiter, char rowDelimiter) {
+        return value().toString(colDelimiter, rowDelimiter);
+    }
+
+    public boolean equals(Object other) {
+        return value().equals(other);
+    }
+
+    /**
+     * Returns a hash code consistent with equals. Matrices are equal when their elements are within a tolerance of
+     * each other, whatever their implementation, so the hash code only depends on the size.
+     */
+    public int hashCode() {
+        return 31 * rows() + cols();
+    }
+
+    public boolean equals(Object other, float tolerance) {
+        return value().equals(other, tolerance);
+    }
+
+    public LazyMatrix equalsEw(Matrix other) {
+        return new LazyMatrix(value().equalsEw(other));
+    }
+
+    /**
+     * Evaluates the expression graph of this Matrix, unless that has already been done.
+     * @return the FMatrix containing the elements of this Matrix.
+     */
+    FMatrix value() {
+        if (value == null) {
+            float[] res = new float[rows() * cols()];
+            float[][] scratch = new float[node.depth][CHUNK];
+            for (int from = 0; from < res.length; from += CHUNK) {
+                node.eval(from, Math.min(CHUNK, res.length - from), res, from, scratch);
+            }
+            value = new FMatrix(res, rows(), cols());
+            node = new Leaf(value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether the expression graph of this Matrix has been evaluated.
+     * @return whether the elements of this Matrix have been computed.
+     */
+    boolean isEvaluated() {
+        return value != null;
+    }
+
+    /**
+     * Evaluates the expression graph of this Matrix in chunks, and hands every chunk to the consumer in order, without
+     * keeping the elements.
+     */
+    private void evaluate(ChunkConsumer consumer) {
+        int size = rows() * cols();
+        float[] chunk = new float[Math.min(CHUNK, size)];
+        float[][] scratch = new float[node.depth][CHUNK];
+        for (int from = 0; from < size; from += CHUNK) {
+            int length = Math.min(CHUNK, size - from);
+            node.eval(from, length, chunk, 0, scratch);
+            consumer.accept(from, chunk, length);
+        }
+    }
+
+    private static LazyMatrix lazy(Matrix matrix) {
+        return matrix instanceof LazyMatrix ? (LazyMatrix) matrix : new LazyMatrix(snapshot(FMatrix.evaluate(matrix)));
+    }
+
+    private static Tuple<Matrix> lazy(Tuple<Matrix> tuple) {
+        return new Tuple<>(lazy(tuple.get(0)), lazy(tuple.get(1)));
+    }
+
+    /**
+     * Returns the node computing the elements of a Matrix. The expression graph of an unevaluated LazyMatrix becomes
+     * part of the new graph.
+     */
+    private static Node node(Matrix matrix) {
+        if (matrix instanceof LazyMatrix) {
+            return ((LazyMatrix) matrix).node;
+        }
+        return new Leaf(snapshot(FMatrix.evaluate(matrix)));
+    }
+
+    /**
+     * Copies MutableMatrices, since they might change before the expression reading them is evaluated.
+     */
+    private static FMatrix snapshot(FMatrix matrix) {
+        return matrix instanceof MutableMatrix ? matrix.copy() : matrix;
+    }
+
+    private Node sameSize(Matrix other) {
+        if (rows() != other.rows() || cols() != other.cols()) {
+            throw new MatrixException("Matrices are not of same size, " + size() + " and " + other.size());
+        }
+        return node(other);
+    }
+
+    private Node broadcastRow(Matrix row) {
+        if (!(row.cols() == cols() && row.rows() == 1)) {
+            throw new MatrixException("Argument is not row of right size " + row.size());
+        }
+        return new Broadcast(snapshot(FMatrix.evaluate(row)), rows(), cols(), true);
+    }
+
+    private Node broadcastColumn(Matrix column) {
+        if (!(column.rows() == rows() && column.cols() == 1)) {
+            throw new MatrixException("Argument is not column of right size " + column.size());
+        }
+        return new Broadcast(snapshot(FMatrix.evaluate(column)), rows(), cols(), false);
+    }
+
+    private interface FloatBinaryOperator {
+        float apply(float left, float right);
+    }
+
+    private interface ChunkConsumer {
+        void accept(int from, float[] chunk, int length);
+    }
+
+    /**
+     * A node in an expression graph. A node computes a range of its elements (in row-major order) at a time, and
+     * may use depth scratch arrays of CHUNK elements while doing so.
+     */
+    private static abstract class Node {
+        final int rows;
+        final int cols;
+        final int depth;
+
+        Node(int rows, int cols, int depth) {
+            this.rows = rows;
+            this.cols = cols;
+            this.depth = depth;
+        }
+
+        /**
+         * Computes the elements from (inclusive) to from + length (exclusive), and stores them in out, starting at
+         * index offset. The scratch arrays with index depth and above are not touched.
+         */
+        abstract void eval(int from, int length, float[] out, int offset, float[][] scratch);
+    }
+
+    private static final class Leaf extends Node {
+        private final FMatrix matrix;
+
+        Leaf(FMatrix matrix) {
+            super(matrix.m, matrix.n, 0);
+            this.matrix = matrix.contiguous();
+        }
+
+        void eval(int from, int length, float[] out, int offset, float[][] scratch) {
+            System.arraycopy(matrix.data, matrix.offset + from, out, offset, length);
+        }
+    }
+
+    private static final class Broadcast extends Node {
+        private final FMatrix vector;
+        private final boolean row;
+
+        Broadcast(FMatrix vector, int rows, int cols, boolean row) {
+            super(rows, cols, 0);
+            this.vector = vector.contiguous();
+            this.row = row;
+        }
+
+        void eval(int from, int length, float[] out, int offset, float[][] scratch) {
+            for (int k = 0; k < length; k++) {
+                int index = from + k;
+                out[offset + k] = vector.data[vector.offset + (row ? index % cols : index / cols)];
+            }
+        }
+    }
+
+    private static final class Unary extends Node {
+        private final Node operand;
+        private final FloatUnaryOperator function;
+
+        Unary(Node operand, FloatUnaryOperator function) {
+            super(operand.rows, operand.cols, operand.depth);
+            this.operand = operand;
+            this.function = function;
+        }
+
+        void eval(int from, int length, float[] out, int offset, float[][] scratch) {
+            operand.eval(from, length, out, offset, scratch);
+            for (int k = offset; k < offset + length; k++) {
+                out[k] = function.applyAsFloat(out[k]);
+            }
+        }
+    }
+
+    /**
+     * Node combining two operands of the same size elementwise. The left operand is computed straight into the
+     * output, and the right operand into the first scratch array its own graph does not need.
+     */
+    private static final class Binary extends Node {
+        private final Node left;
+        private final Node right;
+        private final FloatBinaryOperator operator;
+
+        Binary(Node left, Node right, FloatBinaryOperator operator) {
+            super(left.rows, left.cols, Math.max(left.depth, right.depth + 1));
+            this.left = left;
+            this.right = right;
+            this.operator = operator;
+        }
+
+        void eval(int from, int length, float[] out, int offset, float[][] scratch) {
+            left.eval(from, length, out, offset, scratch);
+            float[] buf = scratch[right.depth];
+            right.eval(from, length, buf, 0, scratch);
+            for (int k = 0; k < length; k++) {
+                out[offset + k] = operator.apply(out[offset + k], buf[k]);
+            }
+        }
+    }
+}
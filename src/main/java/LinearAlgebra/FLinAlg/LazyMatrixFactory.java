@@ -0,0 +1,76 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.MatrixArena;
+import LinearAlgebra.MatrixFactory;
+
+/**
+ * A factory class for LazyMatrices. The elements are stored in FMatrices, created by an FMatrixFactory. MutableMatrices
+ * are evaluated eagerly by definition, so mutable(int rows, int cols) returns an FMutableMatrix. See the documentation
+ * of the MatrixFactory class.
+ */
+public class LazyMatrixFactory implements MatrixFactory {
+    private final FMatrixFactory fMatrixFactory;
+
+    /**
+     * Constructor, which takes the column and row delimiters as arguments.
+     * @param colDelimiter the character between columns.
+     * @param rowDelimiter the character between rows.
+     */
+    public LazyMatrixFactory(char colDelimiter, char rowDelimiter) {
+        fMatrixFactory = new FMatrixFactory(colDelimiter, rowDelimiter);
+    }
+
+    /**
+     * Constructor which uses the standard column and row delimiters.
+     */
+    public LazyMatrixFactory() {
+        fMatrixFactory = new FMatrixFactory();
+    }
+
+    public LazyMatrix m(float[][] elements) {
+        return new LazyMatrix(fMatrixFactory.m(elements));
+    }
+
+    /**
+     * Factory method for LazyMatrices, taking the elements in row-major order as argument. The array is not copied.
+     * @param elements the elements the LazyMatrix should contain, row after row.
+     * @param rows the number of rows in the wanted LazyMatrix.
+     * @param cols the number of columns in the wanted LazyMatrix.
+     * @return a rows x cols LazyMatrix backed by the array given as argument.
+     */
+    public LazyMatrix m(float[] elements, int rows, int cols) {
+        return new LazyMatrix(fMatrixFactory.m(elements, rows, cols));
+    }
+
+    public LazyMatrix m(String elements) {
+        return new LazyMatrix(fMatrixFactory.m(elements));
+    }
+
+    public LazyMatrix s(float element) {
+        return new LazyMatrix(fMatrixFactory.s(element));
+    }
+
+    public LazyMatrix ones(int rows, int cols) {
+        return new LazyMatrix(fMatrixFactory.ones(rows, cols));
+    }
+
+    public LazyMatrix zeroes(int rows, int cols) {
+        return new LazyMatrix(fMatrixFactory.zeroes(rows, cols));
+    }
+
+    public FMutableMatrix mutable(int rows, int cols) {
+        return fMatrixFactory.mutable(rows, cols);
+    }
+
+    public LazyMatrix identityMatrix(int size) {
+        return new LazyMatrix(fMatrixFactory.identityMatrix(size));
+    }
+
+    /**
+     * Opens a MatrixArena sharing the Pool of the underlying FMatrixFactory.
+     * @return the opened MatrixArena.
+     */
+    public MatrixArena arena() {
+        return fMatrixFactory.arena();
+    }
+}
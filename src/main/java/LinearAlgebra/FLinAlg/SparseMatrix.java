@@ -0,0 +1,930 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.Decompositions.Eigen;
+import LinearAlgebra.Decompositions.LU;
+import LinearAlgebra.Decompositions.QR;
+import LinearAlgebra.FloatPredicate;
+import LinearAlgebra.FloatUnaryOperator;
+import LinearAlgebra.Kernels.Operand;
+import LinearAlgebra.Kernels.Reductions;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MutableMatrix;
+import LinearAlgebra.Uniques;
+import Misc.Tuple;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Sparse implementation of the Matrix interface, storing only the non-zero elements in compressed sparse row (CSR)
+ * format: the column indices and values of the non-zeros of row i are found at the indices rowPtr[i] to
+ * rowPtr[i + 1] (exclusive) of colIdx and values, sorted by column. The transpose is the same Matrix in compressed
+ * sparse column format, and is built in O(nnz) time.
+ *
+ * Operations whose result is zero wherever this Matrix is zero (multiplication and division with scalars, rows,
+ * columns or Matrices elementwise, map and mask with functions keeping zero, slicing, transposing, concatenating and
+ * adding or multiplying with other SparseMatrices) return SparseMatrices, and take time proportional to the number of
+ * non-zeros. Products with dense Matrices (mul, tmul, mult and their variants writing into a MutableMatrix) are
+ * computed by sparse-dense kernels, and return FMatrices. Every other operation is carried out by an FMatrix holding
+ * the elements of this Matrix, and returns an FMatrix. Division never touches the zeros of this Matrix, so dividing
+ * by zero only gives NaN or infinity for non-zero elements.
+ *
+ * Arguments can be SparseMatrices, FMatrices or LazyMatrices, and SparseMatrices can in turn be used as arguments to
+ * FMatrices, which then use the dense elements.
+ *
+ * See the documentation of the superclass Matrix.
+ */
+public class SparseMatrix implements Matrix {
+    final int m;
+    final int n;
+    final int[] rowPtr;
+    final int[] colIdx;
+    final float[] values;
+
+    SparseMatrix(int rows, int cols, int[] rowPtr, int[] colIdx, float[] values) {
+        if (rowPtr.length != rows + 1 || colIdx.length != rowPtr[rows] || values.length != rowPtr[rows]) {
+            throw new MatrixException("Arrays of lengths " + rowPtr.length + ", " + colIdx.length + " and "
+                    + values.length + " can not hold a sparse " + rows + "x" + cols + " matrix");
+        }
+        this.m = rows;
+        this.n = cols;
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.values = values;
+    }
+
+    /**
+     * Creates a SparseMatrix holding the non-zero elements of a Matrix.
+     * @param matrix the Matrix to compress.
+     * @return a SparseMatrix with the same elements as the argument.
+     */
+    static SparseMatrix of(Matrix matrix) {
+        if (matrix instanceof SparseMatrix) {
+            return (SparseMatrix) matrix;
+        }
+        FMatrix dense = FMatrix.evaluate(matrix);
+        Rows res = new Rows(dense.m, 0);
+        for (int i = 0; i < dense.m; i++) {
+            for (int j = 0; j < dense.n; j++) {
+                res.add(j, dense.get(i, j));
+            }
+            res.endRow();
+        }
+        return res.build(dense.n);
+    }
+
+    public int rows() {
+        return m;
+    }
+
+    public int cols() {
+        return n;
+    }
+
+    public Tuple<Integer> size() {
+        return new Tuple<>(m, n);
+    }
+
+    /**
+     * Returns the number of non-zero elements stored in this Matrix.
+     * @return the number of non-zero elements.
+     */
+    public int nnz() {
+        return values.length;
+    }
+
+    public SparseMatrix copy() {
+        return new SparseMatrix(m, n, rowPtr.clone(), colIdx.clone(), values.clone());
+    }
+
+    public FMutableMatrix mcopy() {
+        return dense().mcopy();
+    }
+
+    public SparseMatrix compact() {
+        return this;
+    }
+
+    public SparseMatrix conch(Matrix otherMatrix) {
+        SparseMatrix other = of(otherMatrix);
+
+        if (!(m == other.m)) {
+            throw new MatrixException("Mismatching number of rows, " + m + " and " + other.m);
+        }
+
+        Rows res = new Rows(m, nnz() + other.nnz());
+        for (int i = 0; i < m; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                res.add(colIdx[p], values[p]);
+            }
+            for (int p = other.rowPtr[i]; p < other.rowPtr[i + 1]; p++) {
+                res.add(n + other.colIdx[p], other.values[p]);
+            }
+            res.endRow();
+        }
+        return res.build(n + other.n);
+    }
+
+    public SparseMatrix concv(Matrix otherMatrix) {
+        SparseMatrix other = of(otherMatrix);
+
+        if (!(n == other.n)) {
+            throw new MatrixException("Mismatching number of columns, " + n + " and " + other.n);
+        }
+
+        int nnz = nnz();
+        int[] resRowPtr = Arrays.copyOf(rowPtr, m + other.m + 1);
+        for (int i = 1; i <= other.m; i++) {
+            resRowPtr[m + i] = nnz + other.rowPtr[i];
+        }
+        int[] resColIdx = Arrays.copyOf(colIdx, nnz + other.nnz());
+        System.arraycopy(other.colIdx, 0, resColIdx, nnz, other.nnz());
+        float[] resValues = Arrays.copyOf(values, nnz + other.nnz());
+        System.arraycopy(other.values, 0, resValues, nnz, other.nnz());
+        return new SparseMatrix(m + other.m, n, resRowPtr, resColIdx, resValues);
+    }
+
+    public float get(int row, int col) {
+        checkIndices(row, col);
+        int index = Arrays.binarySearch(colIdx, rowPtr[row], rowPtr[row + 1], col);
+        return index >= 0 ? values[index] : 0f;
+    }
+
+    public void copyRowInto(int row, float[] dest, int destPos) {
+        checkIndices(row, 0);
+        Arrays.fill(dest, destPos, destPos + n, 0f);
+        for (int p = rowPtr[row]; p < rowPtr[row + 1]; p++) {
+            dest[destPos + colIdx[p]] = values[p];
+        }
+    }
+
+    /**
+     * The kernels only read dense storage, so this expands the SparseMatrix. Products of two SparseMatrices, and of a
+     * SparseMatrix and a dense Matrix, use the sparse kernels instead.
+     */
+    public Operand operand() {
+        return dense().operand();
+    }
+
+    public float toFloat() {
+        if (m == 1 && n == 1) {
+            return get(0, 0);
+        } else {
+            throw new MatrixException("Matrix is not 1x1");
+        }
+    }
+
+    public SparseMatrix row(int row) {
+        checkIndices(row, 0);
+        return rowr(row, row);
+    }
+
+    public SparseMatrix col(int col) {
+        checkIndices(0, col);
+        return colr(col, col);
+    }
+
+    public SparseMatrix rows(int... rowIndices) {
+        Rows res = new Rows(rowIndices.length, 0);
+        for (int rowIndex : rowIndices) {
+            checkIndices(rowIndex, 0);
+            for (int p = rowPtr[rowIndex]; p < rowPtr[rowIndex + 1]; p++) {
+                res.add(colIdx[p], values[p]);
+            }
+            res.endRow();
+        }
+        return res.build(n);
+    }
+
+    public SparseMatrix cols(int... colIndices) {
+        for (int colIndex : colIndices) {
+            checkIndices(0, colIndex);
+        }
+        Rows res = new Rows(m, 0);
+        for (int i = 0; i < m; i++) {
+            int j = 0;
+            for (int colIndex : colIndices) {
+                res.add(j++, get(i, colIndex));
+            }
+            res.endRow();
+        }
+        return res.build(colIndices.length);
+    }
+
+    public SparseMatrix rowr(int from, int to) {
+        return subm(from, to, 0, n - 1);
+    }
+
+    public SparseMatrix colr(int from, int to) {
+        return subm(0, m - 1, from, to);
+    }
+
+    public SparseMatrix subm(int fromRow, int toRow, int fromCol, int toCol) {
+        checkIndices(fromRow, fromCol);
+        checkIndices(toRow, toCol);
+
+        Rows res = new Rows(toRow - fromRow + 1, 0);
+        for (int i = fromRow; i <= toRow; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                if (colIdx[p] >= fromCol && colIdx[p] <= toCol) {
+                    res.add(colIdx[p] - fromCol, values[p]);
+                }
+            }
+            res.endRow();
+        }
+        return res.build(toCol - fromCol + 1);
+    }
+
+    public SparseMatrix ins(int row, int col, float element) {
+        checkIndices(row, col);
+        return ins(row, col, new SparseMatrix(1, 1, new int[]{0, 1}, new int[]{0}, new float[]{element}));
+    }
+
+    public SparseMatrix ins(int fromRow, int fromCol, Matrix otherMatrix) {
+        checkIndices(fromRow, fromCol);
+        checkIndices(fromRow + otherMatrix.rows() - 1, fromCol + otherMatrix.cols() - 1);
+        SparseMatrix other = of(otherMatrix);
+        int toCol = fromCol + other.n;
+
+        Rows res = new Rows(m, nnz() + other.nnz());
+        for (int i = 0; i < m; i++) {
+            if (i < fromRow || i >= fromRow + other.m) {
+                for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                    res.add(colIdx[p], values[p]);
+                }
+            } else {
+                int p = rowPtr[i];
+                for (; p < rowPtr[i + 1] && colIdx[p] < fromCol; p++) {
+                    res.add(colIdx[p], values[p]);
+                }
+                int otherRow = i - fromRow;
+                for (int q = other.rowPtr[otherRow]; q < other.rowPtr[otherRow + 1]; q++) {
+                    res.add(fromCol + other.colIdx[q], other.values[q]);
+                }
+                for (; p < rowPtr[i + 1]; p++) {
+                    if (colIdx[p] >= toCol) {
+                        res.add(colIdx[p], values[p]);
+                    }
+                }
+            }
+            res.endRow();
+        }
+        return res.build(n);
+    }
+
+    public Tuple<Matrix> minh() {
+        return dense().minh();
+    }
+
+    public Tuple<Matrix> minv() {
+        return dense().minv();
+    }
+
+    public Tuple<Matrix> maxh() {
+        return dense().maxh();
+    }
+
+    public Tuple<Matrix> maxv() {
+        return dense().maxv();
+    }
+
+    public int[] argminh() {
+        return dense().argminh();
+    }
+
+    public int[] argminv() {
+        return dense().argminv();
+    }
+
+    public int[] argmaxh() {
+        return dense().argmaxh();
+    }
+
+    public int[] argmaxv() {
+        return dense().argmaxv();
+    }
+
+    public int[][] topkh(int k) {
+        return dense().topkh(k);
+    }
+
+    public int[][] topkv(int k) {
+        return dense().topkv(k);
+    }
+
+    public Matrix add(Matrix otherMatrix) {
+        if (otherMatrix.rows() == 1 && otherMatrix.cols() == 1 && !(m == 1 && n == 1)) {
+            return add(otherMatrix.toFloat());
+        } else if (m == 1 && n == 1 && !(otherMatrix.rows() == 1 && otherMatrix.cols() == 1)) {
+            return otherMatrix.add(toFloat());
+        } else if (otherMatrix.rows() != m || otherMatrix.cols() != n) {
+            throw new MatrixException("Incompatible sizes for addition/subtraction, "
+                    + size() + " and " + otherMatrix.size());
+        } else if (otherMatrix instanceof SparseMatrix) {
+            return merge((SparseMatrix) otherMatrix, 1f);
+        } else {
+            return scatter(FMatrix.evaluate(otherMatrix), 1f);
+        }
+    }
+
+    public FMatrix addr(Matrix row) {
+        return dense().addr(row);
+    }
+
+    public FMatrix addc(Matrix column) {
+        return dense().addc(column);
+    }
+
+    public FMatrix add(float scalar) {
+        return dense().add(scalar);
+    }
+
+    public Matrix sub(Matrix otherMatrix) {
+        if (otherMatrix.rows() == 1 && otherMatrix.cols() == 1 && !(m == 1 && n == 1)) {
+            return add(-otherMatrix.toFloat());
+        } else if (m == 1 && n == 1 && !(otherMatrix.rows() == 1 && otherMatrix.cols() == 1)) {
+            return otherMatrix.mul(-1f).add(toFloat());
+        } else if (otherMatrix.rows() != m || otherMatrix.cols() != n) {
+            throw new MatrixException("Incompatible sizes for addition/subtraction, "
+                    + size() + " and " + otherMatrix.size());
+        } else if (otherMatrix instanceof SparseMatrix) {
+            return merge((SparseMatrix) otherMatrix, -1f);
+        } else {
+            return scatter(FMatrix.evaluate(otherMatrix), -1f);
+        }
+    }
+
+    public FMatrix subr(Matrix row) {
+        return dense().subr(row);
+    }
+
+    public FMatrix subc(Matrix column) {
+        return dense().subc(column);
+    }
+
+    public FMatrix sub(float scalar) {
+        return dense().sub(scalar);
+    }
+
+    public Matrix rsub(float scalar) {
+        if (scalar == 0f) {
+            return mul(-1f);
+        }
+        return dense().rsub(scalar);
+    }
+
+    public Matrix mul(Matrix otherMatrix) {
+        if (n == otherMatrix.rows()) {
+            if (otherMatrix instanceof SparseMatrix) {
+                return multiplySparse((SparseMatrix) otherMatrix);
+            }
+            FMatrix other = FMatrix.evaluate(otherMatrix);
+            return multiplyDense(other, new FMatrix(new float[m * other.n], m, other.n));
+        } else if (otherMatrix.rows() == 1 && otherMatrix.cols() == 1) {
+            return mul(otherMatrix.toFloat());
+        } else if (m == 1 && n == 1) {
+            return otherMatrix.mul(toFloat());
+        } else {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and "
+                    + otherMatrix.size());
+        }
+    }
+
+    public Matrix tmul(Matrix otherMatrix) {
+        if (m != otherMatrix.rows()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " transposed and "
+                    + otherMatrix.size());
+        }
+        if (otherMatrix instanceof SparseMatrix) {
+            return tran().multiplySparse((SparseMatrix) otherMatrix);
+        }
+        FMatrix other = FMatrix.evaluate(otherMatrix);
+        return transposeMultiplyDense(other, new FMatrix(new float[n * other.n], n, other.n));
+    }
+
+    public FMatrix mult(Matrix otherMatrix) {
+        FMatrix other = FMatrix.evaluate(otherMatrix);
+
+        if (n != other.n) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size()
+                    + " transposed");
+        }
+        float[] res = new float[m * other.m];
+        for (int i = 0; i < m; i++) {
+            for (int r = 0; r < other.m; r++) {
+                float sum = 0;
+                for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                    sum += values[p] * other.get(r, colIdx[p]);
+                }
+                res[i * other.m + r] = sum;
+            }
+        }
+        return new FMatrix(res, m, other.m);
+    }
+
+    public FMutableMatrix mul(Matrix otherMatrix, MutableMatrix into) {
+        FMatrix other = FMatrix.evaluate(otherMatrix);
+
+        if (n != other.m) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size());
+        }
+        return multiplyDense(other, checkDestination(other, into, m));
+    }
+
+    public FMutableMatrix tmul(Matrix otherMatrix, MutableMatrix into) {
+        FMatrix other = FMatrix.evaluate(otherMatrix);
+
+        if (m != other.m) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " transposed and "
+                    + other.size());
+        }
+        return transposeMultiplyDense(other, checkDestination(other, into, n));
+    }
+
+    public SparseMatrix mul(float scalar) {
+        float[] res = new float[values.length];
+        for (int p = 0; p < values.length; p++) {
+            res[p] = values[p] * scalar;
+        }
+        return withValues(res);
+    }
+
+    public SparseMatrix mulr(Matrix rowMatrix) {
+        FMatrix row = FMatrix.evaluate(rowMatrix);
+        if (!(row.n == n && row.m == 1)) {
+            throw new MatrixException("Argument is not row of right size " + row.size());
+        }
+        float[] res = new float[values.length];
+        for (int p = 0; p < values.length; p++) {
+            res[p] = values[p] * row.get(0, colIdx[p]);
+        }
+        return withValues(res);
+    }
+
+    public SparseMatrix mulc(Matrix columnMatrix) {
+        FMatrix column = FMatrix.evaluate(columnMatrix);
+        if (!(column.m == m && column.n == 1)) {
+            throw new MatrixException("Argument is not column of right size " + column.size());
+        }
+        float[] res = new float[values.length];
+        for (int i = 0; i < m; i++) {
+            float element = column.get(i, 0);
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                res[p] = values[p] * element;
+            }
+        }
+        return withValues(res);
+    }
+
+    public SparseMatrix mulew(Matrix otherMatrix) {
+        if (m != otherMatrix.rows() || n != otherMatrix.cols()) {
+            throw new MatrixException("Matrices are not of same size, " + size() + " and " + otherMatrix.size());
+        }
+        Matrix other = otherMatrix instanceof SparseMatrix ? otherMatrix : FMatrix.evaluate(otherMatrix);
+        float[] res = new float[values.length];
+        for (int i = 0; i < m; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                res[p] = values[p] * other.get(i, colIdx[p]);
+            }
+        }
+        return withValues(res);
+    }
+
+    public SparseMatrix div(float scalar) {
+        return mul(1 / scalar);
+    }
+
+    public SparseMatrix divr(Matrix row) {
+        return mulr(row.map(d -> 1 / d));
+    }
+
+    public SparseMatrix divc(Matrix column) {
+        return mulc(column.map(d -> 1 / d));
+    }
+
+    public SparseMatrix divew(Matrix otherMatrix) {
+        if (m != otherMatrix.rows() || n != otherMatrix.cols()) {
+            throw new MatrixException("Matrices are not of same size, " + size() + " and " + otherMatrix.size());
+        }
+        Matrix other = otherMatrix instanceof SparseMatrix ? otherMatrix : FMatrix.evaluate(otherMatrix);
+        float[] res = new float[values.length];
+        for (int i = 0; i < m; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                res[p] = values[p] / other.get(i, colIdx[p]);
+            }
+        }
+        return withValues(res);
+    }
+
+    public FMatrix sumh() {
+        float[] res = new float[m];
+        Reductions.sumRows(m, n, rowPtr, colIdx, values, res);
+        return new FMatrix(res, m, 1);
+    }
+
+    public FMatrix sumv() {
+        float[] res = new float[n];
+        Reductions.sumCols(m, n, rowPtr, colIdx, values, res);
+        return new FMatrix(res, 1, n);
+    }
+
+    public FMatrix sum() {
+        return new FMatrix(Reductions.sum(m, n, rowPtr, colIdx, values));
+    }
+
+    public FMatrix sumsqr() {
+        return new FMatrix(Reductions.sumsqr(m, n, rowPtr, colIdx, values));
+    }
+
+    public FMatrix inv() {
+        return dense().inv();
+    }
+
+    public FMatrix pinv() {
+        return dense().pinv();
+    }
+
+    public LU lu() {
+        return dense().lu();
+    }
+
+    public QR qr() {
+        return dense().qr();
+    }
+
+    public Eigen eig() {
+        return dense().eig();
+    }
+
+    public SparseMatrix tran() {
+        int nnz = nnz();
+        int[] resRowPtr = new int[n + 1];
+        for (int p = 0; p < nnz; p++) {
+            resRowPtr[colIdx[p] + 1]++;
+        }
+        for (int j = 0; j < n; j++) {
+            resRowPtr[j + 1] += resRowPtr[j];
+        }
+        int[] next = Arrays.copyOf(resRowPtr, n);
+        int[] resColIdx = new int[nnz];
+        float[] resValues = new float[nnz];
+        for (int i = 0; i < m; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                int q = next[colIdx[p]]++;
+                resColIdx[q] = i;
+                resValues[q] = values[p];
+            }
+        }
+        return new SparseMatrix(n, m, resRowPtr, resColIdx, resValues);
+    }
+
+    public SparseMatrix diag() {
+        int end = Math.min(m, n);
+        Rows res = new Rows(end, 0);
+        for (int i = 0; i < end; i++) {
+            res.add(0, get(i, i));
+            res.endRow();
+        }
+        return res.build(1);
+    }
+
+    public SparseMatrix vec() {
+        SparseMatrix transposed = tran();
+        int[] resRowPtr = new int[m * n + 1];
+        int[] resColIdx = new int[nnz()];
+        for (int j = 0; j < n; j++) {
+            for (int p = transposed.rowPtr[j]; p < transposed.rowPtr[j + 1]; p++) {
+                resRowPtr[j * m + transposed.colIdx[p] + 1] = 1;
+            }
+        }
+        for (int k = 0; k < m * n; k++) {
+            resRowPtr[k + 1] += resRowPtr[k];
+        }
+        return new SparseMatrix(m * n, 1, resRowPtr, resColIdx, transposed.values);
+    }
+
+    public Matrix map(Function<Float, Float> function) {
+        return map((FloatUnaryOperator) function::apply);
+    }
+
+    public Matrix map(FloatUnaryOperator function) {
+        if (function.applyAsFloat(0f) != 0f) {
+            return dense().map(function);
+        }
+        Rows res = new Rows(m, values.length);
+        for (int i = 0; i < m; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                res.add(colIdx[p], function.applyAsFloat(values[p]));
+            }
+            res.endRow();
+        }
+        return res.build(n);
+    }
+
+    public Matrix mask(Predicate<Float> pred) {
+        return mask((FloatPredicate) pred::test);
+    }
+
+    public Matrix mask(FloatPredicate pred) {
+        if (pred.test(0f)) {
+            return dense().mask(pred);
+        }
+        return map(d -> pred.test(d) ? 1f : 0f);
+    }
+
+    public FMatrix usemask(Matrix mask) {
+        return dense().usemask(mask);
+    }
+
+    public SparseMatrix addr1() {
+        float[] ones = new float[n];
+        Arrays.fill(ones, 1f);
+        return of(new FMatrix(ones, 1, n)).concv(this);
+    }
+
+    public SparseMatrix addc1() {
+        float[] ones = new float[m];
+        Arrays.fill(ones, 1f);
+        return of(new FMatrix(ones, m, 1)).conch(this);
+    }
+
+    public SparseMatrix rtr() {
+        if (m < 2) {
+            throw new MatrixException("Can not remove top row from matrix with less than two m");
+        }
+        return rowr(1, m - 1);
+    }
+
+    public SparseMatrix rlc() {
+        if (n < 2) {
+            throw new MatrixException("Can not remove left column from matrix with only one column");
+        }
+        return colr(1, n - 1);
+    }
+
+    public Set<Float> unq() {
+        return unqc().toSet();
+    }
+
+    /**
+     * Only sorts the stored values, and adds the implicit zeroes to the count of 0.
+     */
+    public Uniques unqc() {
+        long zeroes = (long) m * n - values.length;
+        if (zeroes == 0) {
+            return Uniques.sort(values.clone());
+        }
+        float[] elements = Arrays.copyOf(values, values.length + 1);
+        Uniques uniques = Uniques.sort(elements);
+        int[] counts = uniques.counts();
+        counts[uniques.indexOf(0f)] += (int) (zeroes - 1);
+        return new Uniques(uniques.values(), counts);
+    }
+
+    public Tuple<Matrix> svd() {
+        return dense().svd();
+    }
+
+    public String toString() {
+        return dense().toString();
+    }
+
+    public String toString(char colDelimiter, char rowDelimiter) {
+        return dense().toString(colDelimiter, rowDelimiter);
+    }
+
+    public boolean equals(Object other) {
+        return dense().equals(other);
+    }
+
+    /**
+     * Returns a hash code consistent with equals. Matrices are equal when their elements are within a tolerance of
+     * each other, whatever their implementation, so the hash code only depends on the size.
+     */
+    public int hashCode() {
+        return 31 * m + n;
+    }
+
+    public boolean equals(Object other, float tolerance) {
+        return dense().equals(other, tolerance);
+    }
+
+    public FMatrix equalsEw(Matrix other) {
+        return dense().equalsEw(other);
+    }
+
+    /**
+     * Returns an FMatrix holding the elements of this Matrix, including the zeros.
+     * @return a dense copy of this Matrix.
+     */
+    FMatrix dense() {
+        float[] res = new float[m * n];
+        for (int i = 0; i < m; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                res[i * n + colIdx[p]] = values[p];
+            }
+        }
+        return new FMatrix(res, m, n);
+    }
+
+    private void checkIndices(int row, int col) {
+        if (row < 0 || row >= m || col < 0 || col >= n) {
+            throw new MatrixException("Row or column index out of bounds. Tried to access (" + row + ", " + col
+                    + ") in a (" + m + ", " + n + ") matrix");
+        }
+    }
+
+    /**
+     * Returns a SparseMatrix with the non-zero pattern of this one, but other values. The pattern is shared unless
+     * some of the new values are zero, which are then dropped.
+     */
+    private SparseMatrix withValues(float[] values) {
+        for (float value : values) {
+            if (value == 0f) {
+                Rows res = new Rows(m, values.length);
+                for (int i = 0; i < m; i++) {
+                    for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                        res.add(colIdx[p], values[p]);
+                    }
+                    res.endRow();
+                }
+                return res.build(n);
+            }
+        }
+        return new SparseMatrix(m, n, rowPtr, colIdx, values);
+    }
+
+    /**
+     * Computes this + sign * other for a SparseMatrix of the same size, by merging the rows.
+     */
+    private SparseMatrix merge(SparseMatrix other, float sign) {
+        Rows res = new Rows(m, nnz() + other.nnz());
+        for (int i = 0; i < m; i++) {
+            int p = rowPtr[i];
+            int q = other.rowPtr[i];
+            while (p < rowPtr[i + 1] || q < other.rowPtr[i + 1]) {
+                int col = p < rowPtr[i + 1] ? colIdx[p] : n;
+                int otherCol = q < other.rowPtr[i + 1] ? other.colIdx[q] : n;
+                if (col < otherCol) {
+                    res.add(col, values[p++]);
+                } else if (otherCol < col) {
+                    res.add(otherCol, sign * other.values[q++]);
+                } else {
+                    res.add(col, values[p++] + sign * other.values[q++]);
+                }
+            }
+            res.endRow();
+        }
+        return res.build(n);
+    }
+
+    /**
+     * Computes this + sign * other for a dense Matrix of the same size, by adding the non-zeros of this Matrix to a
+     * compact copy of the other one.
+     */
+    private FMatrix scatter(FMatrix other, float sign) {
+        FMatrix res = other.mul(sign);
+        for (int i = 0; i < m; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                res.data[i * n + colIdx[p]] += values[p];
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Multiplies this Matrix with a dense Matrix, writing the product into the array of a compact FMatrix.
+     */
+    private <T extends FMatrix> T multiplyDense(FMatrix other, T into) {
+        FMatrix b = other.contiguous();
+        int cols = b.n;
+        float[] res = into.data;
+        Arrays.fill(res, 0f);
+        for (int i = 0; i < m; i++) {
+            int offset = i * cols;
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                float value = values[p];
+                int bOffset = b.offset + colIdx[p] * cols;
+                for (int j = 0; j < cols; j++) {
+                    res[offset + j] += value * b.data[bOffset + j];
+                }
+            }
+        }
+        return into;
+    }
+
+    /**
+     * Multiplies the transpose of this Matrix with a dense Matrix, writing the product into the array of a compact
+     * FMatrix. Every non-zero at (i, k) adds its multiple of row i of the other Matrix to row k of the product, so the
+     * transpose is never built.
+     */
+    private <T extends FMatrix> T transposeMultiplyDense(FMatrix other, T into) {
+        FMatrix b = other.contiguous();
+        int cols = b.n;
+        float[] res = into.data;
+        Arrays.fill(res, 0f);
+        for (int i = 0; i < m; i++) {
+            int bOffset = b.offset + i * cols;
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                float value = values[p];
+                int offset = colIdx[p] * cols;
+                for (int j = 0; j < cols; j++) {
+                    res[offset + j] += value * b.data[bOffset + j];
+                }
+            }
+        }
+        return into;
+    }
+
+    /**
+     * Multiplies this Matrix with another SparseMatrix, one row at a time, accumulating every row of the product in a
+     * dense array and collecting the columns it touches (Gustavson's algorithm).
+     */
+    private SparseMatrix multiplySparse(SparseMatrix other) {
+        float[] accumulator = new float[other.n];
+        int[] touched = new int[other.n];
+        boolean[] isTouched = new boolean[other.n];
+        Rows res = new Rows(m, 0);
+        for (int i = 0; i < m; i++) {
+            int count = 0;
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                float value = values[p];
+                int k = colIdx[p];
+                for (int q = other.rowPtr[k]; q < other.rowPtr[k + 1]; q++) {
+                    int j = other.colIdx[q];
+                    if (!isTouched[j]) {
+                        isTouched[j] = true;
+                        touched[count++] = j;
+                    }
+                    accumulator[j] += value * other.values[q];
+                }
+            }
+            Arrays.sort(touched, 0, count);
+            for (int c = 0; c < count; c++) {
+                int j = touched[c];
+                res.add(j, accumulator[j]);
+                accumulator[j] = 0f;
+                isTouched[j] = false;
+            }
+            res.endRow();
+        }
+        return res.build(other.n);
+    }
+
+    /**
+     * Checks that a destination of a product is a compact FMutableMatrix of the right size, which is not the other
+     * factor.
+     */
+    private static FMutableMatrix checkDestination(FMatrix other, MutableMatrix intoMatrix, int rows) {
+        FMutableMatrix into = (FMutableMatrix) intoMatrix;
+        if (into.data == other.data) {
+            throw new MatrixException("The destination of a product can not be one of its factors");
+        }
+        if (into.m != rows || into.n != other.n) {
+            throw new MatrixException("Destination of size " + into.size() + " can not hold the (" + rows + ", "
+                    + other.n + ") product");
+        }
+        return into;
+    }
+
+    /**
+     * Builder of the arrays of a SparseMatrix, one row at a time. Zeros are not stored.
+     */
+    private static final class Rows {
+        private final int[] rowPtr;
+        private int[] colIdx;
+        private float[] values;
+        private int nnz;
+        private int row;
+
+        private Rows(int rows, int capacity) {
+            rowPtr = new int[rows + 1];
+            colIdx = new int[Math.max(capacity, 8)];
+            values = new float[Math.max(capacity, 8)];
+        }
+
+        private void add(int col, float value) {
+            if (value == 0f) {
+                return;
+            }
+            if (nnz == values.length) {
+                colIdx = Arrays.copyOf(colIdx, 2 * nnz);
+                values = Arrays.copyOf(values, 2 * nnz);
+            }
+            colIdx[nnz] = col;
+            values[nnz++] = value;
+        }
+
+        private void endRow() {
+            rowPtr[++row] = nnz;
+        }
+
+        private SparseMatrix build(int cols) {
+            return new SparseMatrix(rowPtr.length - 1, cols, rowPtr, Arrays.copyOf(colIdx, nnz),
+                    Arrays.copyOf(values, nnz));
+        }
+    }
+}
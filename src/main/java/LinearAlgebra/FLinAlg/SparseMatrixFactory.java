@@ -0,0 +1,106 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.MatrixArena;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import LinearAlgebra.ReadWrite.BFNAParser;
+import LinearAlgebra.ReadWrite.FNAParser;
+
+/**
+ * A factory class for SparseMatrices. Matrices without zeros gain nothing from being sparse, so s(float element) and
+ * ones(int rows, int cols) return FMatrices, and mutable(int rows, int cols) returns an FMutableMatrix. See the
+ * documentation of the MatrixFactory class.
+ */
+public class SparseMatrixFactory implements MatrixFactory {
+    private static final char STD_COL_DELIMITER = ' ';
+    private static final char STD_ROW_DELIMITER = ';';
+    private final FNAParser BFNAParser;
+    private final FMatrixFactory fMatrixFactory = new FMatrixFactory();
+
+    /**
+     * Constructor, which takes the column and row delimiters as arguments.
+     * @param colDelimiter the character between columns.
+     * @param rowDelimiter the character between rows.
+     */
+    public SparseMatrixFactory(char colDelimiter, char rowDelimiter) {
+        BFNAParser = new BFNAParser(colDelimiter, rowDelimiter);
+    }
+
+    /**
+     * Constructor which uses the standard column and row delimiters.
+     */
+    public SparseMatrixFactory() {
+        this(STD_COL_DELIMITER, STD_ROW_DELIMITER);
+    }
+
+    public SparseMatrix m(float[][] elements) {
+        return SparseMatrix.of(fMatrixFactory.m(elements));
+    }
+
+    public SparseMatrix m(String elements) {
+        return m(BFNAParser.parse(elements));
+    }
+
+    public SparseMatrix m(float[] elements, int rows, int cols) {
+        return SparseMatrix.of(fMatrixFactory.m(elements, rows, cols));
+    }
+
+    /**
+     * Factory method for SparseMatrices, taking the arrays of the compressed sparse row format as arguments. The
+     * arrays are not copied.
+     * @param rows the number of rows in the wanted SparseMatrix.
+     * @param cols the number of columns in the wanted SparseMatrix.
+     * @param rowPtr the rows + 1 indices in colIdx and values where every row starts, followed by the number of
+     *               non-zeros.
+     * @param colIdx the column of every non-zero, sorted within every row.
+     * @param values the value of every non-zero.
+     * @return a rows x cols SparseMatrix backed by the arrays given as argument.
+     */
+    public SparseMatrix m(int rows, int cols, int[] rowPtr, int[] colIdx, float[] values) {
+        SparseMatrix res = new SparseMatrix(rows, cols, rowPtr, colIdx, values);
+        for (int i = 0; i < rows; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                if (colIdx[p] < 0 || colIdx[p] >= cols || (p > rowPtr[i] && colIdx[p] <= colIdx[p - 1])) {
+                    throw new MatrixException("Column indices of row " + i + " are not sorted, or out of bounds");
+                }
+            }
+        }
+        return res;
+    }
+
+    public FMatrix s(float element) {
+        return fMatrixFactory.s(element);
+    }
+
+    public FMatrix ones(int rows, int cols) {
+        return fMatrixFactory.ones(rows, cols);
+    }
+
+    public SparseMatrix zeroes(int rows, int cols) {
+        return new SparseMatrix(rows, cols, new int[rows + 1], new int[0], new float[0]);
+    }
+
+    public FMutableMatrix mutable(int rows, int cols) {
+        return fMatrixFactory.mutable(rows, cols);
+    }
+
+    public SparseMatrix identityMatrix(int size) {
+        int[] rowPtr = new int[size + 1];
+        int[] colIdx = new int[size];
+        float[] values = new float[size];
+        for (int i = 0; i < size; i++) {
+            rowPtr[i + 1] = i + 1;
+            colIdx[i] = i;
+            values[i] = 1f;
+        }
+        return new SparseMatrix(size, size, rowPtr, colIdx, values);
+    }
+
+    /**
+     * Opens a MatrixArena sharing the Pool of the underlying FMatrixFactory.
+     * @return the opened MatrixArena.
+     */
+    public MatrixArena arena() {
+        return fMatrixFactory.arena();
+    }
+}
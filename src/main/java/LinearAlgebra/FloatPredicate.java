@@ -0,0 +1,29 @@
+package LinearAlgebra;
+
+import java.util.function.Predicate;
+
+/**
+ * A predicate on a primitive float. Used to create masks of Matrices without boxing the elements. Since it is also a
+ * Predicate<Float>, lambdas passed to Matrix.mask are resolved to this interface, while existing Predicates can still
+ * be passed.
+ */
+@FunctionalInterface
+public interface FloatPredicate extends Predicate<Float> {
+
+    /**
+     * Evaluates this predicate on the argument.
+     * @param value the argument.
+     * @return whether the predicate holds true for the argument.
+     */
+    boolean test(float value);
+
+    /**
+     * Evaluates this predicate on a boxed argument.
+     * @param value the argument.
+     * @return whether the predicate holds true for the argument.
+     */
+    @Override
+    default boolean test(Float value) {
+        return test(value.floatValue());
+    }
+}
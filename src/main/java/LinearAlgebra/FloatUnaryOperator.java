@@ -0,0 +1,29 @@
+package LinearAlgebra;
+
+import java.util.function.Function;
+
+/**
+ * A function from a primitive float to a primitive float. Used to apply functions to every element in a Matrix
+ * without boxing the elements. Since it is also a Function<Float, Float>, lambdas passed to Matrix.map are resolved to
+ * this interface, while existing Functions can still be passed.
+ */
+@FunctionalInterface
+public interface FloatUnaryOperator extends Function<Float, Float> {
+
+    /**
+     * Applies this function to the argument.
+     * @param operand the argument.
+     * @return the result of the function.
+     */
+    float applyAsFloat(float operand);
+
+    /**
+     * Applies this function to a boxed argument.
+     * @param operand the argument.
+     * @return the boxed result of the function.
+     */
+    @Override
+    default Float apply(Float operand) {
+        return applyAsFloat(operand);
+    }
+}
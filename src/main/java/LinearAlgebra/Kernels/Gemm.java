@@ -0,0 +1,438 @@
+package LinearAlgebra.Kernels;
+
+import LinearAlgebra.MatrixException;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * General matrix multiplication kernel, computing C = A * B for Operands of any layout. The product is computed the
+ * way BLIS and GotoBLAS do it: B is split into panels of KC x NC elements and A into blocks of MC x KC elements, both
+ * packed into contiguous buffers so that the innermost loops only ever stream through memory. A micro kernel then
+ * computes MR x NR tiles of C, keeping the whole tile in local variables (registers) during the loop over KC.
+ * The block sizes are chosen so that a packed block of A stays in L2 and a packed panel of B stays in L3.
+ *
+ * Matrix-vector products do not benefit from packing (every element is only used once), so they are computed
+ * directly from the Operands instead.
+ *
+ * C is either a flat row-major array or an array of rows. The kernels write the rows of C directly in both cases, so
+ * a product never needs a buffer which is then copied into its destination.
+ *
+ * The packing buffers are kept per thread and reused between calls, so repeated products of the same size do not
+ * allocate anything.
+ *
+ * Products large enough according to Parallelism are split into blocks of C, which are computed as separate tasks on
+ * the configured ForkJoinPool. Every element of C is still computed by exactly one task in the same order, so the
+ * result does not depend on the number of threads. The Operands are acquired for the whole product (see
+ * Operand.Lifetime), so memory they read can not be freed while any task is still reading it.
+ *
+ * Products where every dimension is at least the Strassen threshold are computed with the Strassen-Winograd algorithm
+ * instead, see Strassen. The threshold is 2048 by default, and Integer.MAX_VALUE turns it off.
+ */
+public final class Gemm {
+    static final int MR = 4;
+    static final int NR = 4;
+    static final int MC = 128;
+    static final int KC = 256;
+    static final int NC = 1024;
+    private static final int A_BUFFER = 0;
+    private static final int B_BUFFER = 1;
+    private static final int TILE_BUFFER = 2;
+    private static final int VECTOR_BUFFER = 3;
+    private static final int STD_STRASSEN_THRESHOLD = 2048;
+    private static final int MIN_STRASSEN_THRESHOLD = 2 * MC;
+    private static final ThreadLocal<float[][]> scratchBuffers = ThreadLocal.withInitial(() -> new float[4][0]);
+    private static volatile int strassenThreshold = STD_STRASSEN_THRESHOLD;
+
+    private Gemm() {
+    }
+
+    /**
+     * Returns the smallest dimension of products computed with the Strassen-Winograd algorithm.
+     * @return the smallest dimension of products computed with the Strassen-Winograd algorithm.
+     */
+    public static int strassenThreshold() {
+        return strassenThreshold;
+    }
+
+    /**
+     * Sets the smallest dimension of products computed with the Strassen-Winograd algorithm. Products where the
+     * rows, the columns and the inner dimension are all at least the threshold are split recursively, until they are
+     * smaller than the threshold. Integer.MAX_VALUE turns Strassen-Winograd off.
+     * @param size the smallest dimension to split, at least 2 * MC.
+     */
+    public static void setStrassenThreshold(int size) {
+        if (size < MIN_STRASSEN_THRESHOLD) {
+            throw new IllegalArgumentException("The Strassen threshold must be at least " + MIN_STRASSEN_THRESHOLD);
+        }
+        strassenThreshold = size;
+    }
+
+    /**
+     * Computes C = A * B, and stores the result in a flat row-major array. Whatever was in the result area before is
+     * overwritten.
+     * @param a the m x k left Operand.
+     * @param b the k x n right Operand.
+     * @param c the array to store the m x n result in.
+     * @param cOffset the index in c of the element at (0, 0).
+     * @param ldc the distance between two rows of the result in c.
+     */
+    public static void multiply(Operand a, Operand b, float[] c, int cOffset, int ldc) {
+        multiply(a, b, new Flat(c, cOffset, ldc));
+    }
+
+    /**
+     * Computes C = A * B, and stores the result in an array of rows. Whatever was in the rows before is overwritten.
+     * @param a the m x k left Operand.
+     * @param b the k x n right Operand.
+     * @param c the m rows to store the m x n result in, each with at least n elements.
+     */
+    public static void multiply(Operand a, Operand b, float[][] c) {
+        multiply(a, b, new Nested(c));
+    }
+
+    private static void multiply(Operand a, Operand b, Output c) {
+        int m = a.rows;
+        int k = a.cols;
+        int n = b.cols;
+        if (k != b.rows) {
+            throw new MatrixException("Mismatching operands for multiplication, (" + m + ", " + k + ") and ("
+                    + b.rows + ", " + n + ")");
+        }
+
+        a.acquire();
+        try {
+            b.acquire();
+            try {
+                int threshold = strassenThreshold;
+                if (m >= threshold && k >= threshold && n >= threshold) {
+                    Strassen.multiply(a, b, c, threshold);
+                } else {
+                    multiplyClassical(a, b, c);
+                }
+            } finally {
+                b.release();
+            }
+        } finally {
+            a.release();
+        }
+    }
+
+    /**
+     * Computes C = A * B with the classical algorithm, for Operands with matching dimensions.
+     */
+    static void multiplyClassical(Operand a, Operand b, Output c) {
+        int m = a.rows;
+        int k = a.cols;
+        int n = b.cols;
+        boolean parallel = Parallelism.parallelize((long) m * n * k);
+        if (m == 0 || n == 0) {
+            return;
+        } else if (n == 1) {
+            gemv(a, column(b, 0, parallel), c, parallel);
+        } else if (m == 1) {
+            gemv(b.tran(), column(a.tran(), 0, parallel), new Flat(c.array(0), c.offset(0), 1), parallel);
+        } else if (parallel) {
+            long grain = Math.max((long) MC * NR, (long) m * n / Parallelism.tasks());
+            Parallelism.pool().invoke(new MultiplyTask(a, b, c, 0, m, 0, n, grain));
+        } else {
+            multiplyBlocked(a, b, c, 0, m, 0, n);
+        }
+    }
+
+    /**
+     * Computes y = A * x, and stores y in the first column of an Output.
+     */
+    private static void gemv(Operand a, float[] x, Output y, boolean parallel) {
+        if (parallel) {
+            int grain = Math.max(MC, a.rows / Parallelism.tasks());
+            Parallelism.pool().invoke(new GemvTask(a, x, y, 0, a.rows, grain));
+        } else {
+            y.gemv(a, x, 0, a.rows);
+        }
+    }
+
+    /**
+     * Computes the rows fromRow to toRow (exclusive) and the columns fromCol to toCol (exclusive) of C = A * B, using
+     * the packed, blocked algorithm.
+     */
+    static void multiplyBlocked(Operand a, Operand b, Output c, int fromRow, int toRow, int fromCol, int toCol) {
+        int m = toRow - fromRow;
+        int n = toCol - fromCol;
+        int k = a.cols;
+
+        if (k == 0) {
+            for (int i = fromRow; i < toRow; i++) {
+                int offset = c.offset(i);
+                Arrays.fill(c.array(i), offset + fromCol, offset + toCol, 0f);
+            }
+            return;
+        }
+
+        int kcMax = Math.min(k, KC);
+        float[] aBuf = scratch(A_BUFFER, roundUp(Math.min(m, MC), MR) * kcMax);
+        float[] bBuf = scratch(B_BUFFER, roundUp(Math.min(n, NC), NR) * kcMax);
+        float[] tile = scratch(TILE_BUFFER, MR * NR);
+
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                boolean accumulate = pc > 0;
+                b.packCols(pc, kc, fromCol + jc, nc, NR, bBuf);
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = Math.min(MC, m - ic);
+                    a.packRows(fromRow + ic, mc, pc, kc, MR, aBuf);
+                    macroKernel(aBuf, bBuf, mc, nc, kc, c, fromRow + ic, fromCol + jc, accumulate, tile);
+                }
+            }
+        }
+    }
+
+    private static void macroKernel(float[] aBuf, float[] bBuf, int mc, int nc, int kc, Output c, int row, int col,
+                                    boolean accumulate, float[] tile) {
+        for (int jr = 0; jr < nc; jr += NR) {
+            int cols = Math.min(NR, nc - jr);
+            for (int ir = 0; ir < mc; ir += MR) {
+                int rows = Math.min(MR, mc - ir);
+                microKernel(kc, aBuf, ir * kc, bBuf, jr * kc, c, row + ir, col + jr, rows, cols, accumulate, tile);
+            }
+        }
+    }
+
+    private static void microKernel(int kc, float[] a, int aIndex, float[] b, int bIndex, Output c, int row, int col,
+                                    int rows, int cols, boolean accumulate, float[] tile) {
+        float c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        float c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        float c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        float c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+
+        for (int p = 0; p < kc; p++) {
+            float a0 = a[aIndex];
+            float a1 = a[aIndex + 1];
+            float a2 = a[aIndex + 2];
+            float a3 = a[aIndex + 3];
+            float b0 = b[bIndex];
+            float b1 = b[bIndex + 1];
+            float b2 = b[bIndex + 2];
+            float b3 = b[bIndex + 3];
+            c00 += a0 * b0;
+            c01 += a0 * b1;
+            c02 += a0 * b2;
+            c03 += a0 * b3;
+            c10 += a1 * b0;
+            c11 += a1 * b1;
+            c12 += a1 * b2;
+            c13 += a1 * b3;
+            c20 += a2 * b0;
+            c21 += a2 * b1;
+            c22 += a2 * b2;
+            c23 += a2 * b3;
+            c30 += a3 * b0;
+            c31 += a3 * b1;
+            c32 += a3 * b2;
+            c33 += a3 * b3;
+            aIndex += MR;
+            bIndex += NR;
+        }
+
+        tile[0] = c00;
+        tile[1] = c01;
+        tile[2] = c02;
+        tile[3] = c03;
+        tile[4] = c10;
+        tile[5] = c11;
+        tile[6] = c12;
+        tile[7] = c13;
+        tile[8] = c20;
+        tile[9] = c21;
+        tile[10] = c22;
+        tile[11] = c23;
+        tile[12] = c30;
+        tile[13] = c31;
+        tile[14] = c32;
+        tile[15] = c33;
+
+        for (int r = 0; r < rows; r++) {
+            float[] array = c.array(row + r);
+            int index = c.offset(row + r) + col;
+            if (accumulate) {
+                for (int j = 0; j < cols; j++) {
+                    array[index + j] += tile[r * NR + j];
+                }
+            } else {
+                System.arraycopy(tile, r * NR, array, index, cols);
+            }
+        }
+    }
+
+    /**
+     * Task computing a block of C = A * B, splitting the block in halves until it is small enough.
+     */
+    @SuppressWarnings("serial")
+    private static final class MultiplyTask extends RecursiveAction {
+        private final Operand a;
+        private final Operand b;
+        private final Output c;
+        private final int fromRow;
+        private final int toRow;
+        private final int fromCol;
+        private final int toCol;
+        private final long grain;
+
+        private MultiplyTask(Operand a, Operand b, Output c, int fromRow, int toRow, int fromCol, int toCol,
+                             long grain) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.fromCol = fromCol;
+            this.toCol = toCol;
+            this.grain = grain;
+        }
+
+        protected void compute() {
+            int rows = toRow - fromRow;
+            int cols = toCol - fromCol;
+            if ((long) rows * cols <= grain || (rows <= MR && cols <= NR)) {
+                multiplyBlocked(a, b, c, fromRow, toRow, fromCol, toCol);
+            } else if (rows >= cols) {
+                int mid = fromRow + roundUp(rows / 2, MR);
+                invokeAll(new MultiplyTask(a, b, c, fromRow, mid, fromCol, toCol, grain),
+                        new MultiplyTask(a, b, c, mid, toRow, fromCol, toCol, grain));
+            } else {
+                int mid = fromCol + roundUp(cols / 2, NR);
+                invokeAll(new MultiplyTask(a, b, c, fromRow, toRow, fromCol, mid, grain),
+                        new MultiplyTask(a, b, c, fromRow, toRow, mid, toCol, grain));
+            }
+        }
+    }
+
+    /**
+     * Task computing a range of the rows of y = A * x, splitting the range in halves until it is small enough.
+     */
+    @SuppressWarnings("serial")
+    private static final class GemvTask extends RecursiveAction {
+        private final Operand a;
+        private final float[] x;
+        private final Output y;
+        private final int fromRow;
+        private final int toRow;
+        private final int grain;
+
+        private GemvTask(Operand a, float[] x, Output y, int fromRow, int toRow, int grain) {
+            this.a = a;
+            this.x = x;
+            this.y = y;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.grain = grain;
+        }
+
+        protected void compute() {
+            if (toRow - fromRow <= grain) {
+                y.gemv(a, x, fromRow, toRow);
+            } else {
+                int mid = (fromRow + toRow) >>> 1;
+                invokeAll(new GemvTask(a, x, y, fromRow, mid, grain), new GemvTask(a, x, y, mid, toRow, grain));
+            }
+        }
+    }
+
+    /**
+     * Copies a column of an Operand into an array. When the kernel runs in parallel, the other tasks read the column
+     * while the calling thread might steal unrelated work, so then the column gets an array of its own.
+     */
+    private static float[] column(Operand operand, int col, boolean parallel) {
+        float[] res = parallel ? new float[operand.rows] : scratch(VECTOR_BUFFER, operand.rows);
+        for (int i = 0; i < operand.rows; i++) {
+            res[i] = operand.get(i, col);
+        }
+        return res;
+    }
+
+    /**
+     * Returns a scratch array of at least the given length, reused by every kernel call on the current thread. The
+     * buffers are only used between the packing and the micro kernel, which never forks, so a task stolen by the
+     * same thread can never overwrite a buffer that is in use.
+     */
+    private static float[] scratch(int buffer, int length) {
+        float[][] buffers = scratchBuffers.get();
+        if (buffers[buffer].length < length) {
+            buffers[buffer] = new float[length];
+        }
+        return buffers[buffer];
+    }
+
+    private static int roundUp(int value, int multiple) {
+        return (value + multiple - 1) / multiple * multiple;
+    }
+
+    /**
+     * Where the rows of C are stored. The kernels only write ranges of single rows, so every row just needs an array
+     * and the index of its first element.
+     */
+    abstract static class Output {
+        abstract float[] array(int row);
+
+        abstract int offset(int row);
+
+        /**
+         * Computes the rows fromRow to toRow (exclusive) of y = A * x, and stores them in the first column.
+         */
+        abstract void gemv(Operand a, float[] x, int fromRow, int toRow);
+    }
+
+    static final class Flat extends Output {
+        private final float[] data;
+        private final int offset;
+        private final int ldc;
+
+        Flat(float[] data, int offset, int ldc) {
+            this.data = data;
+            this.offset = offset;
+            this.ldc = ldc;
+        }
+
+        float[] array(int row) {
+            return data;
+        }
+
+        int offset(int row) {
+            return offset + row * ldc;
+        }
+
+        void gemv(Operand a, float[] x, int fromRow, int toRow) {
+            a.gemv(x, data, offset, ldc, fromRow, toRow);
+        }
+    }
+
+    private static final class Nested extends Output {
+        private final float[][] rows;
+
+        private Nested(float[][] rows) {
+            this.rows = rows;
+        }
+
+        float[] array(int row) {
+            return rows[row];
+        }
+
+        int offset(int row) {
+            return 0;
+        }
+
+        /**
+         * Computes the vector in a contiguous array, which the kernels of transposed Operands stream through, and
+         * then stores its elements in the rows. The vector only has one element per row, so this is cheap.
+         */
+        void gemv(Operand a, float[] x, int fromRow, int toRow) {
+            float[] y = new float[toRow - fromRow];
+            a.gemv(x, y, -fromRow, 1, fromRow, toRow);
+            for (int i = fromRow; i < toRow; i++) {
+                rows[i][0] = y[i - fromRow];
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package LinearAlgebra.Kernels;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A read-only view of the elements of a matrix, as seen by the kernels in this package. An Operand knows how to copy
+ * blocks of itself into the packed formats used by Gemm, which means that the kernels never have to care about how
+ * the elements are laid out in memory. Transposing an Operand is free, since only the way of reading it changes.
+ */
+public abstract class Operand {
+    final int rows;
+    final int cols;
+
+    private Operand(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /**
+     * Creates an Operand reading from a nested array of floats (an array of rows).
+     * @param rows the rows of the matrix.
+     * @param cols the number of columns of the matrix (needed when there are no rows).
+     * @return an Operand reading from the nested array.
+     */
+    public static Operand of(float[][] rows, int cols) {
+        return new Nested(rows, rows.length, cols, false);
+    }
+
+    /**
+     * Creates an Operand reading from a flat array of floats, where the element at (i, j) is located at index
+     * offset + i * rowStride + j * colStride.
+     * @param data the array containing the elements.
+     * @param offset the index of the element at (0, 0).
+     * @param rowStride the distance between two rows in the array.
+     * @param colStride the distance between two columns in the array.
+     * @param rows the number of rows of the matrix.
+     * @param cols the number of columns of the matrix.
+     * @return an Operand reading from the flat array.
+     */
+    public static Operand of(float[] data, int offset, int rowStride, int colStride, int rows, int cols) {
+        return new Strided(data, offset, rowStride, colStride, rows, cols);
+    }
+
+    /**
+     * Creates an Operand reading from FloatBuffers, each holding rowsPerChunk consecutive rows of the matrix (the last
+     * one possibly fewer), in row-major order starting at index 0. The kernels acquire the Lifetime of the buffers
+     * before reading them, and release it when they are done.
+     * @param chunks the buffers containing the rows.
+     * @param rowsPerChunk the number of rows in every buffer.
+     * @param rows the number of rows of the matrix.
+     * @param cols the number of columns of the matrix.
+     * @param lifetime the Lifetime of the buffers.
+     * @return an Operand reading from the buffers.
+     */
+    public static Operand of(FloatBuffer[] chunks, int rowsPerChunk, int rows, int cols, Lifetime lifetime) {
+        return new Buffered(chunks, rowsPerChunk, rows, cols, false, lifetime);
+    }
+
+    /**
+     * Returns the number of rows of this Operand.
+     * @return the number of rows of this Operand.
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of columns of this Operand.
+     * @return the number of columns of this Operand.
+     */
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * Returns the element at the given index.
+     * @param row the row of the element.
+     * @param col the column of the element.
+     * @return the element at the given index.
+     */
+    public abstract float get(int row, int col);
+
+    /**
+     * Returns an Operand reading the transpose of this Operand, without copying any elements.
+     * @return the transpose of this Operand.
+     */
+    public abstract Operand tran();
+
+    /**
+     * Packs the block starting at (fromRow, fromCol) into micro panels of mr rows each. Every micro panel stores its
+     * mr elements of one column after each other, followed by the next column. Rows outside of the block are padded
+     * with zeroes.
+     */
+    abstract void packRows(int fromRow, int rowCount, int fromCol, int colCount, int mr, float[] buf);
+
+    /**
+     * Packs the block starting at (fromRow, fromCol) into micro panels of nr columns each. Every micro panel stores
+     * its nr elements of one row after each other, followed by the next row. Columns outside of the block are padded
+     * with zeroes.
+     */
+    void packCols(int fromRow, int rowCount, int fromCol, int colCount, int nr, float[] buf) {
+        tran().packRows(fromCol, colCount, fromRow, rowCount, nr, buf);
+    }
+
+    /**
+     * Computes the rows fromRow to toRow (exclusive) of y = this * x, where x is a vector with one element per column,
+     * and y has one element per row. Every element of y is summed from the first column to the last with plain
+     * multiplications and additions, so the result is the same on every platform. The SIMD kernels of Vectors are
+     * not used here, since they sum in lanes and may fuse the multiplications and additions.
+     */
+    abstract void gemv(float[] x, float[] y, int yOffset, int yStride, int fromRow, int toRow);
+
+    /**
+     * Keeps the memory this Operand reads from from being freed, until release() is called.
+     */
+    void acquire() {
+    }
+
+    /**
+     * Ends an acquire().
+     */
+    void release() {
+    }
+
+    /**
+     * The lifetime of memory which can be freed explicitly, such as direct buffers. The kernels acquire it on the
+     * calling thread before reading an Operand, and release it on the same thread when they are done, so memory in
+     * use by a kernel is never freed under it, even while tasks on other threads are reading it.
+     */
+    public interface Lifetime {
+        /**
+         * Marks the memory as in use.
+         * @throws RuntimeException if the memory has already been freed.
+         */
+        void acquire();
+
+        /**
+         * Marks the memory as no longer in use by the caller of acquire().
+         */
+        void release();
+    }
+
+    private static final class Strided extends Operand {
+        private final float[] data;
+        private final int offset;
+        private final int rowStride;
+        private final int colStride;
+
+        private Strided(float[] data, int offset, int rowStride, int colStride, int rows, int cols) {
+            super(rows, cols);
+            this.data = data;
+            this.offset = offset;
+            this.rowStride = rowStride;
+            this.colStride = colStride;
+        }
+
+        public float get(int row, int col) {
+            return data[offset + row * rowStride + col * colStride];
+        }
+
+        public Operand tran() {
+            return new Strided(data, offset, colStride, rowStride, cols, rows);
+        }
+
+        void packRows(int fromRow, int rowCount, int fromCol, int colCount, int mr, float[] buf) {
+            int k = 0;
+            for (int r0 = 0; r0 < rowCount; r0 += mr) {
+                int panelRows = Math.min(mr, rowCount - r0);
+                int start = offset + (fromRow + r0) * rowStride + fromCol * colStride;
+                for (int p = 0; p < colCount; p++) {
+                    int index = start + p * colStride;
+                    int r = 0;
+                    for (; r < panelRows; r++) {
+                        buf[k++] = data[index + r * rowStride];
+                    }
+                    for (; r < mr; r++) {
+                        buf[k++] = 0f;
+                    }
+                }
+            }
+        }
+
+        void gemv(float[] x, float[] y, int yOffset, int yStride, int fromRow, int toRow) {
+            for (int i = fromRow; i < toRow; i++) {
+                int index = offset + i * rowStride;
+                float sum = 0;
+                for (int p = 0; p < cols; p++) {
+                    sum += data[index + p * colStride] * x[p];
+                }
+                y[yOffset + i * yStride] = sum;
+            }
+        }
+    }
+
+    private static final class Nested extends Operand {
+        private final float[][] mat;
+        private final boolean transposed;
+
+        private Nested(float[][] mat, int rows, int cols, boolean transposed) {
+            super(rows, cols);
+            this.mat = mat;
+            this.transposed = transposed;
+        }
+
+        public float get(int row, int col) {
+            return transposed ? mat[col][row] : mat[row][col];
+        }
+
+        public Operand tran() {
+            return new Nested(mat, cols, rows, !transposed);
+        }
+
+        void packRows(int fromRow, int rowCount, int fromCol, int colCount, int mr, float[] buf) {
+            int k = 0;
+            for (int r0 = 0; r0 < rowCount; r0 += mr) {
+                int panelRows = Math.min(mr, rowCount - r0);
+                if (transposed) {
+                    for (int p = 0; p < colCount; p++) {
+                        float[] source = mat[fromCol + p];
+                        int r = 0;
+                        for (; r < panelRows; r++) {
+                            buf[k++] = source[fromRow + r0 + r];
+                        }
+                        for (; r < mr; r++) {
+                            buf[k++] = 0f;
+                        }
+                    }
+                } else {
+                    for (int r = 0; r < mr; r++) {
+                        if (r < panelRows) {
+                            float[] source = mat[fromRow + r0 + r];
+                            for (int p = 0; p < colCount; p++) {
+                                buf[k + p * mr + r] = source[fromCol + p];
+                            }
+                        } else {
+                            for (int p = 0; p < colCount; p++) {
+                                buf[k + p * mr + r] = 0f;
+                            }
+                        }
+                    }
+                    k += colCount * mr;
+                }
+            }
+        }
+
+        void gemv(float[] x, float[] y, int yOffset, int yStride, int fromRow, int toRow) {
+            if (transposed) {
+                for (int i = fromRow; i < toRow; i++) {
+                    y[yOffset + i * yStride] = 0f;
+                }
+                for (int p = 0; p < cols; p++) {
+                    float[] source = mat[p];
+                    float element = x[p];
+                    for (int i = fromRow; i < toRow; i++) {
+                        y[yOffset + i * yStride] += source[i] * element;
+                    }
+                }
+            } else {
+                for (int i = fromRow; i < toRow; i++) {
+                    float[] row = mat[i];
+                    float sum = 0;
+                    for (int p = 0; p < cols; p++) {
+                        sum += row[p] * x[p];
+                    }
+                    y[yOffset + i * yStride] = sum;
+                }
+            }
+        }
+    }
+
+    private static final class Buffered extends Operand {
+        private final FloatBuffer[] chunks;
+        private final int rowsPerChunk;
+        private final int stored;
+        private final boolean transposed;
+        private final Lifetime lifetime;
+
+        private Buffered(FloatBuffer[] chunks, int rowsPerChunk, int rows, int cols, boolean transposed,
+                         Lifetime lifetime) {
+            super(rows, cols);
+            this.chunks = chunks;
+            this.rowsPerChunk = rowsPerChunk;
+            this.stored = transposed ? rows : cols;
+            this.transposed = transposed;
+            this.lifetime = lifetime;
+        }
+
+        public float get(int row, int col) {
+            return transposed ? stored(col, row) : stored(row, col);
+        }
+
+        public Operand tran() {
+            return new Buffered(chunks, rowsPerChunk, cols, rows, !transposed, lifetime);
+        }
+
+        void acquire() {
+            lifetime.acquire();
+        }
+
+        void release() {
+            lifetime.release();
+        }
+
+        private float stored(int row, int col) {
+            return chunks[row / rowsPerChunk].get(row % rowsPerChunk * stored + col);
+        }
+
+        void packRows(int fromRow, int rowCount, int fromCol, int colCount, int mr, float[] buf) {
+            int k = 0;
+            for (int r0 = 0; r0 < rowCount; r0 += mr) {
+                int panelRows = Math.min(mr, rowCount - r0);
+                for (int p = 0; p < colCount; p++) {
+                    int r = 0;
+                    for (; r < panelRows; r++) {
+                        buf[k++] = get(fromRow + r0 + r, fromCol + p);
+                    }
+                    for (; r < mr; r++) {
+                        buf[k++] = 0f;
+                    }
+                }
+            }
+        }
+
+        void gemv(float[] x, float[] y, int yOffset, int yStride, int fromRow, int toRow) {
+            for (int i = fromRow; i < toRow; i++) {
+                float sum = 0;
+                for (int p = 0; p < cols; p++) {
+                    sum += get(i, p) * x[p];
+                }
+                y[yOffset + i * yStride] = sum;
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package LinearAlgebra.Kernels;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Configuration of how the kernels in this package run in parallel. Kernels split their work into tasks run on the
+ * configured ForkJoinPool when the amount of work (roughly the number of floating point operations) is at least the
+ * threshold, and run single-threaded on the calling thread otherwise. The defaults are the common pool and a
+ * threshold of 2^21 operations, below which forking costs more than it saves.
+ */
+public final class Parallelism {
+    private static final long STD_THRESHOLD = 1L << 21;
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+    private static volatile long threshold = STD_THRESHOLD;
+
+    private Parallelism() {
+    }
+
+    /**
+     * Returns the pool the kernels run their tasks on.
+     * @return the pool the kernels run their tasks on.
+     */
+    public static ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool the kernels should run their tasks on.
+     * @param forkJoinPool the pool to use.
+     */
+    public static void setPool(ForkJoinPool forkJoinPool) {
+        if (forkJoinPool == null) {
+            throw new IllegalArgumentException("The pool can not be null");
+        }
+        pool = forkJoinPool;
+    }
+
+    /**
+     * Returns the amount of work needed before a kernel runs in parallel.
+     * @return the amount of work needed before a kernel runs in parallel.
+     */
+    public static long threshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets the amount of work needed before a kernel runs in parallel. Long.MAX_VALUE turns parallelism off.
+     * @param work the number of floating point operations needed before a kernel runs in parallel.
+     */
+    public static void setThreshold(long work) {
+        if (work < 0) {
+            throw new IllegalArgumentException("The threshold can not be negative");
+        }
+        threshold = work;
+    }
+
+    /**
+     * Determines whether a kernel doing the given amount of work should run in parallel.
+     * @param work the number of floating point operations the kernel is about to do.
+     * @return whether the kernel should split its work into tasks.
+     */
+    static boolean parallelize(long work) {
+        return work >= threshold && pool.getParallelism() > 1;
+    }
+
+    /**
+     * Returns the number of tasks a kernel should split its work into to keep the pool busy while still letting
+     * idle threads steal work.
+     * @return the wanted number of tasks.
+     */
+    static int tasks() {
+        return 4 * pool.getParallelism();
+    }
+
+    /**
+     * Runs the body for every index from 0 to count (exclusive), split into tasks on the pool if the work is large
+     * enough, and on the calling thread otherwise. The body must not depend on the order of the indices.
+     * @param count the number of indices.
+     * @param work the total amount of work for all indices.
+     * @param body the work to do for one index.
+     */
+    public static void forEach(int count, long work, IntConsumer body) {
+        if (count > 1 && parallelize(work)) {
+            int grain = Math.max(1, count / tasks());
+            pool().invoke(new ForEachTask(body, 0, count, grain));
+        } else {
+            for (int i = 0; i < count; i++) {
+                body.accept(i);
+            }
+        }
+    }
+
+    /**
+     * Task running the body for a range of indices, splitting the range in halves until it is small enough.
+     */
+    @SuppressWarnings("serial")
+    private static final class ForEachTask extends RecursiveAction {
+        private final IntConsumer body;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        private ForEachTask(IntConsumer body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        protected void compute() {
+            if (to - from <= grain) {
+                for (int i = from; i < to; i++) {
+                    body.accept(i);
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ForEachTask(body, from, mid, grain), new ForEachTask(body, mid, to, grain));
+            }
+        }
+    }
+}
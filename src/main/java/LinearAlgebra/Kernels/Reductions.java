@@ -0,0 +1,612 @@
+package LinearAlgebra.Kernels;
+
+/**
+ * Reduction kernels (sums and sums of squares of whole matrices, rows and columns), for matrices stored as nested
+ * arrays of rows, as flat row-major arrays or in compressed sparse row format, and for matrices whose elements are
+ * only handed over a range at a time, in row-major order, through an Accumulator.
+ *
+ * Every reduction accumulates in doubles, and adds the elements pairwise: a range is split in halves until it is at
+ * most LEAF elements long, and the halves are then added together. The rounding error therefore grows with the
+ * logarithm of the number of elements rather than linearly, as it does when adding them one at a time to a float.
+ *
+ * The work is split into blocks of a fixed size (BLOCK elements in row-major order for whole matrices, rows for row
+ * sums and ROW_BLOCK rows for column sums), whose partial sums are stored in an array and then combined pairwise in
+ * the same order. Blocks are computed in parallel according to Parallelism, but since the blocks and the order they
+ * are combined in never depend on the number of threads, neither does the result. Nor do they depend on how the matrix
+ * is stored: every storage gives exactly the same result for the same elements, which only differs in the last bits
+ * from the sum computed by a different implementation.
+ */
+public final class Reductions {
+    static final int LEAF = 64;
+    static final int BLOCK = 1 << 14;
+    private static final int ROW_BLOCK = 256;
+
+    private Reductions() {
+    }
+
+    /**
+     * Computes the sum of all elements of a matrix stored as an array of rows.
+     * @param rows the rows of the matrix.
+     * @param cols the number of elements to read from every row.
+     * @return the sum of all elements.
+     */
+    public static float sum(float[][] rows, int cols) {
+        return (float) reduceRows(rows, cols, false);
+    }
+
+    /**
+     * Computes the sum of the squares of all elements of a matrix stored as an array of rows.
+     * @param rows the rows of the matrix.
+     * @param cols the number of elements to read from every row.
+     * @return the sum of the squares of all elements.
+     */
+    public static float sumsqr(float[][] rows, int cols) {
+        return (float) reduceRows(rows, cols, true);
+    }
+
+    /**
+     * Computes the sum of a range of an array.
+     * @param data the array.
+     * @param offset the index of the first element.
+     * @param length the number of elements.
+     * @return the sum of the elements.
+     */
+    public static float sum(float[] data, int offset, int length) {
+        return (float) reduceFlat(data, offset, length, false);
+    }
+
+    /**
+     * Computes the sum of the squares of a range of an array.
+     * @param data the array.
+     * @param offset the index of the first element.
+     * @param length the number of elements.
+     * @return the sum of the squares of the elements.
+     */
+    public static float sumsqr(float[] data, int offset, int length) {
+        return (float) reduceFlat(data, offset, length, true);
+    }
+
+    /**
+     * Computes the sum of every row of a matrix stored as an array of rows.
+     * @param rows the rows of the matrix.
+     * @param cols the number of elements to read from every row.
+     * @param res the array to store the sum of row i in, at index i.
+     */
+    public static void sumRows(float[][] rows, int cols, float[] res) {
+        Parallelism.forEach(rows.length, (long) rows.length * cols,
+                i -> res[i] = (float) pairwise(rows[i], 0, cols, false));
+    }
+
+    /**
+     * Computes the sum of every row of a flat row-major matrix.
+     * @param data the array containing the elements.
+     * @param offset the index of the element at (0, 0).
+     * @param rowCount the number of rows.
+     * @param cols the number of columns, which is also the distance between two rows.
+     * @param res the array to store the sum of row i in, at index i.
+     */
+    public static void sumRows(float[] data, int offset, int rowCount, int cols, float[] res) {
+        Parallelism.forEach(rowCount, (long) rowCount * cols,
+                i -> res[i] = (float) pairwise(data, offset + i * cols, cols, false));
+    }
+
+    /**
+     * Computes the sum of every column of a matrix stored as an array of rows.
+     * @param rows the rows of the matrix.
+     * @param cols the number of elements to read from every row.
+     * @param res the array to store the sum of column j in, at index j.
+     */
+    public static void sumCols(float[][] rows, int cols, float[] res) {
+        sumCols(new Nested(rows), rows.length, cols, res);
+    }
+
+    /**
+     * Computes the sum of every column of a flat row-major matrix.
+     * @param data the array containing the elements.
+     * @param offset the index of the element at (0, 0).
+     * @param rowCount the number of rows.
+     * @param cols the number of columns, which is also the distance between two rows.
+     * @param res the array to store the sum of column j in, at index j.
+     */
+    public static void sumCols(float[] data, int offset, int rowCount, int cols, float[] res) {
+        sumCols(new Flat(data, offset, cols), rowCount, cols, res);
+    }
+
+    /**
+     * Computes the sum of all elements of a sparse matrix in compressed sparse row format, with exactly the same result
+     * as for its dense elements.
+     * @param rowCount the number of rows.
+     * @param cols the number of columns.
+     * @param rowPtr the index in colIdx and values of the first non-zero of every row, followed by the number of
+     *               non-zeros.
+     * @param colIdx the column of every non-zero, sorted within every row.
+     * @param values the value of every non-zero.
+     * @return the sum of all elements.
+     */
+    public static float sum(int rowCount, int cols, int[] rowPtr, int[] colIdx, float[] values) {
+        return (float) reduceSparse(rowCount, cols, rowPtr, colIdx, values, false);
+    }
+
+    /**
+     * Computes the sum of the squares of all elements of a sparse matrix in compressed sparse row format, with exactly
+     * the same result as for its dense elements.
+     * @param rowCount the number of rows.
+     * @param cols the number of columns.
+     * @param rowPtr the index in colIdx and values of the first non-zero of every row, followed by the number of
+     *               non-zeros.
+     * @param colIdx the column of every non-zero, sorted within every row.
+     * @param values the value of every non-zero.
+     * @return the sum of the squares of all elements.
+     */
+    public static float sumsqr(int rowCount, int cols, int[] rowPtr, int[] colIdx, float[] values) {
+        return (float) reduceSparse(rowCount, cols, rowPtr, colIdx, values, true);
+    }
+
+    /**
+     * Computes the sum of every row of a sparse matrix in compressed sparse row format, with exactly the same result
+     * as for its dense elements.
+     * @param rowCount the number of rows.
+     * @param cols the number of columns.
+     * @param rowPtr the index in colIdx and values of the first non-zero of every row, followed by the number of
+     *               non-zeros.
+     * @param colIdx the column of every non-zero, sorted within every row.
+     * @param values the value of every non-zero.
+     * @param res the array to store the sum of row i in, at index i.
+     */
+    public static void sumRows(int rowCount, int cols, int[] rowPtr, int[] colIdx, float[] values, float[] res) {
+        long[] positions = new long[values.length];
+        double[] terms = new double[values.length];
+        for (int p = 0; p < values.length; p++) {
+            positions[p] = colIdx[p];
+            terms[p] = values[p];
+        }
+        for (int i = 0; i < rowCount; i++) {
+            res[i] = (float) pairwise(positions, terms, rowPtr[i], rowPtr[i + 1], 0, cols, true);
+        }
+    }
+
+    /**
+     * Computes the sum of every column of a sparse matrix in compressed sparse row format, with exactly the same
+     * result as for its dense elements.
+     * @param rowCount the number of rows.
+     * @param cols the number of columns.
+     * @param rowPtr the index in colIdx and values of the first non-zero of every row, followed by the number of
+     *               non-zeros.
+     * @param colIdx the column of every non-zero, sorted within every row.
+     * @param values the value of every non-zero.
+     * @param res the array to store the sum of column j in, at index j.
+     */
+    public static void sumCols(int rowCount, int cols, int[] rowPtr, int[] colIdx, float[] values, float[] res) {
+        int[] colPtr = new int[cols + 1];
+        for (int p = 0; p < values.length; p++) {
+            colPtr[colIdx[p] + 1]++;
+        }
+        for (int j = 0; j < cols; j++) {
+            colPtr[j + 1] += colPtr[j];
+        }
+        int[] next = colPtr.clone();
+        int[] rowIdx = new int[values.length];
+        float[] colValues = new float[values.length];
+        for (int i = 0; i < rowCount; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                int q = next[colIdx[p]]++;
+                rowIdx[q] = i;
+                colValues[q] = values[p];
+            }
+        }
+
+        int blocks = (rowCount + ROW_BLOCK - 1) / ROW_BLOCK;
+        long[] blockIdx = new long[values.length];
+        double[] partials = new double[values.length];
+        for (int j = 0; j < cols; j++) {
+            int count = 0;
+            for (int q = colPtr[j]; q < colPtr[j + 1]; q++) {
+                int block = rowIdx[q] / ROW_BLOCK;
+                if (count == 0 || blockIdx[colPtr[j] + count - 1] != block) {
+                    blockIdx[colPtr[j] + count++] = block;
+                }
+                partials[colPtr[j] + count - 1] += colValues[q];
+            }
+            res[j] = (float) pairwise(blockIdx, partials, colPtr[j], colPtr[j] + count, 0, blocks, false);
+        }
+    }
+
+    /**
+     * Sums the elements of a matrix stored as an array of rows in the same blocks of BLOCK elements as a flat matrix,
+     * copying the blocks spanning several rows.
+     */
+    private static double reduceRows(float[][] rows, int cols, boolean square) {
+        long length = (long) rows.length * cols;
+        double[] partials = new double[(int) ((length + BLOCK - 1) / BLOCK)];
+        Parallelism.forEach(partials.length, length, b -> {
+            long from = (long) b * BLOCK;
+            int blockLength = (int) Math.min(BLOCK, length - from);
+            int row = (int) (from / cols);
+            int col = (int) (from % cols);
+            if (col + blockLength <= cols) {
+                partials[b] = pairwise(rows[row], col, blockLength, square);
+            } else {
+                float[] block = new float[blockLength];
+                for (int copied = 0; copied < blockLength; row++, col = 0) {
+                    int count = Math.min(cols - col, blockLength - copied);
+                    System.arraycopy(rows[row], col, block, copied, count);
+                    copied += count;
+                }
+                partials[b] = pairwise(block, 0, blockLength, square);
+            }
+        });
+        return pairwise(partials, 0, partials.length);
+    }
+
+    private static double reduceFlat(float[] data, int offset, int length, boolean square) {
+        double[] partials = new double[(length + BLOCK - 1) / BLOCK];
+        Parallelism.forEach(partials.length, length, b -> {
+            int from = b * BLOCK;
+            partials[b] = pairwise(data, offset + from, Math.min(BLOCK, length - from), square);
+        });
+        return pairwise(partials, 0, partials.length);
+    }
+
+    /**
+     * Sums the non-zeros of a sparse matrix over the same blocks, and with the same pairwise sums, as the dense matrix,
+     * where the ranges without non-zeros are skipped since their sums are zero.
+     */
+    private static double reduceSparse(int rowCount, int cols, int[] rowPtr, int[] colIdx, float[] values,
+                                       boolean square) {
+        long[] positions = new long[values.length];
+        double[] terms = new double[values.length];
+        for (int i = 0; i < rowCount; i++) {
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                positions[p] = (long) i * cols + colIdx[p];
+                terms[p] = square ? (double) values[p] * values[p] : values[p];
+            }
+        }
+        long length = (long) rowCount * cols;
+        long[] blockIdx = new long[values.length];
+        double[] partials = new double[values.length];
+        int count = 0;
+        for (int p = 0; p < values.length; ) {
+            long block = positions[p] / BLOCK;
+            int end = search(positions, p, values.length, (block + 1) * BLOCK);
+            blockIdx[count] = block;
+            partials[count++] = pairwise(positions, terms, p, end, block * BLOCK,
+                    Math.min(BLOCK, length - block * BLOCK), true);
+            p = end;
+        }
+        return pairwise(blockIdx, partials, 0, count, 0, (length + BLOCK - 1) / BLOCK, false);
+    }
+
+    /**
+     * Sums the columns of blocks of ROW_BLOCK rows each into separate partial sums, and then combines the partial sums
+     * of every column pairwise.
+     */
+    private static void sumCols(Rows rows, int rowCount, int cols, float[] res) {
+        int blocks = (rowCount + ROW_BLOCK - 1) / ROW_BLOCK;
+        double[][] partials = new double[blocks][cols];
+        Parallelism.forEach(blocks, (long) rowCount * cols, b -> {
+            double[] partial = partials[b];
+            for (int i = b * ROW_BLOCK; i < Math.min(rowCount, (b + 1) * ROW_BLOCK); i++) {
+                float[] array = rows.array(i);
+                int index = rows.offset(i);
+                for (int j = 0; j < cols; j++) {
+                    partial[j] += array[index + j];
+                }
+            }
+        });
+        for (int j = 0; j < cols; j++) {
+            res[j] = (float) pairwise(partials, j, 0, blocks);
+        }
+    }
+
+    /**
+     * Computes the sum of a range of floats, or of their squares, pairwise.
+     */
+    static double pairwise(float[] data, int offset, int length, boolean square) {
+        if (length <= LEAF) {
+            double s0 = 0;
+            double s1 = 0;
+            double s2 = 0;
+            double s3 = 0;
+            int i = 0;
+            for (; i + 4 <= length; i += 4) {
+                double a0 = data[offset + i];
+                double a1 = data[offset + i + 1];
+                double a2 = data[offset + i + 2];
+                double a3 = data[offset + i + 3];
+                if (square) {
+                    a0 *= a0;
+                    a1 *= a1;
+                    a2 *= a2;
+                    a3 *= a3;
+                }
+                s0 += a0;
+                s1 += a1;
+                s2 += a2;
+                s3 += a3;
+            }
+            for (; i < length; i++) {
+                double a = data[offset + i];
+                s0 += square ? a * a : a;
+            }
+            return (s0 + s1) + (s2 + s3);
+        }
+        int half = length / 2;
+        return pairwise(data, offset, half, square) + pairwise(data, offset + half, length - half, square);
+    }
+
+    private static double pairwise(double[] data, int from, int length) {
+        if (length <= LEAF) {
+            double sum = 0;
+            for (int i = from; i < from + length; i++) {
+                sum += data[i];
+            }
+            return sum;
+        }
+        int half = length / 2;
+        return pairwise(data, from, half) + pairwise(data, from + half, length - half);
+    }
+
+    /**
+     * Computes the sum of element col of the arrays from to to (exclusive), pairwise.
+     */
+    private static double pairwise(double[][] data, int col, int from, int to) {
+        if (to - from <= LEAF) {
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += data[i][col];
+            }
+            return sum;
+        }
+        int mid = (from + to) >>> 1;
+        return pairwise(data, col, from, mid) + pairwise(data, col, mid, to);
+    }
+
+    /**
+     * Computes the pairwise sum of a range of a virtual array, which is zero except for the terms at the sorted indices
+     * from to to (exclusive) of positions. The sum of the terms is split exactly like the one of the dense array, in
+     * four lanes in the leaves of the float sums and sequentially in the leaves of the double sums, so adding the zeros
+     * would not change it.
+     * @param start the index in the virtual array of the first element of the range.
+     * @param length the number of elements in the range.
+     * @param lanes whether the leaves are split in four lanes.
+     */
+    private static double pairwise(long[] positions, double[] terms, int from, int to, long start, long length,
+                                   boolean lanes) {
+        if (from == to) {
+            return 0;
+        }
+        if (length <= LEAF) {
+            double[] s = new double[4];
+            long laned = lanes ? length & ~3 : 0;
+            for (int p = from; p < to; p++) {
+                long i = positions[p] - start;
+                s[i < laned ? (int) (i & 3) : 0] += terms[p];
+            }
+            return (s[0] + s[1]) + (s[2] + s[3]);
+        }
+        long half = length / 2;
+        int mid = search(positions, from, to, start + half);
+        return pairwise(positions, terms, from, mid, start, half, lanes)
+                + pairwise(positions, terms, mid, to, start + half, length - half, lanes);
+    }
+
+    /**
+     * Finds the first index from from to to (exclusive) of a sorted array whose element is at least key, or to.
+     */
+    private static int search(long[] sorted, int from, int to, long key) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (sorted[mid] < key) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Computes the same reductions as the methods above, with exactly the same results, from the elements of a
+     * row-major matrix that are handed over a range at a time and in order, such as an expression computed a chunk at
+     * a time. The elements of a block are buffered until the block is complete, so at most BLOCK elements (or a row)
+     * are held at once.
+     */
+    public abstract static class Accumulator {
+        private Accumulator() {
+        }
+
+        /**
+         * Creates an Accumulator computing the sum of all elements.
+         * @param rowCount the number of rows.
+         * @param cols the number of columns.
+         * @return the Accumulator, whose result holds the sum.
+         */
+        public static Accumulator sum(int rowCount, int cols) {
+            return new Total((long) rowCount * cols, false);
+        }
+
+        /**
+         * Creates an Accumulator computing the sum of the squares of all elements.
+         * @param rowCount the number of rows.
+         * @param cols the number of columns.
+         * @return the Accumulator, whose result holds the sum of squares.
+         */
+        public static Accumulator sumsqr(int rowCount, int cols) {
+            return new Total((long) rowCount * cols, true);
+        }
+
+        /**
+         * Creates an Accumulator computing the sum of every row.
+         * @param rowCount the number of rows.
+         * @param cols the number of columns.
+         * @return the Accumulator, whose result holds the sum of row i at index i.
+         */
+        public static Accumulator sumRows(int rowCount, int cols) {
+            return new RowSums(rowCount, cols);
+        }
+
+        /**
+         * Creates an Accumulator computing the sum of every column.
+         * @param rowCount the number of rows.
+         * @param cols the number of columns.
+         * @return the Accumulator, whose result holds the sum of column j at index j.
+         */
+        public static Accumulator sumCols(int rowCount, int cols) {
+            return new ColSums(rowCount, cols);
+        }
+
+        /**
+         * Adds the next elements of the matrix, in row-major order.
+         * @param data the array containing the elements.
+         * @param offset the index of the first element.
+         * @param length the number of elements.
+         */
+        public abstract void add(float[] data, int offset, int length);
+
+        /**
+         * Computes the result, once every element of the matrix has been added.
+         * @return the reduced elements.
+         */
+        public abstract float[] result();
+    }
+
+    private static final class Total extends Accumulator {
+        private final long length;
+        private final boolean square;
+        private final float[] block;
+        private final double[] partials;
+        private int buffered;
+        private int blocks;
+
+        private Total(long length, boolean square) {
+            this.length = length;
+            this.square = square;
+            this.block = new float[(int) Math.min(BLOCK, length)];
+            this.partials = new double[(int) ((length + BLOCK - 1) / BLOCK)];
+        }
+
+        public void add(float[] data, int offset, int length) {
+            while (length > 0) {
+                int blockLength = (int) Math.min(BLOCK, this.length - (long) blocks * BLOCK);
+                int count = Math.min(length, blockLength - buffered);
+                System.arraycopy(data, offset, block, buffered, count);
+                buffered += count;
+                offset += count;
+                length -= count;
+                if (buffered == blockLength) {
+                    partials[blocks++] = pairwise(block, 0, blockLength, square);
+                    buffered = 0;
+                }
+            }
+        }
+
+        public float[] result() {
+            return new float[]{(float) pairwise(partials, 0, partials.length)};
+        }
+    }
+
+    private static final class RowSums extends Accumulator {
+        private final float[] row;
+        private final float[] res;
+        private int buffered;
+        private int rowIndex;
+
+        private RowSums(int rowCount, int cols) {
+            this.row = new float[cols];
+            this.res = new float[rowCount];
+        }
+
+        public void add(float[] data, int offset, int length) {
+            while (length > 0) {
+                int count = Math.min(length, row.length - buffered);
+                System.arraycopy(data, offset, row, buffered, count);
+                buffered += count;
+                offset += count;
+                length -= count;
+                if (buffered == row.length) {
+                    res[rowIndex++] = (float) pairwise(row, 0, row.length, false);
+                    buffered = 0;
+                }
+            }
+        }
+
+        public float[] result() {
+            return res;
+        }
+    }
+
+    private static final class ColSums extends Accumulator {
+        private final double[][] partials;
+        private final int cols;
+        private int rowIndex;
+        private int col;
+
+        private ColSums(int rowCount, int cols) {
+            this.partials = new double[(rowCount + ROW_BLOCK - 1) / ROW_BLOCK][cols];
+            this.cols = cols;
+        }
+
+        public void add(float[] data, int offset, int length) {
+            for (int k = offset; k < offset + length; k++) {
+                partials[rowIndex / ROW_BLOCK][col] += data[k];
+                if (++col == cols) {
+                    col = 0;
+                    rowIndex++;
+                }
+            }
+        }
+
+        public float[] result() {
+            float[] res = new float[cols];
+            for (int j = 0; j < cols; j++) {
+                res[j] = (float) pairwise(partials, j, 0, partials.length);
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Where the rows of a matrix are stored.
+     */
+    private interface Rows {
+        float[] array(int row);
+
+        int offset(int row);
+    }
+
+    private static final class Nested implements Rows {
+        private final float[][] rows;
+
+        private Nested(float[][] rows) {
+            this.rows = rows;
+        }
+
+        public float[] array(int row) {
+            return rows[row];
+        }
+
+        public int offset(int row) {
+            return 0;
+        }
+    }
+
+    private static final class Flat implements Rows {
+        private final float[] data;
+        private final int offset;
+        private final int cols;
+
+        private Flat(float[] data, int offset, int cols) {
+            this.data = data;
+            this.offset = offset;
+            this.cols = cols;
+        }
+
+        public float[] array(int row) {
+            return data;
+        }
+
+        public int offset(int row) {
+            return offset + row * cols;
+        }
+    }
+}
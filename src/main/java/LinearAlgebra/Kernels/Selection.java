@@ -0,0 +1,358 @@
+package LinearAlgebra.Kernels;
+
+import java.util.Arrays;
+
+/**
+ * Selection kernels finding the indices of the largest or smallest elements of every row or column of a matrix:
+ * argmax/argmin, and the k largest elements (top-k). The matrix is either a nested array of rows, or a flat array
+ * where the element at (i, j) is located at index offset + i * rowStride + j * colStride, which means that the columns
+ * of a flat matrix are handled as the rows of its transpose.
+ *
+ * The elements are compared as primitive floats. Ties are resolved in favour of the lowest index, and NaN is never
+ * selected unless it is the first element (argmax/argmin), or there are fewer other elements than wanted (top-k).
+ * Rows (or blocks of columns) are processed in parallel according to Parallelism. The top-k of the columns of a
+ * matrix which is read a row at a time is found by adding the rows to a TopKCols, without transposing the matrix.
+ */
+public final class Selection {
+    private static final int COL_BLOCK = 256;
+
+    private Selection() {
+    }
+
+    /**
+     * Finds the index of the largest or smallest element of every row of a flat matrix.
+     * @param data the array containing the elements.
+     * @param offset the index of the element at (0, 0).
+     * @param rowStride the distance between two rows in the array.
+     * @param colStride the distance between two columns in the array.
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @param max true to find the largest elements, false to find the smallest.
+     * @param res the array to store the column index of the extremum of row i in, at index i.
+     */
+    public static void arg(float[] data, int offset, int rowStride, int colStride, int rows, int cols, boolean max,
+                           int[] res) {
+        Parallelism.forEach(rows, (long) rows * cols,
+                i -> res[i] = arg(data, offset + i * rowStride, colStride, cols, max));
+    }
+
+    /**
+     * Finds the index of the largest or smallest element of every row of a matrix stored as an array of rows.
+     * @param rows the rows of the matrix.
+     * @param cols the number of elements to read from every row.
+     * @param max true to find the largest elements, false to find the smallest.
+     * @param res the array to store the column index of the extremum of row i in, at index i.
+     */
+    public static void arg(float[][] rows, int cols, boolean max, int[] res) {
+        Parallelism.forEach(rows.length, (long) rows.length * cols, i -> res[i] = arg(rows[i], 0, 1, cols, max));
+    }
+
+    /**
+     * Finds the index of the largest or smallest element of every column of a matrix stored as an array of rows. The
+     * rows are read in order, a block of columns at a time.
+     * @param rows the rows of the matrix.
+     * @param cols the number of elements to read from every row.
+     * @param max true to find the largest elements, false to find the smallest.
+     * @param res the array to store the row index of the extremum of column j in, at index j.
+     */
+    public static void argCols(float[][] rows, int cols, boolean max, int[] res) {
+        int blocks = (cols + COL_BLOCK - 1) / COL_BLOCK;
+        Parallelism.forEach(blocks, (long) rows.length * cols, b -> {
+            int from = b * COL_BLOCK;
+            int to = Math.min(cols, from + COL_BLOCK);
+            float[] extremas = new float[to - from];
+            System.arraycopy(rows[0], from, extremas, 0, to - from);
+            for (int j = from; j < to; j++) {
+                res[j] = 0;
+            }
+            for (int i = 1; i < rows.length; i++) {
+                float[] row = rows[i];
+                for (int j = from; j < to; j++) {
+                    float element = row[j];
+                    if (max ? element > extremas[j - from] : element < extremas[j - from]) {
+                        extremas[j - from] = element;
+                        res[j] = i;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Finds the indices of the k largest elements of every row of a flat matrix.
+     * @param data the array containing the elements.
+     * @param offset the index of the element at (0, 0).
+     * @param rowStride the distance between two rows in the array.
+     * @param colStride the distance between two columns in the array.
+     * @param rows the number of rows.
+     * @param cols the number of columns.
+     * @param k the number of elements to find in every row (all of them if k is larger than cols).
+     * @return an array of rows arrays, each holding the column indices of the k largest elements of the row, from
+     * the largest to the smallest.
+     */
+    public static int[][] topK(float[] data, int offset, int rowStride, int colStride, int rows, int cols, int k) {
+        int[][] res = new int[rows][];
+        Parallelism.forEach(rows, (long) rows * cols,
+                i -> res[i] = topK(data, offset + i * rowStride, colStride, cols, k));
+        return res;
+    }
+
+    /**
+     * Finds the indices of the k largest elements of every row of a matrix stored as an array of rows.
+     * @param rows the rows of the matrix.
+     * @param cols the number of elements to read from every row.
+     * @param k the number of elements to find in every row (all of them if k is larger than cols).
+     * @return an array of rows.length arrays, each holding the column indices of the k largest elements of the row,
+     * from the largest to the smallest.
+     */
+    public static int[][] topK(float[][] rows, int cols, int k) {
+        int[][] res = new int[rows.length][];
+        Parallelism.forEach(rows.length, (long) rows.length * cols, i -> res[i] = topK(rows[i], 0, 1, cols, k));
+        return res;
+    }
+
+    /**
+     * Finds the indices of the k largest elements of every column of a matrix stored as an array of rows. The rows are
+     * read in order, a block of columns at a time, with a TopKCols per block.
+     * @param rows the rows of the matrix.
+     * @param cols the number of elements to read from every row.
+     * @param k the number of elements to find in every column (all of them if k is larger than rows.length).
+     * @return an array of cols arrays, each holding the row indices of the k largest elements of the column, from the
+     * largest to the smallest.
+     */
+    public static int[][] topKCols(float[][] rows, int cols, int k) {
+        int[][] res = new int[cols][];
+        int blocks = (cols + COL_BLOCK - 1) / COL_BLOCK;
+        Parallelism.forEach(blocks, (long) rows.length * cols, b -> {
+            int from = b * COL_BLOCK;
+            TopKCols heaps = new TopKCols(from, Math.min(cols, from + COL_BLOCK), k);
+            for (float[] row : rows) {
+                heaps.add(row, 0);
+            }
+            heaps.result(res);
+        });
+        return res;
+    }
+
+    /**
+     * Finds the indices of the k largest elements of every column of a matrix whose rows are added one at a time, for
+     * matrices which are read a row at a time anyway, such as matrices stored off-heap. Every column has a min-heap of
+     * the k largest elements seen so far with the smallest at the root, which holds their values next to their row
+     * indices, so that no row ever has to be read again.
+     */
+    public static final class TopKCols {
+        private final int from;
+        private final int cols;
+        private final int k;
+        private final float[] values;
+        private final int[] indices;
+        private int rows;
+
+        /**
+         * Creates empty heaps for every column of a matrix.
+         * @param cols the number of columns of the matrix.
+         * @param k the number of elements to find in every column (all of them if k is larger than the number of
+         *          rows added).
+         */
+        public TopKCols(int cols, int k) {
+            this(0, cols, k);
+        }
+
+        private TopKCols(int from, int to, int k) {
+            this.from = from;
+            this.cols = to - from;
+            this.k = k;
+            this.values = new float[(to - from) * k];
+            this.indices = new int[(to - from) * k];
+        }
+
+        /**
+         * Adds the next row of the matrix.
+         * @param row the array holding the row.
+         * @param offset the index in row of the element in the first column.
+         */
+        public void add(float[] row, int offset) {
+            int start = offset + from;
+            if (rows < k) {
+                for (int j = 0; j < cols; j++) {
+                    int base = j * k;
+                    values[base + rows] = row[start + j];
+                    indices[base + rows] = rows;
+                    siftUp(values, indices, base, rows);
+                }
+            } else if (k > 0) {
+                for (int j = 0; j < cols; j++) {
+                    int base = j * k;
+                    float element = row[start + j];
+                    if (below(values[base], indices[base], element, rows)) {
+                        values[base] = element;
+                        indices[base] = rows;
+                        siftDown(values, indices, base, 0, k);
+                    }
+                }
+            }
+            rows++;
+        }
+
+        /**
+         * Sorts the heaps and returns the indices of the largest elements of every column.
+         * @return an array of cols arrays, each holding the row indices of the k largest elements of the column, from
+         * the largest to the smallest.
+         */
+        public int[][] result() {
+            int[][] res = new int[cols][];
+            result(res);
+            return res;
+        }
+
+        private void result(int[][] res) {
+            int size = Math.min(k, rows);
+            for (int j = 0; j < cols; j++) {
+                int base = j * k;
+                for (int end = size - 1; end > 0; end--) {
+                    swap(values, indices, base, 0, end);
+                    siftDown(values, indices, base, 0, end);
+                }
+                res[from + j] = Arrays.copyOfRange(indices, base, base + size);
+            }
+        }
+    }
+
+    private static int arg(float[] data, int offset, int stride, int length, boolean max) {
+        float extremum = data[offset];
+        int res = 0;
+        int index = offset;
+        for (int j = 1; j < length; j++) {
+            index += stride;
+            float element = data[index];
+            if (max ? element > extremum : element < extremum) {
+                extremum = element;
+                res = j;
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Selects the k largest elements of one row with a min-heap of size k, holding the indices of the largest elements
+     * seen so far with the smallest at the root, and sorts the heap when the row is done.
+     */
+    private static int[] topK(float[] data, int offset, int stride, int length, int k) {
+        int[] heap = new int[Math.min(k, length)];
+        int size = 0;
+        for (int j = 0; j < length; j++) {
+            if (size < heap.length) {
+                heap[size] = j;
+                siftUp(data, offset, stride, heap, size++);
+            } else if (size > 0 && below(data, offset, stride, heap[0], j)) {
+                heap[0] = j;
+                siftDown(data, offset, stride, heap, 0, size);
+            }
+        }
+        for (int end = size - 1; end > 0; end--) {
+            int smallest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = smallest;
+            siftDown(data, offset, stride, heap, 0, end);
+        }
+        return heap;
+    }
+
+    /**
+     * Determines whether the element at column a ranks below the element at column b: it is smaller, NaN, or equal
+     * with a higher index.
+     */
+    private static boolean below(float[] data, int offset, int stride, int a, int b) {
+        float x = data[offset + a * stride];
+        float y = data[offset + b * stride];
+        boolean xNaN = Float.isNaN(x);
+        boolean yNaN = Float.isNaN(y);
+        if (x == y || xNaN && yNaN) {
+            return a > b;
+        }
+        return x < y || xNaN && !yNaN;
+    }
+
+    private static void siftUp(float[] data, int offset, int stride, int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!below(data, offset, stride, heap[index], heap[parent])) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(float[] data, int offset, int stride, int[] heap, int index, int size) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && below(data, offset, stride, heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!below(data, offset, stride, heap[child], heap[index])) {
+                return;
+            }
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    /**
+     * Determines whether element x at index a ranks below element y at index b, the same way as below() does for
+     * elements read from an array.
+     */
+    private static boolean below(float x, int a, float y, int b) {
+        boolean xNaN = Float.isNaN(x);
+        boolean yNaN = Float.isNaN(y);
+        if (x == y || xNaN && yNaN) {
+            return a > b;
+        }
+        return x < y || xNaN && !yNaN;
+    }
+
+    private static void siftUp(float[] values, int[] indices, int base, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!below(values[base + index], indices[base + index], values[base + parent], indices[base + parent])) {
+                return;
+            }
+            swap(values, indices, base, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(float[] values, int[] indices, int base, int index, int size) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && below(values[base + child + 1], indices[base + child + 1], values[base + child],
+                    indices[base + child])) {
+                child++;
+            }
+            if (!below(values[base + child], indices[base + child], values[base + index], indices[base + index])) {
+                return;
+            }
+            swap(values, indices, base, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(float[] values, int[] indices, int base, int a, int b) {
+        float value = values[base + a];
+        values[base + a] = values[base + b];
+        values[base + b] = value;
+        swap(indices, base + a, base + b);
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int temp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = temp;
+    }
+}
@@ -0,0 +1,197 @@
+package LinearAlgebra.Kernels;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Strassen-Winograd multiplication, computing C = A * B with 7 products of half the size instead of 8, at the cost of
+ * 15 additions of blocks. The recursion goes on while every dimension is at least the Strassen threshold of Gemm, and
+ * the products below that are computed by the blocked kernel of Gemm. The operands are first copied into flat arrays,
+ * padded with zeroes so that every dimension can be halved the wanted number of times.
+ *
+ * Strassen's algorithm is less accurate than the classical one: the error of an element is bounded by the norms of
+ * the whole operands rather than by those of one row and one column, and grows with every level of recursion. Every
+ * level also needs temporary blocks of about 15 / 4 times the size of the operands. The threshold should therefore be
+ * kept large, so that only very large products take one or two levels of recursion.
+ *
+ * The 7 products of a level are computed as separate tasks when the product is large enough according to
+ * Parallelism. Every element is still computed in the same order, so the result does not depend on the number of
+ * threads.
+ */
+final class Strassen {
+
+    private Strassen() {
+    }
+
+    /**
+     * Computes C = A * B, and stores the result in an Output.
+     * @param a the m x k left Operand.
+     * @param b the k x n right Operand.
+     * @param c the Output to store the m x n result in.
+     * @param threshold the smallest dimension which is split in halves.
+     */
+    static void multiply(Operand a, Operand b, Gemm.Output c, int threshold) {
+        int m = a.rows;
+        int k = a.cols;
+        int n = b.cols;
+        int levels = 0;
+        for (int size = Math.min(m, Math.min(k, n)); size >= threshold; size /= 2) {
+            levels++;
+        }
+        int multiple = 1 << levels;
+        int mp = roundUp(m, multiple);
+        int kp = roundUp(k, multiple);
+        int np = roundUp(n, multiple);
+
+        float[] aPadded = pad(a, mp, kp);
+        float[] bPadded = pad(b, kp, np);
+        float[] cPadded = new float[mp * np];
+        Product product = new Product(aPadded, 0, kp, bPadded, 0, np, cPadded, 0, np, mp, kp, np, levels);
+        if (Parallelism.parallelize(2L * mp * np * kp)) {
+            Parallelism.pool().invoke(product);
+        } else {
+            product.compute();
+        }
+        Parallelism.forEach(m, (long) m * n, i -> System.arraycopy(cPadded, i * np, c.array(i), c.offset(i), n));
+    }
+
+    /**
+     * Task computing one product, either by splitting it into 7 products of half the size, or with the blocked kernel
+     * when there are no levels left.
+     */
+    @SuppressWarnings("serial")
+    private static final class Product extends RecursiveAction {
+        private final float[] a;
+        private final int aOffset;
+        private final int lda;
+        private final float[] b;
+        private final int bOffset;
+        private final int ldb;
+        private final float[] c;
+        private final int cOffset;
+        private final int ldc;
+        private final int m;
+        private final int k;
+        private final int n;
+        private final int levels;
+
+        private Product(float[] a, int aOffset, int lda, float[] b, int bOffset, int ldb, float[] c, int cOffset,
+                        int ldc, int m, int k, int n, int levels) {
+            this.a = a;
+            this.aOffset = aOffset;
+            this.lda = lda;
+            this.b = b;
+            this.bOffset = bOffset;
+            this.ldb = ldb;
+            this.c = c;
+            this.cOffset = cOffset;
+            this.ldc = ldc;
+            this.m = m;
+            this.k = k;
+            this.n = n;
+            this.levels = levels;
+        }
+
+        protected void compute() {
+            if (levels == 0) {
+                Gemm.multiplyClassical(Operand.of(a, aOffset, lda, 1, m, k), Operand.of(b, bOffset, ldb, 1, k, n),
+                        new Gemm.Flat(c, cOffset, ldc));
+                return;
+            }
+            int mh = m / 2;
+            int kh = k / 2;
+            int nh = n / 2;
+            int a11 = aOffset;
+            int a12 = aOffset + kh;
+            int a21 = aOffset + mh * lda;
+            int a22 = a21 + kh;
+            int b11 = bOffset;
+            int b12 = bOffset + nh;
+            int b21 = bOffset + kh * ldb;
+            int b22 = b21 + nh;
+
+            float[] s1 = new float[mh * kh];
+            float[] s2 = new float[mh * kh];
+            float[] s3 = new float[mh * kh];
+            float[] s4 = new float[mh * kh];
+            add(a, a21, lda, a, a22, lda, 1f, s1, 0, kh, mh, kh);
+            add(s1, 0, kh, a, a11, lda, -1f, s2, 0, kh, mh, kh);
+            add(a, a11, lda, a, a21, lda, -1f, s3, 0, kh, mh, kh);
+            add(a, a12, lda, s2, 0, kh, -1f, s4, 0, kh, mh, kh);
+
+            float[] t1 = new float[kh * nh];
+            float[] t2 = new float[kh * nh];
+            float[] t3 = new float[kh * nh];
+            float[] t4 = new float[kh * nh];
+            add(b, b12, ldb, b, b11, ldb, -1f, t1, 0, nh, kh, nh);
+            add(b, b22, ldb, t1, 0, nh, -1f, t2, 0, nh, kh, nh);
+            add(b, b22, ldb, b, b12, ldb, -1f, t3, 0, nh, kh, nh);
+            add(t2, 0, nh, b, b21, ldb, -1f, t4, 0, nh, kh, nh);
+
+            float[][] p = new float[7][mh * nh];
+            Product[] products = {
+                    half(a, a11, lda, b, b11, ldb, p[0]),
+                    half(a, a12, lda, b, b21, ldb, p[1]),
+                    half(s4, 0, kh, b, b22, ldb, p[2]),
+                    half(a, a22, lda, t4, 0, nh, p[3]),
+                    half(s1, 0, kh, t1, 0, nh, p[4]),
+                    half(s2, 0, kh, t2, 0, nh, p[5]),
+                    half(s3, 0, kh, t3, 0, nh, p[6])};
+            if (inForkJoinPool() && Parallelism.parallelize(2L * m * n * k)) {
+                invokeAll(products);
+            } else {
+                for (Product product : products) {
+                    product.compute();
+                }
+            }
+
+            // U2 = P1 + P6, U3 = U2 + P7, U4 = U2 + P5, reusing the arrays of P6 and P7 for U2 and U3.
+            int c11 = cOffset;
+            int c12 = cOffset + nh;
+            int c21 = cOffset + mh * ldc;
+            int c22 = c21 + nh;
+            add(p[0], 0, nh, p[1], 0, nh, 1f, c, c11, ldc, mh, nh);
+            add(p[0], 0, nh, p[5], 0, nh, 1f, p[5], 0, nh, mh, nh);
+            add(p[5], 0, nh, p[6], 0, nh, 1f, p[6], 0, nh, mh, nh);
+            add(p[5], 0, nh, p[4], 0, nh, 1f, p[5], 0, nh, mh, nh);
+            add(p[5], 0, nh, p[2], 0, nh, 1f, c, c12, ldc, mh, nh);
+            add(p[6], 0, nh, p[3], 0, nh, -1f, c, c21, ldc, mh, nh);
+            add(p[6], 0, nh, p[4], 0, nh, 1f, c, c22, ldc, mh, nh);
+        }
+
+        private Product half(float[] x, int xOffset, int ldx, float[] y, int yOffset, int ldy, float[] res) {
+            return new Product(x, xOffset, ldx, y, yOffset, ldy, res, 0, n / 2, m / 2, k / 2, n / 2, levels - 1);
+        }
+    }
+
+    /**
+     * Computes Z = X + sign * Y for rows x cols blocks of flat row-major arrays. Z may be the same block as X or Y.
+     */
+    private static void add(float[] x, int xOffset, int ldx, float[] y, int yOffset, int ldy, float sign,
+                            float[] z, int zOffset, int ldz, int rows, int cols) {
+        for (int i = 0; i < rows; i++) {
+            int xIndex = xOffset + i * ldx;
+            int yIndex = yOffset + i * ldy;
+            int zIndex = zOffset + i * ldz;
+            for (int j = 0; j < cols; j++) {
+                z[zIndex + j] = x[xIndex + j] + sign * y[yIndex + j];
+            }
+        }
+    }
+
+    /**
+     * Copies an Operand into a flat row-major array of rows x cols elements, padded with zeroes.
+     */
+    private static float[] pad(Operand operand, int rows, int cols) {
+        float[] res = new float[rows * cols];
+        Parallelism.forEach(operand.rows, (long) operand.rows * operand.cols, i -> {
+            for (int j = 0; j < operand.cols; j++) {
+                res[i * cols + j] = operand.get(i, j);
+            }
+        });
+        return res;
+    }
+
+    private static int roundUp(int value, int multiple) {
+        return (value + multiple - 1) / multiple * multiple;
+    }
+}
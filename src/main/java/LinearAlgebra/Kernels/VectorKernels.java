@@ -0,0 +1,61 @@
+package LinearAlgebra.Kernels;
+
+/**
+ * The scalar implementation of the kernels in Vectors, which runs on every JDK. On JDKs with the Vector API, the
+ * multi-release jar also contains SimdKernels, a subclass computing the same things with SIMD instructions.
+ */
+class VectorKernels {
+    private static final String SIMD_CLASS = "LinearAlgebra.Kernels.SimdKernels";
+
+    /**
+     * Finds the fastest kernels available. SimdKernels is only loaded if the system property LinearAlgebra.simd is not
+     * false, and only works if the jdk.incubator.vector module has been added (--add-modules jdk.incubator.vector)
+     * and the hardware has vectors of more than one float. Otherwise, the scalar kernels are used.
+     */
+    static VectorKernels find() {
+        if (!Boolean.parseBoolean(System.getProperty("LinearAlgebra.simd", "true"))) {
+            return new VectorKernels();
+        }
+        try {
+            return (VectorKernels) Class.forName(SIMD_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new VectorKernels();
+        }
+    }
+
+    String name() {
+        return "scalar";
+    }
+
+    float dot(float[] x, int xOffset, float[] y, int yOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += x[xOffset + i] * y[yOffset + i];
+        }
+        return sum;
+    }
+
+    void axpy(float alpha, float[] x, int xOffset, float[] y, int yOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    void add(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            c[cOffset + i] = a[aOffset + i] + b[bOffset + i];
+        }
+    }
+
+    void mul(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            c[cOffset + i] = a[aOffset + i] * b[bOffset + i];
+        }
+    }
+
+    void equal(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length, float tolerance) {
+        for (int i = 0; i < length; i++) {
+            c[cOffset + i] = Math.abs(a[aOffset + i] - b[bOffset + i]) < tolerance ? 1f : 0f;
+        }
+    }
+}
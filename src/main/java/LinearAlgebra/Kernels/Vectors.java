@@ -0,0 +1,81 @@
+package LinearAlgebra.Kernels;
+
+/**
+ * Kernels for the inner loops over contiguous ranges of float arrays: dot products, AXPY and element-wise operations.
+ * On JDK 16 and later, with the jdk.incubator.vector module added, they run on the Vector API using the widest
+ * vectors the hardware supports. Everywhere else, they run as plain scalar loops (which the JIT sometimes vectorizes
+ * by itself). Which one is used is decided once, when the class is loaded, and can be checked with vectorized().
+ *
+ * The SIMD dot product adds the products in a different order than the scalar one, so their results can differ in the
+ * last bits. Sums of whole matrices, rows and columns are computed by Reductions instead, in doubles.
+ */
+public final class Vectors {
+    private static final VectorKernels kernels = VectorKernels.find();
+
+    private Vectors() {
+    }
+
+    /**
+     * Determines whether the kernels use the Vector API.
+     * @return true if the SIMD kernels are used, false if the scalar ones are.
+     */
+    public static boolean vectorized() {
+        return kernels.getClass() != VectorKernels.class;
+    }
+
+    /**
+     * Returns the name of the kernels in use, such as "scalar" or "simd-256".
+     * @return the name of the kernels in use.
+     */
+    public static String implementation() {
+        return kernels.name();
+    }
+
+    /**
+     * Computes the dot product of two ranges of arrays.
+     * @param x the first array.
+     * @param xOffset the index of the first element in x.
+     * @param y the second array.
+     * @param yOffset the index of the first element in y.
+     * @param length the number of elements.
+     * @return the sum of x[xOffset + i] * y[yOffset + i].
+     */
+    public static float dot(float[] x, int xOffset, float[] y, int yOffset, int length) {
+        return kernels.dot(x, xOffset, y, yOffset, length);
+    }
+
+    /**
+     * Adds alpha * x to y, in place.
+     * @param alpha the factor to multiply x with.
+     * @param x the array to add.
+     * @param xOffset the index of the first element in x.
+     * @param y the array to add to.
+     * @param yOffset the index of the first element in y.
+     * @param length the number of elements.
+     */
+    public static void axpy(float alpha, float[] x, int xOffset, float[] y, int yOffset, int length) {
+        kernels.axpy(alpha, x, xOffset, y, yOffset, length);
+    }
+
+    /**
+     * Stores a + b in c, element-wise. c may be the same range as a or b.
+     */
+    public static void add(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length) {
+        kernels.add(a, aOffset, b, bOffset, c, cOffset, length);
+    }
+
+    /**
+     * Stores a * b in c, element-wise. c may be the same range as a or b.
+     */
+    public static void mul(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length) {
+        kernels.mul(a, aOffset, b, bOffset, c, cOffset, length);
+    }
+
+    /**
+     * Stores 1 in c where a and b differ by less than the tolerance, and 0 everywhere else.
+     */
+    public static void equal(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length,
+                             float tolerance) {
+        kernels.equal(a, aOffset, b, bOffset, c, cOffset, length, tolerance);
+    }
+}
@@ -1,5 +1,9 @@
 package LinearAlgebra;
 
+import LinearAlgebra.Decompositions.Eigen;
+import LinearAlgebra.Decompositions.LU;
+import LinearAlgebra.Decompositions.QR;
+import LinearAlgebra.Kernels.Operand;
 import Misc.Tuple;
 
 import java.util.Set;
@@ -9,6 +13,11 @@ import java.util.function.Predicate;
 /**
  * Interface for two dimensional, immutable matrices. All methods expect the matrices to use floats for internal
  * representation. Elements are accessed by naming the row first, then column. Matrices are of dimension m x n.
+ * Since Matrices are immutable, implementations may let parts of a Matrix (row, col, rowr, colr, subm) and its
+ * transpose be views sharing the storage of the original Matrix, instead of copies.
+ * Implementations can be mixed: a Matrix of any implementation can be passed to the methods of any other, which
+ * multiplies it through its operand() and reads it with copyRowInto otherwise. Only the destinations of products
+ * must be MutableMatrices of the same implementation as the Matrix computing the product.
  */
 public interface Matrix {
 
@@ -36,6 +45,21 @@ public interface Matrix {
      */
     Matrix copy();
 
+    /**
+     * Copies this Matrix into a MutableMatrix of the same implementation.
+     * @return a mutable copy of this Matrix.
+     */
+    MutableMatrix mcopy();
+
+    /**
+     * Returns a Matrix with the same elements as this Matrix, stored compactly. A view only holding a small part of
+     * the storage it shares with a large Matrix keeps all of that storage alive, so compacting it (copying its
+     * elements into storage of its own) lets the large Matrix be garbage collected. Matrices which are already stored
+     * compactly return themselves.
+     * @return a compactly stored Matrix with the same elements as this Matrix.
+     */
+    Matrix compact();
+
     /**
      * Concatenates this Matrix with the other Matrix horizontally.
      * @param other m x q Matrix (number of rows must be equal to the number of rows in this Matrix).
@@ -58,12 +82,45 @@ public interface Matrix {
      */
     float get(int row, int col);
 
+    /**
+     * Copies a row of this Matrix into an array. This is how an implementation reads the elements of a Matrix of
+     * another implementation, so every implementation can be used as the argument of every other.
+     * @param row the index of the row to copy.
+     * @param dest the array to copy the row into.
+     * @param destPos the index in dest to copy the first element of the row to.
+     */
+    void copyRowInto(int row, float[] dest, int destPos);
+
+    /**
+     * Returns a read-only view of the elements of this Matrix for the kernels in LinearAlgebra.Kernels. Products read
+     * both factors through their Operands, so Matrices of different implementations are multiplied without
+     * converting either of them. The default implementation copies the rows into an array.
+     * @return an Operand reading the elements of this Matrix.
+     */
+    default Operand operand() {
+        int rows = rows();
+        int cols = cols();
+        float[] data = new float[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            copyRowInto(i, data, i * cols);
+        }
+        return Operand.of(data, 0, cols, 1, rows, cols);
+    }
+
     /**
      * For 1x1 Matrices, this method returns the only element as a primitive float.
      * @return the element in this 1x1 Matrix
      */
     float toFloat();
 
+    /**
+     * Determines whether this Matrix is 1x1 (a scalar), without allocating anything.
+     * @return whether this Matrix has exactly one row and one column.
+     */
+    default boolean isScalar() {
+        return rows() == 1 && cols() == 1;
+    }
+
     /**
      * Returns the 1 x n row Matrix at the given index.
      * @param row the wanted row.
@@ -164,6 +221,46 @@ public interface Matrix {
      */
     Tuple<Matrix> maxv();
 
+    /**
+     * Finds the index of the minimum value in every row.
+     * @return an array of m column indices.
+     */
+    int[] argminh();
+
+    /**
+     * Finds the index of the minimum value in every column.
+     * @return an array of n row indices.
+     */
+    int[] argminv();
+
+    /**
+     * Finds the index of the maximum value in every row.
+     * @return an array of m column indices.
+     */
+    int[] argmaxh();
+
+    /**
+     * Finds the index of the maximum value in every column.
+     * @return an array of n row indices.
+     */
+    int[] argmaxv();
+
+    /**
+     * Finds the indices of the k largest values in every row. Equal values are ordered by index.
+     * @param k the number of values to find in every row (at most n).
+     * @return an array of m arrays, each holding the column indices of the k largest values in the row, from the
+     * largest to the smallest.
+     */
+    int[][] topkh(int k);
+
+    /**
+     * Finds the indices of the k largest values in every column. Equal values are ordered by index.
+     * @param k the number of values to find in every column (at most m).
+     * @return an array of n arrays, each holding the row indices of the k largest values in the column, from the
+     * largest to the smallest.
+     */
+    int[][] topkv(int k);
+
     /**
      * Adds this Matrix with the other elementwise, or if the argument is a scalar, adds the scalar to every element.
      * @param other the m x n Matrix, or the 1 x 1 scalar, to add
@@ -227,6 +324,15 @@ public interface Matrix {
      */
     Matrix sub(float scalar);
 
+    /**
+     * Subtracts every element in this Matrix from a scalar, which replaces s(scalar).sub(matrix) without creating a
+     * 1x1 Matrix.
+     * @param scalar the scalar to subtract from.
+     * @return a m x n Matrix where every element is the difference of the scalar and the corresponding element in this
+     * Matrix.
+     */
+    Matrix rsub(float scalar);
+
     /**
      * Multiplies this Matrix with the argument Matrix or scalar
      * @param other a n x q Matrix, or a 1x1 scalar
@@ -234,6 +340,40 @@ public interface Matrix {
      */
     Matrix mul(Matrix other);
 
+    /**
+     * Multiplies the transpose of this Matrix with the argument Matrix, without creating the transpose. Equivalent to
+     * tran().mul(other), but reads this Matrix in its existing layout.
+     * @param other a m x q Matrix.
+     * @return a n x q Matrix which is the result of the multiplication.
+     */
+    Matrix tmul(Matrix other);
+
+    /**
+     * Multiplies this Matrix with the transpose of the argument Matrix, without creating the transpose. Equivalent to
+     * mul(other.tran()), but reads the argument Matrix in its existing layout.
+     * @param other a q x n Matrix.
+     * @return a m x q Matrix which is the result of the multiplication.
+     */
+    Matrix mult(Matrix other);
+
+    /**
+     * Multiplies this Matrix with the argument Matrix, and writes the result into the destination Matrix instead of
+     * allocating a new one. The destination can not be one of the operands.
+     * @param other a n x q Matrix.
+     * @param into the m x q MutableMatrix to overwrite with the result.
+     * @return the destination Matrix.
+     */
+    MutableMatrix mul(Matrix other, MutableMatrix into);
+
+    /**
+     * Multiplies the transpose of this Matrix with the argument Matrix, and writes the result into the destination
+     * Matrix instead of allocating a new one. The destination can not be one of the operands.
+     * @param other a m x q Matrix.
+     * @param into the n x q MutableMatrix to overwrite with the result.
+     * @return the destination Matrix.
+     */
+    MutableMatrix tmul(Matrix other, MutableMatrix into);
+
     /**
      * Multiplies this Matrix with a scalar.
      * @param scalar the scalar to multiply with
@@ -323,7 +463,7 @@ public interface Matrix {
     Matrix sumsqr();
 
     /**
-     * Computes the inverse of this Matrix (needs to be quadratic).
+     * Computes the inverse of this Matrix (needs to be quadratic), from its LU decomposition.
      * @return the m x m inverse of this Matrix.
      */
     Matrix inv();
@@ -334,6 +474,50 @@ public interface Matrix {
      */
     Matrix pinv();
 
+    /**
+     * Computes the LU decomposition (with partial pivoting) of this Matrix (needs to be quadratic). The decomposition
+     * can solve any number of systems of equations, and find the determinant and condition number, without computing
+     * the inverse.
+     * @return the LU decomposition of this Matrix.
+     */
+    LU lu();
+
+    /**
+     * Solves the system of equations AX = B, where A is this Matrix (needs to be quadratic and non-singular), using
+     * its LU decomposition. Prefer lu() when solving several systems with the same Matrix.
+     * @param b the m x p Matrix B.
+     * @return the m x p Matrix X.
+     */
+    default Matrix solve(Matrix b) {
+        return lu().solve(b);
+    }
+
+    /**
+     * Computes the QR decomposition of this Matrix with blocked Householder reflections. The decomposition can solve
+     * any number of least squares problems without forming A'A.
+     * @return the QR decomposition of this Matrix.
+     */
+    QR qr();
+
+    /**
+     * Solves the least squares problem min ||AX - B||, where A is this Matrix (needs at least as many rows as columns,
+     * and full column rank), using its QR decomposition. This is more accurate than solving the normal equations
+     * A'AX = A'B, and cheaper than multiplying with the pseudo inverse. Prefer qr() when solving several problems with
+     * the same Matrix.
+     * @param b the m x p Matrix B.
+     * @return the n x p Matrix X.
+     */
+    default Matrix lstsq(Matrix b) {
+        return qr().solve(b);
+    }
+
+    /**
+     * Computes the eigendecomposition of this Matrix (needs to be symmetric, and only its lower triangle is read),
+     * A = V D V', with the eigenvalues in descending order. See Eigen.
+     * @return the eigendecomposition of this Matrix.
+     */
+    Eigen eig();
+
     /**
      * Computes the transpose of this Matrix.
      * @return the n x m transpose of this Matrix.
@@ -359,6 +543,14 @@ public interface Matrix {
      */
     Matrix map(Function<Float, Float> function);
 
+    /**
+     * Iterates over the Matrix, applying a function on primitive floats to every element and returning the result.
+     * No elements are boxed, and lambdas are resolved to this method rather than map(Function<Float, Float>).
+     * @param function the function to apply.
+     * @return a m x n Matrix where the function has been applied to every element in this Matrix.
+     */
+    Matrix map(FloatUnaryOperator function);
+
     /**
      * Creates a Matrix of 1's (true) and 0's (false) depending on whether the predicate held true or not for the
      * corresponding element in this Matrix.
@@ -367,6 +559,15 @@ public interface Matrix {
      */
     Matrix mask(Predicate<Float> pred);
 
+    /**
+     * Creates a Matrix of 1's (true) and 0's (false) depending on whether the predicate on primitive floats held true
+     * or not for the corresponding element in this Matrix. No elements are boxed, and lambdas are resolved to this
+     * method rather than mask(Predicate<Float>).
+     * @param pred the predicate used.
+     * @return a m x n Matrix of 1's and 0's
+     */
+    Matrix mask(FloatPredicate pred);
+
     /**
      * Uses a mask of 1's and 0's of the same size as this Matrix, and returns a column Matrix containing every element
      * for which the corresponding mask element was 1.
@@ -400,14 +601,22 @@ public interface Matrix {
     Matrix rlc();
 
     /**
-     * Finds every unique value in this Matrix.
-     * @return a Set containing every unique value in this Matrix.
+     * Finds every unique value in this Matrix. Only the unique values are boxed.
+     * @return a Set containing every unique value in this Matrix, iterated in ascending order.
      */
     Set<Float> unq();
 
     /**
-     * Performs singular value decomposition of this Matrix.
-     * @return a Tuple containing the U, S and V matrices.
+     * Finds every unique value in this Matrix, and counts how many times every one of them occurs, without boxing
+     * any elements.
+     * @return the unique values in ascending order, and their counts.
+     */
+    Uniques unqc();
+
+    /**
+     * Performs the thin singular value decomposition of this Matrix, A = U S V', with k = min(m, n). See SVD.
+     * @return a Tuple containing the m x k Matrix U, the k x k diagonal Matrix S with the singular values in
+     * descending order, and the n x k Matrix V.
      */
     Tuple<Matrix> svd();
 
@@ -0,0 +1,166 @@
+package LinearAlgebra;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A scope in which the buffers of temporary Matrices are recycled instead of being left to the garbage collector.
+ * An arena is opened with MatrixFactory.arena(), and is meant to be used in a try-with-resources block around one
+ * iteration of a loop:
+ *
+ *     for (int i = 0; i < iterations; i++) {
+ *         try (MatrixArena arena = mf.arena()) {
+ *             ...
+ *         }
+ *     }
+ *
+ * While an arena is open, the Matrices created on the same thread take their buffers from the Pool of the factory,
+ * and when it is closed every buffer taken is returned to the Pool, to be reused by the next iteration. Matrices
+ * created within the scope must therefore not be used after it is closed. Results which should outlive the scope are
+ * copied out with keep(Matrix). Matrices created outside of the scope are never affected.
+ *
+ * Arenas can be nested, but must be closed in the reverse order they were opened, on the thread that opened them.
+ * Only the Matrix implementations storing their elements in arrays on the heap (BMatrix and FMatrix) use arenas.
+ */
+public final class MatrixArena implements AutoCloseable {
+    private static final ThreadLocal<MatrixArena> current = new ThreadLocal<>();
+    private final Pool pool;
+    private final MatrixArena outer;
+    private final List<float[]> flat = new ArrayList<>();
+    private final List<float[][]> nested = new ArrayList<>();
+    private boolean closed;
+
+    private MatrixArena(Pool pool) {
+        this.pool = pool;
+        this.outer = current.get();
+        current.set(this);
+    }
+
+    /**
+     * Returns a zero-filled array of floats, taken from the innermost arena open on this thread, or newly allocated if
+     * there is none.
+     * @param length the length of the array.
+     * @return an array of zeroes.
+     */
+    public static float[] floats(int length) {
+        MatrixArena arena = current.get();
+        if (arena == null) {
+            return new float[length];
+        }
+        float[] res = arena.pool.takeFlat(length);
+        arena.flat.add(res);
+        return res;
+    }
+
+    /**
+     * Returns a zero-filled nested array of floats (an array of rows), taken from the innermost arena open on this
+     * thread, or newly allocated if there is none.
+     * @param rows the number of rows.
+     * @param cols the length of every row.
+     * @return a nested array of zeroes.
+     */
+    public static float[][] floats(int rows, int cols) {
+        MatrixArena arena = current.get();
+        if (arena == null) {
+            return new float[rows][cols];
+        }
+        float[][] res = arena.pool.takeNested(rows, cols);
+        arena.nested.add(res);
+        return res;
+    }
+
+    /**
+     * Copies a Matrix out of this arena, so that it can be used after the arena has been closed.
+     * @param matrix the Matrix to keep.
+     * @return a copy of the Matrix, not backed by any buffer of this arena.
+     */
+    public Matrix keep(Matrix matrix) {
+        checkInnermost();
+        current.set(outer);
+        try {
+            return matrix.copy();
+        } finally {
+            current.set(this);
+        }
+    }
+
+    /**
+     * Returns every buffer taken within this arena to the Pool. The Matrices created within the arena can not be used
+     * after that.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        checkInnermost();
+        closed = true;
+        current.set(outer);
+        pool.give(flat, nested);
+        flat.clear();
+        nested.clear();
+    }
+
+    private void checkInnermost() {
+        if (current.get() != this) {
+            throw new MatrixException("MatrixArenas must be used on the thread that opened them, and closed in the "
+                    + "reverse order they were opened");
+        }
+    }
+
+    /**
+     * The buffers recycled between the arenas of a MatrixFactory, grouped by shape. The buffers are kept as long as
+     * the Pool is reachable, so a Pool never holds more buffers than the most any single arena has used.
+     */
+    public static final class Pool {
+        private final Map<Integer, ArrayDeque<float[]>> flat = new HashMap<>();
+        private final Map<Long, ArrayDeque<float[][]>> nested = new HashMap<>();
+
+        /**
+         * Opens a new arena taking its buffers from this Pool.
+         * @return the opened arena.
+         */
+        public MatrixArena open() {
+            return new MatrixArena(this);
+        }
+
+        private synchronized float[] takeFlat(int length) {
+            ArrayDeque<float[]> buffers = flat.get(length);
+            float[] res = buffers == null ? null : buffers.poll();
+            if (res == null) {
+                return new float[length];
+            }
+            Arrays.fill(res, 0f);
+            return res;
+        }
+
+        private synchronized float[][] takeNested(int rows, int cols) {
+            ArrayDeque<float[][]> buffers = nested.get(key(rows, cols));
+            float[][] res = buffers == null ? null : buffers.poll();
+            if (res == null) {
+                return new float[rows][cols];
+            }
+            for (float[] row : res) {
+                Arrays.fill(row, 0f);
+            }
+            return res;
+        }
+
+        private synchronized void give(List<float[]> flatBuffers, List<float[][]> nestedBuffers) {
+            for (float[] buffer : flatBuffers) {
+                flat.computeIfAbsent(buffer.length, length -> new ArrayDeque<>()).add(buffer);
+            }
+            for (float[][] buffer : nestedBuffers) {
+                int cols = buffer.length == 0 ? 0 : buffer[0].length;
+                nested.computeIfAbsent(key(buffer.length, cols), key -> new ArrayDeque<>()).add(buffer);
+            }
+        }
+
+        private static long key(int rows, int cols) {
+            return (long) rows << 32 | cols;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package LinearAlgebra;
+
+import java.util.Arrays;
+
+/**
+ * Builds a Matrix by appending rows (or columns) one at a time, for Matrices whose size is not known in advance.
+ * Building a Matrix with conch or concv in a loop copies everything appended so far at every step, while a
+ * MatrixBuilder appends into a growable buffer and only copies every element a constant number of times, which makes
+ * building a Matrix take time proportional to its size. Builders are created with MatrixFactory.rowBuilder(cols) or
+ * MatrixFactory.colBuilder(rows):
+ *
+ *     MatrixBuilder builder = mf.colBuilder(rows);
+ *     for (...) {
+ *         builder.add(column);
+ *     }
+ *     Matrix res = builder.build();
+ *
+ * A row builder keeps its buffer in row-major order, and hands it to the factory without copying it when the Matrix
+ * is built. A column builder keeps its buffer in column-major order, and transposes it once when the Matrix is built.
+ * A builder can only build one Matrix.
+ */
+public final class MatrixBuilder {
+    private final MatrixFactory mf;
+    private final boolean rows;
+    private final int length;
+    private float[] buffer;
+    private int count;
+    private boolean built;
+
+    private MatrixBuilder(MatrixFactory mf, boolean rows, int length) {
+        if (length < 1) {
+            throw new MatrixException("Can not build a Matrix with rows or columns of length " + length);
+        }
+        this.mf = mf;
+        this.rows = rows;
+        this.length = length;
+        this.buffer = new float[0];
+    }
+
+    /**
+     * Creates a builder appending rows.
+     * @param mf the MatrixFactory creating the built Matrix.
+     * @param cols the number of columns of the built Matrix.
+     * @return a builder of Matrices with cols columns.
+     */
+    public static MatrixBuilder ofRows(MatrixFactory mf, int cols) {
+        return new MatrixBuilder(mf, true, cols);
+    }
+
+    /**
+     * Creates a builder appending columns.
+     * @param mf the MatrixFactory creating the built Matrix.
+     * @param rows the number of rows of the built Matrix.
+     * @return a builder of Matrices with rows rows.
+     */
+    public static MatrixBuilder ofCols(MatrixFactory mf, int rows) {
+        return new MatrixBuilder(mf, false, rows);
+    }
+
+    /**
+     * Appends one row (or column) to the Matrix being built.
+     * @param elements the elements of the row (or column).
+     * @return this builder.
+     */
+    public MatrixBuilder add(float... elements) {
+        if (elements.length != length) {
+            throw new MatrixException("Can not append " + elements.length + " elements to a Matrix with "
+                    + (rows ? "rows" : "columns") + " of length " + length);
+        }
+        System.arraycopy(elements, 0, reserve(1), count * length, length);
+        count++;
+        return this;
+    }
+
+    /**
+     * Appends every row (or column) of a Matrix to the Matrix being built.
+     * @param matrix the Matrix to append, with as many columns (or rows) as the Matrix being built.
+     * @return this builder.
+     */
+    public MatrixBuilder add(Matrix matrix) {
+        int width = rows ? matrix.cols() : matrix.rows();
+        if (width != length) {
+            throw new MatrixException("Can not append a Matrix of size " + matrix.size() + " to a Matrix with "
+                    + (rows ? "rows" : "columns") + " of length " + length);
+        }
+        int added = rows ? matrix.rows() : matrix.cols();
+        float[] dest = reserve(added);
+        if (rows) {
+            for (int i = 0; i < added; i++) {
+                matrix.copyRowInto(i, dest, (count + i) * length);
+            }
+        } else {
+            float[] row = new float[added];
+            for (int i = 0; i < length; i++) {
+                matrix.copyRowInto(i, row, 0);
+                for (int j = 0; j < added; j++) {
+                    dest[(count + j) * length + i] = row[j];
+                }
+            }
+        }
+        count += added;
+        return this;
+    }
+
+    /**
+     * Returns the number of rows (or columns) appended so far.
+     * @return the number of rows (or columns) appended so far.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Builds the Matrix of every row (or column) appended. The builder can not be used after that.
+     * @return the built Matrix.
+     */
+    public Matrix build() {
+        checkNotBuilt();
+        if (count == 0) {
+            throw new MatrixException("Can not build a Matrix without any " + (rows ? "rows" : "columns"));
+        }
+        built = true;
+        float[] elements = buffer;
+        buffer = null;
+        if (rows) {
+            return mf.m(elements.length == count * length ? elements : Arrays.copyOf(elements, count * length), count,
+                    length);
+        }
+        float[] res = new float[count * length];
+        for (int j = 0; j < count; j++) {
+            for (int i = 0; i < length; i++) {
+                res[i * count + j] = elements[j * length + i];
+            }
+        }
+        return mf.m(res, length, count);
+    }
+
+    /**
+     * Makes room for more rows (or columns), doubling the capacity of the buffer if it is full.
+     */
+    private float[] reserve(int added) {
+        checkNotBuilt();
+        long needed = (long) (count + added) * length;
+        if (needed > Integer.MAX_VALUE - 8) {
+            throw new MatrixException("Can not build a Matrix of more than " + (Integer.MAX_VALUE - 8) + " elements");
+        }
+        if (needed > buffer.length) {
+            long capacity = Math.max(needed, 2L * buffer.length);
+            buffer = Arrays.copyOf(buffer, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        }
+        return buffer;
+    }
+
+    private void checkNotBuilt() {
+        if (built) {
+            throw new MatrixException("The Matrix of this builder has already been built");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package LinearAlgebra;
 
+import java.util.Arrays;
+
 /**
  * Interface factory class for Matrices.
  */
@@ -20,6 +22,26 @@ public interface MatrixFactory {
      */
     Matrix m(String elements);
 
+    /**
+     * Factory method for Matrices, taking the elements in row-major order as argument. Implementations storing their
+     * elements in one array use it without copying it, so it must not be changed afterwards.
+     * @param elements the elements the Matrix should contain, row after row.
+     * @param rows the number of rows in the wanted Matrix.
+     * @param cols the number of columns in the wanted Matrix.
+     * @return a rows x cols Matrix containing the elements in the argument.
+     */
+    default Matrix m(float[] elements, int rows, int cols) {
+        if (elements.length != rows * cols) {
+            throw new MatrixException("Array of length " + elements.length + " can not hold a " + rows + "x" + cols
+                    + " matrix");
+        }
+        float[][] res = new float[rows][];
+        for (int i = 0; i < rows; i++) {
+            res[i] = Arrays.copyOfRange(elements, i * cols, (i + 1) * cols);
+        }
+        return m(res);
+    }
+
     /**
      * Factory method for Matrices, only consisting of one element (scalars).
      * @param element the float to have in the Matrix.
@@ -43,10 +65,45 @@ public interface MatrixFactory {
      */
     Matrix zeroes(int rows, int cols);
 
+    /**
+     * Factory method for MutableMatrices, initially containing only zeroes.
+     * @param rows the number of rows in the wanted Matrix.
+     * @param cols the number of columns in the wanted Matrix.
+     * @return a rows x cols MutableMatrix of only zeroes.
+     */
+    MutableMatrix mutable(int rows, int cols);
+
     /**
      * Factory method for identity Matrices.
      * @param size the size of the wanted identity Matrix.
      * @return a size x size identity Matrix.
      */
     Matrix identityMatrix(int size);
+
+    /**
+     * Opens a MatrixArena, in which the buffers of temporary Matrices are recycled. Factories without a Pool of their
+     * own return an arena with a new Pool, which means that nothing is recycled between arenas.
+     * @return the opened MatrixArena.
+     */
+    default MatrixArena arena() {
+        return new MatrixArena.Pool().open();
+    }
+
+    /**
+     * Creates a MatrixBuilder, building a Matrix of this factory by appending rows.
+     * @param cols the number of columns of the built Matrix.
+     * @return a MatrixBuilder appending rows of length cols.
+     */
+    default MatrixBuilder rowBuilder(int cols) {
+        return MatrixBuilder.ofRows(this, cols);
+    }
+
+    /**
+     * Creates a MatrixBuilder, building a Matrix of this factory by appending columns.
+     * @param rows the number of rows of the built Matrix.
+     * @return a MatrixBuilder appending columns of length rows.
+     */
+    default MatrixBuilder colBuilder(int rows) {
+        return MatrixBuilder.ofCols(this, rows);
+    }
 }
@@ -0,0 +1,89 @@
+package LinearAlgebra;
+
+/**
+ * Interface for two dimensional, mutable matrices. A MutableMatrix supports every operation of an immutable Matrix
+ * (which returns a new Matrix, as usual), and additionally a set of in-place operations that overwrite the elements of
+ * this Matrix and return it, so that calls can be chained. The in-place operations never allocate, which makes it
+ * possible to run iterative algorithms in a fixed set of preallocated buffers.
+ *
+ * MutableMatrices are opt-in: they are only created by MatrixFactory.mutable(int rows, int cols) and
+ * Matrix.mcopy(), and can be passed as destination to operations such as Matrix.mul(Matrix other, MutableMatrix into).
+ * The in-place operations expect arguments of the same implementation as this Matrix.
+ */
+public interface MutableMatrix extends Matrix {
+
+    /**
+     * Sets the element at the given index.
+     * @param row the row of the element.
+     * @param col the column of the element.
+     * @param element the new value of the element.
+     * @return this MutableMatrix.
+     */
+    MutableMatrix set(int row, int col, float element);
+
+    /**
+     * Overwrites every element in this Matrix with the corresponding element in the argument Matrix.
+     * @param other the m x n Matrix to copy the elements from.
+     * @return this MutableMatrix.
+     */
+    MutableMatrix set(Matrix other);
+
+    /**
+     * Adds the other Matrix to this Matrix elementwise, or if the argument is a scalar, adds the scalar to every
+     * element.
+     * @param other the m x n Matrix, or the 1 x 1 scalar, to add.
+     * @return this MutableMatrix.
+     */
+    MutableMatrix addi(Matrix other);
+
+    /**
+     * Adds the other Matrix multiplied with a factor to this Matrix (this = this + factor * other).
+     * @param other the m x n Matrix to add.
+     * @param factor the factor to multiply every element in the other Matrix with before adding it.
+     * @return this MutableMatrix.
+     */
+    MutableMatrix addi(Matrix other, float factor);
+
+    /**
+     * Adds a scalar to every element in this Matrix.
+     * @param scalar the scalar to add.
+     * @return this MutableMatrix.
+     */
+    MutableMatrix addi(float scalar);
+
+    /**
+     * Subtracts the other Matrix from this Matrix elementwise, or if the argument is a scalar, subtracts the scalar
+     * from every element.
+     * @param other the m x n Matrix, or the 1 x 1 scalar, to subtract.
+     * @return this MutableMatrix.
+     */
+    MutableMatrix subi(Matrix other);
+
+    /**
+     * Subtracts a scalar from every element in this Matrix.
+     * @param scalar the scalar to subtract.
+     * @return this MutableMatrix.
+     */
+    MutableMatrix subi(float scalar);
+
+    /**
+     * Multiplies every element in this Matrix with a scalar.
+     * @param scalar the scalar to multiply with.
+     * @return this MutableMatrix.
+     */
+    MutableMatrix muli(float scalar);
+
+    /**
+     * Multiplies this Matrix with the argument Matrix elementwise.
+     * @param other the m x n Matrix to multiply with.
+     * @return this MutableMatrix.
+     */
+    MutableMatrix mulewi(Matrix other);
+
+    /**
+     * Applies a function to every element in this Matrix.
+     * @param function the function to apply.
+     * @return this MutableMatrix.
+     */
+    MutableMatrix mapi(FloatUnaryOperator function);
+}
@@ -0,0 +1,970 @@
+package LinearAlgebra.OffHeap;
+
+import LinearAlgebra.BLinAlg.GenInv;
+import LinearAlgebra.Decompositions.Eigen;
+import LinearAlgebra.Decompositions.LU;
+import LinearAlgebra.Decompositions.QR;
+import LinearAlgebra.Decompositions.SVD;
+import LinearAlgebra.FloatPredicate;
+import LinearAlgebra.FloatUnaryOperator;
+import LinearAlgebra.Kernels.Gemm;
+import LinearAlgebra.Kernels.Operand;
+import LinearAlgebra.Kernels.Reductions;
+import LinearAlgebra.Kernels.Selection;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MutableMatrix;
+import LinearAlgebra.Uniques;
+import Misc.Tuple;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Implementation of the Matrix interface storing its elements outside of the Java heap, in direct buffers owned by an
+ * OffHeapMatrixFactory. The elements are stored in row-major order, in chunks of whole rows, so that a Matrix can be
+ * larger than a single buffer while every row is still contiguous. Element-wise operations stream the rows through a
+ * small row buffer on the heap, and the matrix multiplication kernel reads the chunks directly, so the heap only ever
+ * holds a few rows of a large Matrix. Every result is a new OffHeapMatrix in the memory of the same factory, and can
+ * not be used after the factory has been closed. Products are computed on the heap before they are copied into their
+ * chunks, which is fine as long as the products are much smaller than the factors, as in X' * X or X * theta.
+ * COL_DELIMITER is the standard column delimiter used by the toString() method.
+ * ROW_DELIMITER is the standard row delimiter used by the toString() method.
+ * EQUALITY_TOLERANCE is the standard maximum allowed difference between two elements with the same index in two
+ * different Matrices, which should still be considered equal.
+ * genInv is the instance of GenInv used to find the pseudo inverse of rectangular Matrices.
+ *
+ * See the documentation of the superclass Matrix.
+ */
+public class OffHeapMatrix implements Matrix {
+    private static final char COL_DELIMITER = ' ';
+    private static final char ROW_DELIMITER = '\n';
+    private static final float EQUALITY_TOLERANCE = 1e-4f;
+    private static final GenInv genInv = new GenInv();
+    final OffHeapMatrixFactory arena;
+    final FloatBuffer[] chunks;
+    final int rowsPerChunk;
+    final int m;
+    final int n;
+
+    OffHeapMatrix(OffHeapMatrixFactory arena, FloatBuffer[] chunks, int rowsPerChunk, int rows, int cols) {
+        this.arena = arena;
+        this.chunks = chunks;
+        this.rowsPerChunk = rowsPerChunk;
+        this.m = rows;
+        this.n = cols;
+    }
+
+    public int rows() {
+        return m;
+    }
+
+    public int cols() {
+        return n;
+    }
+
+    public Tuple<Integer> size() {
+        return new Tuple<>(m, n);
+    }
+
+    public OffHeapMatrix copy() {
+        return copyInto(arena.allocate(m, n));
+    }
+
+    public OffHeapMutableMatrix mcopy() {
+        return copyInto(arena.mutable(m, n));
+    }
+
+    public OffHeapMatrix compact() {
+        return this;
+    }
+
+    public OffHeapMatrix conch(Matrix otherMatrix) {
+        OffHeapMatrix other = of(otherMatrix);
+
+        if (!(m == other.m)) {
+            throw new MatrixException("Mismatching number of rows, " + m + " and " + other.m);
+        }
+
+        OffHeapMatrix res = arena.allocate(m, n + other.n);
+        float[] row = createfloatArray(n + other.n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            other.readRow(i, row, n);
+            res.writeRow(i, row, 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix concv(Matrix otherMatrix) {
+        OffHeapMatrix other = of(otherMatrix);
+
+        if (!(n == other.n)) {
+            throw new MatrixException("Mismatching number of columns, " + n + " and " + other.n);
+        }
+
+        OffHeapMatrix res = arena.allocate(m + other.m, n);
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            res.writeRow(i, row, 0);
+        }
+        for (int i = 0; i < other.m; i++) {
+            other.readRow(i, row, 0);
+            res.writeRow(m + i, row, 0);
+        }
+        return res;
+    }
+
+    public float get(int row, int col) {
+        arena.acquire();
+        try {
+            return chunk(row).get(index(row) + col);
+        } finally {
+            arena.release();
+        }
+    }
+
+    public void copyRowInto(int row, float[] dest, int destPos) {
+        checkIndices(row, 0);
+        readRow(row, dest, destPos);
+    }
+
+    public float toFloat() {
+        if (m == 1 && n == 1) {
+            return get(0, 0);
+        } else {
+            throw new MatrixException("Matrix is not 1x1");
+        }
+    }
+
+    public OffHeapMatrix row(int row) {
+        checkIndices(row, 0);
+        return rowr(row, row);
+    }
+
+    public OffHeapMatrix col(int col) {
+        checkIndices(0, col);
+        return colr(col, col);
+    }
+
+    public OffHeapMatrix rows(int... rowIndices) {
+        for (int rowIndex : rowIndices) {
+            checkIndices(rowIndex, 0);
+        }
+        OffHeapMatrix res = arena.allocate(rowIndices.length, n);
+        float[] row = createfloatArray(n);
+        int i = 0;
+        for (int rowIndex : rowIndices) {
+            readRow(rowIndex, row, 0);
+            res.writeRow(i++, row, 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix cols(int... colIndices) {
+        for (int colIndex : colIndices) {
+            checkIndices(0, colIndex);
+        }
+        OffHeapMatrix res = arena.allocate(m, colIndices.length);
+        float[] row = createfloatArray(n);
+        float[] resRow = createfloatArray(colIndices.length);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            int j = 0;
+            for (int colIndex : colIndices) {
+                resRow[j++] = row[colIndex];
+            }
+            res.writeRow(i, resRow, 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix rowr(int from, int to) {
+        return subm(from, to, 0, n - 1);
+    }
+
+    public OffHeapMatrix colr(int from, int to) {
+        return subm(0, m - 1, from, to);
+    }
+
+    public OffHeapMatrix subm(int fromRow, int toRow, int fromCol, int toCol) {
+        checkIndices(fromRow, fromCol);
+        checkIndices(toRow, toCol);
+
+        int cols = toCol - fromCol + 1;
+        OffHeapMatrix res = arena.allocate(toRow - fromRow + 1, cols);
+        float[] row = createfloatArray(n);
+        for (int i = fromRow; i <= toRow; i++) {
+            readRow(i, row, 0);
+            res.writeRow(i - fromRow, row, fromCol);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix ins(int row, int col, float element) {
+        checkIndices(row, col);
+        OffHeapMatrix copy = copy();
+        copy.put(row, col, element);
+        return copy;
+    }
+
+    public OffHeapMatrix ins(int fromRow, int fromCol, Matrix otherMatrix) {
+        checkIndices(fromRow, fromCol);
+        checkIndices(fromRow + otherMatrix.rows() - 1, fromCol + otherMatrix.cols() - 1);
+        OffHeapMatrix other = of(otherMatrix);
+
+        OffHeapMatrix copy = copy();
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < other.m; i++) {
+            copy.readRow(fromRow + i, row, 0);
+            other.readRow(i, row, fromCol);
+            copy.writeRow(fromRow + i, row, 0);
+        }
+        return copy;
+    }
+
+    public Tuple<Matrix> minh() {
+        return findExtremasHorizontally(false);
+    }
+
+    public Tuple<Matrix> minv() {
+        return findExtremasVertically(false);
+    }
+
+    public Tuple<Matrix> maxh() {
+        return findExtremasHorizontally(true);
+    }
+
+    public Tuple<Matrix> maxv() {
+        return findExtremasVertically(true);
+    }
+
+    public int[] argminh() {
+        return argHorizontally(false);
+    }
+
+    public int[] argminv() {
+        return argVertically(false);
+    }
+
+    public int[] argmaxh() {
+        return argHorizontally(true);
+    }
+
+    public int[] argmaxv() {
+        return argVertically(true);
+    }
+
+    public int[][] topkh(int k) {
+        if (k < 0 || k > n) {
+            throw new MatrixException("Can not find the " + k + " largest of " + n + " values");
+        }
+        int[][] res = new int[m][];
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            res[i] = Selection.topK(row, 0, n, 1, 1, n, k)[0];
+        }
+        return res;
+    }
+
+    public int[][] topkv(int k) {
+        if (k < 0 || k > m) {
+            throw new MatrixException("Can not find the " + k + " largest of " + m + " values");
+        }
+        Selection.TopKCols heaps = new Selection.TopKCols(n, k);
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            heaps.add(row, 0);
+        }
+        return heaps.result();
+    }
+
+    public OffHeapMatrix add(Matrix otherMatrix) {
+        OffHeapMatrix other = of(otherMatrix);
+
+        if (other.m == 1 && other.n == 1) {
+            return add(other.toFloat());
+        } else if (m == 1 && n == 1) {
+            return other.add(toFloat());
+        } else if (other.m == m && other.n == n) {
+            OffHeapMatrix res = arena.allocate(m, n);
+            float[] a = createfloatArray(n);
+            float[] b = createfloatArray(n);
+            for (int i = 0; i < m; i++) {
+                readRow(i, a, 0);
+                other.readRow(i, b, 0);
+                for (int j = 0; j < n; j++) {
+                    a[j] += b[j];
+                }
+                res.writeRow(i, a, 0);
+            }
+            return res;
+        } else {
+            throw new MatrixException("Incompatible sizes for addition/subtraction, "
+                    + size() + " and " + otherMatrix.size());
+        }
+    }
+
+    public OffHeapMatrix addr(Matrix rowMatrix) {
+        OffHeapMatrix rowOperand = checkRow(rowMatrix);
+        float[] b = createfloatArray(n);
+        rowOperand.readRow(0, b, 0);
+        OffHeapMatrix res = arena.allocate(m, n);
+        float[] a = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, a, 0);
+            for (int j = 0; j < n; j++) {
+                a[j] += b[j];
+            }
+            res.writeRow(i, a, 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix addc(Matrix columnMatrix) {
+        OffHeapMatrix column = checkColumn(columnMatrix);
+        OffHeapMatrix res = arena.allocate(m, n);
+        float[] a = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, a, 0);
+            float element = column.get(i, 0);
+            for (int j = 0; j < n; j++) {
+                a[j] += element;
+            }
+            res.writeRow(i, a, 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix add(float scalar) {
+        return map(d -> d + scalar);
+    }
+
+    public OffHeapMatrix sub(Matrix otherMatrix) {
+        OffHeapMatrix other = of(otherMatrix);
+
+        if (other.m == 1 && other.n == 1) {
+            return add(-other.toFloat());
+        } else if (m == 1 && n == 1) {
+            return other.mul(-1f).add(toFloat());
+        } else if (other.m == m && other.n == n) {
+            OffHeapMatrix res = arena.allocate(m, n);
+            float[] a = createfloatArray(n);
+            float[] b = createfloatArray(n);
+            for (int i = 0; i < m; i++) {
+                readRow(i, a, 0);
+                other.readRow(i, b, 0);
+                for (int j = 0; j < n; j++) {
+                    a[j] -= b[j];
+                }
+                res.writeRow(i, a, 0);
+            }
+            return res;
+        } else {
+            throw new MatrixException("Incompatible sizes for addition/subtraction, "
+                    + size() + " and " + otherMatrix.size());
+        }
+    }
+
+    public OffHeapMatrix subr(Matrix row) {
+        return addr(row.mul(-1f));
+    }
+
+    public OffHeapMatrix subc(Matrix column) {
+        return addc(column.mul(-1f));
+    }
+
+    public OffHeapMatrix sub(float scalar) {
+        return add(-scalar);
+    }
+
+    public OffHeapMatrix rsub(float scalar) {
+        return map(d -> scalar - d);
+    }
+
+    public OffHeapMatrix mul(Matrix other) {
+        if (n == other.rows()) {
+            return multiplyOperands(operand(), other.operand());
+        } else if (other.rows() == 1 && other.cols() == 1) {
+            return mul(other.get(0, 0));
+        } else if (m == 1 && n == 1) {
+            return of(other).mul(toFloat());
+        } else {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size());
+        }
+    }
+
+    public OffHeapMatrix tmul(Matrix other) {
+        if (m != other.rows()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " transposed and "
+                    + other.size());
+        }
+        return multiplyOperands(operand().tran(), other.operand());
+    }
+
+    public OffHeapMatrix mult(Matrix other) {
+        if (n != other.cols()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size()
+                    + " transposed");
+        }
+        return multiplyOperands(operand(), other.operand().tran());
+    }
+
+    public OffHeapMutableMatrix mul(Matrix other, MutableMatrix into) {
+        if (n != other.rows()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " and " + other.size());
+        }
+        return checkDestination(other, into).multiply(operand(), other.operand());
+    }
+
+    public OffHeapMutableMatrix tmul(Matrix other, MutableMatrix into) {
+        if (m != other.rows()) {
+            throw new MatrixException("Mismatching matrices for multiplication, " + size() + " transposed and "
+                    + other.size());
+        }
+        return checkDestination(other, into).multiply(operand().tran(), other.operand());
+    }
+
+    public OffHeapMatrix mul(float scalar) {
+        return map(d -> d * scalar);
+    }
+
+    public OffHeapMatrix mulr(Matrix rowMatrix) {
+        OffHeapMatrix rowOperand = checkRow(rowMatrix);
+        float[] b = createfloatArray(n);
+        rowOperand.readRow(0, b, 0);
+        OffHeapMatrix res = arena.allocate(m, n);
+        float[] a = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, a, 0);
+            for (int j = 0; j < n; j++) {
+                a[j] *= b[j];
+            }
+            res.writeRow(i, a, 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix mulc(Matrix columnMatrix) {
+        OffHeapMatrix column = checkColumn(columnMatrix);
+        OffHeapMatrix res = arena.allocate(m, n);
+        float[] a = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, a, 0);
+            float element = column.get(i, 0);
+            for (int j = 0; j < n; j++) {
+                a[j] *= element;
+            }
+            res.writeRow(i, a, 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix mulew(Matrix otherMatrix) {
+        OffHeapMatrix other = checkSameSize(otherMatrix);
+        OffHeapMatrix res = arena.allocate(m, n);
+        float[] a = createfloatArray(n);
+        float[] b = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, a, 0);
+            other.readRow(i, b, 0);
+            for (int j = 0; j < n; j++) {
+                a[j] *= b[j];
+            }
+            res.writeRow(i, a, 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix div(float scalar) {
+        return mul(1 / scalar);
+    }
+
+    public OffHeapMatrix divr(Matrix row) {
+        return mulr(row.map(d -> 1 / d));
+    }
+
+    public OffHeapMatrix divc(Matrix column) {
+        return mulc(column.map(d -> 1 / d));
+    }
+
+    public OffHeapMatrix divew(Matrix otherMatrix) {
+        OffHeapMatrix other = checkSameSize(otherMatrix);
+        OffHeapMatrix res = arena.allocate(m, n);
+        float[] a = createfloatArray(n);
+        float[] b = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, a, 0);
+            other.readRow(i, b, 0);
+            for (int j = 0; j < n; j++) {
+                a[j] /= b[j];
+            }
+            res.writeRow(i, a, 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix sumh() {
+        float[] sums = reduce(Reductions.Accumulator.sumRows(m, n));
+        OffHeapMatrix res = arena.allocate(m, 1);
+        for (int i = 0; i < m; i++) {
+            res.put(i, 0, sums[i]);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix sumv() {
+        OffHeapMatrix res = arena.allocate(1, n);
+        res.writeRow(0, reduce(Reductions.Accumulator.sumCols(m, n)), 0);
+        return res;
+    }
+
+    public OffHeapMatrix sum() {
+        return arena.s(reduce(Reductions.Accumulator.sum(m, n))[0]);
+    }
+
+    public OffHeapMatrix sumsqr() {
+        return arena.s(reduce(Reductions.Accumulator.sumsqr(m, n))[0]);
+    }
+
+    /**
+     * Hands the rows of this Matrix to an Accumulator, which gives exactly the same result as the same reduction of
+     * an FMatrix.
+     */
+    private float[] reduce(Reductions.Accumulator accumulator) {
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            accumulator.add(row, 0, n);
+        }
+        return accumulator.result();
+    }
+
+    public OffHeapMatrix inv() {
+        return (OffHeapMatrix) lu().inverse();
+    }
+
+    public OffHeapMatrix pinv() {
+        return (OffHeapMatrix) genInv.pseudoInvert(this, arena);
+    }
+
+    public LU lu() {
+        return LU.of(this, arena);
+    }
+
+    public QR qr() {
+        return QR.of(this, arena);
+    }
+
+    public Eigen eig() {
+        return Eigen.of(this, arena);
+    }
+
+    public OffHeapMatrix tran() {
+        OffHeapMatrix res = arena.allocate(n, m);
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            for (int j = 0; j < n; j++) {
+                res.put(j, i, row[j]);
+            }
+        }
+        return res;
+    }
+
+    public OffHeapMatrix diag() {
+        int end = Math.min(m, n);
+        OffHeapMatrix res = arena.allocate(end, 1);
+        for (int i = 0; i < end; i++) {
+            res.put(i, 0, get(i, i));
+        }
+        return res;
+    }
+
+    public OffHeapMatrix vec() {
+        OffHeapMatrix res = arena.allocate(m * n, 1);
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            for (int j = 0; j < n; j++) {
+                res.put(j * m + i, 0, row[j]);
+            }
+        }
+        return res;
+    }
+
+    public OffHeapMatrix map(Function<Float, Float> function) {
+        return map((FloatUnaryOperator) function::apply);
+    }
+
+    public OffHeapMatrix map(FloatUnaryOperator function) {
+        OffHeapMatrix res = arena.allocate(m, n);
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            for (int j = 0; j < n; j++) {
+                row[j] = function.applyAsFloat(row[j]);
+            }
+            res.writeRow(i, row, 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix mask(Predicate<Float> pred) {
+        return mask((FloatPredicate) pred::test);
+    }
+
+    public OffHeapMatrix mask(FloatPredicate pred) {
+        return map(d -> pred.test(d) ? 1f : 0f);
+    }
+
+    public OffHeapMatrix usemask(Matrix maskMatrix) {
+        OffHeapMatrix mask = checkSameSize(maskMatrix);
+        int count = 0;
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            mask.readRow(i, row, 0);
+            for (int j = 0; j < n; j++) {
+                if (row[j] != 0) {
+                    count++;
+                }
+            }
+        }
+
+        OffHeapMatrix res = arena.allocate(count, 1);
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                if (mask.get(i, j) != 0) {
+                    res.put(k++, 0, get(i, j));
+                }
+            }
+        }
+        return res;
+    }
+
+    public OffHeapMatrix addr1() {
+        return arena.ones(1, n).concv(this);
+    }
+
+    public OffHeapMatrix addc1() {
+        return arena.ones(m, 1).conch(this);
+    }
+
+    public OffHeapMatrix rtr() {
+        if (m < 2) {
+            throw new MatrixException("Can not remove top row from matrix with less than two m");
+        }
+        return rowr(1, m - 1);
+    }
+
+    public OffHeapMatrix rlc() {
+        if (n < 2) {
+            throw new MatrixException("Can not remove left column from matrix with only one column");
+        }
+        return colr(1, n - 1);
+    }
+
+    public Set<Float> unq() {
+        return unqc().toSet();
+    }
+
+    public Uniques unqc() {
+        float[] elements = new float[m * n];
+        for (int i = 0; i < m; i++) {
+            readRow(i, elements, i * n);
+        }
+        return Uniques.sort(elements);
+    }
+
+    public Tuple<Matrix> svd() {
+        return SVD.of(this, arena).toTuple();
+    }
+
+    public String toString() {
+        return toString(COL_DELIMITER, ROW_DELIMITER);
+    }
+
+    public String toString(char colDelimiter, char rowDelimiter) {
+        StringBuilder stringBuilder = new StringBuilder();
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            for (int j = 0; j < n; j++) {
+                stringBuilder.append(row[j]);
+                if (j != n - 1) {
+                    stringBuilder.append(colDelimiter);
+                }
+            }
+            if (i != m - 1) {
+                stringBuilder.append(rowDelimiter);
+            }
+        }
+
+        return stringBuilder.toString();
+    }
+
+    public boolean equals(Object other) {
+        return equals(other, EQUALITY_TOLERANCE);
+    }
+
+    /**
+     * Returns a hash code consistent with equals. Matrices are equal when their elements are within a tolerance of
+     * each other, whatever their implementation, so the hash code only depends on the size.
+     */
+    public int hashCode() {
+        return 31 * m + n;
+    }
+
+    public boolean equals(Object other, float tolerance) {
+        if (!(other instanceof Matrix)) {
+            return false;
+        } else {
+            Matrix otherMatrix = (Matrix) other;
+            if (m != otherMatrix.rows() || n != otherMatrix.cols()) {
+                return false;
+            }
+            float[] a = createfloatArray(n);
+            float[] b = createfloatArray(n);
+            for (int i = 0; i < m; i++) {
+                readRow(i, a, 0);
+                otherMatrix.copyRowInto(i, b, 0);
+                for (int j = 0; j < n; j++) {
+                    if (Math.abs(b[j] - a[j]) > tolerance) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    public OffHeapMatrix equalsEw(Matrix otherMatrix) {
+        OffHeapMatrix other = checkSameSize(otherMatrix);
+        OffHeapMatrix res = arena.allocate(m, n);
+        float[] a = createfloatArray(n);
+        float[] b = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, a, 0);
+            other.readRow(i, b, 0);
+            for (int j = 0; j < n; j++) {
+                a[j] = Math.abs(a[j] - b[j]) < EQUALITY_TOLERANCE ? 1f : 0f;
+            }
+            res.writeRow(i, a, 0);
+        }
+        return res;
+    }
+
+    private static float[] createfloatArray(int length) {
+        return new float[length];
+    }
+
+    void checkIndices(int row, int col) {
+        if (row < 0 || row >= m || col < 0 || col >= n) {
+            throw new MatrixException("Row or column index out of bounds. Tried to access (" + row + ", " + col
+                    + ") in a (" + m + ", " + n + ") matrix");
+        }
+    }
+
+    private OffHeapMatrix checkRow(Matrix rowMatrix) {
+        OffHeapMatrix row = of(rowMatrix);
+        if (!(row.n == n && row.m == 1)) {
+            throw new MatrixException("Argument is not row of right size " + row.size());
+        }
+        return row;
+    }
+
+    private OffHeapMatrix checkColumn(Matrix columnMatrix) {
+        OffHeapMatrix column = of(columnMatrix);
+        if (!(column.m == m && column.n == 1)) {
+            throw new MatrixException("Argument is not column of right size " + column.size());
+        }
+        return column;
+    }
+
+    OffHeapMatrix checkSameSize(Matrix otherMatrix) {
+        OffHeapMatrix other = of(otherMatrix);
+        if (m != other.m || n != other.n) {
+            throw new MatrixException("Matrices are not of same size, " + size() + " and " + other.size());
+        }
+        return other;
+    }
+
+    /**
+     * Returns the chunk holding a row. The chunk must only be read between arena.acquire() and arena.release(), so
+     * that its memory can not be freed while it is read.
+     */
+    FloatBuffer chunk(int row) {
+        return chunks[row / rowsPerChunk];
+    }
+
+    /**
+     * Returns the index of the first element of a row in its chunk.
+     */
+    int index(int row) {
+        return row % rowsPerChunk * n;
+    }
+
+    void put(int row, int col, float element) {
+        arena.acquire();
+        try {
+            chunk(row).put(index(row) + col, element);
+        } finally {
+            arena.release();
+        }
+    }
+
+    /**
+     * Copies the n elements of a row into an array, starting at the given index. The position is set through Buffer,
+     * since FloatBuffer.position(int) only exists from Java 9 and would not link on Java 8.
+     */
+    void readRow(int row, float[] dest, int destPos) {
+        FloatBuffer buffer = chunk(row).duplicate();
+        ((Buffer) buffer).position(index(row));
+        arena.acquire();
+        try {
+            buffer.get(dest, destPos, n);
+        } finally {
+            arena.release();
+        }
+    }
+
+    /**
+     * Overwrites a row with n elements of an array, starting at the given index.
+     */
+    void writeRow(int row, float[] src, int srcPos) {
+        FloatBuffer buffer = chunk(row).duplicate();
+        ((Buffer) buffer).position(index(row));
+        arena.acquire();
+        try {
+            buffer.put(src, srcPos, n);
+        } finally {
+            arena.release();
+        }
+    }
+
+    private <T extends OffHeapMatrix> T copyInto(T res) {
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            res.writeRow(i, row, 0);
+        }
+        return res;
+    }
+
+    private Tuple<Matrix> findExtremasVertically(boolean max) {
+        int[] rowIndices = argVertically(max);
+        float[] extremas = createfloatArray(n);
+        float[] indices = createfloatArray(n);
+        for (int j = 0; j < n; j++) {
+            extremas[j] = get(rowIndices[j], j);
+            indices[j] = rowIndices[j];
+        }
+        return new Tuple<>(arena.m(new float[][]{extremas}), arena.m(new float[][]{indices}));
+    }
+
+    private Tuple<Matrix> findExtremasHorizontally(boolean max) {
+        int[] colIndices = argHorizontally(max);
+        OffHeapMatrix extremas = arena.allocate(m, 1);
+        OffHeapMatrix indices = arena.allocate(m, 1);
+        for (int i = 0; i < m; i++) {
+            extremas.put(i, 0, get(i, colIndices[i]));
+            indices.put(i, 0, colIndices[i]);
+        }
+        return new Tuple<>(extremas, indices);
+    }
+
+    /**
+     * Finds the row index of the extremum of every column, streaming through the rows once.
+     */
+    private int[] argVertically(boolean max) {
+        int[] res = new int[n];
+        float[] extremas = createfloatArray(n);
+        float[] row = createfloatArray(n);
+        readRow(0, extremas, 0);
+        for (int i = 1; i < m; i++) {
+            readRow(i, row, 0);
+            for (int j = 0; j < n; j++) {
+                float element = row[j];
+                if (max ? element > extremas[j] : element < extremas[j]) {
+                    extremas[j] = element;
+                    res[j] = i;
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Finds the column index of the extremum of every row, one row at a time.
+     */
+    private int[] argHorizontally(boolean max) {
+        int[] res = new int[m];
+        int[] index = new int[1];
+        float[] row = createfloatArray(n);
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            Selection.arg(row, 0, n, 1, 1, n, max, index);
+            res[i] = index[0];
+        }
+        return res;
+    }
+
+    private OffHeapMatrix multiplyOperands(Operand a, Operand b) {
+        int rows = a.rows();
+        int cols = b.cols();
+        float[] product = createfloatArray(rows * cols);
+        Gemm.multiply(a, b, product, 0, cols);
+        OffHeapMatrix res = arena.allocate(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            res.writeRow(i, product, i * cols);
+        }
+        return res;
+    }
+
+    /**
+     * Checks that a destination of a product is an OffHeapMutableMatrix which is not one of the factors.
+     */
+    private OffHeapMutableMatrix checkDestination(Matrix other, MutableMatrix intoMatrix) {
+        OffHeapMutableMatrix into = (OffHeapMutableMatrix) intoMatrix;
+        if (into.chunks == chunks || other instanceof OffHeapMatrix && into.chunks == ((OffHeapMatrix) other).chunks) {
+            throw new MatrixException("The destination of a product can not be one of its factors");
+        }
+        return into;
+    }
+
+    /**
+     * Returns an Operand reading the chunks of this OffHeapMatrix, for use with the kernels. The kernels keep the
+     * factory in use while they read the Operand, so closing it during a product throws a MatrixException in the
+     * product instead of freeing the chunks under it.
+     * @return an Operand reading the elements of this OffHeapMatrix.
+     */
+    public Operand operand() {
+        arena.checkOpen();
+        return Operand.of(chunks, rowsPerChunk, m, n, arena.lifetime);
+    }
+
+    /**
+     * Returns the argument if it is an OffHeapMatrix, and a copy of it in the arena of this OffHeapMatrix otherwise.
+     * The elements of other implementations are read a row at a time with copyRowInto, so any Matrix can be used as
+     * an argument.
+     */
+    OffHeapMatrix of(Matrix matrix) {
+        if (matrix instanceof OffHeapMatrix) {
+            return (OffHeapMatrix) matrix;
+        }
+        OffHeapMatrix res = arena.allocate(matrix.rows(), matrix.cols());
+        float[] row = createfloatArray(matrix.cols());
+        for (int i = 0; i < res.m; i++) {
+            matrix.copyRowInto(i, row, 0);
+            res.writeRow(i, row, 0);
+        }
+        return res;
+    }
+}
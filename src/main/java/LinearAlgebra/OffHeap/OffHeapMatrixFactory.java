@@ -0,0 +1,372 @@
+package LinearAlgebra.OffHeap;
+
+import LinearAlgebra.Kernels.Operand;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import LinearAlgebra.ReadWrite.BFNAParser;
+import LinearAlgebra.ReadWrite.BinaryMatrixPrinter;
+import LinearAlgebra.ReadWrite.FNAParser;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A factory class for OffHeapMatrices, which also acts as the arena owning their memory. Every OffHeapMatrix created
+ * by the factory, and every OffHeapMatrix computed from those, is stored in direct buffers allocated by this factory.
+ * Buffers of Matrices that become unreachable are freed by the garbage collector as usual, and close() frees all the
+ * remaining buffers at once, without waiting for the garbage collector. Using a Matrix of a closed factory throws a
+ * MatrixException. The intended use is a try-with-resources block around a computation, copying out the results that
+ * should outlive it.
+ *
+ * Every access to the buffers is counted as a use of the factory, from reading a row to a whole matrix multiplication
+ * on several threads (see Operand.Lifetime). Closing the factory while it is in use, for instance from another
+ * thread, makes every new use throw a MatrixException at once, but the buffers are only freed when the uses in
+ * progress are done, so native memory is never read after it has been freed.
+ *
+ * Direct buffers can hold at most 2 GB each, so a Matrix is stored as a sequence of chunks of whole rows, each holding
+ * at most chunkSize elements.
+ * STD_CHUNK_SIZE is the standard maximum number of elements in a chunk (1 GB).
+ *
+ * Binary matrix files written by BinaryMatrixPrinter can be mapped into memory with map(String filename), which only
+ * reads the header. The pages of the file are loaded lazily by the operating system when the elements are read, so
+ * the file can be larger than both the heap and the available memory.
+ *
+ * See the documentation of the MatrixFactory class.
+ */
+public class OffHeapMatrixFactory implements MatrixFactory, AutoCloseable {
+    private static final char STD_COL_DELIMITER = ' ';
+    private static final char STD_ROW_DELIMITER = ';';
+    private static final int STD_CHUNK_SIZE = 1 << 28;
+    private static final Deallocator deallocator = Deallocator.find();
+    private static final int CLOSED = 1;
+    private static final int USE = 2;
+    private final FNAParser BFNAParser;
+    private final int chunkSize;
+    private final Set<Reference<ByteBuffer>> buffers = new HashSet<>();
+    private final ReferenceQueue<ByteBuffer> collected = new ReferenceQueue<>();
+    private final AtomicInteger state = new AtomicInteger();
+    final Operand.Lifetime lifetime = new Operand.Lifetime() {
+        public void acquire() {
+            OffHeapMatrixFactory.this.acquire();
+        }
+
+        public void release() {
+            OffHeapMatrixFactory.this.release();
+        }
+    };
+
+    /**
+     * Constructor, which takes the column and row delimiters as arguments.
+     * @param colDelimiter the character between columns.
+     * @param rowDelimiter the character between rows.
+     */
+    public OffHeapMatrixFactory(char colDelimiter, char rowDelimiter) {
+        this(colDelimiter, rowDelimiter, STD_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor which uses the standard column and row delimiters.
+     */
+    public OffHeapMatrixFactory() {
+        this(STD_COL_DELIMITER, STD_ROW_DELIMITER);
+    }
+
+    OffHeapMatrixFactory(char colDelimiter, char rowDelimiter, int chunkSize) {
+        BFNAParser = new BFNAParser(colDelimiter, rowDelimiter);
+        this.chunkSize = chunkSize;
+    }
+
+    public OffHeapMatrix m(float[][] elements) {
+        OffHeapMatrix res = allocate(elements.length, elements.length == 0 ? 0 : elements[0].length);
+        for (int i = 0; i < elements.length; i++) {
+            res.writeRow(i, elements[i], 0);
+        }
+        return res;
+    }
+
+    public OffHeapMatrix m(String elements) {
+        return m(BFNAParser.parse(elements));
+    }
+
+    public OffHeapMatrix m(float[] elements, int rows, int cols) {
+        if (elements.length != rows * cols) {
+            throw new MatrixException("Array of length " + elements.length + " can not hold a " + rows + "x" + cols
+                    + " matrix");
+        }
+        OffHeapMatrix res = allocate(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            res.writeRow(i, elements, i * cols);
+        }
+        return res;
+    }
+
+    /**
+     * Factory method for OffHeapMatrices, using a buffer which already holds the elements, such as a buffer read from
+     * a channel or a mapped file. The elements are not copied: the Matrix reads the rows * cols floats starting at the
+     * position of the buffer, in row-major order and in the byte order of the buffer. The buffer is not freed when
+     * this factory is closed, but the Matrix can not be used after that.
+     * @param buffer the buffer holding the elements.
+     * @param rows the number of rows in the wanted OffHeapMatrix.
+     * @param cols the number of columns in the wanted OffHeapMatrix.
+     * @return a rows x cols OffHeapMatrix backed by the buffer given as argument.
+     */
+    public OffHeapMatrix m(ByteBuffer buffer, int rows, int cols) {
+        checkOpen();
+        FloatBuffer floats = buffer.asFloatBuffer();
+        if ((long) rows * cols > floats.remaining()) {
+            throw new MatrixException("Buffer with " + floats.remaining() + " floats remaining can not hold a " + rows
+                    + "x" + cols + " matrix");
+        }
+        return new OffHeapMatrix(this, new FloatBuffer[]{floats}, Math.max(rows, 1), rows, cols);
+    }
+
+    /**
+     * Maps a binary matrix file, written by BinaryMatrixPrinter, into memory as a read-only OffHeapMatrix. Only the
+     * header is read when mapping, the elements are loaded by the operating system when they are first accessed. The
+     * file is unmapped when this factory is closed.
+     * @param filename the name of the binary matrix file.
+     * @return an OffHeapMatrix backed by the file.
+     */
+    public OffHeapMatrix map(String filename) {
+        checkOpen();
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(BinaryMatrixPrinter.HEADER_SIZE)
+                    .order(BinaryMatrixPrinter.BYTE_ORDER);
+            channel.read(header, 0);
+            // Through Buffer, since ByteBuffer.flip() only exists from Java 9
+            ((Buffer) header).flip();
+            if (header.remaining() < BinaryMatrixPrinter.HEADER_SIZE
+                    || header.getInt() != BinaryMatrixPrinter.MAGIC
+                    || header.getInt() != BinaryMatrixPrinter.VERSION) {
+                throw new MatrixException(filename + " is not a binary matrix file");
+            }
+            int rows = header.getInt();
+            int cols = header.getInt();
+            long size = BinaryMatrixPrinter.HEADER_SIZE + (long) rows * cols * Float.BYTES;
+            if (channel.size() < size) {
+                throw new MatrixException(filename + " is too short for a " + rows + "x" + cols + " matrix");
+            }
+
+            int rowsPerChunk = rowsPerChunk(cols);
+            FloatBuffer[] chunks = new FloatBuffer[(rows + rowsPerChunk - 1) / rowsPerChunk];
+            for (int c = 0; c < chunks.length; c++) {
+                int chunkRows = Math.min(rowsPerChunk, rows - c * rowsPerChunk);
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                        BinaryMatrixPrinter.HEADER_SIZE + (long) c * rowsPerChunk * cols * Float.BYTES,
+                        (long) chunkRows * cols * Float.BYTES);
+                chunks[c] = register(buffer).order(BinaryMatrixPrinter.BYTE_ORDER).asFloatBuffer();
+            }
+            return new OffHeapMatrix(this, chunks, rowsPerChunk, rows, cols);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex.getMessage());
+        }
+    }
+
+    public OffHeapMatrix s(float element) {
+        OffHeapMatrix res = allocate(1, 1);
+        res.put(0, 0, element);
+        return res;
+    }
+
+    public OffHeapMatrix ones(int rows, int cols) {
+        OffHeapMatrix res = allocate(rows, cols);
+        acquire();
+        try {
+            for (FloatBuffer chunk : res.chunks) {
+                for (int i = 0; i < chunk.capacity(); i++) {
+                    chunk.put(i, 1f);
+                }
+            }
+        } finally {
+            release();
+        }
+        return res;
+    }
+
+    public OffHeapMatrix zeroes(int rows, int cols) {
+        return allocate(rows, cols);
+    }
+
+    public OffHeapMutableMatrix mutable(int rows, int cols) {
+        return new OffHeapMutableMatrix(this, chunks(rows, cols), rowsPerChunk(cols), rows, cols);
+    }
+
+    public OffHeapMatrix identityMatrix(int size) {
+        OffHeapMatrix res = allocate(size, size);
+        for (int i = 0; i < size; i++) {
+            res.put(i, i, 1f);
+        }
+        return res;
+    }
+
+    /**
+     * Frees the memory of every Matrix created by this factory. The Matrices can not be used after that. If the
+     * factory is in use by other threads, the memory is freed when they are done with it.
+     */
+    public void close() {
+        int previous;
+        do {
+            previous = state.get();
+            if ((previous & CLOSED) != 0) {
+                return;
+            }
+        } while (!state.compareAndSet(previous, previous | CLOSED));
+        if (previous == 0) {
+            free();
+        }
+    }
+
+    /**
+     * Determines whether this factory has been closed.
+     * @return true if close() has been called, false otherwise.
+     */
+    public boolean isClosed() {
+        return (state.get() & CLOSED) != 0;
+    }
+
+    /**
+     * Creates a zero-filled OffHeapMatrix in the memory of this factory.
+     */
+    OffHeapMatrix allocate(int rows, int cols) {
+        return new OffHeapMatrix(this, chunks(rows, cols), rowsPerChunk(cols), rows, cols);
+    }
+
+    void checkOpen() {
+        if (isClosed()) {
+            throw closedException();
+        }
+    }
+
+    /**
+     * Marks the buffers of this factory as in use, so that they are not freed until the matching release(), even if
+     * the factory is closed in the meantime.
+     * @throws MatrixException if this factory has been closed.
+     */
+    void acquire() {
+        int previous;
+        do {
+            previous = state.get();
+            if ((previous & CLOSED) != 0) {
+                throw closedException();
+            }
+        } while (!state.compareAndSet(previous, previous + USE));
+    }
+
+    /**
+     * Ends a use of the buffers started by acquire(), freeing them if the factory has been closed and this was the
+     * last use.
+     */
+    void release() {
+        if (state.addAndGet(-USE) == CLOSED) {
+            free();
+        }
+    }
+
+    private static MatrixException closedException() {
+        return new MatrixException("The OffHeapMatrixFactory owning this Matrix has been closed");
+    }
+
+    /**
+     * Frees every buffer which has not been freed by the garbage collector yet. Called exactly once, by close() or by
+     * the last release() after it.
+     */
+    private synchronized void free() {
+        for (Reference<ByteBuffer> reference : buffers) {
+            ByteBuffer buffer = reference.get();
+            if (buffer != null) {
+                deallocator.free(buffer);
+            }
+        }
+        buffers.clear();
+    }
+
+    private int rowsPerChunk(int cols) {
+        return Math.max(1, chunkSize / Math.max(cols, 1));
+    }
+
+    private synchronized FloatBuffer[] chunks(int rows, int cols) {
+        checkOpen();
+        int rowsPerChunk = rowsPerChunk(cols);
+        FloatBuffer[] res = new FloatBuffer[(rows + rowsPerChunk - 1) / rowsPerChunk];
+        for (int c = 0; c < res.length; c++) {
+            int chunkRows = Math.min(rowsPerChunk, rows - c * rowsPerChunk);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(chunkRows * cols * Float.BYTES);
+            res[c] = register(buffer).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        return res;
+    }
+
+    /**
+     * Makes this factory free the buffer when it is closed.
+     */
+    private synchronized ByteBuffer register(ByteBuffer buffer) {
+        expungeCollected();
+        buffers.add(new WeakReference<>(buffer, collected));
+        return buffer;
+    }
+
+    /**
+     * Forgets the buffers which have already been freed by the garbage collector.
+     */
+    private void expungeCollected() {
+        Reference<? extends ByteBuffer> reference;
+        while ((reference = collected.poll()) != null) {
+            buffers.remove(reference);
+        }
+    }
+
+    /**
+     * Frees the memory of direct buffers, and unmaps mapped buffers, explicitly. There is no public API for that in Java 8, so the deallocator
+     * uses sun.misc.Unsafe.invokeCleaner on Java 9 and later, and the cleaner of the buffer on Java 8. If neither is
+     * available, buffers are left to the garbage collector.
+     */
+    private static final class Deallocator {
+        private final Object unsafe;
+        private final Method invokeCleaner;
+
+        private Deallocator(Object unsafe, Method invokeCleaner) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+        }
+
+        private static Deallocator find() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return new Deallocator(theUnsafe.get(null), unsafeClass.getMethod("invokeCleaner", ByteBuffer.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return new Deallocator(null, null);
+            }
+        }
+
+        private void free(ByteBuffer buffer) {
+            try {
+                if (invokeCleaner != null) {
+                    invokeCleaner.invoke(unsafe, buffer);
+                } else {
+                    Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                    cleanerMethod.setAccessible(true);
+                    Object cleaner = cleanerMethod.invoke(buffer);
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // The buffer is freed by the garbage collector instead.
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package LinearAlgebra.OffHeap;
+
+import LinearAlgebra.FloatUnaryOperator;
+import LinearAlgebra.Kernels.Gemm;
+import LinearAlgebra.Kernels.Operand;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MutableMatrix;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Mutable version of OffHeapMatrix. The in-place operations work directly on the chunks of the OffHeapMatrix, and
+ * every other operation is inherited, returning a new (immutable) OffHeapMatrix.
+ * left and right are row buffers on the heap, which the in-place operations stream the rows through, so that they do
+ * not allocate anything.
+ * product is a flat buffer the multiplication kernel writes products into before they are copied into the chunks. It
+ * is allocated the first time this Matrix is the destination of a product, and reused after that.
+ *
+ * See the documentation of the superclass MutableMatrix.
+ */
+public class OffHeapMutableMatrix extends OffHeapMatrix implements MutableMatrix {
+    private final float[] left;
+    private final float[] right;
+    private float[] product;
+
+    OffHeapMutableMatrix(OffHeapMatrixFactory arena, FloatBuffer[] chunks, int rowsPerChunk, int rows, int cols) {
+        super(arena, chunks, rowsPerChunk, rows, cols);
+        left = new float[cols];
+        right = new float[cols];
+    }
+
+    public OffHeapMutableMatrix set(int row, int col, float element) {
+        checkIndices(row, col);
+        put(row, col, element);
+        return this;
+    }
+
+    public OffHeapMutableMatrix set(Matrix otherMatrix) {
+        OffHeapMatrix other = checkSameSize(otherMatrix);
+        float[] row = left;
+        for (int i = 0; i < m; i++) {
+            other.readRow(i, row, 0);
+            writeRow(i, row, 0);
+        }
+        return this;
+    }
+
+    public OffHeapMutableMatrix addi(Matrix otherMatrix) {
+        OffHeapMatrix other = of(otherMatrix);
+        if (other.m == 1 && other.n == 1) {
+            return addi(other.toFloat());
+        }
+        return addi(otherMatrix, 1f);
+    }
+
+    public OffHeapMutableMatrix addi(Matrix otherMatrix, float factor) {
+        OffHeapMatrix other = checkSameSize(otherMatrix);
+        float[] a = left;
+        float[] b = right;
+        for (int i = 0; i < m; i++) {
+            readRow(i, a, 0);
+            other.readRow(i, b, 0);
+            for (int j = 0; j < n; j++) {
+                a[j] += factor * b[j];
+            }
+            writeRow(i, a, 0);
+        }
+        return this;
+    }
+
+    public OffHeapMutableMatrix addi(float scalar) {
+        return mapi(d -> d + scalar);
+    }
+
+    public OffHeapMutableMatrix subi(Matrix otherMatrix) {
+        OffHeapMatrix other = of(otherMatrix);
+        if (other.m == 1 && other.n == 1) {
+            return addi(-other.toFloat());
+        }
+        other = checkSameSize(otherMatrix);
+        float[] a = left;
+        float[] b = right;
+        for (int i = 0; i < m; i++) {
+            readRow(i, a, 0);
+            other.readRow(i, b, 0);
+            for (int j = 0; j < n; j++) {
+                a[j] -= b[j];
+            }
+            writeRow(i, a, 0);
+        }
+        return this;
+    }
+
+    public OffHeapMutableMatrix subi(float scalar) {
+        return addi(-scalar);
+    }
+
+    public OffHeapMutableMatrix muli(float scalar) {
+        return mapi(d -> d * scalar);
+    }
+
+    public OffHeapMutableMatrix mulewi(Matrix otherMatrix) {
+        OffHeapMatrix other = checkSameSize(otherMatrix);
+        float[] a = left;
+        float[] b = right;
+        for (int i = 0; i < m; i++) {
+            readRow(i, a, 0);
+            other.readRow(i, b, 0);
+            for (int j = 0; j < n; j++) {
+                a[j] *= b[j];
+            }
+            writeRow(i, a, 0);
+        }
+        return this;
+    }
+
+    public OffHeapMutableMatrix mapi(FloatUnaryOperator function) {
+        float[] row = left;
+        for (int i = 0; i < m; i++) {
+            readRow(i, row, 0);
+            for (int j = 0; j < n; j++) {
+                row[j] = function.applyAsFloat(row[j]);
+            }
+            writeRow(i, row, 0);
+        }
+        return this;
+    }
+
+    /**
+     * Overwrites this Matrix with the product of two Operands.
+     * @param a the m x k left Operand.
+     * @param b the k x n right Operand.
+     * @return this MutableMatrix.
+     */
+    OffHeapMutableMatrix multiply(Operand a, Operand b) {
+        if (a.rows() != m || b.cols() != n) {
+            throw new MatrixException("Destination of size " + size() + " can not hold the (" + a.rows() + ", "
+                    + b.cols() + ") product");
+        }
+        if (product == null) {
+            product = new float[m * n];
+        }
+        Gemm.multiply(a, b, product, 0, n);
+        for (int i = 0; i < m; i++) {
+            writeRow(i, product, i * n);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,97 @@
+package LinearAlgebra.ReadWrite;
+
+import LinearAlgebra.Matrix;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A class able to write Matrices to binary matrix files, which can be mapped into memory with
+ * OffHeapMatrixFactory.map(String filename) instead of being parsed. A binary matrix file consists of a header of
+ * HEADER_SIZE bytes, holding MAGIC, VERSION and the number of rows and columns as ints, followed by the elements as
+ * floats in row-major order. Everything is stored in little-endian byte order.
+ *
+ * The buffers are flipped and cleared through Buffer, since the ByteBuffer overrides of these methods only exist from
+ * Java 9 and would not link on Java 8.
+ */
+public class BinaryMatrixPrinter<E> implements MatrixPrinter<E> {
+    public static final int MAGIC = 0x4D4C544D;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public void print(Matrix matrix, String filename) {
+        int rows = matrix.rows();
+        int cols = matrix.cols();
+        try (FileChannel channel = open(filename)) {
+            channel.write(header(rows, cols));
+            ByteBuffer row = ByteBuffer.allocate(cols * Float.BYTES).order(BYTE_ORDER);
+            float[] elements = new float[cols];
+            for (int i = 0; i < rows; i++) {
+                matrix.copyRowInto(i, elements, 0);
+                ((Buffer) row).clear();
+                row.asFloatBuffer().put(elements);
+                channel.write(row);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Converts a text file with one row per line into a binary matrix file, one line at a time, so that files larger
+     * than the heap can be converted.
+     * @param source the name of the text file.
+     * @param colDelimiter the character between columns in the text file.
+     * @param filename the name of the binary matrix file to write.
+     */
+    public void convert(String source, char colDelimiter, String filename) {
+        try (BufferedReader in = new BufferedReader(new FileReader(source));
+             FileChannel channel = open(filename)) {
+            channel.position(HEADER_SIZE);
+            int rows = 0;
+            int cols = -1;
+            ByteBuffer row = ByteBuffer.allocate(0);
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] floats = line.split(String.valueOf(colDelimiter));
+                if (cols == -1) {
+                    cols = floats.length;
+                    row = ByteBuffer.allocate(cols * Float.BYTES).order(BYTE_ORDER);
+                } else if (floats.length != cols) {
+                    throw new ParserException("Mismatching columns. " + cols + " columns in first row, "
+                            + floats.length + " columns in " + rows + ":th row");
+                }
+                ((Buffer) row).clear();
+                for (String element : floats) {
+                    row.putFloat(Float.valueOf(element));
+                }
+                ((Buffer) row).flip();
+                channel.write(row);
+                rows++;
+            }
+            channel.write(header(rows, Math.max(cols, 0)), 0);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex.getMessage());
+        }
+    }
+
+    private static FileChannel open(String filename) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "rw");
+        file.setLength(0);
+        return file.getChannel();
+    }
+
+    private static ByteBuffer header(int rows, int cols) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(BYTE_ORDER);
+        header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols);
+        ((Buffer) header).flip();
+        return header;
+    }
+}
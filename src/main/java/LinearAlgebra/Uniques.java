@@ -0,0 +1,155 @@
+package LinearAlgebra;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The unique values of a Matrix, sorted in ascending order, together with the number of times every value occurs.
+ * Values are considered equal as by Float.equals, so -0 and 0 are different values, sorted in that order, and every
+ * NaN is the same value, sorted last. Values and counts are stored in primitive arrays, so finding the unique values
+ * of a Matrix only boxes anything if unq() is used.
+ */
+public final class Uniques {
+    private final float[] values;
+    private final int[] counts;
+
+    /**
+     * Creates Uniques from sorted values and their counts.
+     * @param values the unique values, in ascending order.
+     * @param counts the number of times every value occurs, at the same index as the value.
+     */
+    public Uniques(float[] values, int[] counts) {
+        if (values.length != counts.length) {
+            throw new MatrixException("Every one of the " + values.length + " values must have a count, got "
+                    + counts.length);
+        }
+        this.values = values;
+        this.counts = counts;
+    }
+
+    /**
+     * Finds the unique values of an array, by sorting it and counting the runs of equal values.
+     * @param elements the array, which is sorted in place.
+     * @return the unique values of the array, and their counts.
+     */
+    public static Uniques sort(float[] elements) {
+        Arrays.sort(elements);
+        int size = 0;
+        for (int i = 0; i < elements.length; i++) {
+            if (i == 0 || Float.compare(elements[i - 1], elements[i]) != 0) {
+                size++;
+            }
+        }
+
+        float[] values = new float[size];
+        int[] counts = new int[size];
+        int k = -1;
+        for (int i = 0; i < elements.length; i++) {
+            if (i == 0 || Float.compare(elements[i - 1], elements[i]) != 0) {
+                values[++k] = elements[i];
+            }
+            counts[k]++;
+        }
+        return new Uniques(values, counts);
+    }
+
+    /**
+     * Returns the number of unique values.
+     * @return the number of unique values.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the unique value at an index.
+     * @param index the index of the value, 0 being the smallest.
+     * @return the unique value.
+     */
+    public float value(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the number of times the unique value at an index occurs.
+     * @param index the index of the value, 0 being the smallest.
+     * @return the count of the value.
+     */
+    public int count(int index) {
+        return counts[index];
+    }
+
+    /**
+     * Finds the index of a value.
+     * @param value the value to look for.
+     * @return the index of the value, or a negative number if it is not one of the unique values.
+     */
+    public int indexOf(float value) {
+        int index = Arrays.binarySearch(values, value);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * Returns a copy of the unique values.
+     * @return the unique values, in ascending order.
+     */
+    public float[] values() {
+        return values.clone();
+    }
+
+    /**
+     * Returns a copy of the counts.
+     * @return the number of times every value occurs, at the same index as the value.
+     */
+    public int[] counts() {
+        return counts.clone();
+    }
+
+    /**
+     * Boxes the unique values into a Set, iterated in ascending order.
+     * @return a Set containing every unique value.
+     */
+    public Set<Float> toSet() {
+        Set<Float> res = new LinkedHashSet<>();
+        for (float value : values) {
+            res.add(value);
+        }
+        return res;
+    }
+
+    /**
+     * Determines if two Uniques hold the same values and counts.
+     * @param other the Object to compare with.
+     * @return whether the values and counts are equal.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Uniques)) {
+            return false;
+        }
+        Uniques uniques = (Uniques) other;
+        return Arrays.equals(values, uniques.values) && Arrays.equals(counts, uniques.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(values) + Arrays.hashCode(counts);
+    }
+
+    /**
+     * Returns a String listing every value with its count.
+     * @return a String of the form {value=count, ...}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder("{");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                stringBuilder.append(", ");
+            }
+            stringBuilder.append(values[i]).append('=').append(counts[i]);
+        }
+        return stringBuilder.append('}').toString();
+    }
+}
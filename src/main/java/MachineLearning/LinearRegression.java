@@ -3,6 +3,7 @@ package MachineLearning;
 import LinearAlgebra.Matrix;
 import LinearAlgebra.MatrixException;
 import LinearAlgebra.MatrixFactory;
+import LinearAlgebra.MutableMatrix;
 
 public class LinearRegression extends Regression {
 
@@ -17,21 +18,37 @@ public class LinearRegression extends Regression {
         }
     }
 
+    /**
+     * Fits the parameters directly, without gradient descent, as the least squares solution found with the QR
+     * decomposition of the design Matrix (see Matrix.lstsq). The solution minimizes the same cost that train()
+     * descends, the squared error plus lambda times the squared parameters (except for the intercept), so with
+     * regularization, the design Matrix is extended with sqrt(lambda) times the identity (except for the intercept)
+     * and the labels with zeroes.
+     */
+    public void fit() {
+        Matrix A = X;
+        Matrix b = y;
+        if (lambda > 0 && n > 1) {
+            float[] regularization = new float[(n - 1) * n];
+            for (int i = 1; i < n; i++) {
+                regularization[(i - 1) * n + i] = (float) Math.sqrt(lambda);
+            }
+            A = X.concv(mf.m(regularization, n - 1, n));
+            b = y.concv(mf.zeroes(n - 1, 1));
+        }
+        setTheta(A.lstsq(b));
+    }
+
     protected Matrix predictProcessed(Matrix processedExamples) {
         return processedExamples.mul(theta);
     }
 
     public float cost() {
-        return 1f / (2f * m) *
-                X.mul(theta).sub(y).sumsqr()
-                        .add(regCost()).toFloat();
+        return 1f / (2f * m) * (X.mul(theta).sub(y).sumsqr().toFloat() + regCost());
     }
 
-    public Matrix gradient() {
-        return mf.s(1f / m).mul(
-                X.tran().mul(X.mul(theta).sub(y)).add(
-                        mf.s(lambda).mul(mf.s(0f).concv(
-                                theta.subm(1, n - 1, 0, 0)))));
+    void hypothesis(Matrix theta, MutableMatrix h) {
+        X.mul(theta, h);
     }
 
 }
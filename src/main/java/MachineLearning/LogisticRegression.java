@@ -2,6 +2,8 @@ package MachineLearning;
 
 import LinearAlgebra.Matrix;
 import LinearAlgebra.MatrixFactory;
+import LinearAlgebra.MutableMatrix;
+import Misc.Functions;
 
 import static Misc.Functions.log;
 import static Misc.Functions.sigmoid;
@@ -55,10 +57,8 @@ public class LogisticRegression extends Regression {
      */
     public float cost() {
         Matrix h = getPredictions();
-        return mf.s(-1f / m).mul(y.tran().mul(log(h))
-                .add(mf.s(1f).sub(y).tran().mul(log(mf.s(1).sub(h)))))
-                .add(regCost())
-                .toFloat();
+        float logLikelihood = y.tmul(log(h)).toFloat() + y.rsub(1f).tmul(log(h.rsub(1f))).toFloat();
+        return -1f / m * logLikelihood + regCost();
     }
 
     /**
@@ -117,19 +117,11 @@ public class LogisticRegression extends Regression {
     }
 
     /**
-     * Returns the gradient.
-     * @return the gradient.
+     * Calculates the hypothesis of the design Matrix in place.
+     * @param theta the n x 1 parameters to use.
+     * @param h the m x 1 buffer to write the hypothesis into.
      */
-    public Matrix gradient() {
-        return mf.s(1f / m).mul(X.tran().mul(h().sub(y))
-        .add(mf.s(lambda).mul(mf.s(0).concv(theta.rowr(1, n - 1)))));
-    }
-
-    /**
-     * Returns the hypothesis of the design Matrix.
-     * @return the hypothesis of the design Matrix.
-     */
-    private Matrix h() {
-        return sigmoid(X.mul(theta));
+    void hypothesis(Matrix theta, MutableMatrix h) {
+        X.mul(theta, h).mapi(Functions::sigmoid);
     }
 }
@@ -2,15 +2,18 @@ package MachineLearning;
 
 import LinearAlgebra.Matrix;
 import LinearAlgebra.MatrixFactory;
+import LinearAlgebra.Uniques;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Implementation of OneVsAll-classification.
  */
 public class OneVsAll implements Algorithm {
+    private static final float LABEL_TOLERANCE = 1e-4f;
     private Map<Float, LogisticRegression> logRegs;
     private MatrixFactory mf;
     private Matrix y;
@@ -31,10 +34,10 @@ public class OneVsAll implements Algorithm {
         this.mf = mf;
         this.X = trainingSet;
         this.y = labels;
-        Set<Float> uniqueLabels = labels.unq();
-        int m = labels.rows();
-        for (Float f : uniqueLabels) {
-            Matrix correctLabels = labels.equalsEw(mf.ones(m, 1).mul(f));
+        Uniques uniqueLabels = labels.unqc();
+        for (int l = 0; l < uniqueLabels.size(); l++) {
+            float f = uniqueLabels.value(l);
+            Matrix correctLabels = labels.mask(d -> Math.abs(d - f) < LABEL_TOLERANCE);
             logRegs.put(f, new LogisticRegression(trainingSet, correctLabels, polynomialDegree, learningRate,
                     regularizationParameter, mf));
         }
@@ -51,26 +54,23 @@ public class OneVsAll implements Algorithm {
     }
 
     /**
-     * Predicts the output of new examples.
+     * Predicts the output of new examples. Every classifier predicts the probabilities of all examples at once, and the
+     * label of the classifier with the highest probability is chosen for every example.
      * @param examples the p x q example Matrix to predict the outputs of.
      * @return a p x 1 vector containing the labels the system predicts from every example.
      */
     public Matrix predict(Matrix examples) {
-        Matrix res = mf.ones(1, 1);
-        for (int i = 0; i < examples.rows(); i++) {
-            Matrix example = examples.row(i);
-            float highestProbability = 0f;
-            float bestLabel = 0f;
-            for (Map.Entry<Float, LogisticRegression> logRegEntry : logRegs.entrySet()) {
-                float pred = logRegEntry.getValue().predict(example).toFloat();
-                if (pred > highestProbability) {
-                    highestProbability = pred;
-                    bestLabel = logRegEntry.getKey();
-                }
-            }
-            res = res.concv(mf.s(bestLabel));
+        List<Float> labels = new ArrayList<>(logRegs.keySet());
+        Matrix probabilities = logRegs.get(labels.get(0)).predict(examples);
+        for (int l = 1; l < labels.size(); l++) {
+            probabilities = probabilities.conch(logRegs.get(labels.get(l)).predict(examples));
         }
-        return res.rowr(1, res.rows() - 1);
+        int[] best = probabilities.argmaxh();
+        float[][] res = new float[examples.rows()][1];
+        for (int i = 0; i < res.length; i++) {
+            res[i][0] = labels.get(best[i]);
+        }
+        return mf.m(res);
     }
 
     /**
@@ -1,8 +1,10 @@
 package MachineLearning;
 
 import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixArena;
 import LinearAlgebra.MatrixException;
 import LinearAlgebra.MatrixFactory;
+import LinearAlgebra.MutableMatrix;
 
 import java.util.Collections;
 import java.util.LinkedList;
@@ -61,16 +63,64 @@ public abstract class Regression implements Algorithm {
     }
 
     /**
-     * Trains the system using gradient descent.
+     * Trains the system using gradient descent. The parameters, the hypothesis and the gradient are kept in buffers
+     * allocated once, and updated in place during every iteration. Every iteration runs in a MatrixArena, so the
+     * temporary Matrices of one iteration reuse the buffers of the previous one.
      * @param iterations the number of iterations to train.
      */
+    @SuppressWarnings("try")
     public void train(int iterations) {
         costHistory = new LinkedList<>();
+        MutableMatrix theta = this.theta.mcopy();
+        MutableMatrix h = mf.mutable(m, 1);
+        MutableMatrix gradient = mf.mutable(n, 1);
+        this.theta = theta;
         for (int i = 0; i < iterations; i++) {
-            theta = theta.sub(mf.s(alpha).mul(gradient()));
-            costHistory.add(cost());
+            try (MatrixArena arena = mf.arena()) {
+                gradient(theta, h, gradient);
+                theta.addi(gradient, -alpha);
+                hasChanged = true;
+                costHistory.add(cost());
+            }
         }
+        this.theta = theta.copy();
+        predictions = null;
+        hasChanged = true;
+    }
+
+    /**
+     * Sets parameters found without gradient descent, after which the cost history only contains their cost.
+     * @param theta the n x 1 parameters.
+     */
+    void setTheta(Matrix theta) {
+        this.theta = theta;
+        predictions = null;
         hasChanged = true;
+        costHistory = new LinkedList<>();
+        costHistory.add(cost());
+    }
+
+    /**
+     * Returns the gradient.
+     * @return the gradient.
+     */
+    public Matrix gradient() {
+        MutableMatrix gradient = mf.mutable(n, 1);
+        gradient(theta, mf.mutable(m, 1), gradient);
+        return gradient.copy();
+    }
+
+    /**
+     * Calculates the gradient in place.
+     * @param theta the n x 1 parameters to calculate the gradient for.
+     * @param h a m x 1 buffer for the hypothesis of the design Matrix.
+     * @param gradient the n x 1 buffer to write the gradient into.
+     */
+    void gradient(Matrix theta, MutableMatrix h, MutableMatrix gradient) {
+        hypothesis(theta, h);
+        X.tmul(h.subi(y), gradient);
+        float intercept = gradient.get(0, 0);
+        gradient.addi(theta, lambda).set(0, 0, intercept).muli(1f / m);
     }
 
     /**
@@ -112,11 +162,12 @@ public abstract class Regression implements Algorithm {
     }
 
     /**
-     * Calculates the cost of the regularization.
+     * Calculates the cost of the regularization, lambda times the sum of the squared parameters (except for the
+     * intercept), which is the penalty whose derivative gradient() adds.
      * @return the cost of the regularization.
      */
-    Matrix regCost() {
-        return mf.s(lambda).mul(theta.subm(1, n - 1, 0, 0)).sumsqr();
+    float regCost() {
+        return lambda * theta.subm(1, n - 1, 0, 0).sumsqr().toFloat();
     }
 
     /**
@@ -177,8 +228,9 @@ public abstract class Regression implements Algorithm {
     public abstract float cost();
 
     /**
-     * Returns the gradient.
-     * @return the gradient.
+     * Calculates the hypothesis of the design Matrix in place.
+     * @param theta the n x 1 parameters to use.
+     * @param h the m x 1 buffer to write the hypothesis into.
      */
-    public abstract Matrix gradient();
+    abstract void hypothesis(Matrix theta, MutableMatrix h);
 }
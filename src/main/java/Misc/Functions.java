@@ -12,7 +12,16 @@ public class Functions {
      * @return a m x n Matrix where the elements are the outputs of the sigmoid function.
      */
     public static Matrix sigmoid(Matrix matrix) {
-        return matrix.map(d -> 1f / (1f + (float) Math.exp(-d)));
+        return matrix.map(Functions::sigmoid);
+    }
+
+    /**
+     * The sigmoid function.
+     * @param x the input.
+     * @return the output of the sigmoid function.
+     */
+    public static float sigmoid(float x) {
+        return 1f / (1f + (float) Math.exp(-x));
     }
 
     /**
@@ -21,7 +30,16 @@ public class Functions {
      * @return a m x n Matrix where the elements are the outputs of the logarithm function.
      */
     public static Matrix log(Matrix matrix) {
-        return matrix.map(d -> (float) Math.log(d));
+        return matrix.map(Functions::log);
+    }
+
+    /**
+     * The natural logarithm.
+     * @param x the input.
+     * @return the natural logarithm of the input.
+     */
+    public static float log(float x) {
+        return (float) Math.log(x);
     }
 
     /**
@@ -1,6 +1,7 @@
 package Misc;
 
 import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixBuilder;
 import LinearAlgebra.MatrixFactory;
 
 import static Misc.Functions.choose;
@@ -25,22 +26,28 @@ public class MapFeatures {
         int newCols = numberOfPolynomials(cols, maxDegree);
 
         int[][] exponents = new int[newCols][cols];
-        Matrix res = mf.ones(rows, 0);
-
         int k = 1;
         for (int degree = 1; degree <= maxDegree; degree++) {
             k = rec(exponents, new int[cols], k, 0, cols - 1, degree);
         }
 
+        float[][] features = new float[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            matrix.copyRowInto(i, features[i], 0);
+        }
+        MatrixBuilder res = mf.colBuilder(rows);
         for (int[] exponent : exponents) {
-            Matrix col = mf.ones(rows, 1);
-            for (int j = 0; j < cols; j++) {
-                int ex = exponent[j];
-                col = col.mulew(matrix.col(j).map(d -> (float) Math.pow(d, ex)));
+            float[] col = new float[rows];
+            for (int i = 0; i < rows; i++) {
+                float element = 1f;
+                for (int j = 0; j < cols; j++) {
+                    element *= (float) Math.pow(features[i][j], exponent[j]);
+                }
+                col[i] = element;
             }
-            res = res.conch(col);
+            res.add(col);
         }
-        return res;
+        return res.build();
     }
 
     private static int rec(int[][] exponents, int[] current, int k, int i, int end, int free) {
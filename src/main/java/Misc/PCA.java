@@ -0,0 +1,124 @@
+package Misc;
+
+import LinearAlgebra.Decompositions.Eigen;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+
+/**
+ * Principal component analysis of a design Matrix, for reducing the number of features before training. The
+ * principal components are the eigenvectors of the covariance Matrix of the features with the largest eigenvalues,
+ * which are the directions in which the examples vary the most. Projecting the centered examples onto the first k
+ * components keeps as much of the variance as any k features can.
+ *
+ * The covariance Matrix is n x n and computed with one Matrix product, so fitting costs O(mn^2 + n^3), independent of
+ * the number of components kept.
+ */
+public class PCA {
+    private final Matrix mean;
+    private final Matrix components;
+    private final float[] variances;
+    private final float totalVariance;
+
+    /**
+     * Finds the principal components of a design Matrix.
+     * @param matrix the m x n design Matrix, with one example per row (at least two).
+     * @param components the number of principal components to keep, k, at most n.
+     */
+    public PCA(Matrix matrix, int components) {
+        int m = matrix.rows();
+        int n = matrix.cols();
+        if (m < 2) {
+            throw new MatrixException("Can not find the principal components of less than two examples");
+        } else if (components < 1 || components > n) {
+            throw new MatrixException("Can not keep " + components + " principal components of " + n + " features");
+        }
+        this.mean = matrix.sumv().div(m);
+        Matrix centered = matrix.subr(mean);
+        Eigen eigen = centered.tmul(centered).div(m - 1).eig();
+        this.components = eigen.v(components);
+        float[] eigenvalues = eigen.eigenvalues();
+        this.variances = new float[components];
+        float total = 0f;
+        for (int i = 0; i < n; i++) {
+            float variance = Math.max(eigenvalues[i], 0f);
+            if (i < components) {
+                variances[i] = variance;
+            }
+            total += variance;
+        }
+        this.totalVariance = total;
+    }
+
+    /**
+     * Projects a design Matrix onto its first principal components.
+     * @param matrix the m x n design Matrix, with one example per row.
+     * @param components the number of principal components to keep, k, at most n.
+     * @return the m x k Matrix of projected examples.
+     */
+    public static Matrix project(Matrix matrix, int components) {
+        return new PCA(matrix, components).project(matrix);
+    }
+
+    /**
+     * Projects examples onto the principal components, after centering them with the mean of the design Matrix.
+     * @param examples the Matrix containing the examples, with one example per row and the same n features as the
+     *                 design Matrix.
+     * @return the Matrix of projected examples, with k columns.
+     */
+    public Matrix project(Matrix examples) {
+        if (examples.cols() != mean.cols()) {
+            throw new MatrixException("Columns in argument is not equal to columns of the design Matrix (" +
+                    examples.cols() + " and " + mean.cols() + ")");
+        }
+        return examples.subr(mean).mul(components);
+    }
+
+    /**
+     * Maps projected examples back to the original features, which is the closest approximation of the examples
+     * within the space spanned by the principal components.
+     * @param projected the Matrix of projected examples, with k columns.
+     * @return the Matrix of reconstructed examples, with n columns.
+     */
+    public Matrix reconstruct(Matrix projected) {
+        return projected.mul(components.tran()).addr(mean);
+    }
+
+    /**
+     * Returns the principal components.
+     * @return the n x k Matrix with the principal components as orthonormal columns.
+     */
+    public Matrix getComponents() {
+        return components;
+    }
+
+    /**
+     * Returns the mean of every feature in the design Matrix.
+     * @return the 1 x n mean.
+     */
+    public Matrix getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the variance of the design Matrix along every principal component.
+     * @return the k variances, in descending order.
+     */
+    public float[] getVariances() {
+        return variances.clone();
+    }
+
+    /**
+     * Computes the fraction of the variance of the design Matrix kept by the principal components.
+     * @return the kept fraction of the variance, between 0 and 1.
+     */
+    public float explainedVariance() {
+        if (totalVariance == 0f) {
+            return 1f;
+        }
+        float kept = 0f;
+        for (float variance : variances) {
+            kept += variance;
+        }
+        return Math.min(kept / totalVariance, 1f);
+    }
+}
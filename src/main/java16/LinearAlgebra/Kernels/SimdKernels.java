@@ -0,0 +1,98 @@
+package LinearAlgebra.Kernels;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The kernels in Vectors, implemented with the Vector API. Every loop processes SPECIES.length() elements at a time
+ * in the widest vectors the hardware supports, followed by a scalar loop over the remaining elements. The dot product
+ * keeps a vector of partial sums, which is only reduced to a single float at the end.
+ *
+ * This class is only part of the multi-release jar for JDK 16 and later, and is loaded by VectorKernels.find(). If
+ * the jdk.incubator.vector module is missing, loading it fails and the scalar kernels are used instead.
+ */
+final class SimdKernels extends VectorKernels {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    SimdKernels() {
+        if (SPECIES.length() < 2) {
+            throw new UnsupportedOperationException("No SIMD support for floats");
+        }
+    }
+
+    String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+
+    float dot(float[] x, int xOffset, float[] y, int yOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        FloatVector sums = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector a = FloatVector.fromArray(SPECIES, x, xOffset + i);
+            FloatVector b = FloatVector.fromArray(SPECIES, y, yOffset + i);
+            sums = a.fma(b, sums);
+        }
+        float sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += x[xOffset + i] * y[yOffset + i];
+        }
+        return sum;
+    }
+
+    void axpy(float alpha, float[] x, int xOffset, float[] y, int yOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        FloatVector alphas = FloatVector.broadcast(SPECIES, alpha);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector a = FloatVector.fromArray(SPECIES, x, xOffset + i);
+            FloatVector b = FloatVector.fromArray(SPECIES, y, yOffset + i);
+            a.fma(alphas, b).intoArray(y, yOffset + i);
+        }
+        for (; i < length; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    void add(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .add(FloatVector.fromArray(SPECIES, b, bOffset + i))
+                    .intoArray(c, cOffset + i);
+        }
+        for (; i < length; i++) {
+            c[cOffset + i] = a[aOffset + i] + b[bOffset + i];
+        }
+    }
+
+    void mul(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .mul(FloatVector.fromArray(SPECIES, b, bOffset + i))
+                    .intoArray(c, cOffset + i);
+        }
+        for (; i < length; i++) {
+            c[cOffset + i] = a[aOffset + i] * b[bOffset + i];
+        }
+    }
+
+    void equal(float[] a, int aOffset, float[] b, int bOffset, float[] c, int cOffset, int length, float tolerance) {
+        int bound = SPECIES.loopBound(length);
+        FloatVector zeroes = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector difference = FloatVector.fromArray(SPECIES, a, aOffset + i)
+                    .sub(FloatVector.fromArray(SPECIES, b, bOffset + i))
+                    .abs();
+            zeroes.blend(1f, difference.lt(tolerance)).intoArray(c, cOffset + i);
+        }
+        for (; i < length; i++) {
+            c[cOffset + i] = Math.abs(a[aOffset + i] - b[bOffset + i]) < tolerance ? 1f : 0f;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package LinearAlgebra.BLinAlg;
 
 import LinearAlgebra.Matrix;
+import LinearAlgebra.MutableMatrix;
 import Misc.Tuple;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -61,4 +62,12 @@ class BMatrixFactoryTest {
         assertEquals(1, scalar.rows(), "Number of rows of a scalar should be one");
         assertEquals(1, scalar.cols(), "Number of columns of a scalar should be one");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testMutable() {
+        MutableMatrix mutable = mf.mutable(2, 3);
+        assertEquals(mf.zeroes(2, 3), mutable, "mutable() should return a matrix of only zeroes");
+        mutable.set(1, 2, 4f);
+        assertEquals(mf.m("0 0 0;0 0 4"), mutable, "Error setting element of mutable matrix");
+    }
+}
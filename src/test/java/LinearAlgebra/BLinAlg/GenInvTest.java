@@ -0,0 +1,49 @@
+package LinearAlgebra.BLinAlg;
+
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing GenInv on rank deficient matrices, using the Penrose conditions: AXA = A, XAX = X, and
+ * AX and XA being symmetric.
+ */
+class GenInvTest {
+    private static final MatrixFactory mf = new BMatrixFactory();
+    private static final float TOLERANCE = 1e-4f;
+    private final Random random = new Random(42);
+
+    @Test
+    void testRankDeficient() {
+        Matrix x = random(120, 80);
+        Matrix tall = x.conch(x.colr(0, 9).sub(x.colr(20, 29)));
+        assertPseudoInverse(tall, new GenInv().pseudoInvert(tall, mf), "tall");
+        Matrix wide = tall.tran();
+        assertPseudoInverse(wide, new GenInv().pseudoInvert(wide, mf), "wide");
+    }
+
+    private void assertPseudoInverse(Matrix a, Matrix x, String shape) {
+        assertTrue(a.mul(x).mul(a).sub(a).sumsqr().toFloat() < TOLERANCE, "Error finding the pseudo inverse of "
+                + shape + " matrix, AXA != A");
+        assertTrue(x.mul(a).mul(x).sub(x).sumsqr().toFloat() < TOLERANCE, "Error finding the pseudo inverse of "
+                + shape + " matrix, XAX != X");
+        Matrix ax = a.mul(x);
+        Matrix xa = x.mul(a);
+        assertTrue(ax.sub(ax.tran()).sumsqr().toFloat() < TOLERANCE, "Error finding the pseudo inverse of "
+                + shape + " matrix, AX is not symmetric");
+        assertTrue(xa.sub(xa.tran()).sumsqr().toFloat() < TOLERANCE, "Error finding the pseudo inverse of "
+                + shape + " matrix, XA is not symmetric");
+    }
+
+    private Matrix random(int rows, int cols) {
+        float[] res = new float[rows * cols];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = random.nextFloat() * 2 - 1;
+        }
+        return mf.m(res, rows, cols);
+    }
+}
@@ -0,0 +1,57 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.FLinAlg.FMatrixFactory;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing rank revealing Cholesky decompositions, on matrices large enough to be factored in several
+ * blocks.
+ */
+class CholeskyTest {
+    private static final MatrixFactory mf = new FMatrixFactory();
+    private final Random random = new Random(42);
+
+    @Test
+    void testFullRank() {
+        Matrix a = mf.m("4 2 -2;2 10 4;-2 4 9");
+        Cholesky cholesky = Cholesky.of(a, 0f, mf);
+        assertEquals(3, cholesky.rank(), "Error finding the rank of positive definite matrix");
+        assertEquals(mf.m("2 0 0;1 3 0;-1 1.6667 2.2852"), cholesky.l(), "Error factoring 3x3 matrix");
+
+        Matrix x = random(300, 150);
+        Matrix b = x.tmul(x);
+        Matrix l = Cholesky.of(b, 1e-6f, mf).l();
+        assertEquals(150, l.cols(), "Error finding the rank of 150x150 matrix");
+        assertTrue(b.sub(l.mult(l)).sumsqr().toFloat() < 1e-3f, "Error factoring 150x150 "
+                + "matrix, A != LL'");
+    }
+
+    @Test
+    void testRankDeficient() {
+        Matrix x = random(200, 70);
+        Matrix dependent = x.conch(x.colr(0, 9).add(x.colr(10, 19)));
+        Matrix a = dependent.tmul(dependent);
+        Cholesky cholesky = Cholesky.of(a, 1e-2f, mf);
+        assertEquals(70, cholesky.rank(), "Error finding the rank of rank deficient matrix");
+        Matrix l = cholesky.l();
+        assertTrue(a.sub(l.mult(l)).sumsqr().toFloat() < 1e-2f, "Error factoring rank "
+                + "deficient matrix, A != LL'");
+        assertThrows(MatrixException.class, () -> Cholesky.of(mf.zeroes(2, 2), 0f, mf).l(), "Rank 0 matrix "
+                + "should have no factor");
+    }
+
+    private Matrix random(int rows, int cols) {
+        float[] res = new float[rows * cols];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = random.nextFloat() * 2 - 1;
+        }
+        return mf.m(res, rows, cols);
+    }
+}
@@ -0,0 +1,95 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.FLinAlg.FMatrixFactory;
+import LinearAlgebra.Kernels.Parallelism;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing symmetric eigendecompositions, on matrices large enough for the reflectors to be applied
+ * in several blocks.
+ */
+class EigenTest {
+    private static final MatrixFactory mf = new FMatrixFactory();
+    private final Random random = new Random(42);
+
+    @Test
+    void testDecomposition() {
+        Matrix x = random(150, 110);
+        Matrix a = x.tmul(x);
+        Eigen eigen = a.eig();
+        Matrix v = eigen.v();
+        assertEquals(a, v.mul(eigen.d()).mul(v.tran()), "Error decomposing 110x110 matrix, A != VDV'");
+        assertEquals(mf.identityMatrix(110), v.tmul(v), "Error decomposing 110x110 matrix, V is not orthogonal");
+        float[] values = eigen.eigenvalues();
+        for (int i = 1; i < 110; i++) {
+            assertTrue(values[i] <= values[i - 1], "Eigenvalues of 110x110 matrix are not in descending order");
+        }
+        assertArrayEquals(SVD.of(a, mf).singularValues(), values, 1e-2f, "Eigenvalues of positive definite matrix "
+                + "should equal its singular values");
+    }
+
+    @Test
+    void testKnownValues() {
+        Eigen eigen = mf.m("2 -1 0;-1 2 -1;0 -1 2").eig();
+        float root = (float) Math.sqrt(2);
+        assertArrayEquals(new float[]{2 + root, 2, 2 - root}, eigen.eigenvalues(), 1e-5f, "Error finding "
+                + "eigenvalues of 3x3 matrix");
+        assertArrayEquals(new float[]{1, -3}, mf.m("-3 0;0 1").eig().eigenvalues(), "Error finding eigenvalues of "
+                + "diagonal matrix");
+        assertArrayEquals(new float[]{5}, mf.m("5").eig().eigenvalues(), "Error finding eigenvalue of 1x1 matrix");
+        Matrix v = mf.m("1 1;1 1").eig().v(1);
+        assertEquals(mf.m("0.7071;0.7071"), v.mul(Math.signum(v.get(0, 0))), "Error finding eigenvector of 2x2 "
+                + "matrix");
+    }
+
+    @Test
+    void testLowerTriangle() {
+        Matrix a = mf.m("4 100 -100;1 3 100;2 0 5");
+        Matrix symmetric = mf.m("4 1 2;1 3 0;2 0 5");
+        assertArrayEquals(symmetric.eig().eigenvalues(), a.eig().eigenvalues(), "Only the lower triangle should be "
+                + "read");
+        assertThrows(MatrixException.class, () -> mf.m("1 2 3;4 5 6").eig(), "Decomposing non square matrix should "
+                + "throw an exception");
+    }
+
+    @Test
+    void testParallel() {
+        Matrix x = random(120, 90);
+        Matrix a = x.tmul(x);
+        Eigen sequential;
+        Eigen parallel;
+        ForkJoinPool previousPool = Parallelism.pool();
+        long previousThreshold = Parallelism.threshold();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Parallelism.setThreshold(Long.MAX_VALUE);
+            sequential = Eigen.of(a, mf);
+            Parallelism.setPool(pool);
+            Parallelism.setThreshold(0);
+            parallel = Eigen.of(a, mf);
+        } finally {
+            Parallelism.setPool(previousPool);
+            Parallelism.setThreshold(previousThreshold);
+            pool.shutdown();
+        }
+        assertArrayEquals(sequential.eigenvalues(), parallel.eigenvalues(), "Parallel decomposition should give "
+                + "exactly the same eigenvalues");
+        assertEquals(sequential.v(), parallel.v(), "Parallel decomposition should give the same eigenvectors");
+    }
+
+    private Matrix random(int rows, int cols) {
+        float[] res = new float[rows * cols];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = random.nextFloat() * 2 - 1;
+        }
+        return mf.m(res, rows, cols);
+    }
+}
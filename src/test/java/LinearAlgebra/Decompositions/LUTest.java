@@ -0,0 +1,136 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.FLinAlg.FMatrixFactory;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing LU decompositions, on matrices large enough to be factored in several blocks.
+ */
+class LUTest {
+    private static final MatrixFactory mf = new FMatrixFactory();
+    private final Random random = new Random(42);
+
+    @Test
+    void testFactors() {
+        Matrix a = random(150, 150);
+        LU lu = a.lu();
+        int[] permutation = lu.permutation();
+        Matrix pa = a.rows(permutation);
+        assertEquals(pa, lu.l().mul(lu.u()), "Error factoring 150x150 matrix, PA != LU");
+        for (int i = 0; i < 150; i++) {
+            for (int j = 0; j < i; j++) {
+                assertTrue(Math.abs(lu.l().get(i, j)) <= 1f, "Error pivoting, element of L larger than 1");
+                assertEquals(0f, lu.u().get(i, j), "Error factoring, U is not upper triangular");
+            }
+        }
+    }
+
+    @Test
+    void testSolve() {
+        Matrix a = random(130, 130);
+        Matrix b = random(130, 3);
+        LU lu = a.lu();
+        Matrix x = lu.solve(b);
+        assertEquals(b, a.mul(x), "Error solving system of 130 equations");
+        assertEquals(mf.identityMatrix(130), a.mul(lu.inverse()), "Error inverting 130x130 matrix");
+    }
+
+    @Test
+    void testDeterminant() {
+        assertEquals(-2f, mf.m("1 2;3 4").lu().det(), 1e-6f, "Error finding the determinant of 2x2 matrix");
+        assertEquals(-1f, mf.m("0 1;1 0").lu().det(), "Error finding the sign of the determinant");
+        assertEquals(24f, mf.m("2 0 0;0 3 0;0 0 4").lu().det(), "Error finding the determinant of diagonal matrix");
+    }
+
+    @Test
+    void testCondition() {
+        assertEquals(1000f, mf.m("1 0;0 0.001").lu().cond(), 1e-2f, "Error estimating the condition number of "
+                + "diagonal matrix");
+        assertEquals(1f, mf.identityMatrix(100).lu().cond(), 1e-6f, "Error estimating the condition number of "
+                + "the identity matrix");
+        float cond = hilbert(5).lu().cond();
+        assertTrue(cond > 1e5f && cond < 1e7f, "Error estimating the condition number of 5x5 Hilbert matrix, got "
+                + cond);
+        assertEquals(Float.POSITIVE_INFINITY, hilbert(6).lu().cond(), "6x6 Hilbert matrix should be singular to "
+                + "float precision");
+    }
+
+    @Test
+    void testConditionPivoting() {
+        for (int i = 0; i < 5; i++) {
+            Matrix a = random(6, 6);
+            LU lu = a.lu();
+            int[] permutation = lu.permutation();
+            boolean pivoted = false;
+            for (int j = 0; j < 6; j++) {
+                pivoted |= permutation[j] != j;
+            }
+            assertTrue(pivoted, "Factoring random 6x6 matrix should pivot");
+            float exact = norm1(a) * norm1(a.inv());
+            float estimate = lu.cond();
+            assertTrue(estimate <= exact * (1 + 1e-4f), "Condition estimate should be a lower bound");
+            if (i < 3) {
+                assertEquals(exact, estimate, exact * 1e-4f, "Error estimating the condition number of pivoted 6x6 "
+                        + "matrix");
+            }
+        }
+    }
+
+    @Test
+    void testSingular() {
+        LU lu = mf.m("1 2 3;4 5 6;7 8 9").lu();
+        assertTrue(lu.isSingular(), "Error detecting singular matrix");
+        assertEquals(0f, lu.det(), 1e-4f, "Error finding the determinant of singular matrix");
+        assertEquals(Float.POSITIVE_INFINITY, lu.cond(), "Singular matrix should have infinite condition number");
+        assertThrows(MatrixException.class, () -> lu.solve(mf.m("1;2;3")), "Solving with singular matrix should "
+                + "throw an exception");
+        assertFalse(mf.m("1 2;3 4").lu().isSingular(), "Error detecting non singular matrix");
+    }
+
+    @Test
+    void testSingularToFloatPrecision() {
+        Matrix a = random(8, 5).mul(random(5, 8));
+        LU lu = a.lu();
+        assertNotEquals(0f, lu.u().get(7, 7), "Rounding should leave a non zero last pivot");
+        assertTrue(lu.isSingular(), "Error detecting matrix of rank 5 as singular");
+        assertThrows(MatrixException.class, a::inv, "Inverting matrix which is singular to float precision should "
+                + "throw an exception");
+    }
+
+    private static float norm1(Matrix a) {
+        float norm = 0f;
+        for (int j = 0; j < a.cols(); j++) {
+            float sum = 0f;
+            for (int i = 0; i < a.rows(); i++) {
+                sum += Math.abs(a.get(i, j));
+            }
+            norm = Math.max(norm, sum);
+        }
+        return norm;
+    }
+
+    private static Matrix hilbert(int n) {
+        float[] res = new float[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                res[i * n + j] = 1f / (i + j + 1);
+            }
+        }
+        return mf.m(res, n, n);
+    }
+
+    private Matrix random(int rows, int cols) {
+        float[] res = new float[rows * cols];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = random.nextFloat() * 2 - 1;
+        }
+        return mf.m(res, rows, cols);
+    }
+}
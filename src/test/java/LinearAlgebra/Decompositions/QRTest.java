@@ -0,0 +1,84 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.FLinAlg.FMatrixFactory;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing QR decompositions, on matrices large enough for the reflectors to be applied in several
+ * blocks.
+ */
+class QRTest {
+    private static final MatrixFactory mf = new FMatrixFactory();
+    private final Random random = new Random(42);
+
+    @Test
+    void testFactors() {
+        Matrix a = random(170, 90);
+        QR qr = a.qr();
+        Matrix q = qr.q();
+        Matrix r = qr.r();
+        assertEquals(a, q.mul(r), "Error factoring 170x90 matrix, A != QR");
+        assertEquals(mf.identityMatrix(90), q.tmul(q), "Error factoring 170x90 matrix, Q is not orthogonal");
+        for (int i = 0; i < 90; i++) {
+            for (int j = 0; j < i; j++) {
+                assertEquals(0f, r.get(i, j), "Error factoring, R is not upper triangular");
+            }
+        }
+        assertTrue(qr.isFullRank(), "Error detecting full column rank");
+    }
+
+    @Test
+    void testWide() {
+        Matrix a = random(40, 70);
+        QR qr = a.qr();
+        assertEquals(40, qr.r().rows(), "Error factoring 40x70 matrix, wrong size of R");
+        assertEquals(a, qr.q().mul(qr.r()), "Error factoring 40x70 matrix, A != QR");
+        assertFalse(qr.isFullRank(), "Wide matrix can not have full column rank");
+        assertThrows(MatrixException.class, () -> qr.solve(random(40, 1)), "Solving underdetermined least squares "
+                + "problem should throw an exception");
+    }
+
+    @Test
+    void testLeastSquares() {
+        Matrix a = random(300, 80);
+        Matrix b = random(300, 70);
+        QR qr = a.qr();
+        Matrix x = qr.solve(b);
+        assertEquals(80, x.rows(), "Error solving least squares problem, wrong size of X");
+        assertEquals(mf.zeroes(80, 70), a.tmul(a.mul(x).sub(b)), "Error solving least squares problem, residual is "
+                + "not orthogonal to the columns of A");
+        assertEquals(a.tmul(a).solve(a.tmul(b)), x, "Least squares solution differs from the normal equations");
+
+        Matrix square = random(100, 100);
+        Matrix c = random(100, 2);
+        assertEquals(square.solve(c), square.lstsq(c), "Error solving square system of equations");
+    }
+
+    @Test
+    void testRankDeficient() {
+        Matrix x = random(100, 30);
+        Matrix dependent = x.conch(x.colr(0, 4).add(x.colr(5, 9)));
+        QR qr = dependent.qr();
+        assertFalse(qr.isFullRank(), "Error detecting rank deficient matrix");
+        assertEquals(dependent, qr.q().mul(qr.r()), "Error factoring rank deficient matrix, A != QR");
+        assertThrows(MatrixException.class, () -> qr.solve(random(100, 1)), "Solving with rank deficient matrix "
+                + "should throw an exception");
+        assertThrows(MatrixException.class, () -> x.lstsq(random(99, 1)), "Solving with mismatching right hand side "
+                + "should throw an exception");
+    }
+
+    private Matrix random(int rows, int cols) {
+        float[] res = new float[rows * cols];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = random.nextFloat() * 2 - 1;
+        }
+        return mf.m(res, rows, cols);
+    }
+}
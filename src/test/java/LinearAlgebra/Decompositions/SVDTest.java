@@ -0,0 +1,114 @@
+package LinearAlgebra.Decompositions;
+
+import LinearAlgebra.FLinAlg.FMatrixFactory;
+import LinearAlgebra.Kernels.Parallelism;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing singular value decompositions, on matrices large enough for the QR decomposition and the
+ * reflectors to be applied in several blocks.
+ */
+class SVDTest {
+    private static final MatrixFactory mf = new FMatrixFactory();
+    private final Random random = new Random(42);
+
+    @Test
+    void testTall() {
+        assertDecomposition(random(300, 120), "300x120");
+    }
+
+    @Test
+    void testSquare() {
+        assertDecomposition(random(75, 75), "75x75");
+    }
+
+    @Test
+    void testWide() {
+        assertDecomposition(random(40, 90), "40x90");
+    }
+
+    @Test
+    void testSingularValues() {
+        SVD svd = SVD.of(mf.m("3 0;0 -4;0 0"), mf);
+        assertArrayEquals(new float[]{4f, 3f}, svd.singularValues(), 1e-6f, "Error finding singular values of "
+                + "3x2 matrix");
+        assertEquals(4f / 3f, svd.cond(), 1e-6f, "Error finding the condition number of 3x2 matrix");
+        assertEquals(2, svd.rank(), "Error finding the rank of 3x2 matrix");
+    }
+
+    @Test
+    void testRankDeficient() {
+        Matrix x = random(150, 40);
+        Matrix dependent = x.conch(x.colr(0, 9).add(x.colr(10, 19)));
+        SVD svd = SVD.of(dependent, mf);
+        assertEquals(40, svd.rank(), "Error finding the rank of 150x50 matrix of rank 40");
+        assertEquals(mf.zeroes(150, 50), svd.u().mul(svd.s()).mul(svd.v().tran()).sub(dependent),
+                "Error decomposing rank deficient matrix, A != USV'");
+
+        Matrix pinv = svd.pseudoInverse();
+        assertEquals(dependent, dependent.mul(pinv).mul(dependent), "Error finding pseudo inverse, AXA != A");
+        assertEquals(pinv, pinv.mul(dependent).mul(pinv), "Error finding pseudo inverse, XAX != X");
+        Matrix ax = dependent.mul(pinv);
+        assertEquals(ax, ax.tran(), "Error finding pseudo inverse, AX is not symmetric");
+        Matrix xa = pinv.mul(dependent);
+        assertEquals(xa, xa.tran(), "Error finding pseudo inverse, XA is not symmetric");
+    }
+
+    @Test
+    void testParallel() {
+        Matrix a = random(200, 70);
+        SVD sequential;
+        SVD parallel;
+        ForkJoinPool previousPool = Parallelism.pool();
+        long previousThreshold = Parallelism.threshold();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Parallelism.setThreshold(Long.MAX_VALUE);
+            sequential = SVD.of(a, mf);
+            Parallelism.setPool(pool);
+            Parallelism.setThreshold(0);
+            parallel = SVD.of(a, mf);
+        } finally {
+            Parallelism.setPool(previousPool);
+            Parallelism.setThreshold(previousThreshold);
+            pool.shutdown();
+        }
+        assertArrayEquals(sequential.singularValues(), parallel.singularValues(), "Parallel decomposition should "
+                + "give exactly the same singular values");
+        assertEquals(sequential.u(), parallel.u(), "Parallel decomposition should give the same U");
+        assertEquals(sequential.v(), parallel.v(), "Parallel decomposition should give the same V");
+    }
+
+    private void assertDecomposition(Matrix a, String size) {
+        SVD svd = SVD.of(a, mf);
+        int k = Math.min(a.rows(), a.cols());
+        Matrix u = svd.u();
+        Matrix v = svd.v();
+        assertEquals(a.rows(), u.rows(), "Error decomposing " + size + " matrix, wrong size of U");
+        assertEquals(k, u.cols(), "Error decomposing " + size + " matrix, wrong size of U");
+        assertEquals(a.cols(), v.rows(), "Error decomposing " + size + " matrix, wrong size of V");
+        assertEquals(k, v.cols(), "Error decomposing " + size + " matrix, wrong size of V");
+        assertEquals(a, u.mul(svd.s()).mul(v.tran()), "Error decomposing " + size + " matrix, A != USV'");
+        assertEquals(mf.identityMatrix(k), u.tmul(u), "Error decomposing " + size + " matrix, U is not orthogonal");
+        assertEquals(mf.identityMatrix(k), v.tmul(v), "Error decomposing " + size + " matrix, V is not orthogonal");
+        float[] s = svd.singularValues();
+        for (int i = 1; i < k; i++) {
+            assertTrue(s[i] <= s[i - 1], "Singular values of " + size + " matrix are not in descending order");
+        }
+    }
+
+    private Matrix random(int rows, int cols) {
+        float[] res = new float[rows * cols];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = random.nextFloat() * 2 - 1;
+        }
+        return mf.m(res, rows, cols);
+    }
+}
@@ -0,0 +1,81 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MutableMatrix;
+import Misc.Tuple;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class FMatrixFactoryTest {
+    static private FMatrixFactory mf;
+
+    @BeforeAll
+    static void setUp() {
+        mf = new FMatrixFactory();
+    }
+
+    @Test
+    void testOnes() {
+        Matrix ones = mf.ones(5, 3);
+        assertEquals(new Tuple<>(5, 3), ones.size(), "ones() returning matrix of wrong size");
+        int rows = ones.rows();
+        int cols = ones.cols();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (ones.get(i, j) != 1) {
+                    fail("Matrix of ones containing something else than ones");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testZeroes() {
+        Matrix zeroes = mf.zeroes(4, 10);
+        assertEquals(new Tuple<>(4, 10), zeroes.size(), "zeroes() returning matrix of wrong size");
+        int rows = zeroes.rows();
+        int cols = zeroes.cols();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (zeroes.get(i, j) != 0) {
+                    fail("Matrix of zeroes containing something else than zeroes");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testIdentityMatrix() {
+        assertEquals(new FMatrix(new float[]{1f}, 1, 1), mf.identityMatrix(1),
+                "Error creating 1x1 matrix");
+        assertEquals(new FMatrix(new float[]{1f, 0f, 0f, 0f, 1f, 0f, 0f, 0f, 1f}, 3, 3), mf.identityMatrix(3),
+                "Error creating 3x3 matrix");
+    }
+
+    @Test
+    void testScalar() {
+        Matrix scalar = new FMatrix(new float[]{4f}, 1, 1);
+        assertEquals(scalar, mf.s(4f), "Error creating a scalar");
+        assertEquals(1, scalar.rows(), "Number of rows of a scalar should be one");
+        assertEquals(1, scalar.cols(), "Number of columns of a scalar should be one");
+    }
+
+    @Test
+    void testFromNestedArray() {
+        assertEquals(mf.m("1 2 3;4 5 6"), mf.m(new float[][]{new float[]{1f, 2f, 3f}, new float[]{4f, 5f, 6f}}),
+                "Error creating matrix from nested array");
+        assertEquals(mf.m("1 2 3;4 5 6"), mf.m(new float[]{1f, 2f, 3f, 4f, 5f, 6f}, 2, 3),
+                "Error creating matrix from flat row-major array");
+    }
+
+    @Test
+    void testMutable() {
+        MutableMatrix mutable = mf.mutable(2, 3);
+        assertEquals(mf.zeroes(2, 3), mutable, "mutable() should return a matrix of only zeroes");
+        mutable.set(1, 2, 4f);
+        assertEquals(mf.m("0 0 0;0 0 4"), mutable, "Error setting element of mutable matrix");
+    }
+}
@@ -0,0 +1,58 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.BLinAlg.BMatrixFactory;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixTest;
+import LinearAlgebra.MutableMatrix;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing the FMatrix class.
+ */
+class FMatrixTest extends MatrixTest {
+    FMatrixTest() {
+        super(new FMatrixFactory(' ', ';'));
+    }
+
+    @Test
+    void testViews() {
+        FMatrix matrix = (FMatrix) mf.m("1 2 3;4 5 6;7 8 9");
+        assertSame(matrix.data, matrix.row(1).data, "Taking a row should not copy the matrix");
+        assertSame(matrix.data, matrix.subm(1, 2, 0, 1).data, "Taking a submatrix should not copy the matrix");
+        assertSame(matrix.data, matrix.tran().data, "Transposing should not copy the matrix");
+        assertEquals(mf.m("4;5"), matrix.subm(1, 2, 0, 1).tran().col(0), "Error taking column of transposed view");
+        assertEquals(mf.m("2 5 8"), matrix.tran().row(1), "Error taking row of transposed matrix");
+        assertEquals(mf.m("2 6 10;6 10 14;10 14 18"), matrix.tran().add(matrix),
+                "Error adding transposed view to matrix");
+        assertEquals(mf.m("8 23 38;17 50 83"), matrix.subm(0, 1, 1, 2).mul(matrix.colr(0, 1).tran()),
+                "Error multiplying views");
+        FMatrix compact = matrix.subm(1, 2, 1, 2).compact();
+        assertEquals(4, compact.data.length, "Compacting a view should copy only its own elements");
+        assertEquals(mf.m("5 6;8 9"), compact, "Error compacting view");
+        assertSame(matrix, matrix.compact(), "Compacting a compact matrix should return the matrix itself");
+    }
+
+    @Test
+    void testViewsOfMutable() {
+        MutableMatrix mutable = mf.m("1 2;3 4").mcopy();
+        Matrix row = mutable.row(0);
+        Matrix transposed = mutable.tran();
+        mutable.muli(2f);
+        assertEquals(mf.m("1 2"), row, "Row of mutable matrix changed with the mutable matrix");
+        assertEquals(mf.m("1 3;2 4"), transposed, "Transpose of mutable matrix changed with the mutable matrix");
+    }
+
+    @Test
+    void testOtherImplementations() {
+        Matrix other = new BMatrixFactory(' ', ';').m("5 2 4;3 4 5;-800 0 -1");
+        assertEquals(tbt2, other, "Matrices with the same elements should be equal, whatever their implementation");
+        assertEquals(tbt1.add(tbt2), tbt1.add(other), "Error adding BMatrix");
+        assertEquals(tbt1.mulew(tbt2), tbt1.mulew(other), "Error multiplying BMatrix element-wise");
+        assertEquals(tbt1.conch(tbt2), tbt1.conch(other), "Error concatenating BMatrix");
+        assertEquals(tbt1.mul(tbt2), tbt1.mul(other), "Error multiplying with BMatrix");
+        assertEquals(tbt1.tmul(tbt2), tbt1.tmul(other), "Error multiplying transpose with BMatrix");
+        assertEquals(tbt1.mult(tbt2), tbt1.mult(other), "Error multiplying with transposed BMatrix");
+    }
+}
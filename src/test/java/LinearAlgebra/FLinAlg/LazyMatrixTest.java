@@ -0,0 +1,103 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.BLinAlg.BMatrixFactory;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixTest;
+import LinearAlgebra.MutableMatrix;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing the LazyMatrix class.
+ */
+class LazyMatrixTest extends MatrixTest {
+    LazyMatrixTest() {
+        super(new LazyMatrixFactory(' ', ';'));
+    }
+
+    @Test
+    void testEvaluatedWhenNeeded() {
+        LazyMatrix expression = (LazyMatrix) tbt1.sub(tbt2).mul(0.5f).map(d -> d * d).addr(mf.m("1 2 3"));
+        assertFalse(expression.isEvaluated(), "Element-wise operations should not be evaluated directly");
+        expression.sumsqr();
+        assertFalse(expression.isEvaluated(), "Reductions should not store the evaluated elements");
+        assertEquals(7.25f, expression.get(0, 0), "Error evaluating fused expression");
+        assertTrue(expression.isEvaluated(), "Getting an element should evaluate the expression");
+        LazyMatrix product = (LazyMatrix) expression.mul(tbt1);
+        assertTrue(product.isEvaluated(), "Matrix multiplication should evaluate the expression");
+    }
+
+    @Test
+    void testSameAsEager() {
+        FMatrixFactory fmf = new FMatrixFactory();
+        Random random = new Random(7);
+        float[][] a = new float[37][53];
+        float[][] b = new float[37][53];
+        for (int i = 0; i < 37; i++) {
+            for (int j = 0; j < 53; j++) {
+                a[i][j] = random.nextFloat() - 0.5f;
+                b[i][j] = random.nextFloat() + 0.5f;
+            }
+        }
+        Matrix eager = fmf.m(a).sub(fmf.m(b)).mul(3f).divew(fmf.m(b)).map(d -> (float) Math.exp(d)).add(1f)
+                .subc(fmf.m(b).col(3)).mulr(fmf.m(a).row(5));
+        Matrix lazy = mf.m(a).sub(mf.m(b)).mul(3f).divew(mf.m(b)).map(d -> (float) Math.exp(d)).add(1f)
+                .subc(mf.m(b).col(3)).mulr(mf.m(a).row(5));
+        assertTrue(eager.equals(lazy, 0f), "Fused expression should give exactly the same result");
+        assertEquals(eager.sum().toFloat(), lazy.sum().toFloat(), "Fused sum should give exactly the same result");
+        assertEquals(eager.sumsqr().toFloat(), lazy.sumsqr().toFloat(),
+                "Fused sum of squares should give exactly the same result");
+        assertTrue(eager.sumh().equals(lazy.sumh(), 0f), "Fused horizontal sum should give exactly the same result");
+        assertTrue(eager.sumv().equals(lazy.sumv(), 0f), "Fused vertical sum should give exactly the same result");
+    }
+
+    @Test
+    void testReductionsSameAsEvaluated() {
+        Random random = new Random(11);
+        float[][] elements = new float[300][301];
+        for (int i = 0; i < 300; i++) {
+            for (int j = 0; j < 301; j++) {
+                elements[i][j] = random.nextFloat() * 2 - 1;
+            }
+        }
+        Matrix dense = new FMatrixFactory().m(elements).mul(2f);
+        for (int evaluated = 0; evaluated < 2; evaluated++) {
+            Matrix lazy = mf.m(elements).mul(2f);
+            if (evaluated == 1) {
+                lazy.get(0, 0);
+            }
+            String name = evaluated == 1 ? " of evaluated expression" : " of expression";
+            assertEquals(dense.sum().toFloat(), lazy.sum().toFloat(), "sum()" + name + " should give exactly the "
+                    + "same result as FMatrix");
+            assertEquals(dense.sumsqr().toFloat(), lazy.sumsqr().toFloat(), "sumsqr()" + name + " should give "
+                    + "exactly the same result as FMatrix");
+            assertTrue(dense.sumh().equals(lazy.sumh(), 0f), "sumh()" + name + " should give exactly the same "
+                    + "result as FMatrix");
+            assertTrue(dense.sumv().equals(lazy.sumv(), 0f), "sumv()" + name + " should give exactly the same "
+                    + "result as FMatrix");
+        }
+    }
+
+    @Test
+    void testMutableOperand() {
+        MutableMatrix mutable = mf.mutable(3, 3);
+        Matrix expression = tbt1.add(mutable);
+        mutable.addi(1f);
+        assertEquals(tbt1, expression, "Changing a mutable operand should not change an unevaluated expression");
+    }
+
+    @Test
+    void testOtherImplementations() {
+        Matrix other = new BMatrixFactory(' ', ';').m("5 2 4;3 4 5;-800 0 -1");
+        assertEquals(tbt2, other, "Matrices with the same elements should be equal, whatever their implementation");
+        assertEquals(tbt1.add(tbt2), tbt1.add(other), "Error adding BMatrix");
+        assertEquals(tbt1.mulew(tbt2), tbt1.mulew(other), "Error multiplying BMatrix element-wise");
+        assertEquals(tbt1.conch(tbt2), tbt1.conch(other), "Error concatenating BMatrix");
+        assertEquals(tbt1.mul(tbt2), tbt1.mul(other), "Error multiplying with BMatrix");
+        assertEquals(tbt1.tmul(tbt2), tbt1.tmul(other), "Error multiplying transpose with BMatrix");
+        assertEquals(tbt1.mult(tbt2), tbt1.mult(other), "Error multiplying with transposed BMatrix");
+    }
+}
@@ -0,0 +1,74 @@
+package LinearAlgebra.FLinAlg;
+
+import LinearAlgebra.BLinAlg.BMatrixFactory;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixTest;
+import LinearAlgebra.MutableMatrix;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing the SparseMatrix class.
+ */
+class SparseMatrixTest extends MatrixTest {
+    SparseMatrixTest() {
+        super(new SparseMatrixFactory(' ', ';'));
+    }
+
+    @Test
+    void testSparsityPreserved() {
+        Matrix sparse = mf.m("0 0 2;0 0 0;-1 0 0;0 3 0");
+        assertTrue(sparse instanceof SparseMatrix, "Factory should create sparse matrices");
+        assertEquals(3, ((SparseMatrix) sparse).nnz(), "Only non-zero elements should be stored");
+        assertEquals(3, ((SparseMatrix) sparse.mul(2f)).nnz(), "Multiplying with scalar should preserve sparsity");
+        assertEquals(3, ((SparseMatrix) sparse.tran()).nnz(), "Transposing should preserve sparsity");
+        assertEquals(2, ((SparseMatrix) sparse.mulew(mf.m("1 1 1;1 1 1;0 0 0;1 1 1"))).nnz(),
+                "Multiplying elementwise should preserve sparsity and drop new zeros");
+        assertEquals(3, ((SparseMatrix) sparse.map(d -> d * d)).nnz(), "Mapping with function keeping zero " +
+                "should preserve sparsity");
+        assertEquals(2, ((SparseMatrix) sparse.mask(d -> d > 0)).nnz(), "Masking should preserve sparsity");
+        assertEquals(7, ((SparseMatrix) sparse.addc1()).nnz(), "Adding column of ones should only add the ones");
+        assertEquals(mf.m("1 1 3;1 1 1;0 1 1;1 4 1"), sparse.add(1f), "Error adding scalar to sparse matrix");
+        assertEquals(mf.m("0 0 2;0 0 0;-1 0 0;0 3 0"), sparse.tran().tran(), "Error transposing twice");
+        assertEquals(mf.m("0;0;3;0;2;0;0;0;0;0;-1;0"), mf.m("0 2 0;0 0 0;3 0 -1;0 0 0").vec(),
+                "Error vectorizing sparse matrix");
+    }
+
+    @Test
+    void testSparseDenseProducts() {
+        FMatrixFactory dense = new FMatrixFactory(' ', ';');
+        Matrix sparse = mf.m("0 0 2;0 0 0;-1 0 0;0 3 0");
+        Matrix denseSparse = dense.m("0 0 2;0 0 0;-1 0 0;0 3 0");
+        Matrix other = dense.m("1 2;3 4;5 6");
+        Matrix tall = dense.m("1 2;3 4;5 6;7 8");
+        assertEquals(denseSparse.mul(other), sparse.mul(other), "Error multiplying sparse with dense matrix");
+        assertEquals(denseSparse.tmul(tall), sparse.tmul(tall), "Error multiplying transposed sparse matrix " +
+                "with dense matrix");
+        assertEquals(denseSparse.mult(other.tran()), sparse.mult(other.tran()), "Error multiplying sparse with " +
+                "transposed dense matrix");
+        assertEquals(denseSparse.mul(denseSparse.tran()), sparse.mul(sparse.tran()), "Error multiplying sparse " +
+                "matrices");
+        assertTrue(sparse.mul(sparse.tran()) instanceof SparseMatrix, "Product of sparse matrices should be " +
+                "sparse");
+        MutableMatrix into = mf.mutable(3, 2);
+        assertSame(into, sparse.tmul(tall, into), "Multiplying into a matrix should return the destination");
+        assertEquals(denseSparse.tmul(tall), into, "Error multiplying transposed sparse matrix into matrix");
+        assertEquals(denseSparse.mul(other), sparse.mul(other, mf.mutable(4, 2)), "Error multiplying sparse " +
+                "matrix into matrix");
+        assertEquals(denseSparse.sub(tall.mul(other.tran())), sparse.sub(tall.mul(other.tran())),
+                "Error subtracting dense matrix from sparse matrix");
+    }
+
+    @Test
+    void testOtherImplementations() {
+        Matrix other = new BMatrixFactory(' ', ';').m("5 2 4;3 4 5;-800 0 -1");
+        assertEquals(tbt2, other, "Matrices with the same elements should be equal, whatever their implementation");
+        assertEquals(tbt1.add(tbt2), tbt1.add(other), "Error adding BMatrix");
+        assertEquals(tbt1.mulew(tbt2), tbt1.mulew(other), "Error multiplying BMatrix element-wise");
+        assertEquals(tbt1.conch(tbt2), tbt1.conch(other), "Error concatenating BMatrix");
+        assertEquals(tbt1.mul(tbt2), tbt1.mul(other), "Error multiplying with BMatrix");
+        assertEquals(tbt1.tmul(tbt2), tbt1.tmul(other), "Error multiplying transpose with BMatrix");
+        assertEquals(tbt1.mult(tbt2), tbt1.mult(other), "Error multiplying with transposed BMatrix");
+    }
+}
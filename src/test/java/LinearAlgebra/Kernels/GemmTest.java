@@ -0,0 +1,273 @@
+package LinearAlgebra.Kernels;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing the Gemm kernel against the textbook triple loop.
+ */
+class GemmTest {
+    private static final float TOLERANCE = 1e-4f;
+    private static final float STRASSEN_TOLERANCE = 1e-3f;
+    private final Random random = new Random(42);
+
+    @Test
+    void testBlockEdges() {
+        int[][] shapes = {{2, 2, 2}, {3, 5, 7}, {Gemm.MR + 1, Gemm.KC + 3, Gemm.NR + 1},
+                {Gemm.MC + 5, 17, Gemm.NC + 9}};
+        for (int[] shape : shapes) {
+            float[][] a = random(shape[0], shape[1]);
+            float[][] b = random(shape[1], shape[2]);
+            float[] res = new float[shape[0] * shape[2]];
+            Gemm.multiply(Operand.of(a, shape[1]), Operand.of(b, shape[2]), res, 0, shape[2]);
+            assertProduct(a, b, res, "Error multiplying " + shape[0] + "x" + shape[1] + " with " + shape[1] + "x"
+                    + shape[2]);
+        }
+    }
+
+    @Test
+    void testMatrixVector() {
+        float[][] a = random(9, 13);
+        float[][] x = random(13, 1);
+        float[] res = new float[9];
+        Gemm.multiply(Operand.of(a, 13), Operand.of(x, 1), res, 0, 1);
+        assertProduct(a, x, res, "Error multiplying matrix with column vector");
+
+        float[][] y = random(1, 9);
+        float[] res2 = new float[13];
+        Gemm.multiply(Operand.of(y, 9), Operand.of(a, 13), res2, 0, 13);
+        assertProduct(y, a, res2, "Error multiplying row vector with matrix");
+    }
+
+    @Test
+    void testMatrixVectorSummationOrder() {
+        float[][] a = random(7, 37);
+        float[][] x = random(37, 1);
+        float[] flatA = new float[7 * 37];
+        for (int i = 0; i < 7; i++) {
+            System.arraycopy(a[i], 0, flatA, i * 37, 37);
+        }
+        float[] expected = new float[7];
+        for (int i = 0; i < 7; i++) {
+            for (int p = 0; p < 37; p++) {
+                expected[i] += a[i][p] * x[p][0];
+            }
+        }
+        float[] nested = new float[7];
+        Gemm.multiply(Operand.of(a, 37), Operand.of(x, 1), nested, 0, 1);
+        assertArrayEquals(expected, nested, "Matrix-vector product should be summed in column order");
+        float[] strided = new float[7];
+        Gemm.multiply(Operand.of(flatA, 0, 37, 1, 7, 37), Operand.of(x, 1), strided, 0, 1);
+        assertArrayEquals(expected, strided, "Strided matrix-vector product should be summed in column order");
+        float[] transposed = new float[7];
+        Gemm.multiply(Operand.of(transpose(a), 7).tran(), Operand.of(x, 1), transposed, 0, 1);
+        assertArrayEquals(expected, transposed, "Transposed matrix-vector product should be summed in column order");
+    }
+
+    @Test
+    void testTransposedOperands() {
+        float[][] a = random(6, 11);
+        float[][] b = random(6, 4);
+        float[] flatA = new float[6 * 11];
+        for (int i = 0; i < 6; i++) {
+            System.arraycopy(a[i], 0, flatA, i * 11, 11);
+        }
+        float[] res = new float[11 * 4];
+        Gemm.multiply(Operand.of(flatA, 0, 11, 1, 6, 11).tran(), Operand.of(b, 4), res, 0, 4);
+        assertProduct(transpose(a), b, res, "Error multiplying with a transposed strided operand");
+
+        float[] res2 = new float[6 * 6];
+        Gemm.multiply(Operand.of(a, 11), Operand.of(a, 11).tran(), res2, 0, 6);
+        assertProduct(a, transpose(a), res2, "Error multiplying with a transposed nested operand");
+    }
+
+    @Test
+    void testNestedOutput() {
+        float[][] a = random(Gemm.MC + 5, Gemm.KC + 3);
+        float[][] b = random(Gemm.KC + 3, Gemm.NR + 6);
+        float[][] x = random(Gemm.MC + 5, 1);
+        float[][] y = random(1, Gemm.MC + 5);
+        assertSameOutput(Operand.of(a, Gemm.KC + 3), Operand.of(b, Gemm.NR + 6), "matrices");
+        assertSameOutput(Operand.of(a, Gemm.KC + 3).tran(), Operand.of(x, 1), "transposed matrix and column vector");
+        assertSameOutput(Operand.of(y, Gemm.MC + 5), Operand.of(a, Gemm.KC + 3), "row vector and matrix");
+        assertSameOutput(Operand.of(new float[3][0], 0), Operand.of(new float[0][4], 4), "empty inner dimension");
+
+        int previousStrassenThreshold = Gemm.strassenThreshold();
+        ForkJoinPool previousPool = Parallelism.pool();
+        long previousThreshold = Parallelism.threshold();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Parallelism.setPool(pool);
+            Parallelism.setThreshold(0);
+            assertSameOutput(Operand.of(a, Gemm.KC + 3), Operand.of(b, Gemm.NR + 6), "matrices in parallel");
+            assertSameOutput(Operand.of(a, Gemm.KC + 3).tran(), Operand.of(x, 1), "transposed matrix and column "
+                    + "vector in parallel");
+            Gemm.setStrassenThreshold(2 * Gemm.MC);
+            float[][] c = random(2 * Gemm.MC + 3, 2 * Gemm.MC + 1);
+            assertSameOutput(Operand.of(c, 2 * Gemm.MC + 1).tran(), Operand.of(c, 2 * Gemm.MC + 1),
+                    "matrices with Strassen");
+        } finally {
+            Gemm.setStrassenThreshold(previousStrassenThreshold);
+            Parallelism.setPool(previousPool);
+            Parallelism.setThreshold(previousThreshold);
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelMatchesSequential() {
+        float[][] a = random(Gemm.MC + 37, Gemm.KC + 11);
+        float[][] b = random(Gemm.KC + 11, 2 * Gemm.NR + 3);
+        float[][] x = random(Gemm.KC + 11, 1);
+        float[] sequential = new float[(Gemm.MC + 37) * (2 * Gemm.NR + 3)];
+        float[] parallel = new float[sequential.length];
+        float[] parallelGemv = new float[Gemm.MC + 37];
+        float[] sequentialGemv = new float[Gemm.MC + 37];
+
+        ForkJoinPool previousPool = Parallelism.pool();
+        long previousThreshold = Parallelism.threshold();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Parallelism.setThreshold(Long.MAX_VALUE);
+            Gemm.multiply(Operand.of(a, a[0].length), Operand.of(b, b[0].length), sequential, 0, b[0].length);
+            Gemm.multiply(Operand.of(a, a[0].length), Operand.of(x, 1), sequentialGemv, 0, 1);
+            Parallelism.setPool(pool);
+            Parallelism.setThreshold(0);
+            Gemm.multiply(Operand.of(a, a[0].length), Operand.of(b, b[0].length), parallel, 0, b[0].length);
+            Gemm.multiply(Operand.of(a, a[0].length), Operand.of(x, 1), parallelGemv, 0, 1);
+        } finally {
+            Parallelism.setPool(previousPool);
+            Parallelism.setThreshold(previousThreshold);
+            pool.shutdown();
+        }
+        assertArrayEquals(sequential, parallel, "Parallel multiplication should give exactly the same result");
+        assertArrayEquals(sequentialGemv, parallelGemv, "Parallel matrix-vector multiplication should give " +
+                "exactly the same result");
+        assertProduct(a, b, parallel, "Error multiplying in parallel");
+    }
+
+    @Test
+    void testStrassen() {
+        float[][] a = random(517, 530);
+        float[][] b = random(530, 523);
+        float[] classical = new float[517 * 523];
+        float[] strassen = new float[517 * 523];
+        float[] parallel = new float[517 * 523];
+        float[] transposed = new float[523 * 517];
+
+        int previousStrassenThreshold = Gemm.strassenThreshold();
+        ForkJoinPool previousPool = Parallelism.pool();
+        long previousThreshold = Parallelism.threshold();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Gemm.setStrassenThreshold(Integer.MAX_VALUE);
+            Gemm.multiply(Operand.of(a, 530), Operand.of(b, 523), classical, 0, 523);
+            Gemm.setStrassenThreshold(2 * Gemm.MC);
+            Parallelism.setThreshold(Long.MAX_VALUE);
+            Gemm.multiply(Operand.of(a, 530), Operand.of(b, 523), strassen, 0, 523);
+            Gemm.multiply(Operand.of(b, 523).tran(), Operand.of(a, 530).tran(), transposed, 0, 517);
+            Parallelism.setPool(pool);
+            Parallelism.setThreshold(0);
+            Gemm.multiply(Operand.of(a, 530), Operand.of(b, 523), parallel, 0, 523);
+        } finally {
+            Gemm.setStrassenThreshold(previousStrassenThreshold);
+            Parallelism.setPool(previousPool);
+            Parallelism.setThreshold(previousThreshold);
+            pool.shutdown();
+        }
+        assertArrayEquals(strassen, parallel, "Parallel Strassen multiplication should give exactly the same result");
+
+        double classicalError = 0;
+        double strassenError = 0;
+        for (int i = 0; i < 517; i++) {
+            for (int j = 0; j < 523; j++) {
+                double sum = 0;
+                for (int k = 0; k < 530; k++) {
+                    sum += (double) a[i][k] * b[k][j];
+                }
+                classicalError = Math.max(classicalError, Math.abs(sum - classical[i * 523 + j]));
+                strassenError = Math.max(strassenError, Math.abs(sum - strassen[i * 523 + j]));
+                assertEquals(strassen[i * 523 + j], transposed[j * 517 + i], STRASSEN_TOLERANCE,
+                        "Error multiplying transposed operands with Strassen at (" + i + ", " + j + ")");
+            }
+        }
+        assertTrue(strassenError < STRASSEN_TOLERANCE, "Strassen multiplication is too inaccurate, max error "
+                + strassenError);
+        assertTrue(strassenError < 20 * classicalError, "Strassen multiplication is much less accurate than the "
+                + "classical one, max errors " + strassenError + " and " + classicalError);
+    }
+
+    @Test
+    void testStrassenThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> Gemm.setStrassenThreshold(Gemm.MC),
+                "Too small Strassen threshold should throw exception");
+    }
+
+    @Test
+    void testMismatchingOperands() {
+        assertThrows(LinearAlgebra.MatrixException.class, () -> Gemm.multiply(Operand.of(random(2, 3), 3),
+                Operand.of(random(2, 3), 3), new float[4], 0, 2), "Mismatching operands should throw exception");
+    }
+
+    private float[][] random(int rows, int cols) {
+        float[][] res = new float[rows][cols];
+        for (float[] row : res) {
+            for (int j = 0; j < cols; j++) {
+                row[j] = random.nextFloat() - 0.5f;
+            }
+        }
+        return res;
+    }
+
+    private static float[][] transpose(float[][] mat) {
+        float[][] res = new float[mat[0].length][mat.length];
+        for (int i = 0; i < mat.length; i++) {
+            for (int j = 0; j < mat[0].length; j++) {
+                res[j][i] = mat[i][j];
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Checks that a product written into an array of rows is exactly the same as when it is written into a flat array,
+     * and that it does not touch the rows beyond the product.
+     */
+    private static void assertSameOutput(Operand a, Operand b, String name) {
+        int m = a.rows();
+        int n = b.cols();
+        float[] flat = new float[m * n];
+        Gemm.multiply(a, b, flat, 0, n);
+        float[][] nested = new float[m][n + 1];
+        for (float[] row : nested) {
+            Arrays.fill(row, Float.NaN);
+        }
+        Gemm.multiply(a, b, nested);
+        for (int i = 0; i < m; i++) {
+            float[] expected = Arrays.copyOf(Arrays.copyOfRange(flat, i * n, (i + 1) * n), n + 1);
+            expected[n] = Float.NaN;
+            assertArrayEquals(expected, nested[i], "Product of " + name + " written into rows should be exactly "
+                    + "the same as into a flat array, in row " + i);
+        }
+    }
+
+    private static void assertProduct(float[][] a, float[][] b, float[] res, String message) {
+        int q = b[0].length;
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < q; j++) {
+                double sum = 0;
+                for (int k = 0; k < b.length; k++) {
+                    sum += (double) a[i][k] * b[k][j];
+                }
+                if (Math.abs(sum - res[i * q + j]) > TOLERANCE) {
+                    fail(message + " at (" + i + ", " + j + ")");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package LinearAlgebra.Kernels;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing the reduction kernels against sums computed in doubles, and for testing that they give
+ * the same result regardless of the number of threads and of how the matrix is stored.
+ */
+class ReductionsTest {
+    private static final float TOLERANCE = 1e-4f;
+    private final Random random = new Random(42);
+
+    @Test
+    void testShapes() {
+        int[][] shapes = {{1, 1}, {3, 5}, {1, Reductions.LEAF + 3}, {Reductions.LEAF * 5 + 1, 2}, {600, 7}};
+        for (int[] shape : shapes) {
+            int m = shape[0];
+            int n = shape[1];
+            float[][] rows = random(m, n);
+            float[] flat = flatten(rows, 3);
+            double total = 0;
+            double squares = 0;
+            double[] rowSums = new double[m];
+            double[] colSums = new double[n];
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) {
+                    total += rows[i][j];
+                    squares += rows[i][j] * rows[i][j];
+                    rowSums[i] += rows[i][j];
+                    colSums[j] += rows[i][j];
+                }
+            }
+            String name = " of " + m + "x" + n + " matrix";
+            assertEquals((float) total, Reductions.sum(rows, n), TOLERANCE, "Error summing rows" + name);
+            assertEquals((float) total, Reductions.sum(flat, 3, m * n), TOLERANCE, "Error summing array" + name);
+            assertEquals((float) squares, Reductions.sumsqr(rows, n), TOLERANCE, "Error summing squares" + name);
+            assertEquals((float) squares, Reductions.sumsqr(flat, 3, m * n), TOLERANCE,
+                    "Error summing squares of array" + name);
+
+            float[] res = new float[m];
+            Reductions.sumRows(rows, n, res);
+            assertArrayEquals(toFloat(rowSums), res, TOLERANCE, "Error summing every row" + name);
+            Reductions.sumRows(flat, 3, m, n, res);
+            assertArrayEquals(toFloat(rowSums), res, TOLERANCE, "Error summing every row of array" + name);
+            res = new float[n];
+            Reductions.sumCols(rows, n, res);
+            assertArrayEquals(toFloat(colSums), res, TOLERANCE, "Error summing every column" + name);
+            Reductions.sumCols(flat, 3, m, n, res);
+            assertArrayEquals(toFloat(colSums), res, TOLERANCE, "Error summing every column of array" + name);
+        }
+    }
+
+    @Test
+    void testPrecision() {
+        float[] data = new float[1 << 22];
+        java.util.Arrays.fill(data, 0.1f);
+        float naive = 0;
+        for (float element : data) {
+            naive += element;
+        }
+        float expected = (float) (0.1f * (double) data.length);
+        assertEquals(expected, Reductions.sum(data, 0, data.length), "Pairwise sum should be correctly rounded");
+        assertTrue(Math.abs(naive - expected) > 1000, "Naive sum should have lost precision");
+    }
+
+    @Test
+    void testDeterminism() {
+        float[][] rows = random(3000, 300);
+        float[] flat = flatten(rows, 0);
+        float[] sequential = reduceAll(rows, flat);
+
+        ForkJoinPool previousPool = Parallelism.pool();
+        long previousThreshold = Parallelism.threshold();
+        try {
+            Parallelism.setThreshold(0);
+            for (int threads : new int[]{2, 3, 8}) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    Parallelism.setPool(pool);
+                    assertArrayEquals(sequential, reduceAll(rows, flat), "Reductions on " + threads + " threads " +
+                            "should give exactly the same result");
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } finally {
+            Parallelism.setPool(previousPool);
+            Parallelism.setThreshold(previousThreshold);
+        }
+    }
+
+    @Test
+    void testSameForEveryStorage() {
+        int[][] shapes = {{1, 1}, {3, 5}, {1, Reductions.LEAF * 3 + 1}, {600, 7}, {300, 300}, {97, 1003}};
+        for (int[] shape : shapes) {
+            int m = shape[0];
+            int n = shape[1];
+            float[][] rows = random(m, n);
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (random.nextInt(3) != 0) {
+                        rows[i][j] = 0f;
+                    }
+                }
+            }
+            float[] flat = flatten(rows, 0);
+            float[] expected = reduceAll(rows, flat);
+            String name = " of " + m + "x" + n + " matrix";
+            assertEquals(expected[2], expected[0], "Summing rows should give exactly the same result as an array"
+                    + name);
+            assertEquals(expected[3], expected[1], "Summing squares of rows should give exactly the same result as "
+                    + "an array" + name);
+
+            int[] rowPtr = new int[m + 1];
+            int[] colIdx = new int[m * n];
+            float[] values = new float[m * n];
+            for (int i = 0; i < m; i++) {
+                rowPtr[i + 1] = rowPtr[i];
+                for (int j = 0; j < n; j++) {
+                    if (rows[i][j] != 0f) {
+                        colIdx[rowPtr[i + 1]] = j;
+                        values[rowPtr[i + 1]++] = rows[i][j];
+                    }
+                }
+            }
+            float[] rowSums = new float[m];
+            float[] colSums = new float[n];
+            Reductions.sumRows(m, n, rowPtr, colIdx, values, rowSums);
+            Reductions.sumCols(m, n, rowPtr, colIdx, values, colSums);
+            assertEquals(expected[2], Reductions.sum(m, n, rowPtr, colIdx, values), "Sparse sum should give exactly "
+                    + "the same result" + name);
+            assertEquals(expected[3], Reductions.sumsqr(m, n, rowPtr, colIdx, values), "Sparse sum of squares should "
+                    + "give exactly the same result" + name);
+            assertArrayEquals(slice(expected, 4 + m, m), rowSums, "Sparse row sums should give exactly the same "
+                    + "result" + name);
+            assertArrayEquals(slice(expected, 4 + 2 * m + n, n), colSums, "Sparse column sums should give exactly "
+                    + "the same result" + name);
+
+            assertEquals(expected[2], accumulate(Reductions.Accumulator.sum(m, n), flat)[0], "Accumulated sum should "
+                    + "give exactly the same result" + name);
+            assertEquals(expected[3], accumulate(Reductions.Accumulator.sumsqr(m, n), flat)[0], "Accumulated sum of "
+                    + "squares should give exactly the same result" + name);
+            assertArrayEquals(slice(expected, 4 + m, m), accumulate(Reductions.Accumulator.sumRows(m, n), flat),
+                    "Accumulated row sums should give exactly the same result" + name);
+            assertArrayEquals(slice(expected, 4 + 2 * m + n, n),
+                    accumulate(Reductions.Accumulator.sumCols(m, n), flat),
+                    "Accumulated column sums should give exactly the same result" + name);
+        }
+    }
+
+    /**
+     * Adds the elements to an Accumulator in ranges of random lengths.
+     */
+    private float[] accumulate(Reductions.Accumulator accumulator, float[] flat) {
+        for (int from = 0; from < flat.length; ) {
+            int length = Math.min(flat.length - from, 1 + random.nextInt(2000));
+            accumulator.add(flat, from, length);
+            from += length;
+        }
+        return accumulator.result();
+    }
+
+    private static float[] slice(float[] array, int from, int length) {
+        float[] res = new float[length];
+        System.arraycopy(array, from, res, 0, length);
+        return res;
+    }
+
+    /**
+     * Runs every reduction, and collects the results in one array.
+     */
+    private static float[] reduceAll(float[][] rows, float[] flat) {
+        int m = rows.length;
+        int n = rows[0].length;
+        float[] res = new float[4 + 2 * m + 2 * n];
+        res[0] = Reductions.sum(rows, n);
+        res[1] = Reductions.sumsqr(rows, n);
+        res[2] = Reductions.sum(flat, 0, m * n);
+        res[3] = Reductions.sumsqr(flat, 0, m * n);
+        float[] rowSums = new float[m];
+        float[] colSums = new float[n];
+        Reductions.sumRows(rows, n, rowSums);
+        System.arraycopy(rowSums, 0, res, 4, m);
+        Reductions.sumRows(flat, 0, m, n, rowSums);
+        System.arraycopy(rowSums, 0, res, 4 + m, m);
+        Reductions.sumCols(rows, n, colSums);
+        System.arraycopy(colSums, 0, res, 4 + 2 * m, n);
+        Reductions.sumCols(flat, 0, m, n, colSums);
+        System.arraycopy(colSums, 0, res, 4 + 2 * m + n, n);
+        return res;
+    }
+
+    private static float[] flatten(float[][] rows, int offset) {
+        int n = rows[0].length;
+        float[] res = new float[offset + rows.length * n];
+        for (int i = 0; i < rows.length; i++) {
+            System.arraycopy(rows[i], 0, res, offset + i * n, n);
+        }
+        return res;
+    }
+
+    private static float[] toFloat(double[] values) {
+        float[] res = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            res[i] = (float) values[i];
+        }
+        return res;
+    }
+
+    private float[][] random(int rows, int cols) {
+        float[][] res = new float[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                res[i][j] = random.nextFloat() * 2 - 1;
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,110 @@
+package LinearAlgebra.Kernels;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing the selection kernels on flat and nested matrices, along rows and columns, with ties and
+ * NaN, and on matrices large enough to be split between threads.
+ */
+class SelectionTest {
+    private final Random random = new Random(42);
+
+    @Test
+    void testArg() {
+        float[][] rows = random(300, 700);
+        float[] flat = flatten(rows);
+        int[] nested = new int[300];
+        int[] strided = new int[300];
+        Selection.arg(rows, 700, true, nested);
+        Selection.arg(flat, 0, 700, 1, 300, 700, true, strided);
+        assertArrayEquals(nested, strided, "Error finding the max of every row of a flat matrix");
+        for (int i = 0; i < 300; i++) {
+            for (float element : rows[i]) {
+                assertTrue(element <= rows[i][nested[i]], "Error finding the max of row " + i);
+            }
+        }
+        int[] cols = new int[700];
+        int[] transposed = new int[700];
+        Selection.argCols(rows, 700, false, cols);
+        Selection.arg(flat, 0, 1, 700, 700, 300, false, transposed);
+        assertArrayEquals(cols, transposed, "Error finding the min of every column of a flat matrix");
+        for (int j = 0; j < 700; j++) {
+            for (float[] row : rows) {
+                assertTrue(row[j] >= rows[cols[j]][j], "Error finding the min of column " + j);
+            }
+        }
+    }
+
+    @Test
+    void testTies() {
+        float[][] rows = {{1, 3, 3, 2}, {Float.NaN, 1, 0, 1}, {0, Float.NaN, 0, 0}};
+        int[] max = new int[3];
+        Selection.arg(rows, 4, true, max);
+        assertArrayEquals(new int[]{1, 0, 0}, max, "Error resolving ties in favour of the lowest index");
+        assertArrayEquals(new int[][]{{1, 2, 3}, {1, 3, 2}, {0, 2, 3}}, Selection.topK(rows, 4, 3),
+                "Error resolving ties and NaN when finding the largest values");
+        assertArrayEquals(new int[][]{{1, 2, 3, 0}}, Selection.topK(rows[0], 0, 4, 1, 1, 4, 10),
+                "Error finding more values than there are");
+        assertArrayEquals(new int[][]{{0, 2, 1}, {0, 1, 2}, {0, 1, 2}, {0, 1, 2}}, Selection.topKCols(rows, 4, 3),
+                "Error resolving ties and NaN when finding the largest values of every column");
+        Selection.TopKCols streamed = new Selection.TopKCols(4, 3);
+        for (float[] row : rows) {
+            streamed.add(row, 0);
+        }
+        assertArrayEquals(Selection.topKCols(rows, 4, 3), streamed.result(), "Error resolving ties and NaN when "
+                + "adding a row at a time");
+    }
+
+    @Test
+    void testTopK() {
+        float[][] rows = random(500, 300);
+        int[][] expected = Selection.topK(rows, 300, 20);
+        assertArrayEquals(expected, Selection.topK(flatten(rows), 0, 300, 1, 500, 300, 20),
+                "Error finding the largest values of every row of a flat matrix");
+        assertArrayEquals(Selection.topK(flatten(rows), 0, 1, 300, 300, 500, 20), Selection.topKCols(rows, 300, 20),
+                "Error finding the largest values of every column of a nested matrix");
+        Selection.TopKCols streamed = new Selection.TopKCols(300, 20);
+        for (float[] row : rows) {
+            streamed.add(row, 0);
+        }
+        assertArrayEquals(Selection.topKCols(rows, 300, 20), streamed.result(), "Error finding the largest values "
+                + "of every column of a matrix added a row at a time");
+        for (int i = 0; i < 500; i++) {
+            float smallest = rows[i][expected[i][19]];
+            int larger = 0;
+            for (float element : rows[i]) {
+                if (element > smallest) {
+                    larger++;
+                }
+            }
+            assertEquals(19, larger, "Error finding the largest values of row " + i);
+            for (int k = 1; k < 20; k++) {
+                assertTrue(rows[i][expected[i][k - 1]] >= rows[i][expected[i][k]],
+                        "Error sorting the largest values of row " + i);
+            }
+        }
+    }
+
+    private float[][] random(int rows, int cols) {
+        float[][] res = new float[rows][cols];
+        for (float[] row : res) {
+            for (int j = 0; j < cols; j++) {
+                row[j] = random.nextFloat() * 2 - 1;
+            }
+        }
+        return res;
+    }
+
+    private static float[] flatten(float[][] rows) {
+        int cols = rows[0].length;
+        float[] res = new float[rows.length * cols];
+        for (int i = 0; i < rows.length; i++) {
+            System.arraycopy(rows[i], 0, res, i * cols, cols);
+        }
+        return res;
+    }
+}
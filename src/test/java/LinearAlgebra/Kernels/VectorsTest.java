@@ -0,0 +1,86 @@
+package LinearAlgebra.Kernels;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing the kernels in use (SIMD or scalar) against the scalar kernels, for lengths with and
+ * without a remainder after the last full vector, and ranges not starting at index 0.
+ */
+class VectorsTest {
+    private static final float TOLERANCE = 1e-4f;
+    private static final int[] LENGTHS = {0, 1, 3, 4, 7, 8, 15, 16, 17, 33, 64, 67};
+    private final VectorKernels scalar = new VectorKernels();
+    private final Random random = new Random(42);
+
+    @Test
+    void testImplementation() {
+        assertEquals(Vectors.vectorized(), !Vectors.implementation().equals("scalar"),
+                "Error naming implementation");
+    }
+
+    @Test
+    void testDot() {
+        for (int length : LENGTHS) {
+            float[] x = random(length + 2);
+            float[] y = random(length + 3);
+            assertEquals(scalar.dot(x, 2, y, 3, length), Vectors.dot(x, 2, y, 3, length), TOLERANCE,
+                    "Error computing dot product of length " + length);
+        }
+    }
+
+    @Test
+    void testAxpy() {
+        for (int length : LENGTHS) {
+            float[] x = random(length + 1);
+            float[] y = random(length + 2);
+            float[] expected = y.clone();
+            scalar.axpy(0.5f, x, 1, expected, 2, length);
+            Vectors.axpy(0.5f, x, 1, y, 2, length);
+            assertArrayEquals(expected, y, TOLERANCE, "Error computing axpy of length " + length);
+        }
+    }
+
+    @Test
+    void testElementWise() {
+        for (int length : LENGTHS) {
+            float[] a = random(length + 1);
+            float[] b = random(length);
+            float[] expected = new float[length + 2];
+            float[] actual = new float[length + 2];
+            scalar.add(a, 1, b, 0, expected, 2, length);
+            Vectors.add(a, 1, b, 0, actual, 2, length);
+            assertArrayEquals(expected, actual, TOLERANCE, "Error adding arrays of length " + length);
+            scalar.mul(a, 1, b, 0, expected, 2, length);
+            Vectors.mul(a, 1, b, 0, actual, 2, length);
+            assertArrayEquals(expected, actual, TOLERANCE, "Error multiplying arrays of length " + length);
+        }
+    }
+
+    @Test
+    void testEqual() {
+        for (int length : LENGTHS) {
+            float[] a = random(length);
+            float[] b = a.clone();
+            for (int i = 0; i < length; i += 3) {
+                b[i] += 1f;
+            }
+            float[] expected = new float[length];
+            float[] actual = new float[length];
+            scalar.equal(a, 0, b, 0, expected, 0, length, 1e-4f);
+            Vectors.equal(a, 0, b, 0, actual, 0, length, 1e-4f);
+            assertArrayEquals(expected, actual, "Error comparing arrays of length " + length);
+        }
+    }
+
+    private float[] random(int length) {
+        float[] res = new float[length];
+        for (int i = 0; i < length; i++) {
+            res[i] = random.nextFloat() * 2 - 1;
+        }
+        return res;
+    }
+}
@@ -0,0 +1,70 @@
+package LinearAlgebra;
+
+import LinearAlgebra.BLinAlg.BMatrixFactory;
+import LinearAlgebra.FLinAlg.FMatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing the recycling of buffers in MatrixArenas.
+ */
+class MatrixArenaTest {
+
+    @Test
+    void testRecycling() {
+        MatrixArena.Pool pool = new MatrixArena.Pool();
+        float[] flat;
+        float[][] nested;
+        try (MatrixArena arena = pool.open()) {
+            flat = MatrixArena.floats(5);
+            nested = MatrixArena.floats(2, 3);
+            flat[0] = 1f;
+            nested[1][2] = 1f;
+            assertNotSame(flat, MatrixArena.floats(5), "Buffers should not be reused within the same arena");
+        }
+        try (MatrixArena arena = pool.open()) {
+            float[] reused = MatrixArena.floats(5);
+            assertSame(flat, reused, "Flat buffers should be reused by the next arena");
+            assertEquals(0f, reused[0], "Reused buffers should be zeroed");
+            float[][] reusedNested = MatrixArena.floats(2, 3);
+            assertSame(nested, reusedNested, "Nested buffers should be reused by the next arena");
+            assertEquals(0f, reusedNested[1][2], "Reused buffers should be zeroed");
+            assertNotSame(flat, MatrixArena.floats(6), "Buffers should only be reused for the same shape");
+        }
+        assertNotSame(MatrixArena.floats(5), MatrixArena.floats(5), "Buffers should not be reused outside of " +
+                "arenas");
+    }
+
+    @Test
+    void testNesting() {
+        MatrixArena.Pool pool = new MatrixArena.Pool();
+        MatrixArena outer = pool.open();
+        MatrixArena inner = pool.open();
+        assertThrows(MatrixException.class, outer::close, "Closing outer arena before inner should throw");
+        inner.close();
+        outer.close();
+        outer.close();
+    }
+
+    @Test
+    void testKeep() {
+        testKeep(new BMatrixFactory());
+        testKeep(new FMatrixFactory());
+    }
+
+    private void testKeep(MatrixFactory mf) {
+        Matrix a = mf.m("1 2;3 4");
+        Matrix kept;
+        Matrix b;
+        try (MatrixArena arena = mf.arena()) {
+            b = a.add(a);
+            kept = arena.keep(b);
+        }
+        try (MatrixArena arena = mf.arena()) {
+            assertEquals(mf.m("3 6;9 12"), a.mul(3f), "Error computing in reused arena");
+        }
+        assertEquals(mf.m("2 4;6 8"), kept, "Kept matrix should survive the arena");
+        assertEquals(mf.m("1 2;3 4"), a, "Matrix created outside of arena should not be affected");
+    }
+}
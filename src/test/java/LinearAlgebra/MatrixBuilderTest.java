@@ -0,0 +1,84 @@
+package LinearAlgebra;
+
+import LinearAlgebra.BLinAlg.BMatrixFactory;
+import LinearAlgebra.FLinAlg.FMatrixFactory;
+import LinearAlgebra.FLinAlg.LazyMatrixFactory;
+import LinearAlgebra.FLinAlg.SparseMatrixFactory;
+import LinearAlgebra.OffHeap.OffHeapMatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing MatrixBuilders, and the creation of Matrices from flat arrays, with every MatrixFactory.
+ */
+class MatrixBuilderTest {
+    private static final MatrixFactory[] factories = {new BMatrixFactory(), new FMatrixFactory(),
+            new LazyMatrixFactory(), new SparseMatrixFactory(), new OffHeapMatrixFactory()};
+
+    @Test
+    void testFlat() {
+        for (MatrixFactory mf : factories) {
+            assertEquals(mf.m("1 2 3;4 5 6"), mf.m(new float[]{1, 2, 3, 4, 5, 6}, 2, 3),
+                    "Error creating Matrix from flat array with " + mf.getClass().getSimpleName());
+            assertThrows(MatrixException.class, () -> mf.m(new float[]{1, 2, 3}, 2, 2),
+                    "Creating Matrix from array of wrong length should throw");
+        }
+    }
+
+    @Test
+    void testRows() {
+        for (MatrixFactory mf : factories) {
+            Matrix res = mf.rowBuilder(3)
+                    .add(1, 2, 3)
+                    .add(mf.m("4 5 6;7 8 9"))
+                    .add(10, 11, 12)
+                    .build();
+            assertEquals(mf.m("1 2 3;4 5 6;7 8 9;10 11 12"), res,
+                    "Error building Matrix from rows with " + mf.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testCols() {
+        for (MatrixFactory mf : factories) {
+            Matrix res = mf.colBuilder(2)
+                    .add(1, 4)
+                    .add(mf.m("2 3;5 6"))
+                    .build();
+            assertEquals(mf.m("1 2 3;4 5 6"), res,
+                    "Error building Matrix from columns with " + mf.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testGrowth() {
+        MatrixFactory mf = new FMatrixFactory();
+        MatrixBuilder rows = mf.rowBuilder(2);
+        MatrixBuilder cols = mf.colBuilder(2);
+        for (int i = 0; i < 100; i++) {
+            rows.add(i, -i);
+            cols.add(i, -i);
+        }
+        assertEquals(100, rows.size(), "Error counting appended rows");
+        Matrix res = rows.build();
+        assertEquals(res.tran(), cols.build(), "Error building large Matrix from columns");
+        for (int i = 0; i < 100; i++) {
+            assertEquals(mf.m(new float[]{i, -i}, 1, 2), res.row(i), "Error building large Matrix from rows");
+        }
+    }
+
+    @Test
+    void testErrors() {
+        MatrixFactory mf = new BMatrixFactory();
+        MatrixBuilder builder = mf.rowBuilder(2);
+        assertThrows(MatrixException.class, builder::build, "Building Matrix without rows should throw");
+        assertThrows(MatrixException.class, () -> builder.add(1, 2, 3), "Appending row of wrong length should throw");
+        assertThrows(MatrixException.class, () -> builder.add(mf.m("1;2")),
+                "Appending Matrix of wrong size should throw");
+        builder.add(1, 2).build();
+        assertThrows(MatrixException.class, builder::build, "Building Matrix twice should throw");
+        assertThrows(MatrixException.class, () -> builder.add(1, 2), "Appending to built Matrix should throw");
+        assertThrows(MatrixException.class, () -> mf.colBuilder(0), "Creating builder of empty columns should throw");
+    }
+}
@@ -0,0 +1,116 @@
+package LinearAlgebra.OffHeap;
+
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.ReadWrite.BinaryMatrixPrinter;
+import LinearAlgebra.MutableMatrix;
+import Misc.Tuple;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class OffHeapMatrixFactoryTest {
+    static private OffHeapMatrixFactory mf;
+
+    @BeforeAll
+    static void setUp() {
+        mf = new OffHeapMatrixFactory();
+    }
+
+    @Test
+    void testOnes() {
+        Matrix ones = mf.ones(5, 3);
+        assertEquals(new Tuple<>(5, 3), ones.size(), "ones() returning matrix of wrong size");
+        int rows = ones.rows();
+        int cols = ones.cols();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (ones.get(i, j) != 1) {
+                    fail("Matrix of ones containing something else than ones");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testZeroes() {
+        Matrix zeroes = mf.zeroes(4, 10);
+        assertEquals(new Tuple<>(4, 10), zeroes.size(), "zeroes() returning matrix of wrong size");
+        int rows = zeroes.rows();
+        int cols = zeroes.cols();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                if (zeroes.get(i, j) != 0) {
+                    fail("Matrix of zeroes containing something else than zeroes");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testIdentityMatrix() {
+        assertEquals(mf.m("1"), mf.identityMatrix(1),
+                "Error creating 1x1 matrix");
+        assertEquals(mf.m("1 0 0;0 1 0;0 0 1"), mf.identityMatrix(3),
+                "Error creating 3x3 matrix");
+    }
+
+    @Test
+    void testScalar() {
+        Matrix scalar = mf.m("4");
+        assertEquals(scalar, mf.s(4f), "Error creating a scalar");
+        assertEquals(1, scalar.rows(), "Number of rows of a scalar should be one");
+        assertEquals(1, scalar.cols(), "Number of columns of a scalar should be one");
+    }
+
+    @Test
+    void testFromNestedArray() {
+        assertEquals(mf.m("1 2 3;4 5 6"), mf.m(new float[][]{new float[]{1f, 2f, 3f}, new float[]{4f, 5f, 6f}}),
+                "Error creating matrix from nested array");
+    }
+
+    @Test
+    void testFromBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(7 * Float.BYTES);
+        buffer.putFloat(-1f);
+        for (int i = 1; i <= 6; i++) {
+            buffer.putFloat(i);
+        }
+        buffer.position(Float.BYTES);
+        Matrix matrix = mf.m(buffer, 2, 3);
+        assertEquals(mf.m("1 2 3;4 5 6"), matrix, "Error creating matrix from buffer");
+        buffer.putFloat(4 * Float.BYTES, 10f);
+        assertEquals(10f, matrix.get(1, 0), "Matrix created from buffer should share the buffer");
+        assertThrows(MatrixException.class, () -> mf.m(buffer, 3, 3), "Not throwing exception when creating " +
+                "matrix from too small buffer");
+    }
+
+    @Test
+    void testMutable() {
+        MutableMatrix mutable = mf.mutable(2, 3);
+        assertEquals(mf.zeroes(2, 3), mutable, "mutable() should return a matrix of only zeroes");
+        mutable.set(1, 2, 4f);
+        assertEquals(mf.m("0 0 0;0 0 4"), mutable, "Error setting element of mutable matrix");
+    }
+
+    @Test
+    void testMap() {
+        OffHeapMatrixFactory arena = new OffHeapMatrixFactory(' ', ';', 4);
+        Matrix matrix = arena.m("1 2 3;4 5 6;7 8 9;10 11 12;13 14 15");
+        new BinaryMatrixPrinter().print(matrix, "matrix.bin");
+        OffHeapMatrix mapped = arena.map("matrix.bin");
+        assertEquals(matrix, mapped, "Error mapping binary matrix file");
+        assertEquals(5, mapped.chunks.length, "Mapped matrix should be split into chunks");
+        assertEquals(matrix.tmul(matrix), mapped.tmul(mapped), "Error multiplying mapped matrix");
+        arena.close();
+        assertThrows(MatrixException.class, () -> mapped.get(0, 0), "Not throwing exception when reading " +
+                "mapped matrix of closed factory");
+        new File("matrix.bin").delete();
+    }
+}
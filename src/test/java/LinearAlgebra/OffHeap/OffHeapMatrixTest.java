@@ -0,0 +1,99 @@
+package LinearAlgebra.OffHeap;
+
+import LinearAlgebra.BLinAlg.BMatrixFactory;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit 5 class for testing the OffHeapMatrix class. The factory uses tiny chunks, so that
+ * every operation has to handle Matrices spanning several chunks.
+ */
+class OffHeapMatrixTest extends MatrixTest {
+    OffHeapMatrixTest() {
+        super(new OffHeapMatrixFactory(' ', ';', 4));
+    }
+
+    @Test
+    void testChunks() {
+        OffHeapMatrix matrix = (OffHeapMatrix) fbt;
+        assertEquals(5, matrix.chunks.length, "Matrix should be stored in one chunk per row");
+        OffHeapMatrix single = (OffHeapMatrix) new OffHeapMatrixFactory().m("5 2 1;5 1 4;9 9 10;4 1 -100;-1 20 20");
+        assertEquals(1, single.chunks.length, "Small matrix should be stored in one chunk");
+        assertEquals(single.toString(), fbt.toString(), "Error storing matrix in chunks");
+        assertEquals(single.tmul(single).toString(), fbt.tmul(fbt).toString(),
+                "Error multiplying matrices stored in chunks");
+    }
+
+    @Test
+    void testClose() {
+        OffHeapMatrixFactory arena = new OffHeapMatrixFactory();
+        Matrix matrix = arena.m("1 2;3 4");
+        Matrix product = matrix.mul(matrix);
+        assertEquals(arena.m("7 10;15 22"), product, "Error multiplying before closing");
+        arena.close();
+        assertTrue(arena.isClosed(), "Factory should be closed after closing it");
+        assertThrows(MatrixException.class, () -> matrix.get(0, 0), "Not throwing exception when reading " +
+                "matrix of closed factory");
+        assertThrows(MatrixException.class, () -> product.add(1f), "Not throwing exception when computing " +
+                "with matrix of closed factory");
+        assertThrows(MatrixException.class, () -> arena.zeroes(2, 2), "Not throwing exception when creating " +
+                "matrix with closed factory");
+        arena.close();
+    }
+
+    @Test
+    void testCloseWhileInUse() {
+        OffHeapMatrixFactory arena = new OffHeapMatrixFactory(' ', ';', 4);
+        OffHeapMatrix matrix = arena.m("1 2;3 4");
+        arena.acquire();
+        arena.close();
+        assertTrue(arena.isClosed(), "Factory in use should be closed after closing it");
+        assertThrows(MatrixException.class, () -> matrix.get(0, 0), "Not throwing exception when reading " +
+                "matrix of closed factory in use");
+        assertEquals(3f, matrix.chunks[0].get(2), "Memory in use should not be freed when closing");
+        arena.release();
+    }
+
+    @Test
+    void testCloseDuringProducts() throws InterruptedException {
+        OffHeapMatrixFactory arena = new OffHeapMatrixFactory();
+        Matrix matrix = arena.ones(200, 200);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<RuntimeException> thrown = new AtomicReference<>();
+        Thread multiplying = new Thread(() -> {
+            try {
+                while (true) {
+                    matrix.mul(matrix);
+                    started.countDown();
+                }
+            } catch (RuntimeException ex) {
+                thrown.set(ex);
+            }
+        });
+        multiplying.start();
+        started.await();
+        arena.close();
+        multiplying.join();
+        assertTrue(thrown.get() instanceof MatrixException, "Closing factory during products should make them " +
+                "throw exception");
+    }
+
+    @Test
+    void testOtherImplementations() {
+        Matrix other = new BMatrixFactory(' ', ';').m("5 2 4;3 4 5;-800 0 -1");
+        assertEquals(tbt2, other, "Matrices with the same elements should be equal, whatever their implementation");
+        assertEquals(tbt1.add(tbt2), tbt1.add(other), "Error adding BMatrix");
+        assertEquals(tbt1.mulew(tbt2), tbt1.mulew(other), "Error multiplying BMatrix element-wise");
+        assertEquals(tbt1.conch(tbt2), tbt1.conch(other), "Error concatenating BMatrix");
+        assertEquals(tbt1.mul(tbt2), tbt1.mul(other), "Error multiplying with BMatrix");
+        assertEquals(tbt1.tmul(tbt2), tbt1.tmul(other), "Error multiplying transpose with BMatrix");
+        assertEquals(tbt1.mult(tbt2), tbt1.mult(other), "Error multiplying with transposed BMatrix");
+    }
+}
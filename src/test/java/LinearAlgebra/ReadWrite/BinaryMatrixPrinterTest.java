@@ -0,0 +1,65 @@
+package LinearAlgebra.ReadWrite;
+
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.OffHeap.OffHeapMatrixFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryMatrixPrinterTest {
+    private static final BinaryMatrixPrinter matrixPrinter = new BinaryMatrixPrinter();
+    private static final OffHeapMatrixFactory mf = new OffHeapMatrixFactory(' ', ';');
+    private static Matrix matrix;
+
+    @BeforeAll
+    static void setUp() {
+        matrix = mf.m("1 2 3;4 5 6;7 8 9;-1 -2 -3");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mf.close();
+        new File("matrix.bin").delete();
+        new File("matrix.txt").delete();
+    }
+
+    @Test
+    void testPrint() throws IOException {
+        matrixPrinter.print(matrix, "matrix.bin");
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(Paths.get("matrix.bin")))
+                .order(BinaryMatrixPrinter.BYTE_ORDER);
+        assertEquals(BinaryMatrixPrinter.HEADER_SIZE + 12 * Float.BYTES, file.capacity(),
+                "Printed file has wrong size");
+        assertEquals(BinaryMatrixPrinter.MAGIC, file.getInt(), "Printed file does not start with the magic number");
+        assertEquals(BinaryMatrixPrinter.VERSION, file.getInt(), "Printed file has wrong version");
+        assertEquals(4, file.getInt(), "Printed file has wrong number of rows");
+        assertEquals(3, file.getInt(), "Printed file has wrong number of columns");
+        assertEquals(matrix, mf.map("matrix.bin"), "Mapped matrix is not equal to printed matrix");
+    }
+
+    @Test
+    void testConvert() {
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(
+                        new FileOutputStream("matrix.txt"),
+                        StandardCharsets.UTF_8))) {
+            writer.write(matrix.toString());
+        } catch (IOException ex) {
+            throw new RuntimeException(ex.getMessage());
+        }
+        matrixPrinter.convert("matrix.txt", ' ', "matrix.bin");
+        assertEquals(matrix, mf.map("matrix.bin"), "Error converting text file to binary matrix file");
+        assertThrows(MatrixException.class, () -> mf.map("matrix.txt"), "Not throwing exception when mapping " +
+                "text file");
+    }
+}
@@ -70,10 +70,46 @@ class LinearRegressionTest {
                 " training");
     }
 
+    @Test
+    void testFit() {
+        setUpCase1();
+        linReg.fit();
+        assertEquals(mf.zeroes(4, 1), linReg.gradient(), "Gradient should be zero after fitting");
+        assertEquals(1, linReg.getCostHistory().size(), "Cost history should only contain the cost after fitting");
+        float cost = linReg.cost();
+        linReg.train(100);
+        assertTrue(cost <= linReg.cost(), "Gradient descent should not improve on the least squares solution");
+
+        setUpCase2();
+        linReg.fit();
+        assertTrue(mf.zeroes(7, 1).equals(linReg.gradient(), 1e-2f), "Gradient should be zero after fitting with "
+                + "regularization");
+    }
+
+    @Test
+    void testFitMatchesTrain() {
+        X = mf.m("0 4 1;1 3 4;10 1 2;1 0 3;8 10 0;1 40 1");
+        y = mf.m("42;38.5;19;6.5;104;402.5");
+        linReg = new LinearRegression(X, y, 1, 0.003f, 3f, mf);
+        linReg.train(20000);
+        Matrix trained = linReg.getTheta();
+        linReg.fit();
+        Matrix fitted = linReg.getTheta();
+        assertTrue(trained.equals(fitted, 1e-2f), "Fitting should find the parameters gradient descent converges to "
+                + "with regularization");
+        float cost = linReg.cost();
+        for (int i = 0; i < 4; i++) {
+            for (float step : new float[] {-0.1f, 0.1f}) {
+                linReg.setTheta(fitted.add(mf.mutable(4, 1).set(i, 0, step)));
+                assertTrue(cost <= linReg.cost(), "The fitted parameters should minimize the regularized cost");
+            }
+        }
+    }
+
     @Test
     void testRegularization() {
         setUpCase2();
-        assertEquals(4077.0732421875, linReg.cost(), "Wrong cost before training when using regularization");
+        assertEquals(4077.07373046875, linReg.cost(), "Wrong cost before training when using regularization");
         assertTrue(mf.m("66.7;1579.5;-2002.08;435.6;224.7;359.5;87.4").equals(linReg.gradient(), 1f),
                 "Wrong gradient before training using regularization");
         linReg.train(1);
@@ -1,6 +1,7 @@
 package MachineLearning;
 
 import LinearAlgebra.BLinAlg.BMatrixFactory;
+import LinearAlgebra.FLinAlg.SparseMatrixFactory;
 import LinearAlgebra.Matrix;
 import LinearAlgebra.MatrixFactory;
 import LinearAlgebra.ReadWrite.BFNAReader;
@@ -8,6 +9,8 @@ import LinearAlgebra.ReadWrite.FNAReader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -59,4 +62,30 @@ class LogisticRegressionTest {
         logReg.train(100);
         assertEquals(logReg.getBinaryPredictions(), logReg.predictBinary(X), "Error predicting design matrix");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCostHistory() {
+        logReg = new LogisticRegression(X, y, 6, 1f, 0f, mf);
+        logReg.train(20);
+        List<Float> costHistory = logReg.getCostHistory();
+        assertEquals(20, costHistory.size(), "Error recording cost history");
+        for (int i = 1; i < costHistory.size(); i++) {
+            assertTrue(costHistory.get(i) < costHistory.get(i - 1), "Cost should decrease during every iteration");
+        }
+        assertEquals(logReg.cost(), costHistory.get(19), 1e-6f, "Error recording cost of last iteration");
+    }
+
+    @Test
+    void testSparseTrainingSet() {
+        MatrixFactory smf = new SparseMatrixFactory();
+        Matrix D = smf.m(rdr.r("src/test/resources/LogisticRegression/ex2data2.txt", 118, 3));
+        LogisticRegression sparseLogReg = new LogisticRegression(D.colr(0, 1), D.col(2), 1, 1f, 1f, smf);
+        LogisticRegression denseLogReg = new LogisticRegression(X, y, 1, 1f, 1f, mf);
+        sparseLogReg.train(100);
+        denseLogReg.train(100);
+        assertEquals(denseLogReg.cost(), sparseLogReg.cost(), 1e-5f, "Sparse training set should give the same " +
+                "cost as a dense one");
+        assertEquals(denseLogReg.getAccuracy(), sparseLogReg.getAccuracy(), "Sparse training set should give " +
+                "the same accuracy as a dense one");
+    }
+}
@@ -0,0 +1,46 @@
+package Misc;
+
+import LinearAlgebra.BLinAlg.BMatrixFactory;
+import LinearAlgebra.Matrix;
+import LinearAlgebra.MatrixException;
+import LinearAlgebra.MatrixFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PCATest {
+    private static MatrixFactory mf = new BMatrixFactory();
+
+    @Test
+    void testProject() {
+        Matrix X = mf.m("1 2 3;2 4 6;3 6 9;4 8 12");
+        PCA pca = new PCA(X, 1);
+        Matrix projected = pca.project(X);
+        assertEquals(4, projected.rows(), "Error projecting 4x3 matrix, wrong number of rows");
+        assertEquals(1, projected.cols(), "Error projecting 4x3 matrix onto one component");
+        assertEquals(mf.m("2.5 5 7.5"), pca.getMean(), "Error finding the mean of 4x3 matrix");
+        assertEquals(1f, pca.explainedVariance(), 1e-5f, "One component should explain all variance of rank 1 "
+                + "matrix");
+        assertEquals(X, pca.reconstruct(projected), "Error reconstructing 4x3 matrix of rank 1");
+        assertEquals(projected, PCA.project(X, 1), "Error projecting with static method");
+        Matrix component = pca.getComponents();
+        assertEquals(mf.m("1;2;3").div((float) Math.sqrt(14)), component.mul(Math.signum(component.get(0, 0))),
+                "Error finding principal component of 4x3 matrix");
+    }
+
+    @Test
+    void testVariances() {
+        Matrix X = mf.m("-2 0.1;-1 -0.1;0 0.1;1 -0.1;2 0");
+        PCA pca = new PCA(X, 2);
+        float[] variances = pca.getVariances();
+        assertEquals(2.5f, variances[0], 1e-2f, "Error finding variance along first principal component");
+        assertTrue(variances[1] < 0.02f, "Error finding variance along second principal component");
+        assertEquals(mf.identityMatrix(2), pca.getComponents().tmul(pca.getComponents()), "Principal components "
+                + "should be orthonormal");
+        assertTrue(new PCA(X, 1).explainedVariance() > 0.99f, "First component should explain most variance");
+        assertThrows(MatrixException.class, () -> new PCA(X, 3), "Keeping more components than features should "
+                + "throw an exception");
+        assertThrows(MatrixException.class, () -> pca.project(mf.m("1 2 3")), "Projecting examples with the wrong "
+                + "number of features should throw an exception");
+    }
+}